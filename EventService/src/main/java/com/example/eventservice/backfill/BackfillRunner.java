@@ -0,0 +1,192 @@
+package com.example.eventservice.backfill;
+
+import com.example.eventservice.dto.EventRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads historical events from a file of JSON lines (one {@code POST /events} body per
+ * line) without going through the API.
+ *
+ * Runs instead of the web application under the {@code backfill} profile. The file is
+ * read in chunks of {@code ledger.backfill.chunk-size} lines, each streamed with binary
+ * COPY into a staging table and merged into events by {@link BackfillTables} in one
+ * transaction. Merged events are then either published to transactions.raw, as the
+ * API would, or with {@code ledger.backfill.publish=false} inserted straight into
+ * ledger_entries. The second is much faster but bypasses Kafka, so a later ledger
+ * rebuild will not see them.
+ *
+ * Completed chunks are recorded, so running the same command again after a failure
+ * resumes with the first unfinished chunk. Invalid lines are logged and skipped.
+ */
+@Component
+@Profile("backfill")
+public class BackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillRunner.class);
+
+    private final DataSource dataSource;
+    private final BackfillTables tables;
+    private final KafkaTemplate<String, EventRequest> kafkaTemplate;
+    private final EventLineParser parser;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final String source;
+    private final int chunkSize;
+    private final boolean publish;
+
+    public BackfillRunner(DataSource dataSource,
+                          BackfillTables tables,
+                          KafkaTemplate<String, EventRequest> kafkaTemplate,
+                          ObjectMapper objectMapper,
+                          Validator validator,
+                          ConfigurableApplicationContext context,
+                          @Value("${ledger.backfill.file}") Path file,
+                          @Value("${ledger.backfill.source:}") String source,
+                          @Value("${ledger.backfill.chunk-size:100000}") int chunkSize,
+                          @Value("${ledger.backfill.publish:true}") boolean publish) {
+        this.dataSource = dataSource;
+        this.tables = tables;
+        this.kafkaTemplate = kafkaTemplate;
+        this.parser = new EventLineParser(objectMapper, validator);
+        this.context = context;
+        this.file = file;
+        this.source = source.isBlank() ? file.toAbsolutePath().normalize().toString() : source;
+        this.chunkSize = chunkSize;
+        this.publish = publish;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long began = System.nanoTime();
+        long lines = 0;
+        long merged = 0;
+        long skipped = 0;
+
+        try (Connection connection = dataSource.getConnection();
+             BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long resumeAt = tables.lastCompletedChunk(connection, source, chunkSize) + 1;
+            logger.info("Backfilling {} in chunks of {} lines{}, {}", source, chunkSize,
+                    resumeAt > 0 ? " from chunk " + resumeAt : "",
+                    publish ? "publishing to transactions.raw" : "writing ledger_entries directly");
+            for (long line = 0; line < resumeAt * chunkSize; line++) {
+                if (reader.readLine() == null) {
+                    logger.info("All chunks of {} were already loaded", source);
+                    exit();
+                    return;
+                }
+            }
+
+            tables.createStaging(connection);
+            connection.setAutoCommit(false);
+            try {
+                for (long chunk = resumeAt; ; chunk++) {
+                    ChunkResult result = loadChunk(connection, reader, chunk);
+                    if (result.lines() == 0) {
+                        break;
+                    }
+                    lines += result.lines();
+                    merged += result.merged();
+                    skipped += result.skipped();
+                    if (result.lines() < chunkSize) {
+                        break;
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                tables.dropStaging(connection);
+            }
+        }
+
+        long millis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began), 1);
+        logger.info("Backfill complete in {}s: {} lines, {} events merged, {} duplicates, {} invalid lines skipped ({} million lines/min)",
+                millis / 1000, lines, merged, lines - merged - skipped, skipped,
+                String.format("%.2f", lines * 60_000.0 / millis / 1_000_000));
+        exit();
+    }
+
+    private record ChunkResult(int lines, int merged, int skipped) {
+    }
+
+    private ChunkResult loadChunk(Connection connection, BufferedReader reader, long chunk) throws Exception {
+        long started = System.nanoTime();
+        long firstLine = chunk * chunkSize;
+        int lines = 0;
+        int skipped = 0;
+        try (BinaryCopyWriter writer = tables.copyIntoStaging(connection)) {
+            String text;
+            while (lines < chunkSize && (text = reader.readLine()) != null) {
+                long line = firstLine + lines++;
+                if (text.isBlank()) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    BackfillTables.writeRow(writer, line, parser.parse(text));
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                    logger.warn("Skipping line {} of {}: {}", line + 1, source, e.getMessage());
+                }
+            }
+        }
+        if (lines == 0) {
+            connection.rollback();
+            return new ChunkResult(0, 0, 0);
+        }
+        long copied = System.nanoTime();
+
+        BackfillTables.Merge merge = tables.merge(connection, publish);
+        tables.recordChunk(connection, source, chunk, chunkSize, lines, skipped, merge);
+        if (publish) {
+            publish(merge.published());
+        }
+        connection.commit();
+
+        long done = System.nanoTime();
+        logger.info("Chunk {} (lines {}-{}): {} merged, {} skipped in {} ms (copy {} ms, merge {} ms)", chunk,
+                firstLine + 1, firstLine + lines, merge.merged(), skipped, TimeUnit.NANOSECONDS.toMillis(done - started),
+                TimeUnit.NANOSECONDS.toMillis(copied - started), TimeUnit.NANOSECONDS.toMillis(done - copied));
+        return new ChunkResult(lines, merge.merged(), skipped);
+    }
+
+    /**
+     * Sends the chunk's events and waits for every ack before the chunk commits. If a
+     * send fails the chunk is rolled back and merged and sent again on the next run; the
+     * shadow ledger drops the copies it already has by event id.
+     */
+    private void publish(List<EventRequest> events) {
+        List<CompletableFuture<SendResult<String, EventRequest>>> acks = new ArrayList<>(events.size());
+        for (EventRequest event : events) {
+            acks.add(kafkaTemplate.send("transactions.raw", event.getAccountId(), event));
+        }
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void exit() {
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
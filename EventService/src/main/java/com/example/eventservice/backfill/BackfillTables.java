@@ -0,0 +1,192 @@
+package com.example.eventservice.backfill;
+
+import com.example.eventservice.dto.EventRequest;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL for one backfill chunk, all on the caller's connection and in its transaction.
+ *
+ * Lines are COPYed into a temporary staging table that empties itself on commit or
+ * rollback. They are then merged into events in one statement. Event ids already
+ * stored, or repeated within the chunk, are skipped. Each account's new events are
+ * numbered after its highest stored sequence, in timestamp order. The chunk is
+ * recorded in events_backfill_progress in the same transaction, so a chunk is either
+ * fully merged and recorded or not at all.
+ */
+@Component
+@Profile("backfill")
+public class BackfillTables {
+
+    static final String STAGING = "events_backfill_stage";
+    static final int COLUMNS = 6;
+    static final String WORK_MEM = "32MB";
+
+    static final String CREATE_STAGING = "CREATE TEMPORARY TABLE IF NOT EXISTS " + STAGING
+            + " (line BIGINT, event_id TEXT, account_id TEXT, type TEXT, amount NUMERIC, timestamp BIGINT)"
+            + " ON COMMIT DELETE ROWS";
+
+    static final String COPY_SQL = "COPY " + STAGING
+            + " (line, event_id, account_id, type, amount, timestamp) FROM STDIN WITH (FORMAT binary)";
+
+    static final String MERGE_EVENTS = """
+        WITH batch AS (
+            SELECT DISTINCT ON (event_id) event_id, account_id, type, amount, timestamp
+            FROM events_backfill_stage
+            ORDER BY event_id, line
+        ),
+        fresh AS (
+            SELECT b.* FROM batch b
+            WHERE NOT EXISTS (SELECT 1 FROM events e WHERE e.event_id = b.event_id)
+        ),
+        merged AS (
+            INSERT INTO events (event_id, account_id, type, amount, timestamp, sequence)
+            SELECT f.event_id, f.account_id, f.type, f.amount, f.timestamp,
+                   (SELECT COALESCE(MAX(e.sequence), 0) FROM events e WHERE e.account_id = f.account_id)
+                     + row_number() OVER (PARTITION BY f.account_id ORDER BY f.timestamp, f.event_id)
+            FROM fresh f
+            ON CONFLICT (event_id) DO NOTHING
+            RETURNING event_id, account_id, type, amount, timestamp, sequence
+        )
+        """;
+
+    /** Merged events, for publishing in per-account sequence order. */
+    static final String MERGE_RETURNING_EVENTS = MERGE_EVENTS
+            + "SELECT * FROM merged ORDER BY account_id, sequence";
+
+    /**
+     * Also writes the merged events straight into the shadow ledger, for backfills that
+     * are not published.
+     */
+    static final String MERGE_INTO_LEDGER = MERGE_EVENTS + """
+        , ledger AS (
+            INSERT INTO ledger_entries (event_id, account_id, type, amount, timestamp, sequence, created_at)
+            SELECT event_id, account_id, upper(type), amount,
+                   timestamptz 'epoch' + timestamp * interval '1 millisecond', sequence, now()
+            FROM merged
+            ON CONFLICT (event_id) DO NOTHING
+            RETURNING 1
+        )
+        SELECT (SELECT count(*) FROM merged), (SELECT count(*) FROM ledger)
+        """;
+
+    static final String LAST_CHUNK = """
+        SELECT chunk, chunk_size FROM events_backfill_progress
+        WHERE source = ? ORDER BY chunk DESC LIMIT 1
+        """;
+
+    static final String RECORD_CHUNK = """
+        INSERT INTO events_backfill_progress (source, chunk, chunk_size, lines, skipped, merged, ledger_entries)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /**
+     * Result of merging one chunk. {@code published} holds the merged events when they
+     * are to be published, and is empty otherwise.
+     */
+    public record Merge(int merged, int ledgerEntries, List<EventRequest> published) {
+    }
+
+    /**
+     * The highest chunk already recorded for {@code source}, or -1. Fails if it was
+     * written with a different chunk size, since chunk numbers would then refer to
+     * other lines.
+     */
+    public long lastCompletedChunk(Connection connection, String source, int chunkSize) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LAST_CHUNK)) {
+            statement.setString(1, source);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                if (rs.getInt("chunk_size") != chunkSize) {
+                    throw new IllegalStateException("Backfill of " + source + " was started with chunk size "
+                            + rs.getInt("chunk_size") + "; resume it with the same chunk size");
+                }
+                return rs.getLong("chunk");
+            }
+        }
+    }
+
+    public void createStaging(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+        }
+    }
+
+    public void dropStaging(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + STAGING);
+        }
+    }
+
+    public BinaryCopyWriter copyIntoStaging(Connection connection) throws SQLException, IOException {
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        return new BinaryCopyWriter(new PGCopyOutputStream(pg.getCopyAPI().copyIn(COPY_SQL), 1 << 16));
+    }
+
+    public static void writeRow(BinaryCopyWriter writer, long line, EventRequest event) throws IOException {
+        writer.startRow(COLUMNS);
+        writer.writeLong(line);
+        writer.writeText(event.getEventId());
+        writer.writeText(event.getAccountId());
+        writer.writeText(event.getType());
+        writer.writeNumeric(event.getAmount());
+        writer.writeLong(event.getTimestamp());
+    }
+
+    public Merge merge(Connection connection, boolean publish) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // The planner has no statistics for a temporary table otherwise
+            statement.execute("ANALYZE " + STAGING);
+            // Enough for the chunk's sorts, but too little to hash all of events: checking
+            // a chunk's event ids through the index stays cheap however large events grows
+            statement.execute("SET LOCAL work_mem = '" + WORK_MEM + "'");
+            if (!publish) {
+                try (ResultSet rs = statement.executeQuery(MERGE_INTO_LEDGER)) {
+                    rs.next();
+                    return new Merge(rs.getInt(1), rs.getInt(2), List.of());
+                }
+            }
+            List<EventRequest> merged = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(MERGE_RETURNING_EVENTS)) {
+                while (rs.next()) {
+                    EventRequest event = new EventRequest();
+                    event.setEventId(rs.getString("event_id"));
+                    event.setAccountId(rs.getString("account_id"));
+                    event.setType(rs.getString("type"));
+                    event.setAmount(rs.getBigDecimal("amount"));
+                    event.setTimestamp(rs.getLong("timestamp"));
+                    event.setSequence(rs.getLong("sequence"));
+                    merged.add(event);
+                }
+            }
+            return new Merge(merged.size(), 0, merged);
+        }
+    }
+
+    public void recordChunk(Connection connection, String source, long chunk, int chunkSize,
+                            int lines, int skipped, Merge merge) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RECORD_CHUNK)) {
+            statement.setString(1, source);
+            statement.setLong(2, chunk);
+            statement.setInt(3, chunkSize);
+            statement.setInt(4, lines);
+            statement.setInt(5, skipped);
+            statement.setInt(6, merge.merged());
+            statement.setInt(7, merge.ledgerEntries());
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.eventservice.backfill;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes rows in PostgreSQL's binary COPY format to a stream, usually a
+ * {@code PGCopyOutputStream}. Values are sent in each column's binary wire format, so
+ * the server stores them without parsing any text. Only the types the staging table
+ * uses are supported: bigint, text and numeric.
+ *
+ * Not thread-safe. {@link #close()} writes the trailer and closes the stream, which
+ * ends the COPY.
+ */
+public class BinaryCopyWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int NUMERIC_POSITIVE = 0x0000;
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+
+    private final DataOutputStream out;
+    private long rows;
+
+    public BinaryCopyWriter(OutputStream target) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+    }
+
+    public void startRow(int columns) throws IOException {
+        out.writeShort(columns);
+        rows++;
+    }
+
+    public void writeLong(long value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    public void writeText(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Numeric as sign, display scale and base-10000 digits, the first of which is
+     * {@code 10000^weight}.
+     */
+    public void writeNumeric(BigDecimal value) throws IOException {
+        int scale = Math.max(value.scale(), 0);
+        String plain = value.abs().setScale(scale).toPlainString();
+        int point = plain.indexOf('.');
+        String whole = point < 0 ? plain : plain.substring(0, point);
+        String fraction = point < 0 ? "" : plain.substring(point + 1);
+        whole = "0".repeat((4 - whole.length() % 4) % 4) + whole;
+        fraction = fraction + "0".repeat((4 - fraction.length() % 4) % 4);
+
+        String digits = whole + fraction;
+        int first = 0;
+        int end = digits.length() / 4;
+        int weight = whole.length() / 4 - 1;
+        while (first < end && group(digits, first) == 0) {
+            first++;
+            weight--;
+        }
+        while (end > first && group(digits, end - 1) == 0) {
+            end--;
+        }
+        if (first == end) {
+            weight = 0;
+        }
+
+        out.writeInt(8 + 2 * (end - first));
+        out.writeShort(end - first);
+        out.writeShort(weight);
+        out.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+        out.writeShort(scale);
+        for (int i = first; i < end; i++) {
+            out.writeShort(group(digits, i));
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeShort(-1);
+        out.close();
+    }
+
+    private static int group(String digits, int index) {
+        return Integer.parseInt(digits, index * 4, index * 4 + 4, 10);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.eventservice.backfill;
+
+import com.example.eventservice.dto.EventRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads one line of a backfill file: an event in the JSON accepted by
+ * {@code POST /events}, checked against the same constraints. Ids must also fit the
+ * shadow ledger's columns, which are narrower than those of the events table.
+ */
+public class EventLineParser {
+
+    static final int MAX_EVENT_ID_LENGTH = 100;
+    static final int MAX_ACCOUNT_ID_LENGTH = 50;
+
+    private final ObjectReader reader;
+    private final Validator validator;
+
+    public EventLineParser(ObjectMapper objectMapper, Validator validator) {
+        this.reader = objectMapper.readerFor(EventRequest.class);
+        this.validator = validator;
+    }
+
+    /**
+     * @throws IllegalArgumentException with the reason if the line is not a valid event
+     */
+    public EventRequest parse(String line) {
+        EventRequest event;
+        try {
+            event = reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("not an event: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<EventRequest>> violations = validator.validate(event);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        if (event.getType() == null) {
+            throw new IllegalArgumentException("type must be credit or debit");
+        }
+        if (event.getAmount() == null) {
+            throw new IllegalArgumentException("amount is missing");
+        }
+        if (event.getEventId().length() > MAX_EVENT_ID_LENGTH) {
+            throw new IllegalArgumentException("eventId longer than " + MAX_EVENT_ID_LENGTH + " characters");
+        }
+        if (event.getAccountId().length() > MAX_ACCOUNT_ID_LENGTH) {
+            throw new IllegalArgumentException("accountId longer than " + MAX_ACCOUNT_ID_LENGTH + " characters");
+        }
+        return event;
+    }
+}
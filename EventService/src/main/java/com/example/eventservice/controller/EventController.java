@@ -1,20 +1,30 @@
 package com.example.eventservice.controller;
 
 import com.example.eventservice.dto.EventRequest;
+import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.kafka.PublishWindow;
 import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.sequence.SequenceAllocator;
 
 import jakarta.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/events")
 public class EventController {
@@ -22,26 +32,60 @@ public class EventController {
     private static final Logger logger = LoggerFactory.getLogger(EventController.class);
     private final EventRepository repository;
     private final KafkaTemplate<String, EventRequest> kafkaTemplate;
+    private final SequenceAllocator sequenceAllocator;
+    private final PublishWindow publishWindow;
 
     public EventController(EventRepository repository,
-                           KafkaTemplate<String, EventRequest> kafkaTemplate) {
+                           KafkaTemplate<String, EventRequest> kafkaTemplate,
+                           SequenceAllocator sequenceAllocator,
+                           PublishWindow publishWindow) {
         this.repository = repository;
         this.kafkaTemplate = kafkaTemplate;
+        this.sequenceAllocator = sequenceAllocator;
+        this.publishWindow = publishWindow;
     }
 
+    /**
+     * Responds 201 once the broker has acknowledged the event. The request thread is
+     * released while waiting for the ack; failures are mapped by GlobalExceptionHandler.
+     *
+     * The event is stored before it is sent, so one answered 503 may be stored without
+     * having reached Kafka. A repeated eventId is therefore published again, with the
+     * sequence it was stored under, and answered 409 once that send is acknowledged.
+     * The shadow ledger drops the copy if it has the event already.
+     */
     @PostMapping
-    public ResponseEntity<?> createEvent(@Valid @RequestBody EventRequest request) {
+    public CompletableFuture<ResponseEntity<?>> createEvent(@Valid @RequestBody EventRequest request) {
         logger.info("Received event: {}", request);
-        if (repository.existsByEventId(request.getEventId())) {
+        Optional<EventEntity> stored = repository.findByEventId(request.getEventId());
+        if (stored.isPresent()) {
             logger.warn("Duplicate eventId: {}", request.getEventId());
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body("Duplicate eventId");
+            return republish(EventRequest.fromEntity(stored.get()));
         }
-        repository.save(request.toEntity());
-        logger.info("Event saved: {}", request.getEventId());
-        kafkaTemplate.send("transactions.raw",
-                request.getAccountId(), request);
-        logger.info("Event sent to Kafka topic: transactions.raw, key: {}", request.getAccountId());
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        return publishWindow.submit(() -> sequenceAllocator.append(request.getAccountId(), sequence -> {
+                    request.setSequence(sequence);
+                    repository.save(request.toEntity());
+                    logger.info("Event saved: {} (sequence {})", request.getEventId(), sequence);
+                    return kafkaTemplate.send("transactions.raw",
+                            request.getAccountId(), request);
+                }))
+                .thenApply(result -> {
+                    logger.info("Event {} acknowledged on transactions.raw, key: {}",
+                            request.getEventId(), request.getAccountId());
+                    return ResponseEntity.status(HttpStatus.CREATED).build();
+                });
+    }
+
+    private CompletableFuture<ResponseEntity<?>> republish(EventRequest stored) {
+        return publishWindow.submit(() -> kafkaTemplate.send("transactions.raw", stored.getAccountId(), stored))
+                .thenApply(result -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Duplicate eventId"));
+    }
+
+    @GetMapping
+    public List<EventEntity> recentEvents(@RequestParam String accountId,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        return repository.findByAccountIdOrderByTimestampDesc(accountId,
+                PageRequest.of(0, Math.min(Math.max(limit, 1), 100)));
     }
 }
@@ -0,0 +1,82 @@
+package com.example.eventservice.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, which
+ * on JDK 21 happens inside {@code synchronized} blocks and native frames. A pinned
+ * thread holds a carrier for the whole wait, so a pinning hot spot quietly turns
+ * virtual threads back into a small platform thread pool.
+ *
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event, counts it in
+ * {@code jvm.threads.virtual.pinned} and logs the stack once per call site. The site
+ * is the first non-JDK frame, which is where the thread parked; the frame that pins
+ * it, a {@code synchronized} method or block, is further down, so the whole recorded
+ * stack is logged. Only active with {@code spring.threads.virtual.enabled=true}.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private final Counter pinned;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${ledger.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to a carrier thread")
+                .register(meterRegistry);
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::format)
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun."))
+                .findFirst()
+                .orElse("unknown");
+        if (reportedSites.add(site)) {
+            logger.warn("Virtual thread pinned for {}ms, parked at {}; the synchronized frame holding it is below:\n\t{}",
+                    event.getDuration().toMillis(), site,
+                    frames.stream().map(VirtualThreadPinningMonitor::format)
+                            .collect(Collectors.joining("\n\t")));
+        } else {
+            logger.debug("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void close() {
+        stream.close();
+    }
+}
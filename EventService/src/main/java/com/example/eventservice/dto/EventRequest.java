@@ -26,6 +26,9 @@ public class EventRequest {
     @NotNull
     private Long timestamp;
 
+    // Assigned by the service at ingest; any value sent by the client is replaced
+    private Long sequence;
+
     public EventEntity toEntity() {
         EventEntity e = new EventEntity();
         e.setEventId(eventId);
@@ -33,9 +36,24 @@ public class EventRequest {
         e.setType(type);
         e.setAmount(amount);
         e.setTimestamp(timestamp);
+        e.setSequence(sequence);
         return e;
     }
 
+    /**
+     * The event as it was stored, for publishing it again.
+     */
+    public static EventRequest fromEntity(EventEntity e) {
+        EventRequest request = new EventRequest();
+        request.setEventId(e.getEventId());
+        request.setAccountId(e.getAccountId());
+        request.setType(e.getType());
+        request.setAmount(e.getAmount());
+        request.setTimestamp(e.getTimestamp());
+        request.setSequence(e.getSequence());
+        return request;
+    }
+
     public String getEventId() {
         return eventId;
     }
@@ -75,4 +93,12 @@ public class EventRequest {
     public void setTimestamp(Long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
 }
@@ -16,7 +16,10 @@ import org.slf4j.LoggerFactory;
 @Entity
 @Table(
         name = "events",
-        uniqueConstraints = @UniqueConstraint(columnNames = "eventId")
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = "eventId"),
+                @UniqueConstraint(columnNames = {"accountId", "sequence"})
+        }
 )
 public class EventEntity {
     private static final Logger logger = LoggerFactory.getLogger(EventEntity.class);
@@ -40,6 +43,9 @@ public class EventEntity {
     @Column(nullable = false)
     private Long timestamp;
 
+    // Per-account position assigned at ingest; null for events stored before sequencing
+    private Long sequence;
+
     // Add a public no-args constructor for JPA
     public EventEntity() {
         logger.debug("EventEntity created");
@@ -88,4 +94,12 @@ public class EventEntity {
     public void setTimestamp(Long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
 }
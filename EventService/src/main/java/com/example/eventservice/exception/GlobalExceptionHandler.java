@@ -1,6 +1,12 @@
 package com.example.eventservice.exception;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.KafkaException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -8,9 +14,35 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleValidationErrors() {
         return ResponseEntity.badRequest()
                 .body("Invalid event payload");
     }
+
+    // A concurrent duplicate eventId, or another instance taking the same sequence number
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Conflicting event, retry");
+    }
+
+    @ExceptionHandler(PublishRejectedException.class)
+    public ResponseEntity<String> handlePublishRejected(PublishRejectedException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many events in flight, retry");
+    }
+
+    // The broker did not ack within delivery.timeout.ms; the event may be stored, and a
+    // retry with the same eventId publishes it again
+    @ExceptionHandler(KafkaException.class)
+    public ResponseEntity<String> handlePublishFailure(KafkaException e) {
+        logger.error("Publish to Kafka failed", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("Event not acknowledged by Kafka");
+    }
 }
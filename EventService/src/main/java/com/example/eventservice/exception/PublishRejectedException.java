@@ -0,0 +1,8 @@
+package com.example.eventservice.exception;
+
+public class PublishRejectedException extends RuntimeException {
+
+    public PublishRejectedException(int maxInFlight) {
+        super("More than " + maxInFlight + " events awaiting a broker ack");
+    }
+}
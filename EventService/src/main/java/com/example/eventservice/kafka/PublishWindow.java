@@ -0,0 +1,66 @@
+package com.example.eventservice.kafka;
+
+import com.example.eventservice.exception.PublishRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of Kafka sends waiting for a broker ack.
+ *
+ * A request takes a permit before its event is stored and gives it back when the
+ * send completes, successfully or not. When every permit is taken the request is
+ * rejected with 503 straight away, so a slow broker shows up as fast rejections
+ * rather than a growing producer buffer and request threads parked in
+ * {@code send()}.
+ */
+@Component
+public class PublishWindow {
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final Counter rejected;
+
+    public PublishWindow(@Value("${ledger.publish.max-in-flight:1000}") int maxInFlight,
+                         MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.rejected = Counter.builder("ledger.publish.rejected")
+                .description("Events rejected because too many sends were awaiting a broker ack")
+                .register(meterRegistry);
+        Gauge.builder("ledger.publish.in_flight", this, PublishWindow::inFlight)
+                .description("Kafka sends awaiting a broker ack")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code send} under a permit, which is released when the returned future
+     * completes or if {@code send} throws.
+     *
+     * @throws PublishRejectedException if no permit is free
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> send) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new PublishRejectedException(maxInFlight);
+        }
+        CompletableFuture<T> ack;
+        try {
+            ack = send.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return ack.whenComplete((result, error) -> permits.release());
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+}
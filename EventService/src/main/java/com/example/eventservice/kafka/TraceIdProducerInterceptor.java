@@ -0,0 +1,40 @@
+package com.example.eventservice.kafka;
+
+import com.example.eventservice.trace.TraceIds;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Copies the current X-Trace-Id from the MDC into the headers of every record sent,
+ * so consumers can continue the trace without parsing the payload. Runs on the
+ * sending thread; registered through {@code spring.kafka.producer.properties.interceptor.classes}.
+ */
+public class TraceIdProducerInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        if (record.headers().lastHeader(TraceIds.HEADER) == null) {
+            String traceId = MDC.get(TraceIds.HEADER);
+            record.headers().add(TraceIds.HEADER,
+                    (traceId != null ? traceId : TraceIds.next()).getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.eventservice.kafka;
+
+import com.example.eventservice.dto.EventRequest;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes events as JSON or in the binary {@link TransactionWireCodec} format, chosen by
+ * the {@value #WIRE_FORMAT_CONFIG} producer property, and labels each record with a
+ * content-type header. Amounts with a fraction of a cent cannot be encoded as binary
+ * and are still sent as JSON.
+ */
+public class TransactionEventSerializer implements Serializer<EventRequest> {
+
+    public static final String WIRE_FORMAT_CONFIG = "ledger.wire-format";
+
+    private static final byte[] JSON_CONTENT_TYPE = TransactionWireCodec.JSON.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_CONTENT_TYPE = TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<EventRequest> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(WIRE_FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, EventRequest data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, EventRequest data) {
+        if (data == null) {
+            return null;
+        }
+        if (binary) {
+            Long cents = TransactionWireCodec.toCents(data.getAmount());
+            if (cents != null) {
+                headers.add(TransactionWireCodec.CONTENT_TYPE_HEADER, BINARY_CONTENT_TYPE);
+                return TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                        data.getEventId(),
+                        data.getAccountId(),
+                        TransactionWireCodec.Type.valueOf(data.getType().toUpperCase(Locale.ROOT)),
+                        cents,
+                        data.getTimestamp(),
+                        data.getSequence(),
+                        null,
+                        null));
+            }
+        }
+        headers.add(TransactionWireCodec.CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
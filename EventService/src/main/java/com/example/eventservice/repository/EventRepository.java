@@ -4,10 +4,20 @@ import com.example.eventservice.entity.EventEntity;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<EventEntity, Long> {
     Logger logger = LoggerFactory.getLogger(EventRepository.class);
-    boolean existsByEventId(String eventId);
+    Optional<EventEntity> findByEventId(String eventId);
+    List<EventEntity> findByAccountIdOrderByTimestampDesc(String accountId, Pageable pageable);
+
+    @Query("select max(e.sequence) from EventEntity e where e.accountId = :accountId")
+    Long findMaxSequence(@Param("accountId") String accountId);
     // Add logging in custom methods if needed
 }
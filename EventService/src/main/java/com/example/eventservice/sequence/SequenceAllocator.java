@@ -0,0 +1,63 @@
+package com.example.eventservice.sequence;
+
+import com.example.eventservice.repository.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Hands out per-account sequence numbers (1, 2, 3, ...) at ingest.
+ *
+ * The last number used for each account is cached in memory and loaded from the
+ * events table the first time the account is seen. A number is only consumed if
+ * the write that uses it succeeds, so failed requests do not leave gaps; after a
+ * failure the account is reloaded from the database, which also recovers from
+ * another instance having written to the same account.
+ */
+@Component
+public class SequenceAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAllocator.class);
+
+    private final EventRepository repository;
+    private final Map<String, AccountSequence> accounts = new ConcurrentHashMap<>();
+
+    public SequenceAllocator(EventRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Runs {@code writer} with the account's next sequence number while holding the
+     * account's lock, so writes for one account are stored and published in sequence
+     * order.
+     */
+    public <T> T append(String accountId, LongFunction<T> writer) {
+        AccountSequence sequence = accounts.computeIfAbsent(accountId, id -> new AccountSequence());
+        sequence.lock.lock();
+        try {
+            if (sequence.last < 0) {
+                Long max = repository.findMaxSequence(accountId);
+                sequence.last = max != null ? max : 0;
+            }
+            T result = writer.apply(sequence.last + 1);
+            sequence.last++;
+            return result;
+        } catch (RuntimeException e) {
+            logger.debug("Write for account {} failed, reloading its sequence: {}", accountId, e.toString());
+            sequence.last = -1;
+            throw e;
+        } finally {
+            sequence.lock.unlock();
+        }
+    }
+
+    private static class AccountSequence {
+        final ReentrantLock lock = new ReentrantLock();
+        long last = -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.eventservice.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts the caller's X-Trace-Id (or a new one) into the MDC for the duration of the
+ * request, where logging and the Kafka producer interceptor pick it up.
+ */
+@Component
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String traceId = request.getHeader(TraceIds.HEADER);
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = TraceIds.next();
+        }
+        MDC.put(TraceIds.HEADER, traceId);
+        response.setHeader(TraceIds.HEADER, traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(TraceIds.HEADER);
+        }
+    }
+}
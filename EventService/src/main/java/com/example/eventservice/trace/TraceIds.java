@@ -0,0 +1,26 @@
+package com.example.eventservice.trace;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates X-Trace-Id values for requests that arrive without one (e.g. directly,
+ * not through the gateway). 32 hex characters: a random per-process prefix and a
+ * counter seeded from the clock, so generating one is a single atomic increment.
+ */
+public final class TraceIds {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String PROCESS_PREFIX = HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.currentTimeMillis() << 20);
+
+    private TraceIds() {
+    }
+
+    public static String next() {
+        return PROCESS_PREFIX + HEX.toHexDigits(SEQUENCE.incrementAndGet());
+    }
+}
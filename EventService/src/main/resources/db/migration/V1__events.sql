@@ -0,0 +1,42 @@
+-- The events schema as Hibernate created it under ddl-auto: update. On a fresh database
+-- this creates it; on an existing one it only renames Hibernate's generated unique
+-- constraints so later migrations can refer to them.
+
+CREATE TABLE IF NOT EXISTS events (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id    VARCHAR(255)   NOT NULL,
+    account_id  VARCHAR(255)   NOT NULL,
+    type        VARCHAR(255)   NOT NULL,
+    amount      NUMERIC(38, 2) NOT NULL,
+    timestamp   BIGINT         NOT NULL,
+    sequence    BIGINT
+);
+
+DO $$
+DECLARE
+    generated_name TEXT;
+BEGIN
+    SELECT c.conname INTO generated_name
+    FROM pg_constraint c
+    WHERE c.conrelid = 'events'::regclass
+      AND c.contype = 'u'
+      AND c.conkey = ARRAY[(SELECT attnum FROM pg_attribute WHERE attrelid = 'events'::regclass AND attname = 'event_id')];
+    IF generated_name IS NULL THEN
+        ALTER TABLE events ADD CONSTRAINT uk_events_event_id UNIQUE (event_id);
+    ELSIF generated_name <> 'uk_events_event_id' THEN
+        EXECUTE format('ALTER TABLE events RENAME CONSTRAINT %I TO uk_events_event_id', generated_name);
+    END IF;
+
+    SELECT c.conname INTO generated_name
+    FROM pg_constraint c
+    WHERE c.conrelid = 'events'::regclass
+      AND c.contype = 'u'
+      AND c.conkey = ARRAY[
+          (SELECT attnum FROM pg_attribute WHERE attrelid = 'events'::regclass AND attname = 'account_id'),
+          (SELECT attnum FROM pg_attribute WHERE attrelid = 'events'::regclass AND attname = 'sequence')];
+    IF generated_name IS NULL THEN
+        ALTER TABLE events ADD CONSTRAINT uk_events_account_sequence UNIQUE (account_id, sequence);
+    ELSIF generated_name <> 'uk_events_account_sequence' THEN
+        EXECUTE format('ALTER TABLE events RENAME CONSTRAINT %I TO uk_events_account_sequence', generated_name);
+    END IF;
+END $$;
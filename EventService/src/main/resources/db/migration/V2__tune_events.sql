@@ -0,0 +1,19 @@
+-- Indexes and storage for the append-only event store. Index builds run CONCURRENTLY
+-- so ingestion continues while a populated table is migrated (spring.flyway.mixed lets
+-- them run outside a transaction).
+
+-- GET /events?accountId= reads an account's latest events; without this it reads and
+-- sorts every event of the account. A backward scan serves the DESC order.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_account_timestamp
+    ON events (account_id, timestamp);
+
+-- Events are only inserted: fill heap pages completely, and vacuum after inserts so
+-- the visibility map stays current and MAX(sequence) per account, read when an
+-- account is first seen, stays an index-only scan.
+ALTER TABLE events SET (
+    fillfactor = 100,
+    autovacuum_vacuum_insert_scale_factor = 0.01,
+    autovacuum_vacuum_insert_threshold = 10000,
+    autovacuum_analyze_scale_factor = 0.01
+);
+ALTER INDEX events_pkey SET (fillfactor = 100);
@@ -0,0 +1,14 @@
+-- Chunks of a backfill file already merged, so an interrupted backfill resumes after
+-- the last one (see BackfillRunner). source identifies the file; a chunk is
+-- chunk_size lines starting at line chunk * chunk_size.
+CREATE TABLE IF NOT EXISTS events_backfill_progress (
+    source          VARCHAR(1000) NOT NULL,
+    chunk           BIGINT        NOT NULL,
+    chunk_size      INTEGER       NOT NULL,
+    lines           INTEGER       NOT NULL,
+    skipped         INTEGER       NOT NULL,
+    merged          INTEGER       NOT NULL,
+    ledger_entries  INTEGER       NOT NULL,
+    completed_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (source, chunk)
+);
@@ -0,0 +1,153 @@
+package com.example.eventservice;
+
+import com.example.eventservice.backfill.BackfillTables;
+import com.example.eventservice.backfill.BinaryCopyWriter;
+import com.example.eventservice.backfill.EventLineParser;
+import com.example.eventservice.dto.EventRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+public class BackfillTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @MockBean
+    private KafkaTemplate<String, EventRequest> kafkaTemplate;
+
+    @Test
+    void testNumericEncoding() throws IOException {
+        for (String value : List.of("0", "0.00", "0.01", "100.50", "10000", "12345678.9", "-5", "-0.0001", "1E+5")) {
+            BigDecimal amount = new BigDecimal(value);
+            assertThat(decodeNumeric(encodeNumeric(amount)))
+                    .as(value)
+                    .isEqualByComparingTo(amount)
+                    .hasScaleOf(Math.max(amount.scale(), 0));
+        }
+    }
+
+    @Test
+    void testParserRejectsInvalidLines() {
+        EventLineParser parser = new EventLineParser(objectMapper, validator);
+
+        EventRequest event = parser.parse(
+                "{\"eventId\":\"e1\",\"accountId\":\"a1\",\"type\":\"debit\",\"amount\":12.50,\"timestamp\":1700000000000}");
+        assertThat(event.getType()).isEqualTo("debit");
+        assertThat(event.getAmount()).isEqualByComparingTo("12.50");
+
+        assertThatThrownBy(() -> parser.parse("not json"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("not an event");
+        assertThatThrownBy(() -> parser.parse(
+                "{\"eventId\":\"e1\",\"accountId\":\"a1\",\"type\":\"refund\",\"amount\":1,\"timestamp\":1}"))
+                .hasMessageContaining("type");
+        assertThatThrownBy(() -> parser.parse(
+                "{\"eventId\":\"e1\",\"accountId\":\"a1\",\"type\":\"credit\",\"timestamp\":1}"))
+                .hasMessage("amount is missing");
+        assertThatThrownBy(() -> parser.parse(
+                "{\"eventId\":\"e1\",\"accountId\":\"" + "a".repeat(51) + "\",\"type\":\"credit\",\"amount\":1,\"timestamp\":1}"))
+                .hasMessageContaining("accountId longer than 50");
+    }
+
+    @Test
+    void testMergeSkipsDuplicatesAndAppendsSequences() throws Exception {
+        BackfillTables tables = new BackfillTables();
+        String account = "bf-acc-" + System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO events (event_id, account_id, type, amount, timestamp, sequence) VALUES (?, ?, 'credit', 10, 1000, 7)")) {
+                    statement.setString(1, account + "-stored");
+                    statement.setString(2, account);
+                    statement.executeUpdate();
+                }
+
+                tables.createStaging(connection);
+                try (BinaryCopyWriter writer = tables.copyIntoStaging(connection)) {
+                    BackfillTables.writeRow(writer, 0, event(account + "-b", account, 3000));
+                    BackfillTables.writeRow(writer, 1, event(account + "-stored", account, 500));
+                    BackfillTables.writeRow(writer, 2, event(account + "-a", account, 2000));
+                    BackfillTables.writeRow(writer, 3, event(account + "-b", account, 1));
+                }
+                BackfillTables.Merge merge = tables.merge(connection, true);
+
+                assertThat(merge.merged()).isEqualTo(2);
+                assertThat(merge.published())
+                        .extracting(EventRequest::getEventId, EventRequest::getSequence, EventRequest::getTimestamp)
+                        .containsExactly(
+                                tuple(account + "-a", 8L, 2000L),
+                                tuple(account + "-b", 9L, 3000L));
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static EventRequest event(String eventId, String accountId, long timestamp) {
+        EventRequest event = new EventRequest();
+        event.setEventId(eventId);
+        event.setAccountId(accountId);
+        event.setType("credit");
+        event.setAmount(new BigDecimal("1.00"));
+        event.setTimestamp(timestamp);
+        return event;
+    }
+
+    private static byte[] encodeNumeric(BigDecimal value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryCopyWriter writer = new BinaryCopyWriter(bytes)) {
+            writer.startRow(1);
+            writer.writeNumeric(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Skips the COPY header and row, then reads the value back as the server would
+    private static BigDecimal decodeNumeric(byte[] copy) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(copy));
+        in.skipNBytes(19);
+        assertThat(in.readShort()).isEqualTo((short) 1);
+        int length = in.readInt();
+        int digits = in.readShort();
+        int weight = in.readShort();
+        int sign = in.readShort();
+        int scale = in.readShort();
+        assertThat(length).isEqualTo(8 + 2 * digits);
+
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < digits; i++) {
+            value = value.add(BigDecimal.valueOf(in.readShort()).scaleByPowerOfTen(4 * (weight - i)));
+        }
+        assertThat(in.readShort()).isEqualTo((short) -1);
+        value = value.setScale(scale);
+        return sign == 0x4000 ? value.negate() : value;
+    }
+}
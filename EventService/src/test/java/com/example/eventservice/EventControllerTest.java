@@ -3,24 +3,46 @@ package com.example.eventservice;
 import com.example.eventservice.controller.EventController;
 import com.example.eventservice.dto.EventRequest;
 import com.example.eventservice.entity.EventEntity;
+import com.example.eventservice.kafka.PublishWindow;
 import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.sequence.SequenceAllocator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(EventController.class)
+@TestPropertySource(properties = "ledger.publish.max-in-flight=2")
+@Import({SequenceAllocator.class, PublishWindow.class, SimpleMeterRegistry.class})
 public class EventControllerTest {
 
     @Autowired
@@ -29,25 +51,32 @@ public class EventControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PublishWindow publishWindow;
+
     @MockBean
     private EventRepository repository;
 
     @MockBean
     private KafkaTemplate<String, EventRequest> kafkaTemplate;
 
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void testCreateEventSuccess() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "credit", "100.00");
 
-        when(repository.existsByEventId("evt-001")).thenReturn(false);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
-        verify(repository, times(1)).existsByEventId("evt-001");
+        verify(repository, times(1)).findByEventId("evt-001");
         verify(repository, times(1)).save(any(EventEntity.class));
         verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-001"), any(EventRequest.class));
     }
@@ -55,18 +84,40 @@ public class EventControllerTest {
     @Test
     void testDuplicateEventId() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "credit", "100.00");
+        request.setSequence(7L);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.of(request.toEntity()));
 
-        when(repository.existsByEventId("evt-001")).thenReturn(true);
-
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isConflict())
                 .andExpect(content().string("Duplicate eventId"));
 
-        verify(repository, times(1)).existsByEventId("evt-001");
+        verify(repository, times(1)).findByEventId("evt-001");
         verify(repository, never()).save(any(EventEntity.class));
-        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(EventRequest.class));
+        verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-001"), argThat(req -> req.getSequence() == 7L));
+    }
+
+    @Test
+    void testRetryRepublishesEventStoredWithoutAck() throws Exception {
+        List<EventEntity> saved = new ArrayList<>();
+        when(repository.save(any(EventEntity.class))).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("Send failed")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        EventRequest request = createValidRequest("evt-001", "acc-unacked", "credit", "10.00");
+
+        postEvent(request)
+                .andExpect(status().isServiceUnavailable());
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.of(saved.get(0)));
+        postEvent(request)
+                .andExpect(status().isConflict());
+
+        verify(repository, times(1)).save(any(EventEntity.class));
+        verify(kafkaTemplate, times(2)).send(eq("transactions.raw"), eq("acc-unacked"), argThat(req ->
+                "evt-001".equals(req.getEventId()) && req.getSequence() == 1L));
+        assertThat(publishWindow.inFlight()).isZero();
     }
 
     @Test
@@ -74,19 +125,15 @@ public class EventControllerTest {
         EventRequest request1 = createValidRequest("evt-001", "acc-001", "credit", "100.00");
         EventRequest request2 = createValidRequest("evt-002", "acc-001", "debit", "50.00");
 
-        when(repository.existsByEventId(anyString())).thenReturn(false);
+        when(repository.findByEventId(anyString())).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
         // First event
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request1)))
+        postEvent(request1)
                 .andExpect(status().isCreated());
 
         // Second event
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request2)))
+        postEvent(request2)
                 .andExpect(status().isCreated());
 
         verify(repository, times(2)).save(any(EventEntity.class));
@@ -98,19 +145,15 @@ public class EventControllerTest {
         EventRequest request1 = createValidRequest("evt-001", "acc-001", "credit", "100.00");
         EventRequest request2 = createValidRequest("evt-002", "acc-002", "credit", "200.00");
 
-        when(repository.existsByEventId(anyString())).thenReturn(false);
+        when(repository.findByEventId(anyString())).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
         // First event
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request1)))
+        postEvent(request1)
                 .andExpect(status().isCreated());
 
         // Second event
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request2)))
+        postEvent(request2)
                 .andExpect(status().isCreated());
 
         verify(repository, times(2)).save(any(EventEntity.class));
@@ -122,12 +165,10 @@ public class EventControllerTest {
     void testLargeAmount() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "credit", "999999999.99");
 
-        when(repository.existsByEventId("evt-001")).thenReturn(false);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         verify(repository, times(1)).save(any(EventEntity.class));
@@ -137,12 +178,10 @@ public class EventControllerTest {
     void testSmallAmount() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "debit", "0.01");
 
-        when(repository.existsByEventId("evt-001")).thenReturn(false);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         verify(repository, times(1)).save(any(EventEntity.class));
@@ -152,12 +191,10 @@ public class EventControllerTest {
     void testCreditTransaction() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "credit", "500.00");
 
-        when(repository.existsByEventId("evt-001")).thenReturn(false);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-001"), argThat(req ->
@@ -169,12 +206,10 @@ public class EventControllerTest {
     void testDebitTransaction() throws Exception {
         EventRequest request = createValidRequest("evt-001", "acc-001", "debit", "300.00");
 
-        when(repository.existsByEventId("evt-001")).thenReturn(false);
+        when(repository.findByEventId("evt-001")).thenReturn(Optional.empty());
         when(repository.save(any(EventEntity.class))).thenReturn(new EventEntity());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-001"), argThat(req ->
@@ -182,6 +217,121 @@ public class EventControllerTest {
         ));
     }
 
+    @Test
+    void testRecentEventsForAccount() throws Exception {
+        EventEntity event = createValidRequest("evt-002", "acc-001", "credit", "100.00").toEntity();
+
+        when(repository.findByAccountIdOrderByTimestampDesc(eq("acc-001"), any(Pageable.class)))
+                .thenReturn(List.of(event));
+
+        mockMvc.perform(get("/events").param("accountId", "acc-001").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].eventId").value("evt-002"));
+
+        verify(repository, times(1)).findByAccountIdOrderByTimestampDesc("acc-001", PageRequest.of(0, 5));
+    }
+
+    @Test
+    void testSequenceAssignedPerAccount() throws Exception {
+        when(repository.findMaxSequence("acc-seq-1")).thenReturn(41L);
+        when(repository.findMaxSequence("acc-seq-2")).thenReturn(null);
+
+        for (EventRequest request : List.of(
+                createValidRequest("evt-001", "acc-seq-1", "credit", "100.00"),
+                createValidRequest("evt-002", "acc-seq-1", "debit", "50.00"),
+                createValidRequest("evt-003", "acc-seq-2", "credit", "10.00"))) {
+            postEvent(request)
+                    .andExpect(status().isCreated());
+        }
+
+        verify(kafkaTemplate).send(eq("transactions.raw"), eq("acc-seq-1"), argThat(req -> req.getSequence() == 42L));
+        verify(kafkaTemplate).send(eq("transactions.raw"), eq("acc-seq-1"), argThat(req -> req.getSequence() == 43L));
+        verify(kafkaTemplate).send(eq("transactions.raw"), eq("acc-seq-2"), argThat(req -> req.getSequence() == 1L));
+        verify(repository, times(1)).findMaxSequence("acc-seq-1");
+    }
+
+    @Test
+    void testFailedSaveDoesNotConsumeSequence() throws Exception {
+        when(repository.save(any(EventEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenReturn(new EventEntity());
+
+        mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRequest("evt-001", "acc-seq-retry", "credit", "100.00"))))
+                .andExpect(status().isConflict());
+        postEvent(createValidRequest("evt-002", "acc-seq-retry", "credit", "100.00"))
+                .andExpect(status().isCreated());
+
+        verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-seq-retry"), argThat(req -> req.getSequence() == 1L));
+    }
+
+    @Test
+    void testResponseWaitsForBrokerAck() throws Exception {
+        CompletableFuture<SendResult<String, EventRequest>> ack = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class))).thenReturn(ack);
+
+        MvcResult result = mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRequest("evt-001", "acc-ack", "credit", "10.00"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(publishWindow.inFlight()).isEqualTo(1);
+
+        ack.complete(null);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated());
+        assertThat(publishWindow.inFlight()).isZero();
+    }
+
+    @Test
+    void testBrokerFailureReturnsServiceUnavailable() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("Send failed")));
+
+        postEvent(createValidRequest("evt-001", "acc-nack", "credit", "10.00"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Event not acknowledged by Kafka"));
+        assertThat(publishWindow.inFlight()).isZero();
+    }
+
+    @Test
+    void testFullPublishWindowRejectsBeforeSaving() throws Exception {
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        doAnswer(invocation -> {
+            CompletableFuture<SendResult<String, EventRequest>> ack = new CompletableFuture<>();
+            pending.add(ack);
+            return ack;
+        }).when(kafkaTemplate).send(anyString(), anyString(), any(EventRequest.class));
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/events")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(createValidRequest("evt-00" + i, "acc-window", "credit", "10.00"))))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidRequest("evt-003", "acc-window", "credit", "10.00"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(repository, times(2)).save(any(EventEntity.class));
+        pending.forEach(ack -> ack.complete(null));
+        assertThat(publishWindow.inFlight()).isZero();
+    }
+
+    // POST /events completes asynchronously once the Kafka send is acknowledged
+    private ResultActions postEvent(EventRequest event) throws Exception {
+        MvcResult result = mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     private EventRequest createValidRequest(String eventId, String accountId, String type, String amount) {
         EventRequest request = new EventRequest();
         request.setEventId(eventId);
@@ -13,16 +13,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -48,15 +56,15 @@ public class EventServiceIntegrationTest {
     @BeforeEach
     void setUp() {
         repository.deleteAll();
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
     void testEndToEndEventCreation() throws Exception {
         EventRequest request = createValidRequest("evt-int-001", "acc-001", "credit", "100.00");
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         // Verify database persistence
@@ -76,23 +84,21 @@ public class EventServiceIntegrationTest {
         EventRequest request = createValidRequest("evt-int-002", "acc-001", "credit", "100.00");
 
         // First request should succeed
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         // Second request with same eventId should fail
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isConflict());
 
         // Verify only one entry in database
         List<EventEntity> events = repository.findAll();
         assertThat(events).hasSize(1);
 
-        // Verify Kafka message sent only once
-        verify(kafkaTemplate, times(1)).send(eq("transactions.raw"), eq("acc-001"), any(EventRequest.class));
+        // The duplicate is published again under the stored sequence, in case the first send was not acked
+        Long sequence = events.get(0).getSequence();
+        verify(kafkaTemplate, times(2)).send(eq("transactions.raw"), eq("acc-001"), argThat(req ->
+                "evt-int-002".equals(req.getEventId()) && sequence.equals(req.getSequence())));
     }
 
     @Test
@@ -101,19 +107,13 @@ public class EventServiceIntegrationTest {
         EventRequest request2 = createValidRequest("evt-int-004", "acc-001", "debit", "50.00");
         EventRequest request3 = createValidRequest("evt-int-005", "acc-001", "credit", "75.00");
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request1)))
+        postEvent(request1)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request2)))
+        postEvent(request2)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request3)))
+        postEvent(request3)
                 .andExpect(status().isCreated());
 
         // Verify all events persisted
@@ -131,19 +131,13 @@ public class EventServiceIntegrationTest {
         EventRequest request2 = createValidRequest("evt-int-007", "acc-002", "credit", "200.00");
         EventRequest request3 = createValidRequest("evt-int-008", "acc-003", "debit", "50.00");
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request1)))
+        postEvent(request1)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request2)))
+        postEvent(request2)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request3)))
+        postEvent(request3)
                 .andExpect(status().isCreated());
 
         // Verify all events persisted
@@ -190,9 +184,7 @@ public class EventServiceIntegrationTest {
                 "10.00"
             );
 
-            mockMvc.perform(post("/events")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .content(objectMapper.writeValueAsString(request)))
+            postEvent(request)
                     .andExpect(status().isCreated());
         }
 
@@ -210,9 +202,7 @@ public class EventServiceIntegrationTest {
         EventRequest request = createValidRequest("evt-int-010", "acc-001", "credit", "123.45");
         request.setTimestamp(timestamp);
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
 
         // Verify exact data integrity
@@ -234,19 +224,13 @@ public class EventServiceIntegrationTest {
         EventRequest request3 = createValidRequest("evt-int-013", "acc-001", "credit", "75.00");
 
         // Execute requests rapidly
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request1)))
+        postEvent(request1)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request2)))
+        postEvent(request2)
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request3)))
+        postEvent(request3)
                 .andExpect(status().isCreated());
 
         // Verify all events processed correctly
@@ -260,6 +244,16 @@ public class EventServiceIntegrationTest {
         assertThat(uniqueEventIds).isEqualTo(3);
     }
 
+    // POST /events completes asynchronously once the Kafka send is acknowledged
+    private ResultActions postEvent(EventRequest event) throws Exception {
+        MvcResult result = mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     private EventRequest createValidRequest(String eventId, String accountId, String type, String amount) {
         EventRequest request = new EventRequest();
         request.setEventId(eventId);
@@ -2,23 +2,38 @@ package com.example.eventservice;
 
 import com.example.eventservice.controller.EventController;
 import com.example.eventservice.dto.EventRequest;
+import com.example.eventservice.kafka.PublishWindow;
 import com.example.eventservice.repository.EventRepository;
+import com.example.eventservice.sequence.SequenceAllocator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @WebMvcTest(EventController.class)
+@Import({SequenceAllocator.class, PublishWindow.class, SimpleMeterRegistry.class})
 public class EventValidationTest {
 
     @Autowired
@@ -33,6 +48,12 @@ public class EventValidationTest {
     @MockBean
     private KafkaTemplate<String, EventRequest> kafkaTemplate;
 
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.send(anyString(), anyString(), any(EventRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void testValidEvent() throws Exception {
         EventRequest request = new EventRequest();
@@ -42,9 +63,7 @@ public class EventValidationTest {
         request.setAmount(new BigDecimal("100.50"));
         request.setTimestamp(System.currentTimeMillis());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
     }
 
@@ -150,9 +169,7 @@ public class EventValidationTest {
         request.setAmount(new BigDecimal("50.25"));
         request.setTimestamp(System.currentTimeMillis());
 
-        mockMvc.perform(post("/events")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+        postEvent(request)
                 .andExpect(status().isCreated());
     }
 
@@ -187,4 +204,14 @@ public class EventValidationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Invalid event payload"));
     }
+
+    // POST /events completes asynchronously once the Kafka send is acknowledged
+    private ResultActions postEvent(EventRequest event) throws Exception {
+        MvcResult result = mockMvc.perform(post("/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.eventservice;
+
+import com.example.eventservice.exception.PublishRejectedException;
+import com.example.eventservice.kafka.PublishWindow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PublishWindowTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PublishWindow window = new PublishWindow(2, meterRegistry);
+
+    @Test
+    void testPermitHeldUntilAckCompletes() {
+        CompletableFuture<String> ack = new CompletableFuture<>();
+
+        CompletableFuture<String> result = window.submit(() -> ack);
+        assertThat(window.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("ledger.publish.in_flight").gauge().value()).isEqualTo(1.0);
+
+        ack.complete("ok");
+        assertThat(result).isCompletedWithValue("ok");
+        assertThat(window.inFlight()).isZero();
+    }
+
+    @Test
+    void testPermitReleasedWhenAckFails() {
+        CompletableFuture<String> ack = new CompletableFuture<>();
+        CompletableFuture<String> result = window.submit(() -> ack);
+
+        ack.completeExceptionally(new IllegalStateException("broker down"));
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(window.inFlight()).isZero();
+    }
+
+    @Test
+    void testPermitReleasedWhenSendThrows() {
+        assertThatThrownBy(() -> window.submit(() -> {
+            throw new IllegalStateException("save failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(window.inFlight()).isZero();
+    }
+
+    @Test
+    void testRejectsWhenFull() {
+        window.submit(CompletableFuture::new);
+        window.submit(CompletableFuture::new);
+        boolean[] called = {false};
+
+        assertThatThrownBy(() -> window.submit(() -> {
+            called[0] = true;
+            return CompletableFuture.completedFuture("late");
+        })).isInstanceOf(PublishRejectedException.class);
+
+        assertThat(called[0]).isFalse();
+        assertThat(window.inFlight()).isEqualTo(2);
+        assertThat(meterRegistry.get("ledger.publish.rejected").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.eventservice;
+
+import com.example.eventservice.diagnostics.IndexUsageEndpoint;
+import com.example.eventservice.diagnostics.IndexUsageEndpoint.IndexUsage;
+import com.example.eventservice.dto.EventRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the schema Flyway leaves behind, as seen through the index usage report.
+ */
+@SpringBootTest
+public class SchemaMigrationTest {
+
+    @Autowired
+    private IndexUsageEndpoint indexUsageEndpoint;
+
+    @MockBean
+    private KafkaTemplate<String, EventRequest> kafkaTemplate;
+
+    @Test
+    void testMigratedIndexes() {
+        Map<String, IndexUsage> indexes = indexUsageEndpoint.report().indexes().stream()
+                .collect(Collectors.toMap(IndexUsage::index, Function.identity()));
+
+        assertThat(indexes).containsKeys("events_pkey", "uk_events_event_id",
+                "uk_events_account_sequence", "idx_events_account_timestamp");
+        assertThat(indexes.get("uk_events_account_sequence").unique()).isTrue();
+        assertThat(indexes.get("uk_events_account_sequence").unused()).isFalse();
+        assertThat(indexes.get("idx_events_account_timestamp").definition())
+                .contains("(account_id, \"timestamp\")");
+    }
+
+    @Test
+    void testAppendOnlyStorageParameters() {
+        assertThat(indexUsageEndpoint.report().tables())
+                .singleElement()
+                .satisfies(table -> assertThat(table.storageParameters())
+                        .contains("fillfactor=100", "autovacuum_vacuum_insert_scale_factor=0.01"));
+    }
+}
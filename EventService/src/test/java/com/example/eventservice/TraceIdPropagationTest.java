@@ -0,0 +1,45 @@
+package com.example.eventservice;
+
+import com.example.eventservice.kafka.TraceIdProducerInterceptor;
+import com.example.eventservice.trace.TraceIds;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TraceIdPropagationTest {
+
+    private final TraceIdProducerInterceptor interceptor = new TraceIdProducerInterceptor();
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void testTraceIdCopiedFromMdcToRecordHeader() {
+        MDC.put(TraceIds.HEADER, "trace-abc");
+
+        ProducerRecord<Object, Object> record = interceptor.onSend(
+                new ProducerRecord<>("transactions.raw", "acc-001", "payload"));
+
+        assertEquals("trace-abc", header(record));
+    }
+
+    @Test
+    void testTraceIdGeneratedWithoutMdc() {
+        ProducerRecord<Object, Object> record = interceptor.onSend(
+                new ProducerRecord<>("transactions.raw", "acc-001", "payload"));
+
+        assertTrue(header(record).matches("[0-9a-f]{32}"));
+    }
+
+    private String header(ProducerRecord<Object, Object> record) {
+        return new String(record.headers().lastHeader(TraceIds.HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
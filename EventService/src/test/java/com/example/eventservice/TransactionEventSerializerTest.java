@@ -0,0 +1,77 @@
+package com.example.eventservice;
+
+import com.example.eventservice.dto.EventRequest;
+import com.example.eventservice.kafka.TransactionEventSerializer;
+import com.example.eventservice.kafka.TransactionWireCodec;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TransactionEventSerializerTest {
+
+    @Test
+    void testBinaryFormat() {
+        TransactionEventSerializer serializer = serializer("binary");
+        Headers headers = new RecordHeaders();
+
+        byte[] value = serializer.serialize("transactions.raw", headers, request("100.25"));
+
+        assertEquals(TransactionWireCodec.BINARY, contentType(headers));
+        TransactionWireCodec.WireEvent decoded = TransactionWireCodec.decode(value);
+        assertEquals("evt-001", decoded.eventId());
+        assertEquals("acc-001", decoded.accountId());
+        assertEquals(TransactionWireCodec.Type.DEBIT, decoded.type());
+        assertEquals(10025L, decoded.amountCents());
+        assertEquals(1_700_000_000_000L, decoded.timestamp());
+        assertEquals(12L, decoded.sequence());
+    }
+
+    @Test
+    void testFractionalCentsFallBackToJson() {
+        TransactionEventSerializer serializer = serializer("binary");
+        Headers headers = new RecordHeaders();
+
+        byte[] value = serializer.serialize("transactions.raw", headers, request("0.015"));
+
+        assertEquals(TransactionWireCodec.JSON, contentType(headers));
+        assertEquals('{', (char) value[0]);
+    }
+
+    @Test
+    void testJsonByDefault() {
+        TransactionEventSerializer serializer = serializer(null);
+        Headers headers = new RecordHeaders();
+
+        String value = new String(serializer.serialize("transactions.raw", headers, request("100.25")), StandardCharsets.UTF_8);
+
+        assertEquals(TransactionWireCodec.JSON, contentType(headers));
+        assertEquals(true, value.contains("\"sequence\":12"));
+    }
+
+    private TransactionEventSerializer serializer(String wireFormat) {
+        TransactionEventSerializer serializer = new TransactionEventSerializer();
+        serializer.configure(wireFormat != null ? Map.of(TransactionEventSerializer.WIRE_FORMAT_CONFIG, wireFormat) : Map.of(), false);
+        return serializer;
+    }
+
+    private String contentType(Headers headers) {
+        return new String(headers.lastHeader(TransactionWireCodec.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+
+    private EventRequest request(String amount) {
+        EventRequest request = new EventRequest();
+        request.setEventId("evt-001");
+        request.setAccountId("acc-001");
+        request.setType("debit");
+        request.setAmount(new BigDecimal(amount));
+        request.setTimestamp(1_700_000_000_000L);
+        request.setSequence(12L);
+        return request;
+    }
+}
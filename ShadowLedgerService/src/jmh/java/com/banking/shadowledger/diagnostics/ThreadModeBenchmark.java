@@ -0,0 +1,91 @@
+package com.banking.shadowledger.diagnostics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serve a burst of 2000 blocking requests on Tomcat's default 200 platform
+ * threads against one virtual thread per request.
+ *
+ * Each request holds one of 20 pooled connections (Hikari's size here) for
+ * {@code dbMillis}, then waits {@code waitMillis} on something other than the
+ * database, such as a downstream call. When the database dominates, both modes are
+ * bound by the connection pool; virtual threads only win when requests spend most
+ * of their time waiting elsewhere.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class ThreadModeBenchmark {
+
+    private static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int POOL_SIZE = 20;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1", "5"})
+    public long dbMillis;
+
+    @Param({"0", "50"})
+    public long waitMillis;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        connections = new Semaphore(POOL_SIZE, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<?>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(executor.submit(() -> {
+                connections.acquire();
+                try {
+                    Thread.sleep(dbMillis);
+                } finally {
+                    connections.release();
+                }
+                if (waitMillis > 0) {
+                    Thread.sleep(waitMillis);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        return requests.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.shadowledger.kafka;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost of one transactions.raw record, JSON (as EventService sends it today)
+ * against the binary wire format. Payload sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionDecodeBenchmark {
+
+    private static final byte[] JSON_CONTENT_TYPE = TransactionWireCodec.JSON.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_CONTENT_TYPE = TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private TransactionEventReader reader;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        reader = new TransactionEventReader(objectMapper);
+
+        long timestamp = 1_734_862_245_123L;
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("eventId", "evt-7f3c2a9e-41d8-4b6e-9c1a-2f0e5b7d8c34");
+        event.put("accountId", "acc-00012345");
+        event.put("type", "debit");
+        event.put("amount", new BigDecimal("1234.56"));
+        event.put("timestamp", timestamp);
+        event.put("sequence", 4711L);
+        json = objectMapper.writeValueAsBytes(event);
+
+        binary = TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                "evt-7f3c2a9e-41d8-4b6e-9c1a-2f0e5b7d8c34", "acc-00012345",
+                TransactionWireCodec.Type.DEBIT, 123456, timestamp, 4711L, null, null));
+
+        System.out.printf("%nbytes/event: json=%d binary=%d%n", json.length, binary.length);
+    }
+
+    @Benchmark
+    public TransactionEventDto decodeJson() throws Exception {
+        return reader.read(json, JSON_CONTENT_TYPE);
+    }
+
+    @Benchmark
+    public TransactionEventDto decodeBinary() throws Exception {
+        return reader.read(binary, BINARY_CONTENT_TYPE);
+    }
+}
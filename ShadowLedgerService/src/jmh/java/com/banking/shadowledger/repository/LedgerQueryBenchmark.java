@@ -0,0 +1,174 @@
+package com.banking.shadowledger.repository;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ledger's hot read queries against the schema before and after
+ * V2__tune_ledger_entries: {@code baseline} stops at V1, {@code tuned} runs every
+ * migration. Both schemas hold the same generated ledger, interleaved across accounts
+ * the way the consumer writes it, so an account's entries are spread over the heap.
+ *
+ * Needs a Postgres; point {@code -Dbench.db.url} (and {@code .user}, {@code .password})
+ * at a scratch database. Schemas bench_baseline and bench_tuned are created and seeded
+ * on the first run and reused afterwards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LedgerQueryBenchmark {
+
+    static final String BALANCE_SQL = """
+        SELECT COALESCE(SUM(CASE WHEN type = 'CREDIT' THEN amount WHEN type = 'DEBIT' THEN -amount ELSE 0 END), 0)
+        FROM ledger_entries WHERE account_id = ?
+        """;
+
+    static final String BALANCE_BEFORE_SQL = """
+        SELECT COALESCE(SUM(CASE WHEN type = 'CREDIT' THEN amount ELSE -amount END), 0)
+        FROM ledger_entries WHERE account_id = ? AND timestamp < ?
+        """;
+
+    static final String STATEMENT_PAGE_SQL = """
+        SELECT event_id, type, amount, timestamp, sequence FROM ledger_entries
+        WHERE account_id = ? AND (timestamp, event_id) > (?, ?)
+        ORDER BY timestamp, event_id LIMIT 101
+        """;
+
+    static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"baseline", "tuned"})
+    public String schema;
+
+    @Param({"2000"})
+    public int accounts;
+
+    @Param({"1000"})
+    public int entriesPerAccount;
+
+    private Connection connection;
+    private PreparedStatement balance;
+    private PreparedStatement balanceBefore;
+    private PreparedStatement statementPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5433/ledgerdb");
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "0000");
+        String name = "bench_" + schema;
+
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(name)
+                .table("flyway_schema_history_shadow_ledger")
+                .target(schema.equals("baseline") ? "1" : "latest")
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + name);
+            seedIfEmpty(statement);
+        }
+        balance = connection.prepareStatement(BALANCE_SQL);
+        balanceBefore = connection.prepareStatement(BALANCE_BEFORE_SQL);
+        statementPage = connection.prepareStatement(STATEMENT_PAGE_SQL);
+    }
+
+    private void seedIfEmpty(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM ledger_entries)")) {
+            rs.next();
+            if (rs.getBoolean(1)) {
+                return;
+            }
+        }
+        // Entry g belongs to account g % accounts and is g seconds after START
+        statement.executeUpdate("""
+            INSERT INTO ledger_entries (event_id, account_id, type, amount, timestamp, sequence, created_at)
+            SELECT 'EVT-' || g,
+                   'ACC-' || lpad((g %% %1$d)::text, 6, '0'),
+                   CASE WHEN g %% 3 = 0 THEN 'DEBIT' ELSE 'CREDIT' END,
+                   (g %% 1000) + 0.25,
+                   timestamptz '2024-01-01 00:00:00+00' + g * interval '1 second',
+                   g / %1$d,
+                   now()
+            FROM generate_series(0, %2$d - 1) g
+            """.formatted(accounts, (long) accounts * entriesPerAccount));
+        statement.execute("VACUUM ANALYZE ledger_entries");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private String randomAccount() {
+        return "ACC-%06d".formatted(ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    /** An instant inside the account's history, so range queries stop half way. */
+    private Timestamp midpoint() {
+        long entry = (long) accounts * (entriesPerAccount / 2);
+        return Timestamp.from(START.plusSeconds(entry));
+    }
+
+    @Benchmark
+    public BigDecimal shadowBalance() throws SQLException {
+        balance.setString(1, randomAccount());
+        try (ResultSet rs = balance.executeQuery()) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal balanceBefore() throws SQLException {
+        balanceBefore.setString(1, randomAccount());
+        balanceBefore.setTimestamp(2, midpoint());
+        try (ResultSet rs = balanceBefore.executeQuery()) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+
+    @Benchmark
+    public void statementPage(Blackhole blackhole) throws SQLException {
+        statementPage.setString(1, randomAccount());
+        statementPage.setTimestamp(2, midpoint());
+        statementPage.setString(3, "");
+        try (ResultSet rs = statementPage.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getString(1));
+                blackhole.consume(rs.getString(2));
+                blackhole.consume(rs.getBigDecimal(3));
+                blackhole.consume(rs.getTimestamp(4));
+                blackhole.consume(rs.getLong(5));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.banking.shadowledger.repository;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts per second through each LedgerWriter, one transaction per call as
+ * LedgerService does, from four threads. {@code insert} writes one entry per
+ * transaction (the consumer's path); {@code insertBatch} writes 100. Needs a Postgres,
+ * set with {@code -Dbench.db.url} as for LedgerQueryBenchmark; entries go to the
+ * bench_writer schema, which is emptied before each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class LedgerWriterBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({"jpa", "jdbc"})
+    public String writer;
+
+    private final AtomicLong events = new AtomicLong();
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+
+    private HikariDataSource dataSource;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private LedgerWriter ledgerWriter;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5433/ledgerdb");
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "0000");
+
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas("bench_writer")
+                .table("flyway_schema_history_shadow_ledger")
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(user);
+        dataSource.setPassword(password);
+        dataSource.setSchema("bench_writer");
+        dataSource.setMaximumPoolSize(4);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE ledger_entries");
+
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan("com.banking.shadowledger.entity");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.afterPropertiesSet();
+        EntityManagerFactory emf = entityManagerFactory.getObject();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(emf));
+
+        ledgerWriter = switch (writer) {
+            case "jpa" -> new JpaLedgerWriter(new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(emf))
+                    .getRepository(LedgerRepository.class));
+            case "jdbc" -> new JdbcLedgerWriter(jdbcTemplate);
+            default -> throw new IllegalArgumentException(writer);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.destroy();
+        dataSource.close();
+    }
+
+    private LedgerEntry next() {
+        long n = events.incrementAndGet();
+        LedgerEntry entry = new LedgerEntry("EVT-" + run + "-" + n, "ACC-%06d".formatted(n % 2000),
+                n % 3 == 0 ? LedgerEntry.TransactionType.DEBIT : LedgerEntry.TransactionType.CREDIT,
+                BigDecimal.valueOf(n % 100_000, 2), Instant.now());
+        entry.setSequence(n);
+        return entry;
+    }
+
+    @Benchmark
+    public Optional<LedgerEntry> insert() {
+        return transactionTemplate.execute(status -> ledgerWriter.insert(next()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<LedgerEntry> insertBatch() {
+        List<LedgerEntry> entries = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            entries.add(next());
+        }
+        return transactionTemplate.execute(status -> ledgerWriter.insertAll(entries));
+    }
+}
@@ -0,0 +1,141 @@
+package com.banking.shadowledger.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-account state lookups and updates from four threads: the off-heap table
+ * against a ConcurrentHashMap holding either immutable records (as the balance cache
+ * did before) or mutable ones updated inside compute. Heap and off-heap footprint
+ * are printed at setup; run with {@code -prof gc} to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class AccountTableBenchmark {
+
+    record ImmutableState(BigDecimal balance, long lastEventEntryId, Instant lastTimestamp, long lastEntryId) {
+    }
+
+    static final class MutableState {
+        long balanceCents;
+        long version;
+        long timestamp;
+        long lastRef;
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final OffHeapAccountTable.AccountRecord record = new OffHeapAccountTable.AccountRecord();
+    }
+
+    @Param({"1000000"})
+    public int accounts;
+
+    private String[] ids;
+    private OffHeapAccountTable table;
+    private ConcurrentHashMap<String, ImmutableState> immutable;
+    private ConcurrentHashMap<String, MutableState> mutable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = String.format("ACC-%010d", i);
+        }
+
+        long before = usedHeap();
+        immutable = new ConcurrentHashMap<>();
+        for (String id : ids) {
+            immutable.put(id, new ImmutableState(BigDecimal.valueOf(100_00, 2), 1, Instant.EPOCH, 1));
+        }
+        long immutableHeap = usedHeap() - before;
+
+        before = usedHeap();
+        mutable = new ConcurrentHashMap<>();
+        for (String id : ids) {
+            MutableState state = new MutableState();
+            state.balanceCents = 100_00;
+            mutable.put(id, state);
+        }
+        long mutableHeap = usedHeap() - before;
+
+        before = usedHeap();
+        table = new OffHeapAccountTable(AccountStateCache.SEGMENT_BITS, 1024);
+        OffHeapAccountTable.AccountRecord record = new OffHeapAccountTable.AccountRecord();
+        for (String id : ids) {
+            record.clear().balanceCents = 100_00;
+            table.put(id, record);
+        }
+        long tableHeap = usedHeap() - before;
+
+        System.out.printf("%nheap for %d accounts: immutable map=%dMB mutable map=%dMB table=%dMB (+%dMB off-heap)%n",
+                accounts, immutableHeap >> 20, mutableHeap >> 20, tableHeap >> 20, table.memoryBytes() >> 20);
+    }
+
+    @Benchmark
+    public long tableRead(Reader reader) {
+        table.get(randomId(), reader.record);
+        return reader.record.balanceCents;
+    }
+
+    @Benchmark
+    public boolean tableApply() {
+        long version = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        return table.applyIfPresent(randomId(), 1, version, 0, version, version, 0, 0);
+    }
+
+    @Benchmark
+    public BigDecimal immutableMapRead() {
+        return immutable.get(randomId()).balance();
+    }
+
+    @Benchmark
+    public ImmutableState immutableMapApply() {
+        long version = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        return immutable.computeIfPresent(randomId(), (id, state) -> new ImmutableState(
+                state.balance().add(BigDecimal.valueOf(1, 2)), version, Instant.EPOCH, version));
+    }
+
+    @Benchmark
+    public long mutableMapRead() {
+        return mutable.get(randomId()).balanceCents;
+    }
+
+    @Benchmark
+    public MutableState mutableMapApply() {
+        long version = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        return mutable.computeIfPresent(randomId(), (id, state) -> {
+            state.balanceCents += 1;
+            state.version = version;
+            state.timestamp = version;
+            state.lastRef = version;
+            return state;
+        });
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
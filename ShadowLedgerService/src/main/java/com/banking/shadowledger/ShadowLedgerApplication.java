@@ -2,8 +2,10 @@ package com.banking.shadowledger;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ShadowLedgerApplication {
     public static void main(String[] args) {
         SpringApplication.run(ShadowLedgerApplication.class, args);
@@ -0,0 +1,73 @@
+package com.banking.shadowledger.controller;
+
+import com.banking.shadowledger.dto.StatementPage;
+import com.banking.shadowledger.exception.InvalidStatementRequestException;
+import com.banking.shadowledger.statement.AccountStatementService;
+import com.banking.shadowledger.statement.StatementExportWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/accounts")
+public class AccountStatementController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStatementController.class);
+    private final AccountStatementService statementService;
+
+    public AccountStatementController(AccountStatementService statementService) {
+        this.statementService = statementService;
+    }
+
+    @GetMapping("/{accountId}/entries")
+    public ResponseEntity<StatementPage> getEntries(
+            @PathVariable String accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
+
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        StatementPage page = statementService.getPage(accountId, cursor, limit);
+        logger.debug("Statement page of {} entries for account: {}", page.getEntries().size(), accountId);
+
+        MDC.clear();
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * The whole statement as NDJSON or CSV, written while it is read from the database.
+     */
+    @GetMapping(value = "/{accountId}/entries", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+            @PathVariable String accountId,
+            @RequestParam String format) {
+
+        StatementExportWriter.Format exportFormat;
+        try {
+            exportFormat = StatementExportWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidStatementRequestException("format must be ndjson or csv");
+        }
+
+        logger.info("Exporting statement for account: {} as {}", accountId, exportFormat);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("statement-" + accountId + "." + exportFormat.extension(), StandardCharsets.UTF_8)
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(out -> statementService.export(accountId, exportFormat, out));
+    }
+}
@@ -5,18 +5,27 @@ import com.banking.shadowledger.service.LedgerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/accounts")
 public class ShadowLedgerController {
 
     private static final Logger logger = LoggerFactory.getLogger(ShadowLedgerController.class);
     private final LedgerService ledgerService;
+    private final int maxBatchAccounts;
 
-    public ShadowLedgerController(LedgerService ledgerService) {
+    public ShadowLedgerController(LedgerService ledgerService,
+                                  @Value("${ledger.balances.max-accounts:500}") int maxBatchAccounts) {
         this.ledgerService = ledgerService;
+        this.maxBatchAccounts = maxBatchAccounts;
     }
 
     @GetMapping("/{accountId}/shadow-balance")
@@ -35,4 +44,25 @@ public class ShadowLedgerController {
         MDC.clear();
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/shadow-balances")
+    public ResponseEntity<?> getShadowBalances(
+            @RequestParam List<String> accountIds,
+            @RequestHeader(value = "X-Trace-Id", required = false) String traceId) {
+
+        Set<String> distinct = new LinkedHashSet<>(accountIds);
+        if (distinct.isEmpty() || distinct.size() > maxBatchAccounts) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "accountIds must list between 1 and " + maxBatchAccounts + " accounts"));
+        }
+        if (traceId != null) {
+            MDC.put("X-Trace-Id", traceId);
+        }
+
+        logger.info("Fetching shadow balances for {} accounts", distinct.size());
+        List<ShadowBalanceResponse> response = ledgerService.getShadowBalances(distinct);
+
+        MDC.clear();
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,97 @@
+package com.banking.shadowledger.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Samples how far the replica is behind: its replay lag, and its position, the WAL
+ * LSN it has replayed up to. WAL positions only grow, so a sample that is a little old
+ * still proves the replica has reached at least that position. Entry ids cannot serve
+ * as positions: identity values are handed out before commit, so a higher id can be
+ * replayed while a lower one is still missing.
+ *
+ * Replay lag is 0 while the replica has replayed everything it received; otherwise it
+ * is the age of the last transaction replayed.
+ *
+ * The drift correction service keeps a copy of this class; change both together.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String SAMPLE_SQL = """
+        SELECT COALESCE(CAST(pg_wal_lsn_diff(
+                 CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_lsn() END,
+                 '0/0') AS bigint), 0) AS position,
+               CASE
+                 WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                 ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint
+               END AS lag_ms
+        """;
+
+    public enum Status {
+        AVAILABLE, UNAVAILABLE, LAGGING, BEHIND_POSITION
+    }
+
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final long staleAfterNanos;
+
+    private volatile long position = -1;
+    private volatile long lagMillis = -1;
+    private volatile long sampledAt;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+        // Missing three samples in a row means the replica cannot be reached
+        this.staleAfterNanos = checkInterval.multipliedBy(3).toNanos();
+        Gauge.builder("ledger.datasource.replica.lag", this, m -> m.lagMillis / 1000.0)
+                .description("Replica replay lag in seconds, -1 while unreachable")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("ledger.datasource.replica.position", this, m -> m.position)
+                .description("WAL position replayed by the replica, in bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.datasource.replica.check-interval:1000}")
+    public void sample() {
+        try {
+            replica.query(SAMPLE_SQL, rs -> {
+                position = rs.getLong("position");
+                lagMillis = rs.getLong("lag_ms");
+            });
+            sampledAt = System.nanoTime();
+        } catch (Exception e) {
+            if (lagMillis >= 0) {
+                logger.warn("Replica unreachable, reads go to the primary: {}", e.getMessage());
+            }
+            position = -1;
+            lagMillis = -1;
+        }
+    }
+
+    /**
+     * Whether a read that needs {@code requiredPosition} (0 for none) can go to the replica.
+     */
+    public Status check(long requiredPosition) {
+        if (lagMillis < 0 || System.nanoTime() - sampledAt > staleAfterNanos) {
+            return Status.UNAVAILABLE;
+        }
+        if (lagMillis > maxLagMillis) {
+            return Status.LAGGING;
+        }
+        if (requiredPosition > position) {
+            return Status.BEHIND_POSITION;
+        }
+        return Status.AVAILABLE;
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking.shadowledger.diagnostics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@code /actuator/indexusage}: scan counts and sizes for the ledger_entries indexes,
+ * read from the Postgres statistics views. Counters run from the last stats reset, so
+ * an index with no scans since {@code statsSince} under production traffic is a
+ * candidate for dropping; unique and primary key indexes are never flagged because they
+ * enforce constraints whether or not queries use them.
+ */
+@Component
+@Endpoint(id = "indexusage")
+public class IndexUsageEndpoint {
+
+    private static final String INDEXES_SQL = """
+        SELECT s.relname, s.indexrelname, s.idx_scan, s.idx_tup_read, s.idx_tup_fetch,
+               pg_relation_size(s.indexrelid) AS size_bytes, i.indisunique, pg_get_indexdef(s.indexrelid) AS definition
+        FROM pg_stat_user_indexes s
+        JOIN pg_index i ON i.indexrelid = s.indexrelid
+        WHERE s.relname = 'ledger_entries'
+        ORDER BY s.idx_scan, s.indexrelname
+        """;
+
+    private static final String TABLES_SQL = """
+        SELECT t.relname, t.seq_scan, t.seq_tup_read, t.idx_scan, t.n_live_tup, t.n_dead_tup,
+               t.n_tup_ins, t.n_tup_upd, t.n_tup_hot_upd, t.last_autovacuum, t.last_autoanalyze,
+               pg_total_relation_size(t.relid) AS size_bytes, array_to_string(c.reloptions, ',') AS reloptions
+        FROM pg_stat_user_tables t
+        JOIN pg_class c ON c.oid = t.relid
+        WHERE t.relname = 'ledger_entries'
+        """;
+
+    private static final String STATS_RESET_SQL =
+        "SELECT stats_reset FROM pg_stat_database WHERE datname = current_database()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndexUsageEndpoint(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @ReadOperation
+    public IndexUsageReport report() {
+        List<TableUsage> tables = jdbcTemplate.query(TABLES_SQL, (rs, i) -> new TableUsage(
+                rs.getString("relname"),
+                rs.getLong("seq_scan"),
+                rs.getLong("seq_tup_read"),
+                rs.getLong("idx_scan"),
+                rs.getLong("n_live_tup"),
+                rs.getLong("n_dead_tup"),
+                rs.getLong("n_tup_ins"),
+                rs.getLong("n_tup_upd"),
+                rs.getLong("n_tup_hot_upd"),
+                instant(rs.getTimestamp("last_autovacuum")),
+                instant(rs.getTimestamp("last_autoanalyze")),
+                rs.getLong("size_bytes"),
+                rs.getString("reloptions")));
+        List<IndexUsage> indexes = jdbcTemplate.query(INDEXES_SQL, (rs, i) -> {
+            long scans = rs.getLong("idx_scan");
+            boolean unique = rs.getBoolean("indisunique");
+            return new IndexUsage(
+                    rs.getString("relname"),
+                    rs.getString("indexrelname"),
+                    scans,
+                    rs.getLong("idx_tup_read"),
+                    rs.getLong("idx_tup_fetch"),
+                    rs.getLong("size_bytes"),
+                    unique,
+                    scans == 0 && !unique,
+                    rs.getString("definition"));
+        });
+        List<Instant> statsReset = jdbcTemplate.query(STATS_RESET_SQL, (rs, i) -> instant(rs.getTimestamp(1)));
+        return new IndexUsageReport(statsReset.isEmpty() ? null : statsReset.get(0), tables, indexes);
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    public record IndexUsageReport(Instant statsSince, List<TableUsage> tables, List<IndexUsage> indexes) {
+    }
+
+    public record TableUsage(String table, long seqScans, long seqRowsRead, long indexScans, long liveRows,
+                             long deadRows, long inserts, long updates, long hotUpdates, Instant lastAutovacuum,
+                             Instant lastAutoanalyze, long sizeBytes, String storageParameters) {
+    }
+
+    public record IndexUsage(String table, String index, long scans, long entriesRead, long rowsFetched,
+                             long sizeBytes, boolean unique, boolean unused, String definition) {
+    }
+}
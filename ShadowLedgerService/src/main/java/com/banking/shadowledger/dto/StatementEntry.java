@@ -0,0 +1,44 @@
+package com.banking.shadowledger.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class StatementEntry {
+
+    private String eventId;
+    private String type;
+    private BigDecimal amount;
+    private Instant timestamp;
+    private Long sequence;
+    // Account balance after this entry, in statement order
+    private BigDecimal balance;
+
+    public StatementEntry() {}
+
+    public StatementEntry(String eventId, String type, BigDecimal amount, Instant timestamp, Long sequence, BigDecimal balance) {
+        this.eventId = eventId;
+        this.type = type;
+        this.amount = amount;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+        this.balance = balance;
+    }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
@@ -0,0 +1,28 @@
+package com.banking.shadowledger.dto;
+
+import java.util.List;
+
+public class StatementPage {
+
+    private String accountId;
+    private List<StatementEntry> entries;
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+
+    public StatementPage() {}
+
+    public StatementPage(String accountId, List<StatementEntry> entries, String nextCursor) {
+        this.accountId = accountId;
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getAccountId() { return accountId; }
+    public void setAccountId(String accountId) { this.accountId = accountId; }
+
+    public List<StatementEntry> getEntries() { return entries; }
+    public void setEntries(List<StatementEntry> entries) { this.entries = entries; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
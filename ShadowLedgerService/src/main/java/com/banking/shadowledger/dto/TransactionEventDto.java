@@ -13,6 +13,7 @@ public class TransactionEventDto {
     private TransactionType type;
     private BigDecimal amount;
     private Instant timestamp;
+    private Long sequence;
 
     public enum TransactionType {
         DEBIT, CREDIT;
@@ -51,4 +52,7 @@ public class TransactionEventDto {
     public void setTimestamp(Instant timestamp) {
         this.timestamp = (timestamp != null ? timestamp : Instant.now());
     }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
 }
@@ -7,7 +7,9 @@ import java.time.Instant;
 @Entity
 @Table(name = "ledger_entries", indexes = {
         @Index(name = "idx_account_timestamp", columnList = "account_id,timestamp,event_id"),
-        @Index(name = "idx_event_id", columnList = "event_id", unique = true)
+        @Index(name = "idx_event_id", columnList = "event_id", unique = true),
+        @Index(name = "idx_account_sequence", columnList = "account_id,sequence"),
+        @Index(name = "idx_logical_shard", columnList = "logical_shard,id")
 })
 public class LedgerEntry {
 
@@ -31,6 +33,13 @@ public class LedgerEntry {
     @Column(nullable = false)
     private Instant timestamp;
 
+    // Per-account sequence assigned by the event service; null for corrections
+    private Long sequence;
+
+    // Set while the ledger is sharded (see ShardMap); null for entries from before
+    @Column(name = "logical_shard")
+    private Integer logicalShard;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
@@ -67,6 +76,12 @@ public class LedgerEntry {
     public Instant getTimestamp() { return timestamp; }
     public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
 
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public Integer getLogicalShard() { return logicalShard; }
+    public void setLogicalShard(Integer logicalShard) { this.logicalShard = logicalShard; }
+
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
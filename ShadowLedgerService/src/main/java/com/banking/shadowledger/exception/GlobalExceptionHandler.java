@@ -22,6 +22,14 @@ public class GlobalExceptionHandler {
                 .body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(InvalidStatementRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidStatementRequest(InvalidStatementRequestException ex) {
+        logger.warn("Invalid statement request: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneral(Exception ex) {
         logger.error("Unexpected error", ex);
@@ -0,0 +1,7 @@
+package com.banking.shadowledger.exception;
+
+public class InvalidStatementRequestException extends RuntimeException {
+    public InvalidStatementRequestException(String message) {
+        super(message);
+    }
+}
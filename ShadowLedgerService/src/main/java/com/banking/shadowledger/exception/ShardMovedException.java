@@ -0,0 +1,7 @@
+package com.banking.shadowledger.exception;
+
+public class ShardMovedException extends RuntimeException {
+    public ShardMovedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.banking.shadowledger.kafka;
+
+import com.banking.shadowledger.service.AccountStateCache;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tells the {@link AccountStateCache} which partitions this instance consumes, and so
+ * which accounts' entries it applies. Spring Boot installs it as the rebalance
+ * listener of every listener container, so with several consumers per instance the
+ * cache sees the union of their partitions.
+ */
+@Component
+@Profile("!rebuild & !reshard")
+public class AccountOwnershipListener implements ConsumerAwareRebalanceListener {
+
+    private final AccountStateCache accountStateCache;
+
+    public AccountOwnershipListener(AccountStateCache accountStateCache) {
+        this.accountStateCache = accountStateCache;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<String, Integer> partitionCounts = new HashMap<>();
+        for (String topic : consumer.subscription()) {
+            partitionCounts.put(topic, consumer.partitionsFor(topic).size());
+        }
+        accountStateCache.assigned(toPartitions(partitions), partitionCounts);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        accountStateCache.revoked(toPartitions(partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        accountStateCache.revoked(toPartitions(partitions));
+    }
+
+    private static Collection<AccountStateCache.Partition> toPartitions(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .map(partition -> new AccountStateCache.Partition(partition.topic(), partition.partition()))
+                .toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.banking.shadowledger.kafka;
+
+import com.banking.shadowledger.service.SequenceTracker;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The offsets the consumer may commit.
+ *
+ * Records are processed in offset order, but an event buffered behind a sequence gap
+ * is applied later than the records after it. A partition's commit therefore stops at
+ * its lowest buffered record; without one it is the offset after the last record
+ * processed. Everything before the commit is in the ledger, so a restart or rebalance
+ * redelivers at most records that are applied already, which are dropped as
+ * duplicates.
+ *
+ * Commits go out from the consumer thread after a record, at most once per
+ * {@code ledger.consumer.commit-interval} per partition.
+ */
+@Component
+public class ConsumedOffsets {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumedOffsets.class);
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+    private final long commitIntervalNanos;
+
+    public ConsumedOffsets(@Value("${ledger.consumer.commit-interval:1s}") Duration commitInterval) {
+        this.commitIntervalNanos = commitInterval.toNanos();
+    }
+
+    /**
+     * Tracks the record at {@code offset} while the sequence tracker buffers its event.
+     */
+    public SequenceTracker.HoldListener hold(TopicPartition partition, long offset) {
+        return new SequenceTracker.HoldListener() {
+            @Override
+            public void held() {
+                offsets(partition).held.add(offset);
+            }
+
+            @Override
+            public void applied() {
+                PartitionOffsets current = partitions.get(partition);
+                if (current != null) {
+                    current.held.remove(offset);
+                }
+            }
+        };
+    }
+
+    /**
+     * The record at {@code offset} has been applied, buffered, or given up on.
+     */
+    public void processed(TopicPartition partition, long offset) {
+        PartitionOffsets current = offsets(partition);
+        current.position = Math.max(current.position, offset + 1);
+    }
+
+    /**
+     * Commits the partitions of {@code consumer} whose commit has moved and was not
+     * committed within the interval. Must be called on the consumer's thread.
+     */
+    public void commitIfDue(Consumer<?, ?> consumer) {
+        if (consumer == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        Map<TopicPartition, OffsetAndMetadata> due = new HashMap<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            PartitionOffsets current = partitions.get(partition);
+            if (current == null || now - current.lastCommitAt < commitIntervalNanos) {
+                continue;
+            }
+            long committable = current.committable();
+            if (committable > current.committed) {
+                due.put(partition, new OffsetAndMetadata(committable));
+                current.lastCommitAt = now;
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(due, (committed, e) -> {
+            if (e != null) {
+                logger.warn("Failed to commit offsets {}, retrying with the next record", due, e);
+                return;
+            }
+            committed.forEach((partition, offset) -> {
+                PartitionOffsets current = partitions.get(partition);
+                if (current != null) {
+                    current.committed = Math.max(current.committed, offset.offset());
+                }
+            });
+        });
+    }
+
+    /**
+     * Drops partitions this consumer no longer owns. Their uncommitted records go to
+     * the next owner.
+     */
+    public void revoke(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    private PartitionOffsets offsets(TopicPartition partition) {
+        return partitions.computeIfAbsent(partition, p -> new PartitionOffsets(System.nanoTime() - commitIntervalNanos));
+    }
+
+    private static class PartitionOffsets {
+        final NavigableSet<Long> held = new ConcurrentSkipListSet<>();
+        // Written on the consumer thread only
+        volatile long position = -1;
+        volatile long committed = -1;
+        long lastCommitAt;
+
+        PartitionOffsets(long lastCommitAt) {
+            this.lastCommitAt = lastCommitAt;
+        }
+
+        long committable() {
+            Long lowest = held.ceiling(Long.MIN_VALUE);
+            return lowest != null ? Math.min(lowest, position) : position;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.banking.shadowledger.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerConfig.class);
+
+    /**
+     * Retries a record whose event failed to apply, backing off up to 30 seconds
+     * between attempts, for at most {@code ledger.consumer.retry.max-elapsed}. The
+     * record is then logged and skipped. Offsets are left to {@link ConsumedOffsets}:
+     * the handler never commits, since the failed record may sit behind an event that
+     * is still buffered.
+     */
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(ConsumedOffsets consumedOffsets,
+                                                 @Value("${ledger.consumer.retry.max-elapsed:10m}") Duration maxElapsed) {
+        ExponentialBackOff backOff = new ExponentialBackOff(500, 2.0);
+        backOff.setMaxInterval(30_000);
+        backOff.setMaxElapsedTime(maxElapsed.toMillis());
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler((record, e) -> {
+            logger.error("Giving up on record {}-{}@{} after retrying for {}",
+                    record.topic(), record.partition(), record.offset(), maxElapsed, e);
+            consumedOffsets.processed(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }, backOff);
+        errorHandler.setAckAfterHandle(false);
+        return errorHandler;
+    }
+}
@@ -0,0 +1,26 @@
+package com.banking.shadowledger.kafka;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fallback trace ids for records that arrive without an X-Trace-Id header. Same
+ * format as the producers use: a random per-process prefix and a clock-seeded
+ * counter, 32 hex characters.
+ */
+public final class TraceIds {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String PROCESS_PREFIX = HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.currentTimeMillis() << 20);
+
+    private TraceIds() {
+    }
+
+    public static String next() {
+        return PROCESS_PREFIX + HEX.toHexDigits(SEQUENCE.incrementAndGet());
+    }
+}
@@ -1,42 +1,184 @@
 package com.banking.shadowledger.kafka;
 
 import com.banking.shadowledger.dto.TransactionEventDto;
-import com.banking.shadowledger.service.LedgerService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.SequenceTracker;
+import com.banking.shadowledger.shard.ShardMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Component
-public class TransactionConsumer {
+@Profile("!rebuild & !reshard")
+public class TransactionConsumer implements ConsumerSeekAware {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionConsumer.class);
-    private final LedgerService ledgerService;
-    private final ObjectMapper objectMapper;
+    private static final String RAW_TOPIC = "transactions.raw";
+    private final SequenceTracker sequenceTracker;
+    private final AccountStateCache accountStateCache;
+    private final ConsumedOffsets consumedOffsets;
+    private final TransactionEventReader eventReader;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean rebalanceRequested = new AtomicBoolean();
+
+    public TransactionConsumer(SequenceTracker sequenceTracker, AccountStateCache accountStateCache,
+                               ConsumedOffsets consumedOffsets, TransactionEventReader eventReader,
+                               MeterRegistry meterRegistry) {
+        this.sequenceTracker = sequenceTracker;
+        this.accountStateCache = accountStateCache;
+        this.consumedOffsets = consumedOffsets;
+        this.eventReader = eventReader;
+        this.meterRegistry = meterRegistry;
+    }
 
-    public TransactionConsumer(LedgerService ledgerService, ObjectMapper objectMapper) {
-        this.ledgerService = ledgerService;
-        this.objectMapper = objectMapper;
+    /**
+     * Moves a partition forward to the offset of a restored snapshot. Records before
+     * it are already in the ledger, so skipping them only saves redelivering
+     * duplicates; a partition that is already further along is left alone.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.forEach((partition, position) -> {
+            Long snapshotOffset = accountStateCache.takeResumeOffset(partition.topic(), partition.partition());
+            if (snapshotOffset != null && position != null && snapshotOffset > position) {
+                logger.info("Resuming {} at snapshot offset {} (committed {})", partition, snapshotOffset, position);
+                callback.seek(partition.topic(), partition.partition(), snapshotOffset);
+            }
+        });
     }
 
+    /**
+     * Forgets the sequence state and buffered events of partitions going elsewhere.
+     * Their offsets stop short of any buffered event, so the new owner receives those
+     * events again.
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        sequenceTracker.revoke(partitions.stream()
+                .filter(partition -> RAW_TOPIC.equals(partition.topic()))
+                .map(TopicPartition::partition)
+                .toList());
+        consumedOffsets.revoke(partitions);
+    }
+
+    /**
+     * Commits offsets that moved while no records arrived, e.g. when a gap timed out.
+     * The event is published on the consumer thread.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent idle) {
+        consumedOffsets.commitIfDue(idle.getConsumer());
+    }
+
+    /**
+     * Asks for a rebalance once logical shards have moved, so the assignor can line
+     * partitions up with their new shards. Only the consumer thread may call the
+     * consumer, so the next record it receives triggers it.
+     */
+    @EventListener
+    public void onShardsMoved(ShardMap.Changed changed) {
+        rebalanceRequested.set(true);
+    }
+
+    /**
+     * The trace id comes from the record headers set by the producer, so it is in the
+     * MDC before the payload is parsed. Records from producers that do not set it get
+     * a fresh id. Values are JSON or binary depending on their content-type header.
+     *
+     * A record that cannot be decoded is logged and skipped. A failure to apply its
+     * event is thrown to the container's error handler, which retries the record; see
+     * {@link KafkaConsumerConfig}. Offsets are committed through {@link ConsumedOffsets}.
+     */
     @KafkaListener(topics = {"transactions.raw", "transactions.corrections"}, groupId = "shadow-ledger-group")
-    public void consumeTransaction(String message) {
-        String traceId = java.util.UUID.randomUUID().toString();
-        MDC.put("X-Trace-Id", traceId);
+    public void consumeTransaction(byte[] message,
+                                   @Header(name = TransactionWireCodec.CONTENT_TYPE_HEADER, required = false) byte[] contentType,
+                                   @Header(name = TraceIds.HEADER, required = false) byte[] traceId,
+                                   @Header(name = KafkaHeaders.RECEIVED_TOPIC, required = false) String topic,
+                                   @Header(name = KafkaHeaders.RECEIVED_TIMESTAMP, required = false) Long publishedAt,
+                                   @Header(name = KafkaHeaders.RECEIVED_PARTITION, required = false) Integer partition,
+                                   @Header(name = KafkaHeaders.OFFSET, required = false) Long offset,
+                                   Consumer<?, ?> consumer) {
+        long received = System.currentTimeMillis();
+        if (consumer != null && rebalanceRequested.compareAndSet(true, false)) {
+            consumer.enforceRebalance();
+        }
+        MDC.put(TraceIds.HEADER, traceId != null ? new String(traceId, StandardCharsets.UTF_8) : TraceIds.next());
 
         try {
-            TransactionEventDto event = objectMapper.readValue(message, TransactionEventDto.class);
+            TransactionEventDto event = read(message, contentType, topic);
+            if (event == null) {
+                processed(topic, partition, offset, consumer);
+                return;
+            }
             logger.info("Consumed event: {} for account: {}", event.getEventId(), event.getAccountId());
 
-            ledgerService.processEvent(event);
+            long start = System.nanoTime();
+            if (topic != null && partition != null && offset != null) {
+                SequenceTracker.HoldListener hold = consumedOffsets.hold(new TopicPartition(topic, partition), offset);
+                accountStateCache.consumed(topic, partition, offset, () -> sequenceTracker.accept(event, partition, hold));
+                processed(topic, partition, offset, consumer);
+            } else {
+                sequenceTracker.accept(event);
+            }
+            stage(topic, "process").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (publishedAt != null) {
+                stage(topic, "broker").record(received - publishedAt, TimeUnit.MILLISECONDS);
+                stage(topic, "end_to_end").record(System.currentTimeMillis() - publishedAt, TimeUnit.MILLISECONDS);
+            }
 
             logger.info("Successfully processed event: {}", event.getEventId());
-        } catch (Exception e) {
-            logger.error("Failed to process message: {}", message, e);
         } finally {
             MDC.clear();
         }
     }
+
+    private TransactionEventDto read(byte[] message, byte[] contentType, String topic) {
+        try {
+            return eventReader.read(message, contentType);
+        } catch (Exception e) {
+            // Retrying cannot make it readable
+            logger.error("Skipping unreadable {} byte record from {}", message.length, topic, e);
+            return null;
+        }
+    }
+
+    private void processed(String topic, Integer partition, Long offset, Consumer<?, ?> consumer) {
+        if (topic != null && partition != null && offset != null) {
+            consumedOffsets.processed(new TopicPartition(topic, partition), offset);
+            consumedOffsets.commitIfDue(consumer);
+        }
+    }
+
+    /**
+     * broker: producer send to consumer receipt; process: applying the event to the
+     * ledger, including buffered events it unblocks; end_to_end: producer send until
+     * the event is applied.
+     */
+    private Timer stage(String topic, String stage) {
+        return Timer.builder("ledger.event.latency")
+                .description("Latency of a transaction event by pipeline stage")
+                .tag("topic", topic != null ? topic : "unknown")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
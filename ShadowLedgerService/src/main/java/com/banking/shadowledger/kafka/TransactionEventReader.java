@@ -0,0 +1,55 @@
+package com.banking.shadowledger.kafka;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Turns a record value into a {@link TransactionEventDto}, decoding it as binary when the
+ * content-type header says so and as JSON otherwise (including records from producers
+ * that predate the header).
+ *
+ * Both formats carry the timestamp as epoch milliseconds when it is a whole number, as
+ * the event service writes it. Jackson reads whole numbers as seconds by default, so
+ * the JSON reader is told otherwise; fractional numbers are still read as seconds, and
+ * ISO-8601 strings as they are.
+ */
+@Component
+public class TransactionEventReader {
+
+    private static final byte[] BINARY_CONTENT_TYPE = TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectReader jsonReader;
+
+    public TransactionEventReader(ObjectMapper objectMapper) {
+        this.jsonReader = objectMapper.readerFor(TransactionEventDto.class)
+                .without(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
+    }
+
+    public TransactionEventDto read(byte[] value, byte[] contentType) throws IOException {
+        if (contentType != null && Arrays.equals(contentType, BINARY_CONTENT_TYPE)) {
+            return fromWire(TransactionWireCodec.decode(value));
+        }
+        return jsonReader.readValue(value);
+    }
+
+    private static TransactionEventDto fromWire(TransactionWireCodec.WireEvent wire) {
+        TransactionEventDto event = new TransactionEventDto();
+        event.setEventId(wire.eventId());
+        event.setAccountId(wire.accountId());
+        event.setType(wire.type() == TransactionWireCodec.Type.DEBIT
+                ? TransactionEventDto.TransactionType.DEBIT
+                : TransactionEventDto.TransactionType.CREDIT);
+        event.setAmount(TransactionWireCodec.fromCents(wire.amountCents()));
+        event.setTimestamp(wire.timestamp() != null ? Instant.ofEpochMilli(wire.timestamp()) : null);
+        event.setSequence(wire.sequence());
+        return event;
+    }
+}
@@ -0,0 +1,206 @@
+package com.banking.shadowledger.kafka;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of transaction and correction events on transactions.raw and
+ * transactions.corrections. The same codec is kept in each service that reads or
+ * writes these topics; the layout below is the contract between them.
+ *
+ * <pre>
+ * version      1 byte   currently 1
+ * type         1 byte   0 = CREDIT, 1 = DEBIT
+ * flags        1 byte   which optional fields follow (see FLAG_*)
+ * amount       varint   zigzag-encoded amount in cents
+ * timestamp    varint   zigzag epoch millis          (FLAG_TIMESTAMP)
+ * sequence     varint   per-account sequence          (FLAG_SEQUENCE)
+ * windowStart  varint   zigzag epoch millis          (FLAG_WINDOW_START)
+ * windowEnd    varint   zigzag epoch millis          (FLAG_WINDOW_END)
+ * eventId      varint length + UTF-8 bytes
+ * accountId    varint length + UTF-8 bytes
+ * </pre>
+ *
+ * A new optional field may be appended after accountId behind a new flag, since older
+ * readers stop before it; any other change needs a new version. Records carry a {@value #CONTENT_TYPE_HEADER} header so JSON and binary records can
+ * share a topic while producers migrate.
+ */
+public final class TransactionWireCodec {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String JSON = "application/json";
+    public static final String BINARY = "application/vnd.ledger.transaction.v1";
+
+    static final byte VERSION = 1;
+    static final int FLAG_TIMESTAMP = 1;
+    static final int FLAG_SEQUENCE = 1 << 1;
+    static final int FLAG_WINDOW_START = 1 << 2;
+    static final int FLAG_WINDOW_END = 1 << 3;
+
+    public enum Type {
+        CREDIT, DEBIT;
+
+        private static final Type[] VALUES = values();
+    }
+
+    /**
+     * Codec-level view of an event. Optional fields are null when absent.
+     */
+    public record WireEvent(String eventId, String accountId, Type type, long amountCents,
+                            Long timestamp, Long sequence, Long windowStart, Long windowEnd) {
+    }
+
+    private TransactionWireCodec() {
+    }
+
+    /**
+     * Amount in cents, or null if it has a fraction of a cent and cannot be encoded.
+     */
+    public static Long toCents(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static byte[] encode(WireEvent event) {
+        byte[] eventId = event.eventId().getBytes(StandardCharsets.UTF_8);
+        byte[] accountId = event.accountId().getBytes(StandardCharsets.UTF_8);
+        Writer out = new Writer(3 + 5 * 10 + 10 + eventId.length + accountId.length);
+
+        int flags = (event.timestamp() != null ? FLAG_TIMESTAMP : 0)
+                | (event.sequence() != null ? FLAG_SEQUENCE : 0)
+                | (event.windowStart() != null ? FLAG_WINDOW_START : 0)
+                | (event.windowEnd() != null ? FLAG_WINDOW_END : 0);
+        out.write(VERSION);
+        out.write(event.type().ordinal());
+        out.write(flags);
+        out.writeSigned(event.amountCents());
+        if (event.timestamp() != null) {
+            out.writeSigned(event.timestamp());
+        }
+        if (event.sequence() != null) {
+            out.writeVarint(event.sequence());
+        }
+        if (event.windowStart() != null) {
+            out.writeSigned(event.windowStart());
+        }
+        if (event.windowEnd() != null) {
+            out.writeSigned(event.windowEnd());
+        }
+        out.writeBytes(eventId);
+        out.writeBytes(accountId);
+        return out.toByteArray();
+    }
+
+    public static WireEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported transaction wire format version " + version);
+        }
+        int type = in.read();
+        if (type >= Type.VALUES.length) {
+            throw new IllegalArgumentException("Unknown transaction type " + type);
+        }
+        int flags = in.read();
+        long amount = in.readSigned();
+        Long timestamp = (flags & FLAG_TIMESTAMP) != 0 ? in.readSigned() : null;
+        Long sequence = (flags & FLAG_SEQUENCE) != 0 ? in.readVarint() : null;
+        Long windowStart = (flags & FLAG_WINDOW_START) != 0 ? in.readSigned() : null;
+        Long windowEnd = (flags & FLAG_WINDOW_END) != 0 ? in.readSigned() : null;
+        String eventId = in.readString();
+        String accountId = in.readString();
+        return new WireEvent(eventId, accountId, Type.VALUES[type], amount, timestamp, sequence, windowStart, windowEnd);
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void write(int b) {
+            if (pos == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSigned(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            if (pos + bytes.length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated transaction record");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readSigned() {
+            long raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarint();
+            if (length < 0 || pos + length > buf.length) {
+                throw new IllegalArgumentException("Truncated transaction record");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
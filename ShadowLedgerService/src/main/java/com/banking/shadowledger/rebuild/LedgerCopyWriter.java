@@ -0,0 +1,75 @@
+package com.banking.shadowledger.rebuild;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+
+/**
+ * Buffers ledger rows as CSV and loads them into the staging table with one COPY per
+ * batch. Not thread-safe; each partition loader has its own.
+ */
+public class LedgerCopyWriter {
+
+    static final String COPY_SQL = "COPY " + StagingTable.STAGING
+            + " (event_id, account_id, type, amount, timestamp, sequence, created_at) FROM STDIN WITH (FORMAT csv)";
+
+    private final StringBuilder rows = new StringBuilder(1 << 16);
+    private int size;
+
+    public void add(TransactionEventDto event, Instant createdAt) {
+        appendText(event.getEventId()).append(',');
+        appendText(event.getAccountId()).append(',');
+        rows.append(event.getType().name()).append(',');
+        rows.append(event.getAmount().toPlainString()).append(',');
+        rows.append(event.getTimestamp()).append(',');
+        // An unquoted empty field is NULL in CSV mode
+        if (event.getSequence() != null) {
+            rows.append(event.getSequence());
+        }
+        rows.append(',').append(createdAt).append('\n');
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String pendingRows() {
+        return rows.toString();
+    }
+
+    /**
+     * Copies the buffered rows and clears the buffer. Returns the number of rows loaded.
+     */
+    public long flush(CopyManager copyManager) throws SQLException {
+        if (size == 0) {
+            return 0;
+        }
+        byte[] data = rows.toString().getBytes(StandardCharsets.UTF_8);
+        CopyIn copyIn = copyManager.copyIn(COPY_SQL);
+        try {
+            copyIn.writeToCopy(data, 0, data.length);
+            long copied = copyIn.endCopy();
+            rows.setLength(0);
+            size = 0;
+            return copied;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private StringBuilder appendText(String value) {
+        boolean quote = value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return rows.append(value);
+        }
+        return rows.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
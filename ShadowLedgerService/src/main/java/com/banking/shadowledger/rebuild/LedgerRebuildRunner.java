@@ -0,0 +1,249 @@
+package com.banking.shadowledger.rebuild;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.kafka.TransactionEventReader;
+import com.banking.shadowledger.kafka.TransactionWireCodec;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds ledger_entries from the beginning of the transaction topics.
+ *
+ * Runs instead of the normal consumer under the {@code rebuild} profile. The end
+ * offset of every partition is fixed at start; one loader per partition reads up to
+ * it in parallel and COPYs rows into a staging table, skipping the per-event
+ * duplicate check and balance query of LedgerService. Once everything is loaded,
+ * duplicates are removed in one statement, and each account's remaining entries are
+ * replayed in order through in-memory balances to drop the debits that would have
+ * overdrawn it. The staging table is then swapped in and the consumer group's
+ * offsets are set to the fixed end offsets, so the live service resumes exactly where
+ * the rebuild stopped.
+ *
+ * The live consumers must be stopped first; the rebuild refuses to start while the
+ * group has members.
+ */
+@Component
+@Profile("rebuild")
+public class LedgerRebuildRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerRebuildRunner.class);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaAdmin kafkaAdmin;
+    private final DataSource dataSource;
+    private final StagingTable stagingTable;
+    private final TransactionEventReader eventReader;
+    private final ConfigurableApplicationContext context;
+    private final List<String> topics;
+    private final String groupId;
+    private final int parallelism;
+    private final int batchSize;
+    private final Duration progressInterval;
+    private final Path snapshotPath;
+
+    private final Map<TopicPartition, Long> positions = new ConcurrentHashMap<>();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong unreadable = new AtomicLong();
+
+    public LedgerRebuildRunner(ConsumerFactory<String, byte[]> consumerFactory,
+                               KafkaAdmin kafkaAdmin,
+                               DataSource dataSource,
+                               StagingTable stagingTable,
+                               TransactionEventReader eventReader,
+                               ConfigurableApplicationContext context,
+                               @Value("${ledger.rebuild.topics:transactions.raw,transactions.corrections}") List<String> topics,
+                               @Value("${spring.kafka.consumer.group-id}") String groupId,
+                               @Value("${ledger.rebuild.parallelism:8}") int parallelism,
+                               @Value("${ledger.rebuild.batch-size:10000}") int batchSize,
+                               @Value("${ledger.rebuild.progress-interval:5s}") Duration progressInterval,
+                               @Value("${ledger.snapshot.path:data/ledger.snapshot}") Path snapshotPath) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaAdmin = kafkaAdmin;
+        this.dataSource = dataSource;
+        this.stagingTable = stagingTable;
+        this.eventReader = eventReader;
+        this.context = context;
+        this.topics = topics;
+        this.groupId = groupId;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+        this.snapshotPath = snapshotPath;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<TopicPartition> partitions = partitionsOfIdleGroup();
+        Map<TopicPartition, Long> start;
+        Map<TopicPartition, Long> end;
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, "rebuild-", "offsets", overrides())) {
+            start = consumer.beginningOffsets(partitions);
+            end = consumer.endOffsets(partitions);
+        }
+        long total = partitions.stream().mapToLong(p -> end.get(p) - start.get(p)).sum();
+        logger.info("Rebuilding {} from {} partitions of {}: {} records", StagingTable.LIVE, partitions.size(), topics, total);
+
+        long began = System.nanoTime();
+        stagingTable.create();
+        load(partitions, start, end);
+
+        int duplicates = stagingTable.removeDuplicates();
+        int rejected = stagingTable.rejectOverdrawingDebits(new RebuildBalances());
+        stagingTable.prepareForSwap();
+        stagingTable.swap();
+        commitOffsets(end);
+        // Entry ids start again in the rebuilt table, so a snapshot's watermark no longer means anything
+        if (Files.deleteIfExists(snapshotPath)) {
+            logger.info("Deleted ledger snapshot {}", snapshotPath);
+        }
+
+        logger.info("Rebuild complete in {}s: {} entries loaded, {} duplicates removed, {} overdrawing debits rejected, {} unreadable records skipped",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - began),
+                loaded.get() - duplicates - rejected, duplicates, rejected, unreadable.get());
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    private List<TopicPartition> partitionsOfIdleGroup() throws Exception {
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            ConsumerGroupDescription group = admin.describeConsumerGroups(List.of(groupId)).describedGroups().get(groupId).get();
+            if (!group.members().isEmpty()) {
+                throw new IllegalStateException("Consumer group " + groupId + " has " + group.members().size()
+                        + " active members; stop the shadow ledger service before rebuilding");
+            }
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (TopicDescription topic : admin.describeTopics(topics).allTopicNames().get().values()) {
+                topic.partitions().forEach(p -> partitions.add(new TopicPartition(topic.name(), p.partition())));
+            }
+            return partitions;
+        }
+    }
+
+    private void load(List<TopicPartition> partitions, Map<TopicPartition, Long> start, Map<TopicPartition, Long> end) throws Exception {
+        partitions.forEach(p -> positions.put(p, start.get(p)));
+        ExecutorService loaders = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(partitions.size(), 1)));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long interval = progressInterval.toMillis();
+        AtomicLong lastLoaded = new AtomicLong();
+        reporter.scheduleAtFixedRate(() -> {
+            long now = loaded.get();
+            long lag = partitions.stream().mapToLong(p -> Math.max(end.get(p) - positions.get(p), 0)).sum();
+            logger.info("Rebuild progress: {} events loaded, {} events/s, remaining lag {}",
+                    now, (now - lastLoaded.getAndSet(now)) * 1000 / interval, lag);
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                running.add(loaders.submit(() -> {
+                    loadPartition(partition, start.get(partition), end.get(partition));
+                    return null;
+                }));
+            }
+            for (Future<?> loader : running) {
+                loader.get();
+            }
+        } finally {
+            reporter.shutdownNow();
+            loaders.shutdownNow();
+        }
+    }
+
+    private void loadPartition(TopicPartition partition, long from, long to) throws Exception {
+        if (from >= to) {
+            return;
+        }
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, "rebuild-", partition.toString(), overrides());
+             Connection connection = dataSource.getConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            LedgerCopyWriter writer = new LedgerCopyWriter();
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, from);
+
+            long position = from;
+            while (position < to) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofSeconds(1))) {
+                    if (record.offset() >= to) {
+                        break;
+                    }
+                    append(record, writer);
+                    if (writer.size() >= batchSize) {
+                        loaded.addAndGet(writer.flush(copyManager));
+                    }
+                }
+                position = consumer.position(partition);
+                positions.put(partition, position);
+            }
+            loaded.addAndGet(writer.flush(copyManager));
+        }
+        logger.debug("Partition {} loaded up to offset {}", partition, to);
+    }
+
+    private void append(ConsumerRecord<String, byte[]> record, LedgerCopyWriter writer) {
+        TransactionEventDto event;
+        try {
+            Header contentType = record.headers().lastHeader(TransactionWireCodec.CONTENT_TYPE_HEADER);
+            event = eventReader.read(record.value(), contentType != null ? contentType.value() : null);
+        } catch (Exception e) {
+            unreadable.incrementAndGet();
+            logger.warn("Skipping unreadable record {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), e.toString());
+            return;
+        }
+        writer.add(event, Instant.ofEpochMilli(record.timestamp()));
+    }
+
+    private void commitOffsets(Map<TopicPartition, Long> end) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        end.forEach((partition, offset) -> offsets.put(partition, new OffsetAndMetadata(offset)));
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, "rebuild-", "commit", overrides())) {
+            consumer.commitSync(offsets);
+        }
+        logger.info("Consumer group {} positioned at the rebuilt offsets", groupId);
+    }
+
+    private Properties overrides() {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+        properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(1 << 20));
+        return properties;
+    }
+}
@@ -0,0 +1,46 @@
+package com.banking.shadowledger.rebuild;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running balance per account during a rebuild, so debits that would overdraw an
+ * account are rejected as LedgerService rejects them, without querying the ledger
+ * per event. Events must be applied in the order the live consumer applies them.
+ */
+public class RebuildBalances {
+
+    private final Map<String, BigDecimal> balances = new ConcurrentHashMap<>();
+
+    /**
+     * Applies the event to its account and returns true, or returns false and leaves
+     * the balance unchanged if it is a debit the balance cannot cover.
+     */
+    public boolean apply(TransactionEventDto event) {
+        return apply(event.getAccountId(), event.getType(), event.getAmount());
+    }
+
+    public boolean apply(String accountId, TransactionEventDto.TransactionType type, BigDecimal amount) {
+        boolean[] accepted = {true};
+        balances.compute(accountId, (id, balance) -> {
+            BigDecimal current = balance != null ? balance : BigDecimal.ZERO;
+            if (type == TransactionEventDto.TransactionType.CREDIT) {
+                return current.add(amount);
+            }
+            BigDecimal after = current.subtract(amount);
+            if (after.signum() < 0) {
+                accepted[0] = false;
+                return current;
+            }
+            return after;
+        });
+        return accepted[0];
+    }
+
+    public BigDecimal balance(String accountId) {
+        return balances.getOrDefault(accountId, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,132 @@
+package com.banking.shadowledger.rebuild;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DDL for loading a rebuilt ledger beside the live one and swapping it in.
+ *
+ * The staging table is created unlogged and without indexes so COPY only appends
+ * heap pages; indexes and WAL logging are added once, after the load. The swap
+ * renames tables and indexes in one transaction, so readers see either the old
+ * ledger or the complete new one. The old table is kept as ledger_entries_previous
+ * until the next rebuild.
+ *
+ * Indexes and storage parameters mirror the migrations (V2__tune_ledger_entries and
+ * V4__logical_shard) so a rebuilt ledger is indistinguishable from a migrated one.
+ */
+@Component
+@Profile("rebuild")
+public class StagingTable {
+
+    static final String LIVE = "ledger_entries";
+    static final String STAGING = "ledger_entries_rebuild";
+    static final String PREVIOUS = "ledger_entries_previous";
+
+    private static final int REPLAY_FETCH_SIZE = 10_000;
+
+    private static final String[] INDEXES = {"idx_account_timestamp", "idx_event_id", "idx_account_sequence",
+            "idx_logical_shard"};
+
+    private static final String STORAGE_PARAMETERS = "fillfactor = 100,"
+            + " autovacuum_vacuum_insert_scale_factor = 0.01, autovacuum_vacuum_insert_threshold = 10000,"
+            + " autovacuum_analyze_scale_factor = 0.01";
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingTable.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StagingTable(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void create() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + STAGING
+                + " (LIKE " + LIVE + " INCLUDING DEFAULTS INCLUDING IDENTITY INCLUDING CONSTRAINTS)"
+                + " WITH (" + STORAGE_PARAMETERS + ")");
+    }
+
+    /**
+     * Drops duplicate event ids, keeping the first one loaded, which within a partition
+     * is the earliest offset, and keys the table by id. Returns the number of
+     * duplicates removed.
+     */
+    public int removeDuplicates() {
+        int duplicates = jdbcTemplate.update("DELETE FROM " + STAGING + " a USING " + STAGING + " b"
+                + " WHERE a.event_id = b.event_id AND a.id > b.id");
+        jdbcTemplate.execute("ALTER TABLE " + STAGING + " ADD CONSTRAINT " + STAGING + "_pkey PRIMARY KEY (id) WITH (fillfactor = 100)");
+        return duplicates;
+    }
+
+    /**
+     * Replays each account's entries through {@code balances} and deletes the debits it
+     * rejects. Entries are replayed in the order the live consumer receives them: by
+     * record timestamp (loaded as created_at), raw events of the same millisecond by
+     * sequence, then in offset order. Returns the number of debits deleted.
+     */
+    public int rejectOverdrawingDebits(RebuildBalances balances) {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(REPLAY_FETCH_SIZE);
+        List<Long> rejected = new ArrayList<>();
+        // A cursor, rather than the whole result, needs a transaction
+        transactionTemplate.executeWithoutResult(status -> streaming.query(
+                "SELECT id, account_id, type, amount FROM " + STAGING
+                        + " ORDER BY account_id, created_at, sequence, id",
+                (RowCallbackHandler) rs -> {
+                    if (!balances.apply(rs.getString("account_id"),
+                            TransactionEventDto.TransactionType.valueOf(rs.getString("type")),
+                            rs.getBigDecimal("amount"))) {
+                        rejected.add(rs.getLong("id"));
+                    }
+                }));
+        for (int from = 0; from < rejected.size(); from += REPLAY_FETCH_SIZE) {
+            List<Long> batch = rejected.subList(from, Math.min(from + REPLAY_FETCH_SIZE, rejected.size()));
+            jdbcTemplate.update("DELETE FROM " + STAGING + " WHERE id = ANY (?)",
+                    (PreparedStatementSetter) ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", batch.toArray())));
+        }
+        return rejected.size();
+    }
+
+    /**
+     * Makes the table durable and builds its indexes.
+     */
+    public void prepareForSwap() {
+        jdbcTemplate.execute("ALTER TABLE " + STAGING + " SET LOGGED");
+        jdbcTemplate.execute("CREATE INDEX idx_account_timestamp_rebuild ON " + STAGING + " (account_id, timestamp, event_id)"
+                + " INCLUDE (type, amount, sequence)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX idx_event_id_rebuild ON " + STAGING + " (event_id)");
+        jdbcTemplate.execute("CREATE INDEX idx_account_sequence_rebuild ON " + STAGING + " (account_id, sequence)");
+        jdbcTemplate.execute("CREATE INDEX idx_logical_shard_rebuild ON " + STAGING + " (logical_shard, id)");
+        jdbcTemplate.execute("ANALYZE " + STAGING);
+    }
+
+    public void swap() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + PREVIOUS);
+            jdbcTemplate.execute("ALTER TABLE " + LIVE + " RENAME TO " + PREVIOUS);
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + LIVE + "_pkey RENAME TO " + PREVIOUS + "_pkey");
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("ALTER INDEX IF EXISTS " + index + " RENAME TO " + index + "_previous");
+            }
+            jdbcTemplate.execute("ALTER TABLE " + STAGING + " RENAME TO " + LIVE);
+            jdbcTemplate.execute("ALTER INDEX " + STAGING + "_pkey RENAME TO " + LIVE + "_pkey");
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("ALTER INDEX " + index + "_rebuild RENAME TO " + index);
+            }
+        });
+        logger.info("Swapped rebuilt ledger into {}; previous table kept as {}", LIVE, PREVIOUS);
+    }
+}
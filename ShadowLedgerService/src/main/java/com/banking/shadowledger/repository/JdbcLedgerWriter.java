@@ -0,0 +1,118 @@
+package com.banking.shadowledger.repository;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes with plain JDBC: one {@code INSERT ... ON CONFLICT (event_id) DO NOTHING
+ * RETURNING} per call (per {@value #MAX_ROWS} entries for batches), so the duplicate
+ * check and the insert are a single round trip and no persistence context is involved.
+ * The statements are prepared, and the driver switches them to server-side prepared
+ * statements once they have been reused.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.writer", havingValue = "jdbc")
+public class JdbcLedgerWriter implements LedgerWriter {
+
+    static final int MAX_ROWS = 1000;
+
+    private static final String INSERT = "INSERT INTO ledger_entries"
+            + " (event_id, account_id, type, amount, timestamp, sequence, logical_shard, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ON_CONFLICT = " ON CONFLICT (event_id) DO NOTHING RETURNING id, event_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, String> statements = new ConcurrentHashMap<>();
+
+    public JdbcLedgerWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<LedgerEntry> insert(LedgerEntry entry) {
+        List<LedgerEntry> inserted = write(List.of(entry));
+        return inserted.isEmpty() ? Optional.empty() : Optional.of(inserted.get(0));
+    }
+
+    @Override
+    public List<LedgerEntry> insertAll(List<LedgerEntry> entries) {
+        List<LedgerEntry> inserted = new ArrayList<>(entries.size());
+        for (int from = 0; from < entries.size(); from += MAX_ROWS) {
+            inserted.addAll(write(entries.subList(from, Math.min(from + MAX_ROWS, entries.size()))));
+        }
+        return inserted;
+    }
+
+    private List<LedgerEntry> write(List<LedgerEntry> rows) {
+        Map<String, Long> ids = jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql(rows.size()));
+                    bind(statement, rows);
+                    return statement;
+                },
+                rs -> {
+                    Map<String, Long> returned = new HashMap<>();
+                    while (rs.next()) {
+                        returned.put(rs.getString("event_id"), rs.getLong("id"));
+                    }
+                    return returned;
+                });
+
+        List<LedgerEntry> inserted = new ArrayList<>(ids.size());
+        for (LedgerEntry entry : rows) {
+            // remove, so a second entry with the same event id in this batch is left out
+            Long id = ids.remove(entry.getEventId());
+            if (id != null) {
+                entry.setId(id);
+                inserted.add(entry);
+            }
+        }
+        return inserted;
+    }
+
+    private String sql(int rows) {
+        return statements.computeIfAbsent(rows, n -> INSERT + String.join(", ", Collections.nCopies(n, ROW)) + ON_CONFLICT);
+    }
+
+    private static void bind(PreparedStatement statement, List<LedgerEntry> rows) throws SQLException {
+        int i = 1;
+        for (LedgerEntry entry : rows) {
+            statement.setString(i++, entry.getEventId());
+            statement.setString(i++, entry.getAccountId());
+            statement.setString(i++, entry.getType().name());
+            statement.setBigDecimal(i++, entry.getAmount());
+            statement.setObject(i++, utc(entry.getTimestamp()));
+            if (entry.getSequence() != null) {
+                statement.setLong(i++, entry.getSequence());
+            } else {
+                statement.setNull(i++, Types.BIGINT);
+            }
+            if (entry.getLogicalShard() != null) {
+                statement.setInt(i++, entry.getLogicalShard());
+            } else {
+                statement.setNull(i++, Types.INTEGER);
+            }
+            statement.setObject(i++, utc(entry.getCreatedAt()));
+        }
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
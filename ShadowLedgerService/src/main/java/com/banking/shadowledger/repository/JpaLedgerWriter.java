@@ -0,0 +1,42 @@
+package com.banking.shadowledger.repository;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes through Hibernate: an existence check, then a save. IDENTITY ids rule out
+ * JDBC batching, so every entry costs two round trips.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.writer", havingValue = "jpa", matchIfMissing = true)
+public class JpaLedgerWriter implements LedgerWriter {
+
+    private final LedgerRepository ledgerRepository;
+
+    public JpaLedgerWriter(LedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    @Override
+    public Optional<LedgerEntry> insert(LedgerEntry entry) {
+        if (ledgerRepository.existsByEventId(entry.getEventId())) {
+            return Optional.empty();
+        }
+        LedgerEntry saved = ledgerRepository.save(entry);
+        return Optional.of(saved != null ? saved : entry);
+    }
+
+    @Override
+    public List<LedgerEntry> insertAll(List<LedgerEntry> entries) {
+        List<LedgerEntry> inserted = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            insert(entry).ifPresent(inserted::add);
+        }
+        return inserted;
+    }
+}
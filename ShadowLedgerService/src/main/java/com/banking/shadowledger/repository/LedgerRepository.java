@@ -1,12 +1,14 @@
 package com.banking.shadowledger.repository;
 
 import com.banking.shadowledger.entity.LedgerEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +18,34 @@ public interface LedgerRepository extends JpaRepository<LedgerEntry, Long> {
 
     Optional<LedgerEntry> findTopByAccountIdOrderByTimestampDescEventIdDesc(String accountId);
 
+    @Query("SELECT MAX(e.sequence) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    Long findMaxSequence(@Param("accountId") String accountId);
+
+    @Query("SELECT MAX(e.id) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    Long findMaxId(@Param("accountId") String accountId);
+
+    @Query("SELECT MAX(e.id) FROM LedgerEntry e")
+    Long findMaxId();
+
+    List<LedgerEntry> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * The WAL insert position, in bytes from 0/0, that a replica has to replay up to
+     * before it holds every transaction committed so far. Unlike pg_current_wal_lsn()
+     * it is past the commit record even with synchronous_commit off. Read it on the
+     * primary (see ReadRouting).
+     */
+    @Query(value = "SELECT CAST(pg_wal_lsn_diff(pg_current_wal_insert_lsn(), '0/0') AS bigint)", nativeQuery = true)
+    long currentWalPosition();
+
+    /**
+     * Locks this database's ownership of a logical shard until the transaction ends;
+     * empty if the database does not own it (see ShardMap).
+     */
+    @Query(value = "SELECT logical_shard FROM ledger_shard_ownership WHERE logical_shard = :logicalShard FOR SHARE",
+            nativeQuery = true)
+    List<Integer> lockShardOwnership(@Param("logicalShard") int logicalShard);
+
     @Query(value = """
         SELECT COALESCE(SUM(CASE
             WHEN type = 'CREDIT' THEN amount
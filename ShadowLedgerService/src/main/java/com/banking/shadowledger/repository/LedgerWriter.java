@@ -0,0 +1,26 @@
+package com.banking.shadowledger.repository;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Inserts ledger entries, skipping any whose event id is already in the ledger.
+ * Selected with {@code ledger.writer}: {@code jpa} (default) or {@code jdbc}.
+ * Runs in the caller's transaction.
+ */
+public interface LedgerWriter {
+
+    /**
+     * Returns the stored entry, with its id, or empty if the event was already recorded.
+     */
+    Optional<LedgerEntry> insert(LedgerEntry entry);
+
+    /**
+     * Inserts entries in order and returns those that were stored, with their ids.
+     * Entries whose event id is already recorded, or repeated in {@code entries}, are
+     * left out of the result.
+     */
+    List<LedgerEntry> insertAll(List<LedgerEntry> entries);
+}
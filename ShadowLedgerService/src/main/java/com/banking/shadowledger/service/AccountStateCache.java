@@ -0,0 +1,371 @@
+package com.banking.shadowledger.service;
+
+import com.banking.shadowledger.datasource.ReadRouting;
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.shard.ShardMap;
+import com.banking.shadowledger.shard.ShardRouting;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory balance and last event per account, kept in step with ledger_entries.
+ *
+ * Only accounts whose partitions this instance consumes are held, since only their
+ * entries are applied here; see {@link #assigned}. Other accounts are read from the
+ * database every time, and an instance's accounts are dropped when their partitions
+ * are revoked.
+ *
+ * An account is loaded from the database the first time it is read and from then on
+ * updated as entries commit. Each state remembers the highest entry id it includes.
+ * An entry at or below that id either committed before the load but reached the
+ * cache after it, or committed out of id order; the two cannot be told apart, so the
+ * account is reloaded on its next read instead. Accounts that were never read are
+ * not held, and entries for them are ignored until they are.
+ *
+ * States live off-heap in an {@link OffHeapAccountTable}; the few account ids that do
+ * not fit its key encoding are kept in an ordinary map. The last event is held as its
+ * ledger entry id and resolved to an event id only when a balance is requested.
+ * Events with the same timestamp are ordered by event id, as everywhere else in the
+ * ledger. The event id is not held, so an entry whose timestamp ties the last event's
+ * also leaves the account to be reloaded, and the loader picks the last one.
+ * With a read replica in use each state also holds a WAL position on the primary
+ * reached after all of its entries committed, so the lookup can wait for a replica
+ * that has them.
+ *
+ * The cache also records, per topic partition, the offset after the last record the
+ * consumer has applied. {@link #cut} takes both under one lock, giving a snapshot
+ * whose balances contain exactly the records before its offsets.
+ */
+@Component
+public class AccountStateCache {
+
+    /**
+     * {@code lastEventEntryId} is 0 and {@code lastTimestamp} null for an account
+     * without entries. {@code position} is a WAL position the state's entries are all
+     * committed by, or 0 without a replica (see ReadRouting).
+     */
+    public record AccountState(BigDecimal balance, long lastEventEntryId, Instant lastTimestamp, long lastEntryId,
+                               long position) {
+
+        public AccountState(BigDecimal balance, long lastEventEntryId, Instant lastTimestamp, long lastEntryId) {
+            this(balance, lastEventEntryId, lastTimestamp, lastEntryId, 0);
+        }
+    }
+
+    public record Partition(String topic, int partition) {
+    }
+
+    /**
+     * A consistent copy of the cache. {@code watermark} is the highest ledger entry id
+     * committed when it was taken; entries above it are applied on restore.
+     */
+    public record Cut(long watermark, Map<Partition, Long> offsets, OffHeapAccountTable table,
+                      Map<String, AccountState> overflow) {
+
+        public int accountCount() {
+            return table.size() + overflow.size();
+        }
+    }
+
+    public static final int SEGMENT_BITS = 8;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int STALE = 1;
+    private static final int WRITE_STRIPES = 1024;
+
+    private final AccountStateLoader loader;
+    private volatile OffHeapAccountTable table = new OffHeapAccountTable(SEGMENT_BITS, 1024);
+    private final Map<String, AccountState> overflow = new ConcurrentHashMap<>();
+    private final Map<Partition, Long> offsets = new ConcurrentHashMap<>();
+    private final Map<Partition, Long> resumeOffsets = new ConcurrentHashMap<>();
+    private final ReadWriteLock cutLock = new ReentrantReadWriteLock();
+    private final Set<Partition> owned = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, Integer> partitionCounts = Map.of();
+    // Bumped before an entry is applied, per stripe of accounts, and when ownership changes
+    private final AtomicLongArray writes = new AtomicLongArray(WRITE_STRIPES);
+    private final AtomicLong ownershipChanges = new AtomicLong();
+
+    public AccountStateCache(AccountStateLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * The account's state, loading it if it is not cached. The load runs without any
+     * lock held. An entry applied to the account, or a rebalance, while it runs may be
+     * missing from what was loaded, so the account is then stored as stale and loaded
+     * again on its next read.
+     */
+    public AccountState get(String accountId) {
+        if (!owns(accountId)) {
+            return load(accountId);
+        }
+        boolean offHeap = OffHeapAccountTable.fits(accountId);
+        if (offHeap) {
+            OffHeapAccountTable.AccountRecord record = new OffHeapAccountTable.AccountRecord();
+            if (table.get(accountId, record) && (record.flags & STALE) == 0) {
+                return toState(record);
+            }
+        } else {
+            AccountState cached = overflow.get(accountId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long before = changes(accountId);
+        AccountState loaded = load(accountId);
+        OffHeapAccountTable.AccountRecord record = new OffHeapAccountTable.AccountRecord();
+        if (offHeap) {
+            toRecord(loaded, record);
+            table.put(accountId, record);
+        } else {
+            overflow.put(accountId, loaded);
+        }
+        if (changes(accountId) != before) {
+            if (offHeap) {
+                record.flags = STALE;
+                table.put(accountId, record);
+            } else {
+                overflow.remove(accountId);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Adds a committed entry to its account, if the account is cached.
+     */
+    public void apply(LedgerEntry entry) {
+        apply(entry, 0);
+    }
+
+    /**
+     * Adds a committed entry to its account, if the account is cached.
+     * {@code position} is the primary's WAL position read after the entry committed.
+     */
+    public void apply(LedgerEntry entry, long position) {
+        writes.incrementAndGet(stripe(entry.getAccountId()));
+        long cents = toCents(entry.getAmount());
+        long delta = entry.getType() == LedgerEntry.TransactionType.CREDIT ? cents : -cents;
+        long id = entry.getId() != null ? entry.getId() : 0;
+        long timestamp = micros(entry.getTimestamp());
+        if (OffHeapAccountTable.fits(entry.getAccountId())) {
+            table.applyIfPresent(entry.getAccountId(), delta, id, position, timestamp, id, 0, STALE);
+            return;
+        }
+        overflow.computeIfPresent(entry.getAccountId(), (accountId, state) -> {
+            if (id != 0 && id <= state.lastEntryId()) {
+                // Dropped, so the next read reloads it
+                return null;
+            }
+            long stored = micros(state.lastTimestamp());
+            if (timestamp == stored && id != state.lastEventEntryId()) {
+                return null;
+            }
+            BigDecimal balance = state.balance().add(BigDecimal.valueOf(delta, 2));
+            boolean latest = timestamp > stored;
+            return new AccountState(balance,
+                    latest ? id : state.lastEventEntryId(),
+                    latest ? entry.getTimestamp() : state.lastTimestamp(),
+                    Math.max(id, state.lastEntryId()),
+                    Math.max(position, state.position()));
+        });
+    }
+
+    /**
+     * Runs {@code work} for one consumed record and then records {@code offset + 1} as
+     * the partition's position. A snapshot is never taken while work is running.
+     */
+    public void consumed(String topic, int partition, long offset, Runnable work) {
+        cutLock.readLock().lock();
+        try {
+            work.run();
+            offsets.merge(new Partition(topic, partition), offset + 1, Math::max);
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the cache while no record is being applied, or returns null if
+     * {@code ready} says the state should not be captured now.
+     */
+    public Cut cut(BooleanSupplier ready, LongSupplier watermark) {
+        cutLock.writeLock().lock();
+        try {
+            if (!ready.getAsBoolean()) {
+                return null;
+            }
+            return new Cut(watermark.getAsLong(), Map.copyOf(offsets), table.copy(), new HashMap<>(overflow));
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seeds the cache from a snapshot. Accounts already loaded keep their state; if
+     * there are none, the snapshot's table is used as it is.
+     */
+    public void restore(Cut cut) {
+        OffHeapAccountTable current = table;
+        if (current.size() == 0) {
+            table = cut.table();
+        } else {
+            cut.table().forEach((key0, key1, record) -> current.putIfAbsent(key0, key1, record));
+        }
+        cut.overflow().forEach(overflow::putIfAbsent);
+        cut.offsets().forEach((partition, offset) -> {
+            resumeOffsets.put(partition, offset);
+            offsets.merge(partition, offset, Math::max);
+        });
+    }
+
+    /**
+     * The offset the restored snapshot is consistent with, returned once per partition.
+     */
+    public Long takeResumeOffset(String topic, int partition) {
+        return resumeOffsets.remove(new Partition(topic, partition));
+    }
+
+    /**
+     * Partitions assigned to one of this instance's consumers. {@code partitionCounts}
+     * holds the partition count of each topic consumed: an account is owned when the
+     * partition its id hashes to is assigned in every one of them. Restored accounts
+     * that are not owned are dropped.
+     */
+    public void assigned(Collection<Partition> partitions, Map<String, Integer> partitionCounts) {
+        cutLock.writeLock().lock();
+        try {
+            this.partitionCounts = Map.copyOf(partitionCounts);
+            owned.addAll(partitions);
+            retainOwned();
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the accounts of partitions taken away from this instance. Their entries
+     * are applied elsewhere from now on.
+     */
+    public void revoked(Collection<Partition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        cutLock.writeLock().lock();
+        try {
+            owned.removeAll(partitions);
+            offsets.keySet().removeAll(partitions);
+            retainOwned();
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether this instance applies the account's entries, and so may cache it.
+     */
+    public boolean owns(String accountId) {
+        Map<String, Integer> counts = partitionCounts;
+        if (counts.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<String, Integer> topic : counts.entrySet()) {
+            if (!owned.contains(new Partition(topic.getKey(), ShardMap.logicalShardOf(accountId, topic.getValue())))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every account once logical shards have moved: their states were built
+     * from the old shard's entry ids, and are loaded again from the new one.
+     */
+    @EventListener
+    public void onShardsMoved(ShardMap.Changed changed) {
+        cutLock.writeLock().lock();
+        try {
+            ownershipChanges.incrementAndGet();
+            table = new OffHeapAccountTable(SEGMENT_BITS, 1024);
+            overflow.clear();
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return table.size() + overflow.size();
+    }
+
+    public long offHeapBytes() {
+        return table.memoryBytes();
+    }
+
+    // Called with the cut lock held for writing, so no consumer is applying entries
+    private void retainOwned() {
+        ownershipChanges.incrementAndGet();
+        OffHeapAccountTable retained = new OffHeapAccountTable(SEGMENT_BITS, 1024);
+        table.forEach((key0, key1, record) -> {
+            if (owns(OffHeapAccountTable.decode(key0, key1))) {
+                retained.putIfAbsent(key0, key1, record);
+            }
+        });
+        table = retained;
+        overflow.keySet().removeIf(accountId -> !owns(accountId));
+    }
+
+    private long changes(String accountId) {
+        return writes.get(stripe(accountId)) + ownershipChanges.get();
+    }
+
+    private static int stripe(String accountId) {
+        return accountId.hashCode() & (WRITE_STRIPES - 1);
+    }
+
+    private AccountState load(String accountId) {
+        // Committed entries are applied on top of what is loaded, so it must not be stale
+        AccountState state = ShardRouting.forAccount(accountId, () -> ReadRouting.onPrimary(() -> loader.load(accountId)));
+        // Same scale as a cached balance, whether or not this one is cached
+        return new AccountState(state.balance().setScale(2, RoundingMode.HALF_UP), state.lastEventEntryId(),
+                state.lastTimestamp(), state.lastEntryId(), state.position());
+    }
+
+    static long toCents(BigDecimal amount) {
+        // ledger_entries.amount is numeric(19,2); round the same way so the cache matches the table
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long micros(Instant timestamp) {
+        return timestamp != null ? ChronoUnit.MICROS.between(Instant.EPOCH, timestamp) : NO_TIMESTAMP;
+    }
+
+    private static void toRecord(AccountState state, OffHeapAccountTable.AccountRecord into) {
+        into.balanceCents = toCents(state.balance());
+        into.version = state.lastEntryId();
+        // The table's sequence slot, which this cache has no other use for
+        into.sequence = state.position();
+        into.timestamp = micros(state.lastTimestamp());
+        into.lastRef = state.lastEventEntryId();
+    }
+
+    private static AccountState toState(OffHeapAccountTable.AccountRecord record) {
+        return new AccountState(BigDecimal.valueOf(record.balanceCents, 2), record.lastRef,
+                record.timestamp != NO_TIMESTAMP ? Instant.EPOCH.plus(record.timestamp, ChronoUnit.MICROS) : null,
+                record.version, record.sequence);
+    }
+}
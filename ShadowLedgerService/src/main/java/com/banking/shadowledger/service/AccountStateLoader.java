@@ -0,0 +1,43 @@
+package com.banking.shadowledger.service;
+
+import com.banking.shadowledger.datasource.ReadRouting;
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache.AccountState;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Reads an account's state from ledger_entries for {@link AccountStateCache}.
+ *
+ * The balance, last event and highest entry id are read in one repeatable-read
+ * transaction so they describe the same set of rows. The WAL position is read last,
+ * so every row the transaction sees committed before it. Inside the consumer's
+ * transaction the isolation of the outer transaction applies instead.
+ */
+@Component
+public class AccountStateLoader {
+
+    private final LedgerRepository ledgerRepository;
+
+    public AccountStateLoader(LedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public AccountState load(String accountId) {
+        BigDecimal balance = ledgerRepository.calculateShadowBalance(accountId);
+        Optional<LedgerEntry> last = ledgerRepository.findTopByAccountIdOrderByTimestampDescEventIdDesc(accountId);
+        Long maxId = ledgerRepository.findMaxId(accountId);
+        return new AccountState(
+                balance != null ? balance : BigDecimal.ZERO,
+                last.map(LedgerEntry::getId).orElse(0L),
+                last.map(LedgerEntry::getTimestamp).orElse(null),
+                maxId != null ? maxId : 0,
+                ReadRouting.replicaInUse() ? ledgerRepository.currentWalPosition() : 0);
+    }
+}
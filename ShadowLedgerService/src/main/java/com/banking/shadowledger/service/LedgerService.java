@@ -1,37 +1,67 @@
 package com.banking.shadowledger.service;
 
+import com.banking.shadowledger.datasource.ReadRouting;
 import com.banking.shadowledger.dto.ShadowBalanceResponse;
 import com.banking.shadowledger.dto.TransactionEventDto;
 import com.banking.shadowledger.entity.LedgerEntry;
 import com.banking.shadowledger.exception.InsufficientBalanceException;
+import com.banking.shadowledger.exception.ShardMovedException;
 import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.repository.LedgerWriter;
+import com.banking.shadowledger.shard.ShardRouting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 @Service
 public class LedgerService {
 
     private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
     private final LedgerRepository ledgerRepository;
+    private final LedgerWriter ledgerWriter;
+    private final AccountStateCache accountStateCache;
 
-    public LedgerService(LedgerRepository ledgerRepository) {
+    public LedgerService(LedgerRepository ledgerRepository, LedgerWriter ledgerWriter, AccountStateCache accountStateCache) {
         this.ledgerRepository = ledgerRepository;
+        this.ledgerWriter = ledgerWriter;
+        this.accountStateCache = accountStateCache;
     }
 
+    /**
+     * Duplicates are detected by the insert itself. The one exception is a redelivered
+     * debit that fails the balance check (its amount is already in the cached balance),
+     * which is looked up before it is rejected.
+     */
     @Transactional
     public void processEvent(TransactionEventDto eventDto) {
-        if (ledgerRepository.existsByEventId(eventDto.getEventId())) {
-            logger.warn("Duplicate event detected and ignored: {}", eventDto.getEventId());
-            return;
+        if (ShardRouting.enabled()) {
+            claimShard(eventDto.getAccountId());
         }
-
-        if (eventDto.getType() == TransactionEventDto.TransactionType.DEBIT) {
-            validateSufficientBalance(eventDto);
+        if (eventDto.getType() == TransactionEventDto.TransactionType.DEBIT && !hasSufficientBalance(eventDto)) {
+            if (ledgerRepository.existsByEventId(eventDto.getEventId())) {
+                logger.warn("Duplicate event detected and ignored: {}", eventDto.getEventId());
+                return;
+            }
+            logger.error("Insufficient balance for event: {}. Current: {}, Debit: {}", eventDto.getEventId(),
+                    accountStateCache.get(eventDto.getAccountId()).balance(), eventDto.getAmount());
+            throw new InsufficientBalanceException(
+                    "Insufficient balance for account " + eventDto.getAccountId());
         }
 
         LedgerEntry entry = new LedgerEntry(
@@ -41,38 +71,106 @@ public class LedgerService {
                 eventDto.getAmount(),
                 eventDto.getTimestamp()
         );
+        entry.setSequence(eventDto.getSequence());
+        if (ShardRouting.enabled()) {
+            entry.setLogicalShard(ShardRouting.logicalShardOf(eventDto.getAccountId()));
+        }
 
-        ledgerRepository.save(entry);
+        Optional<LedgerEntry> saved = ledgerWriter.insert(entry);
+        if (saved.isEmpty()) {
+            logger.warn("Duplicate event detected and ignored: {}", eventDto.getEventId());
+            return;
+        }
+        afterCommit(saved.get());
         logger.info("Processed event: {} for account: {}", eventDto.getEventId(), eventDto.getAccountId());
     }
 
-    private void validateSufficientBalance(TransactionEventDto eventDto) {
-        BigDecimal currentBalance = ledgerRepository.calculateShadowBalance(eventDto.getAccountId());
-        if (currentBalance == null) {
-            currentBalance = BigDecimal.ZERO;
+    /**
+     * The cached balance only moves once the entry is committed, so a rolled back
+     * entry never shows up in it. With a replica in use the primary's WAL position is
+     * read once the commit is done, which is the earliest point it covers the entry.
+     */
+    private void afterCommit(LedgerEntry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accountStateCache.apply(entry, committedPosition());
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accountStateCache.apply(entry, committedPosition());
+            }
+        });
+    }
 
-        BigDecimal balanceAfterDebit = currentBalance.subtract(eventDto.getAmount());
-        if (balanceAfterDebit.compareTo(BigDecimal.ZERO) < 0) {
-            logger.error("Insufficient balance for event: {}. Current: {}, Debit: {}",
-                    eventDto.getEventId(), currentBalance, eventDto.getAmount());
-            throw new InsufficientBalanceException(
-                    "Insufficient balance for account " + eventDto.getAccountId());
-        }
+    private long committedPosition() {
+        return ReadRouting.replicaInUse() ? ReadRouting.onPrimary(ledgerRepository::currentWalPosition) : 0;
     }
 
-    @Transactional(readOnly = true)
-    public ShadowBalanceResponse getShadowBalance(String accountId) {
-        BigDecimal balance = ledgerRepository.calculateShadowBalance(accountId);
-        if (balance == null) {
-            balance = BigDecimal.ZERO;
+    /**
+     * Holds on to this database's ownership of the account's logical shard until the
+     * transaction ends. Once a move has taken the logical shard away the event is
+     * retried on its new shard instead of being written behind the copy.
+     */
+    private void claimShard(String accountId) {
+        int logicalShard = ShardRouting.logicalShardOf(accountId);
+        if (ledgerRepository.lockShardOwnership(logicalShard).isEmpty()) {
+            throw new ShardMovedException("Logical shard " + logicalShard + " of account " + accountId
+                    + " is no longer on this shard");
         }
+    }
+
+    private boolean hasSufficientBalance(TransactionEventDto eventDto) {
+        BigDecimal currentBalance = accountStateCache.get(eventDto.getAccountId()).balance();
 
-        Optional<LedgerEntry> lastEntry = ledgerRepository
-                .findTopByAccountIdOrderByTimestampDescEventIdDesc(accountId);
+        BigDecimal balanceAfterDebit = currentBalance.subtract(eventDto.getAmount());
+        return balanceAfterDebit.compareTo(BigDecimal.ZERO) >= 0;
+    }
 
-        String lastEventId = lastEntry.map(LedgerEntry::getEventId).orElse(null);
+    public ShadowBalanceResponse getShadowBalance(String accountId) {
+        return ShardRouting.forAccount(accountId, () -> {
+            AccountStateCache.AccountState state = accountStateCache.get(accountId);
+            if (state.lastEventEntryId() == 0) {
+                return new ShadowBalanceResponse(accountId, state.balance(), null);
+            }
+            Supplier<String> lastEventId =
+                    () -> ledgerRepository.findById(state.lastEventEntryId()).map(LedgerEntry::getEventId).orElse(null);
+            // The replica may answer once it has replayed the entries the cached balance
+            // holds; a state without a recorded position only trusts the primary
+            return new ShadowBalanceResponse(accountId, state.balance(), state.position() > 0
+                    ? ReadRouting.atLeast(state.position(), lastEventId)
+                    : ReadRouting.onPrimary(lastEventId));
+        });
+    }
 
-        return new ShadowBalanceResponse(accountId, balance, lastEventId);
+    /**
+     * Balances of several accounts, in the order given. When they are spread over
+     * shards, each shard's accounts are read on a virtual thread of their own, so the
+     * shards are queried at the same time rather than one after another.
+     */
+    public List<ShadowBalanceResponse> getShadowBalances(Collection<String> accountIds) {
+        Map<Integer, List<String>> byShard = ShardRouting.groupByShard(accountIds);
+        if (byShard.size() <= 1) {
+            return accountIds.stream().map(this::getShadowBalance).toList();
+        }
+        Map<String, ShadowBalanceResponse> balances = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> reads = new ArrayList<>();
+            for (List<String> shardAccounts : byShard.values()) {
+                reads.add(executor.submit(() -> shardAccounts.forEach(id -> balances.put(id, getShadowBalance(id)))));
+            }
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading balances", e);
+        }
+        return accountIds.stream().map(balances::get).toList();
     }
 }
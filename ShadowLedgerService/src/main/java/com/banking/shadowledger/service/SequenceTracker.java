@@ -0,0 +1,277 @@
+package com.banking.shadowledger.service;
+
+import com.banking.shadowledger.datasource.ReadRouting;
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.exception.InsufficientBalanceException;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.shard.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies sequenced events in per-account order.
+ *
+ * Each account tracks the next sequence number it expects. An event carrying that
+ * number is applied straight away, followed by any buffered events that continue the
+ * run. An event from further ahead is buffered and opens a gap. Buffered events are
+ * kept in a hash map keyed by sequence, so each event costs O(1) to buffer and to
+ * drain.
+ *
+ * A gap still open after {@code ledger.sequence.gap-timeout}, or an account buffering
+ * more than {@code ledger.sequence.max-buffered} events, is reported. The buffered
+ * events are then applied so the balance does not stall; if the missing events
+ * arrive later they are applied as late events.
+ *
+ * Events without a sequence number (corrections, or events ingested before
+ * sequencing) are applied immediately.
+ *
+ * An event that fails to apply throws to the caller; a buffered one stays buffered
+ * and is tried again the next time its account is drained. Only a debit rejected for
+ * insufficient balance counts as applied, since retrying cannot change the outcome.
+ */
+@Service
+public class SequenceTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceTracker.class);
+
+    private final LedgerService ledgerService;
+    private final LedgerRepository ledgerRepository;
+    private final long gapTimeoutNanos;
+    private final int maxBuffered;
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+    private final Set<AccountState> openGaps = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final Counter gapsOpened;
+    private final Counter gapsReleased;
+
+    public SequenceTracker(LedgerService ledgerService,
+                           LedgerRepository ledgerRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${ledger.sequence.gap-timeout:30s}") Duration gapTimeout,
+                           @Value("${ledger.sequence.max-buffered:1000}") int maxBuffered) {
+        this.ledgerService = ledgerService;
+        this.ledgerRepository = ledgerRepository;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxBuffered = maxBuffered;
+        this.gapsOpened = Counter.builder("ledger.sequence.gaps")
+                .description("Sequence gaps by outcome")
+                .tag("outcome", "opened")
+                .register(meterRegistry);
+        this.gapsReleased = Counter.builder("ledger.sequence.gaps")
+                .description("Sequence gaps by outcome")
+                .tag("outcome", "released")
+                .register(meterRegistry);
+        Gauge.builder("ledger.sequence.gaps.open", openGaps, Set::size)
+                .description("Accounts currently waiting for a missing event")
+                .register(meterRegistry);
+        Gauge.builder("ledger.sequence.buffered", buffered, AtomicInteger::get)
+                .description("Events held back behind a sequence gap")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Told when an event is buffered behind a gap and again once it is applied, so the
+     * consumer can hold back its offset in between.
+     */
+    public interface HoldListener {
+
+        HoldListener NONE = new HoldListener() {
+            @Override
+            public void held() {
+            }
+
+            @Override
+            public void applied() {
+            }
+        };
+
+        void held();
+
+        void applied();
+    }
+
+    public void accept(TransactionEventDto event) {
+        accept(event, -1, HoldListener.NONE);
+    }
+
+    /**
+     * Applies or buffers an event read from {@code partition} of transactions.raw;
+     * the partition is what {@link #revoke} goes by.
+     */
+    public void accept(TransactionEventDto event, int partition, HoldListener listener) {
+        if (event.getSequence() == null) {
+            apply(event);
+            return;
+        }
+
+        AccountState state = accounts.computeIfAbsent(event.getAccountId(), AccountState::new);
+        state.lock.lock();
+        try {
+            state.partition = partition;
+            if (state.nextExpected < 0) {
+                Long max = ShardRouting.forAccount(state.accountId,
+                        () -> ReadRouting.onPrimary(() -> ledgerRepository.findMaxSequence(state.accountId)));
+                state.nextExpected = max != null ? max + 1 : 1;
+            }
+
+            long sequence = event.getSequence();
+            if (sequence < state.nextExpected) {
+                // Redelivered, or a late event from a released gap; duplicates are dropped by eventId
+                apply(event);
+            } else if (sequence > state.nextExpected) {
+                hold(state, event, listener);
+            } else {
+                apply(event);
+                state.nextExpected++;
+            }
+            // Also after a late event, which may be the redelivery of one whose drain failed
+            drain(state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the accounts last seen on the given transactions.raw partitions, with
+     * their buffered events and expected sequence. The buffered events' offsets were
+     * never committed, so whichever consumer gets the partition next receives them
+     * again and reads the account's sequence afresh.
+     */
+    public void revoke(Collection<Integer> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        accounts.values().removeIf(state -> {
+            if (!partitions.contains(state.partition)) {
+                return false;
+            }
+            state.lock.lock();
+            try {
+                buffered.addAndGet(-state.buffer.size());
+                state.buffer.clear();
+                openGaps.remove(state);
+            } finally {
+                state.lock.unlock();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Reports and releases gaps that have been open longer than the timeout. Only
+     * accounts with an open gap are visited.
+     */
+    @Scheduled(fixedDelayString = "${ledger.sequence.check-interval:1000}")
+    public void releaseExpiredGaps() {
+        long now = System.nanoTime();
+        for (AccountState state : openGaps) {
+            if (now - state.gapOpenedAt < gapTimeoutNanos) {
+                continue;
+            }
+            state.lock.lock();
+            try {
+                if (!state.buffer.isEmpty() && now - state.gapOpenedAt >= gapTimeoutNanos) {
+                    release(state, "still open after " + Duration.ofNanos(now - state.gapOpenedAt).toSeconds() + "s");
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    public int openGapCount() {
+        return openGaps.size();
+    }
+
+    private void hold(AccountState state, TransactionEventDto event, HoldListener listener) {
+        if (state.buffer.isEmpty()) {
+            state.gapOpenedAt = System.nanoTime();
+            openGaps.add(state);
+            gapsOpened.increment();
+            logger.warn("Sequence gap on account {}: expected {}, received {}",
+                    state.accountId, state.nextExpected, event.getSequence());
+        }
+        if (state.buffer.putIfAbsent(event.getSequence(), new Held(event, listener)) == null) {
+            buffered.incrementAndGet();
+            listener.held();
+        }
+        if (state.buffer.size() > maxBuffered) {
+            release(state, "more than " + maxBuffered + " events buffered");
+        }
+    }
+
+    private void drain(AccountState state) {
+        if (state.buffer.isEmpty()) {
+            return;
+        }
+        long from = state.nextExpected;
+        Held next;
+        while ((next = state.buffer.get(state.nextExpected)) != null) {
+            apply(next.event());
+            state.buffer.remove(state.nextExpected);
+            buffered.decrementAndGet();
+            next.listener().applied();
+            state.nextExpected++;
+        }
+        if (state.buffer.isEmpty()) {
+            openGaps.remove(state);
+        } else if (state.nextExpected > from) {
+            // Progress was made; the remaining gap is a new one. Events merely buffered
+            // behind the same gap must not restart its timer.
+            state.gapOpenedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Skips over the missing sequence numbers to the lowest buffered event and applies
+     * from there. Called rarely, so finding the lowest key by scanning is fine.
+     */
+    private void release(AccountState state, String reason) {
+        long lowest = Collections.min(state.buffer.keySet());
+        gapsReleased.increment();
+        logger.error("Sequence gap on account {} {}: events {} to {} are missing, applying {} buffered events",
+                state.accountId, reason, state.nextExpected, lowest - 1, state.buffer.size());
+        state.nextExpected = lowest;
+        drain(state);
+    }
+
+    private void apply(TransactionEventDto event) {
+        try {
+            ShardRouting.write(event.getAccountId(), () -> ledgerService.processEvent(event));
+        } catch (InsufficientBalanceException e) {
+            // Rejected for good, and logged by LedgerService
+        }
+    }
+
+    private record Held(TransactionEventDto event, HoldListener listener) {
+    }
+
+    private static class AccountState {
+        final String accountId;
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Held> buffer = new HashMap<>();
+        int partition = -1;
+        long nextExpected = -1;
+        volatile long gapOpenedAt;
+
+        AccountState(String accountId) {
+            this.accountId = accountId;
+        }
+    }
+}
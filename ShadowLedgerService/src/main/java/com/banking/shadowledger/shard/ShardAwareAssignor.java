@@ -0,0 +1,160 @@
+package com.banking.shadowledger.shard;
+
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Assigns topic partitions so that each consumer writes to as few shards as possible.
+ *
+ * Partition k of a topic with {@code ledger.sharding.logical-shards} partitions holds
+ * exactly the accounts of logical shard k, so its records all go to the shard that
+ * owns k. With at least as many consumers as shards, every consumer gets the
+ * partitions of a single shard, and partition k of both transaction topics goes to
+ * the same consumer. With fewer, whole shards are handed to the least loaded consumer.
+ * Partitions of a topic whose partition count differs are not aligned with any shard
+ * and are spread evenly.
+ */
+public class ShardAwareAssignor implements ConsumerPartitionAssignor, Configurable {
+
+    public static final String SHARD_MAP_CONFIG = "ledger.sharding.map";
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardAwareAssignor.class);
+
+    private static final int UNALIGNED = -1;
+
+    private ShardMap shardMap;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object configured = configs.get(SHARD_MAP_CONFIG);
+        if (!(configured instanceof ShardMap map)) {
+            throw new IllegalStateException(SHARD_MAP_CONFIG + " must be the ShardMap");
+        }
+        this.shardMap = map;
+    }
+
+    @Override
+    public String name() {
+        return "ledger-shard-aware";
+    }
+
+    @Override
+    public GroupAssignment assign(Cluster metadata, GroupSubscription groupSubscription) {
+        Map<String, List<String>> subscriptions = new HashMap<>();
+        Map<String, Integer> partitionCounts = new HashMap<>();
+        groupSubscription.groupSubscription().forEach((member, subscription) -> {
+            subscriptions.put(member, subscription.topics());
+            for (String topic : subscription.topics()) {
+                Integer count = metadata.partitionCountForTopic(topic);
+                if (count != null) {
+                    partitionCounts.put(topic, count);
+                }
+            }
+        });
+
+        Map<String, Assignment> assignments = new HashMap<>();
+        assign(subscriptions, partitionCounts, shardMap.logicalShards(), shardMap::ownerOf)
+                .forEach((member, partitions) -> assignments.put(member, new Assignment(partitions)));
+        return new GroupAssignment(assignments);
+    }
+
+    /**
+     * The assignment itself, given each member's topics, each topic's partition count
+     * and the shard owning each logical shard.
+     */
+    public static Map<String, List<TopicPartition>> assign(Map<String, List<String>> subscriptions,
+                                                           Map<String, Integer> partitionCounts,
+                                                           int logicalShards,
+                                                           IntUnaryOperator ownerOf) {
+        Map<String, List<TopicPartition>> assigned = new TreeMap<>();
+        subscriptions.keySet().forEach(member -> assigned.put(member, new ArrayList<>()));
+        if (assigned.isEmpty()) {
+            return assigned;
+        }
+
+        Map<Integer, List<TopicPartition>> byShard = new TreeMap<>();
+        for (String topic : new TreeSet<>(partitionCounts.keySet())) {
+            int count = partitionCounts.get(topic);
+            if (count != logicalShards) {
+                logger.warn("Topic {} has {} partitions but there are {} logical shards; its partitions are not "
+                        + "aligned with shards", topic, count, logicalShards);
+            }
+            for (int partition = 0; partition < count; partition++) {
+                int shard = count == logicalShards ? ownerOf.applyAsInt(partition) : UNALIGNED;
+                byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(new TopicPartition(topic, partition));
+            }
+        }
+        List<TopicPartition> unaligned = byShard.remove(UNALIGNED);
+
+        List<String> members = new ArrayList<>(assigned.keySet());
+        Map<Integer, List<String>> shardMembers = new HashMap<>();
+        if (!byShard.isEmpty() && members.size() >= byShard.size()) {
+            List<Integer> shards = new ArrayList<>(byShard.keySet());
+            for (int i = 0; i < members.size(); i++) {
+                shardMembers.computeIfAbsent(shards.get(i % shards.size()), s -> new ArrayList<>()).add(members.get(i));
+            }
+        } else {
+            Map<String, Integer> load = new HashMap<>();
+            members.forEach(member -> load.put(member, 0));
+            byShard.entrySet().stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<Integer, List<TopicPartition>> e) -> -e.getValue().size())
+                            .thenComparing(Map.Entry::getKey))
+                    .forEach(e -> {
+                        String member = leastLoaded(members, load);
+                        shardMembers.put(e.getKey(), List.of(member));
+                        load.merge(member, e.getValue().size(), Integer::sum);
+                    });
+        }
+
+        byShard.forEach((shard, partitions) -> {
+            List<String> candidates = shardMembers.get(shard);
+            for (TopicPartition partition : partitions) {
+                String member = candidates.get(partition.partition() % candidates.size());
+                if (!subscriptions.get(member).contains(partition.topic())) {
+                    member = candidates.stream()
+                            .filter(m -> subscriptions.get(m).contains(partition.topic()))
+                            .findFirst()
+                            .orElseGet(() -> leastLoadedSubscriber(assigned, subscriptions, partition.topic()));
+                }
+                if (member != null) {
+                    assigned.get(member).add(partition);
+                }
+            }
+        });
+        if (unaligned != null) {
+            for (TopicPartition partition : unaligned) {
+                String member = leastLoadedSubscriber(assigned, subscriptions, partition.topic());
+                if (member != null) {
+                    assigned.get(member).add(partition);
+                }
+            }
+        }
+        return assigned;
+    }
+
+    private static String leastLoaded(List<String> members, Map<String, Integer> load) {
+        return members.stream().min(Comparator.comparingInt(load::get)).orElseThrow();
+    }
+
+    private static String leastLoadedSubscriber(Map<String, List<TopicPartition>> assigned,
+                                                Map<String, List<String>> subscriptions, String topic) {
+        return assigned.entrySet().stream()
+                .filter(e -> subscriptions.get(e.getKey()).contains(topic))
+                .min(Comparator.comparingInt(e -> e.getValue().size()))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
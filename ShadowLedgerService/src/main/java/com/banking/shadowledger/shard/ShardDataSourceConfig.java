@@ -0,0 +1,115 @@
+package com.banking.shadowledger.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads ledger_entries over several databases, enabled by listing the databases after
+ * the first in {@code ledger.sharding.urls}. spring.datasource is shard 0 and also
+ * holds the shard map. Without it the single auto-configured pool is used as before.
+ *
+ * Snapshots, the read replica and the offline rebuild each assume a single database
+ * and are not available together with sharding.
+ */
+@Configuration
+@ConditionalOnExpression("!'${ledger.sharding.urls:}'.isBlank()")
+public class ShardDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardMap shardMap(@Qualifier("firstShardDataSource") DataSource firstShard,
+                             DataSourceProperties properties,
+                             Environment environment,
+                             ApplicationEventPublisher publisher,
+                             @Value("${ledger.sharding.urls}") List<String> urls,
+                             @Value("${ledger.sharding.username:${spring.datasource.username}}") String username,
+                             @Value("${ledger.sharding.password:${spring.datasource.password}}") String password,
+                             @Value("${ledger.sharding.pool-size:20}") int poolSize,
+                             @Value("${ledger.sharding.logical-shards:12}") int logicalShards,
+                             @Value("${ledger.sharding.move-timeout:60s}") Duration moveTimeout) {
+        if (!environment.getProperty("ledger.datasource.replica.url", "").isBlank()) {
+            throw new IllegalStateException("ledger.datasource.replica.url cannot be combined with ledger.sharding.urls");
+        }
+        if (environment.acceptsProfiles(Profiles.of("rebuild"))) {
+            throw new IllegalStateException("The rebuild profile does not support sharding; unset ledger.sharding.urls");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShard);
+        for (String url : urls) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shards.size());
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setConnectionTimeout(5000);
+            shards.add(dataSource);
+        }
+        ShardMap shardMap = new ShardMap(shards, logicalShards, moveTimeout, publisher);
+        ShardRouting.install(shardMap);
+        return shardMap;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardMap shardMap, MeterRegistry meterRegistry) {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shardMap.shards(), meterRegistry);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    /**
+     * Migrates shard 0 as usual, then the other shards with the same settings, and
+     * finally creates the shard map if it does not exist yet.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedMigration(ShardMap shardMap) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardMap.shardCount(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shardMap.shard(shard))
+                        .load()
+                        .migrate();
+            }
+            shardMap.initialize();
+        };
+    }
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer shardAwareAssignment(ShardMap shardMap) {
+        return consumerFactory -> consumerFactory.updateConfigs(Map.of(
+                ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, ShardAwareAssignor.class.getName(),
+                ShardAwareAssignor.SHARD_MAP_CONFIG, shardMap));
+    }
+}
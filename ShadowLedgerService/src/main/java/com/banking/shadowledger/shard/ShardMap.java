@@ -0,0 +1,242 @@
+package com.banking.shadowledger.shard;
+
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Which database each account's ledger entries live in.
+ *
+ * Accounts hash to one of {@code ledger.sharding.logical-shards} logical shards with
+ * the same murmur2 hash Kafka's default partitioner applies to record keys, so when
+ * the transaction topics have that many partitions, logical shard k is partition k.
+ * Logical shards are assigned to the configured databases (shards) by the
+ * ledger_shard_map table in shard 0. Moving accounts between databases reassigns whole
+ * logical shards, and no account ever hashes anywhere else.
+ *
+ * The map is read at startup and again every {@code ledger.sharding.refresh-interval};
+ * when a logical shard has changed database a {@link Changed} event is published.
+ */
+public class ShardMap implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMap.class);
+
+    // Serializes the creation of the map by instances starting at the same time
+    private static final long INIT_LOCK = 0x5348_4152_444d_4150L;
+
+    private static final String SELECT_MAP =
+            "SELECT logical_shard, shard, moving_to, moved_from FROM ledger_shard_map ORDER BY logical_shard";
+
+    /**
+     * {@code movingTo} is set while the logical shard is being copied to another
+     * shard, {@code movedFrom} until the copied rows have been deleted from the old one.
+     */
+    public record Assignment(int shard, Integer movingTo, Integer movedFrom) {
+    }
+
+    /**
+     * Published when logical shards have moved to another database.
+     */
+    public record Changed(Set<Integer> logicalShards) {
+    }
+
+    private final List<DataSource> shards;
+    private final int logicalShards;
+    private final Duration moveTimeout;
+    private final ApplicationEventPublisher publisher;
+    private final JdbcTemplate catalog;
+    private volatile Assignment[] assignments;
+
+    public ShardMap(List<DataSource> shards, int logicalShards, Duration moveTimeout, ApplicationEventPublisher publisher) {
+        if (logicalShards < shards.size()) {
+            throw new IllegalStateException("ledger.sharding.logical-shards (" + logicalShards
+                    + ") must be at least the number of shards (" + shards.size() + ")");
+        }
+        this.shards = List.copyOf(shards);
+        this.logicalShards = logicalShards;
+        this.moveTimeout = moveTimeout;
+        this.publisher = publisher;
+        this.catalog = new JdbcTemplate(shards.get(0));
+    }
+
+    public static int logicalShardOf(String accountId, int logicalShards) {
+        return Utils.toPositive(Utils.murmur2(accountId.getBytes(StandardCharsets.UTF_8))) % logicalShards;
+    }
+
+    /**
+     * Spreads logical shards over shards in contiguous runs of (nearly) equal length.
+     */
+    public static int[] defaultAssignment(int logicalShards, int shards) {
+        int[] owners = new int[logicalShards];
+        for (int logicalShard = 0; logicalShard < logicalShards; logicalShard++) {
+            owners[logicalShard] = (int) ((long) logicalShard * shards / logicalShards);
+        }
+        return owners;
+    }
+
+    public int logicalShardOf(String accountId) {
+        return logicalShardOf(accountId, logicalShards);
+    }
+
+    public int shardOf(String accountId) {
+        return ownerOf(logicalShardOf(accountId));
+    }
+
+    public int ownerOf(int logicalShard) {
+        return assignment(logicalShard).shard();
+    }
+
+    public Assignment assignment(int logicalShard) {
+        Assignment[] current = assignments;
+        if (current == null) {
+            refresh();
+            current = assignments;
+        }
+        return current[logicalShard];
+    }
+
+    public int logicalShards() {
+        return logicalShards;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public List<DataSource> shards() {
+        return shards;
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public Duration moveTimeout() {
+        return moveTimeout;
+    }
+
+    /**
+     * Creates the map if no instance has yet, and reads it. Every logical shard starts
+     * out on shard 0 when shard 0 already holds entries from before sharding was
+     * enabled, so that they can be moved from there; otherwise they are spread with
+     * {@link #defaultAssignment}. Each shard is told which logical shards it owns
+     * before the map is committed, so a failure half way is redone by the next start.
+     */
+    public void initialize() {
+        new TransactionTemplate(new DataSourceTransactionManager(shards.get(0))).executeWithoutResult(status -> {
+            catalog.execute("SELECT pg_advisory_xact_lock(" + INIT_LOCK + ")");
+            Integer rows = catalog.queryForObject("SELECT count(*) FROM ledger_shard_map", Integer.class);
+            if (rows != null && rows > 0) {
+                return;
+            }
+            boolean unsharded = Boolean.TRUE.equals(
+                    catalog.queryForObject("SELECT EXISTS (SELECT 1 FROM ledger_entries)", Boolean.class));
+            int[] owners = unsharded ? new int[logicalShards] : defaultAssignment(logicalShards, shards.size());
+            for (int shard = 0; shard < shards.size(); shard++) {
+                JdbcTemplate jdbc = shard == 0 ? catalog : new JdbcTemplate(shards.get(shard));
+                jdbc.update("DELETE FROM ledger_shard_ownership");
+                List<Object[]> owned = new ArrayList<>();
+                for (int logicalShard = 0; logicalShard < logicalShards; logicalShard++) {
+                    if (owners[logicalShard] == shard) {
+                        owned.add(new Object[]{logicalShard});
+                    }
+                }
+                jdbc.batchUpdate("INSERT INTO ledger_shard_ownership (logical_shard) VALUES (?)", owned);
+            }
+            List<Object[]> map = new ArrayList<>(logicalShards);
+            for (int logicalShard = 0; logicalShard < logicalShards; logicalShard++) {
+                map.add(new Object[]{logicalShard, owners[logicalShard]});
+            }
+            catalog.batchUpdate("INSERT INTO ledger_shard_map (logical_shard, shard) VALUES (?, ?)", map);
+            if (unsharded) {
+                logger.warn("Created shard map with all {} logical shards on shard 0, which already holds entries; "
+                        + "move them with the reshard profile", logicalShards);
+            } else {
+                logger.info("Created shard map: {} logical shards over {} shards", logicalShards, shards.size());
+            }
+        });
+        assignments = load();
+    }
+
+    /**
+     * Rereads the map. A map that cannot be read or does not fit the configuration is
+     * logged and the previous one kept.
+     */
+    @Scheduled(fixedDelayString = "${ledger.sharding.refresh-interval:1000}")
+    public synchronized void refresh() {
+        Assignment[] previous = assignments;
+        Assignment[] current;
+        try {
+            current = load();
+        } catch (RuntimeException e) {
+            if (previous == null) {
+                throw e;
+            }
+            logger.error("Could not refresh the shard map, keeping the previous one", e);
+            return;
+        }
+        assignments = current;
+        if (previous == null) {
+            return;
+        }
+        Set<Integer> moved = new TreeSet<>();
+        for (int logicalShard = 0; logicalShard < logicalShards; logicalShard++) {
+            if (previous[logicalShard].shard() != current[logicalShard].shard()) {
+                moved.add(logicalShard);
+            }
+        }
+        if (!moved.isEmpty()) {
+            logger.info("Logical shards {} moved to another shard", moved);
+            publisher.publishEvent(new Changed(moved));
+        }
+    }
+
+    private Assignment[] load() {
+        Assignment[] loaded = new Assignment[logicalShards];
+        int[] count = new int[1];
+        catalog.query(SELECT_MAP, rs -> {
+            int logicalShard = rs.getInt("logical_shard");
+            Assignment assignment = new Assignment(rs.getInt("shard"),
+                    rs.getObject("moving_to", Integer.class), rs.getObject("moved_from", Integer.class));
+            if (logicalShard >= logicalShards || assignment.shard() >= shards.size()) {
+                throw new IllegalStateException("Shard map assigns logical shard " + logicalShard + " to shard "
+                        + assignment.shard() + ", but " + logicalShards + " logical shards over "
+                        + shards.size() + " shards are configured");
+            }
+            loaded[logicalShard] = assignment;
+            count[0]++;
+        });
+        if (count[0] != logicalShards) {
+            throw new IllegalStateException("Shard map has " + count[0] + " logical shards, but "
+                    + logicalShards + " are configured; the number cannot change once the map exists");
+        }
+        return loaded;
+    }
+
+    /**
+     * Closes the pools of the shards after the first, which is a bean of its own.
+     */
+    @Override
+    public void destroy() throws Exception {
+        ShardRouting.uninstall(this);
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
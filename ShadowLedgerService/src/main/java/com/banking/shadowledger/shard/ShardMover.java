@@ -0,0 +1,257 @@
+package com.banking.shadowledger.shard;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.JdbcLedgerWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves logical shards to another shard while the service keeps running.
+ *
+ * Runs instead of the web application under the {@code reshard} profile, for the
+ * logical shards in {@code ledger.reshard.logical-shards} (e.g. {@code 3,8-11}) and the
+ * target shard {@code ledger.reshard.target}. Each logical shard is moved in turn:
+ * <ol>
+ * <li>The map marks it as moving, and every entry committed so far is copied to the
+ * target in batches while writes carry on.</li>
+ * <li>Its ownership row is deleted on the source. This waits for the writes holding
+ * it and fails later ones, which retry until the move is done.</li>
+ * <li>Entries written since the first pass are copied, the target takes ownership and
+ * the map points at the target.</li>
+ * <li>Once running instances have reread the map, the copied entries are deleted from
+ * the source.</li>
+ * </ol>
+ * Entries are picked by their logical_shard column. Entries written before sharding
+ * was enabled have none yet; it is filled in on the source before each copy pass.
+ * Copies skip event ids already on the target, so a move that failed part way is
+ * resumed by running the same command again.
+ */
+@Component
+@Profile("reshard")
+public class ShardMover implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMover.class);
+
+    private static final String SCAN_SQL = """
+        SELECT id, event_id, account_id, type, amount, timestamp, sequence, logical_shard, created_at
+        FROM ledger_entries WHERE logical_shard = ? AND id > ? AND id <= ? ORDER BY id LIMIT ?
+        """;
+
+    private static final RowMapper<LedgerEntry> ROW_MAPPER = (rs, i) -> {
+        LedgerEntry entry = new LedgerEntry(rs.getString("event_id"), rs.getString("account_id"),
+                LedgerEntry.TransactionType.valueOf(rs.getString("type")), rs.getBigDecimal("amount"),
+                rs.getObject("timestamp", OffsetDateTime.class).toInstant());
+        entry.setId(rs.getLong("id"));
+        entry.setSequence(rs.getObject("sequence", Long.class));
+        entry.setLogicalShard(rs.getObject("logical_shard", Integer.class));
+        entry.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class).toInstant());
+        return entry;
+    };
+
+    private final ShardMap shardMap;
+    private final ConfigurableApplicationContext context;
+    private final String logicalShards;
+    private final int target;
+    private final int batchSize;
+    private final long refreshIntervalMillis;
+
+    public ShardMover(ObjectProvider<ShardMap> shardMap,
+                      ConfigurableApplicationContext context,
+                      @Value("${ledger.reshard.logical-shards}") String logicalShards,
+                      @Value("${ledger.reshard.target}") int target,
+                      @Value("${ledger.reshard.batch-size:10000}") int batchSize,
+                      @Value("${ledger.sharding.refresh-interval:1000}") long refreshIntervalMillis) {
+        this.shardMap = shardMap.getIfAvailable();
+        if (this.shardMap == null) {
+            throw new IllegalStateException("Resharding needs sharding to be configured with ledger.sharding.urls");
+        }
+        if (target < 0 || target >= this.shardMap.shardCount()) {
+            throw new IllegalStateException("ledger.reshard.target must be a shard between 0 and "
+                    + (this.shardMap.shardCount() - 1));
+        }
+        this.context = context;
+        this.logicalShards = logicalShards;
+        this.target = target;
+        this.batchSize = batchSize;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        for (int logicalShard : parse(logicalShards, shardMap.logicalShards())) {
+            move(logicalShard);
+        }
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    private void move(int logicalShard) throws InterruptedException {
+        shardMap.refresh();
+        ShardMap.Assignment assignment = shardMap.assignment(logicalShard);
+        int source = assignment.shard();
+        if (source == target && assignment.movingTo() == null) {
+            if (assignment.movedFrom() != null) {
+                deleteMoved(logicalShard, assignment.movedFrom());
+            } else {
+                logger.info("Logical shard {} is already on shard {}", logicalShard, target);
+            }
+            return;
+        }
+        if (assignment.movedFrom() != null) {
+            deleteMoved(logicalShard, assignment.movedFrom());
+        }
+        if (assignment.movingTo() != null && assignment.movingTo() != target) {
+            throw new IllegalStateException("Logical shard " + logicalShard + " is being moved to shard "
+                    + assignment.movingTo() + "; finish that move first");
+        }
+
+        long began = System.nanoTime();
+        JdbcTemplate catalog = new JdbcTemplate(shardMap.shard(0));
+        JdbcTemplate from = new JdbcTemplate(shardMap.shard(source));
+        JdbcTemplate to = new JdbcTemplate(shardMap.shard(target));
+        catalog.update("UPDATE ledger_shard_map SET moving_to = ?, updated_at = now() WHERE logical_shard = ? AND shard = ?",
+                target, logicalShard, source);
+        logger.info("Moving logical shard {} from shard {} to shard {}", logicalShard, source, target);
+
+        fillLogicalShards(from);
+        long settled = settledPosition(from);
+        long copied = copy(logicalShard, from, to, 0, settled);
+        logger.info("Logical shard {}: copied {} entries up to id {} while writes continued", logicalShard, copied, settled);
+
+        from.update("DELETE FROM ledger_shard_ownership WHERE logical_shard = ?", logicalShard);
+        long blocked = System.nanoTime();
+        fillLogicalShards(from);
+        copied += copy(logicalShard, from, to, settled, Long.MAX_VALUE);
+        to.update("INSERT INTO ledger_shard_ownership (logical_shard) VALUES (?) ON CONFLICT DO NOTHING", logicalShard);
+        catalog.update("UPDATE ledger_shard_map SET shard = ?, moving_to = NULL, moved_from = ?, updated_at = now()"
+                + " WHERE logical_shard = ?", target, source, logicalShard);
+        logger.info("Logical shard {} is on shard {}: {} entries copied in {} ms, writes held back for {} ms",
+                logicalShard, target, copied, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - blocked));
+
+        // Instances read the map at most one refresh interval late; until then they may still read the source
+        TimeUnit.MILLISECONDS.sleep(refreshIntervalMillis * 3);
+        deleteMoved(logicalShard, source);
+    }
+
+    /**
+     * The highest id on the shard below which no entry can still commit. Ids are taken
+     * when a row is inserted but become visible on commit, so the current maximum is
+     * only settled once every transaction running when it was read has finished.
+     * Writers hold a transaction id before they take an entry id, since their first
+     * statement locks the ownership row.
+     */
+    private long settledPosition(JdbcTemplate shard) throws InterruptedException {
+        record Position(long maxId, String xmax) {
+        }
+        Position position = shard.queryForObject(
+                "SELECT COALESCE(MAX(id), 0), pg_snapshot_xmax(pg_current_snapshot())::text FROM ledger_entries",
+                (rs, i) -> new Position(rs.getLong(1), rs.getString(2)));
+        while (!Boolean.TRUE.equals(shard.queryForObject(
+                "SELECT pg_snapshot_xmin(pg_current_snapshot()) >= ?::xid8", Boolean.class, position.xmax()))) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return position.maxId();
+    }
+
+    /**
+     * Sets logical_shard on the shard's entries that were written before sharding was
+     * enabled. This rewrites each of those rows once; later calls only find the few
+     * written since by something other than the service, through the index.
+     */
+    private void fillLogicalShards(JdbcTemplate shard) {
+        record Unfilled(long id, String accountId) {
+        }
+        long filled = 0;
+        long last = 0;
+        List<Unfilled> batch;
+        do {
+            batch = shard.query("SELECT id, account_id FROM ledger_entries WHERE logical_shard IS NULL AND id > ?"
+                    + " ORDER BY id LIMIT ?", (rs, i) -> new Unfilled(rs.getLong(1), rs.getString(2)), last, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            last = batch.get(batch.size() - 1).id();
+            Long[] ids = batch.stream().map(Unfilled::id).toArray(Long[]::new);
+            Integer[] logicalShards = batch.stream()
+                    .map(row -> shardMap.logicalShardOf(row.accountId()))
+                    .toArray(Integer[]::new);
+            filled += shard.update("UPDATE ledger_entries e SET logical_shard = u.logical_shard"
+                    + " FROM unnest(?::bigint[], ?::integer[]) AS u(id, logical_shard) WHERE e.id = u.id", ps -> {
+                        ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+                        ps.setArray(2, ps.getConnection().createArrayOf("integer", logicalShards));
+                    });
+        } while (batch.size() == batchSize);
+        if (filled > 0) {
+            logger.info("Set the logical shard of {} entries written before sharding", filled);
+        }
+    }
+
+    /**
+     * Copies the logical shard's entries with ids in (after, upTo] in id order, so each
+     * account's entries keep their relative order on the target.
+     */
+    private long copy(int logicalShard, JdbcTemplate from, JdbcTemplate to, long after, long upTo) {
+        JdbcLedgerWriter writer = new JdbcLedgerWriter(to);
+        long copied = 0;
+        long last = after;
+        List<LedgerEntry> batch;
+        do {
+            batch = from.query(SCAN_SQL, ROW_MAPPER, logicalShard, last, upTo, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            last = batch.get(batch.size() - 1).getId();
+            copied += writer.insertAll(batch).size();
+        } while (batch.size() == batchSize);
+        return copied;
+    }
+
+    private void deleteMoved(int logicalShard, int source) {
+        JdbcTemplate from = new JdbcTemplate(shardMap.shard(source));
+        long deleted = 0;
+        int batch;
+        do {
+            batch = from.update("DELETE FROM ledger_entries WHERE id IN"
+                    + " (SELECT id FROM ledger_entries WHERE logical_shard = ? LIMIT ?)", logicalShard, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        new JdbcTemplate(shardMap.shard(0)).update(
+                "UPDATE ledger_shard_map SET moved_from = NULL, updated_at = now() WHERE logical_shard = ?", logicalShard);
+        logger.info("Deleted {} moved entries of logical shard {} from shard {}", deleted, logicalShard, source);
+    }
+
+    /**
+     * Parses a list like {@code 3,8-11}.
+     */
+    static List<Integer> parse(String spec, int logicalShards) {
+        TreeSet<Integer> parsed = new TreeSet<>();
+        for (String part : spec.split(",")) {
+            String[] range = part.trim().split("-");
+            int first = Integer.parseInt(range[0].trim());
+            int last = range.length > 1 ? Integer.parseInt(range[1].trim()) : first;
+            if (first < 0 || last >= logicalShards || first > last) {
+                throw new IllegalArgumentException("Invalid logical shards '" + part.trim() + "'; there are "
+                        + logicalShards + " (0-" + (logicalShards - 1) + ")");
+            }
+            for (int logicalShard = first; logicalShard <= last; logicalShard++) {
+                parsed.add(logicalShard);
+            }
+        }
+        return List.copyOf(parsed);
+    }
+}
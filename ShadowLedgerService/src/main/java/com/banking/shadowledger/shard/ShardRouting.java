@@ -0,0 +1,127 @@
+package com.banking.shadowledger.shard;
+
+import com.banking.shadowledger.exception.ShardMovedException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-thread choice of the shard that database work runs on.
+ *
+ * {@link #forAccount} runs work on the shard holding an account and {@link #onShard}
+ * on a given shard. As with the read routing scopes, the shard is chosen when a
+ * transaction first touches the database, so the scope has to be open around the call
+ * that starts it. Work outside any scope goes to shard 0. Without sharding configured
+ * no {@link ShardMap} is installed and these only run the work.
+ */
+public final class ShardRouting {
+
+    static final long RETRY_DELAY_MILLIS = 200;
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private static volatile ShardMap installed;
+
+    private ShardRouting() {
+    }
+
+    static void install(ShardMap shardMap) {
+        installed = shardMap;
+    }
+
+    static void uninstall(ShardMap shardMap) {
+        if (installed == shardMap) {
+            installed = null;
+        }
+    }
+
+    public static boolean enabled() {
+        return installed != null;
+    }
+
+    public static int logicalShardOf(String accountId) {
+        ShardMap shardMap = installed;
+        return shardMap != null ? shardMap.logicalShardOf(accountId) : 0;
+    }
+
+    public static <T> T forAccount(String accountId, Supplier<T> work) {
+        ShardMap shardMap = installed;
+        return shardMap != null ? onShard(shardMap.shardOf(accountId), work) : work.get();
+    }
+
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_SHARD.set(previous);
+            } else {
+                CURRENT_SHARD.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs a write for an account on its shard. A write that finds the account's
+     * logical shard has been moved away ({@link ShardMovedException}) rereads the map
+     * and is retried on the new shard, for up to {@code ledger.sharding.move-timeout}
+     * while the move completes.
+     */
+    public static void write(String accountId, Runnable write) {
+        ShardMap shardMap = installed;
+        if (shardMap == null) {
+            write.run();
+            return;
+        }
+        long deadline = System.nanoTime() + shardMap.moveTimeout().toNanos();
+        while (true) {
+            try {
+                onShard(shardMap.shardOf(accountId), () -> {
+                    write.run();
+                    return null;
+                });
+                return;
+            } catch (ShardMovedException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                shardMap.refresh();
+            }
+        }
+    }
+
+    /**
+     * Accounts grouped by the shard holding them, in shard order. Without sharding
+     * they are all in shard 0.
+     */
+    public static Map<Integer, List<String>> groupByShard(Collection<String> accountIds) {
+        ShardMap shardMap = installed;
+        if (shardMap == null) {
+            Map<Integer, List<String>> single = new LinkedHashMap<>();
+            single.put(0, List.copyOf(accountIds));
+            return single;
+        }
+        return accountIds.stream().collect(Collectors.groupingBy(shardMap::shardOf, TreeMap::new, Collectors.toList()));
+    }
+
+    /**
+     * The shard the current thread's work is scoped to, or null outside any scope.
+     */
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+}
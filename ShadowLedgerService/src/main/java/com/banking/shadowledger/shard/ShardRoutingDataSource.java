@@ -0,0 +1,55 @@
+package com.banking.shadowledger.shard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard the current {@link ShardRouting} scope names,
+ * and to shard 0 outside any scope (schema migration, diagnostics).
+ *
+ * Each decision is counted in {@code ledger.datasource.shard.routes}, tagged with the
+ * shard and whether a scope chose it.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Counter[] routed;
+    private final Counter unscoped;
+
+    public ShardRoutingDataSource(List<DataSource> shards, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        routed = new Counter[shards.size()];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+            routed[shard] = route(meterRegistry, shard, "scoped");
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+        unscoped = route(meterRegistry, 0, "default");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardRouting.currentShard();
+        if (shard == null) {
+            unscoped.increment();
+            return 0;
+        }
+        routed[shard].increment();
+        return shard;
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, int shard, String reason) {
+        return Counter.builder("ledger.datasource.shard.routes")
+                .description("Connections handed out, by shard and whether a shard scope chose it")
+                .tag("shard", Integer.toString(shard))
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
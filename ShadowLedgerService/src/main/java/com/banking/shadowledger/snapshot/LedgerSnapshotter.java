@@ -0,0 +1,152 @@
+package com.banking.shadowledger.snapshot;
+
+import com.banking.shadowledger.datasource.ReadRouting;
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateCache.Cut;
+import com.banking.shadowledger.service.SequenceTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically writes the account state cache to a {@link SnapshotFile} and seeds the
+ * cache from it at startup.
+ *
+ * On restore the accounts in the snapshot are loaded as they were, entries committed
+ * after its watermark are replayed from ledger_entries, and the consumer is told the
+ * offsets the snapshot is consistent with so it can skip what the snapshot already
+ * contains. Without a snapshot, accounts are loaded from the database on first use as
+ * before.
+ */
+@Component
+@Profile("!rebuild")
+// The watermark and catch-up go by ledger_entries id, which is only ordered within one database
+@ConditionalOnExpression("${ledger.snapshot.enabled:true} and '${ledger.sharding.urls:}'.isBlank()")
+public class LedgerSnapshotter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSnapshotter.class);
+
+    private final AccountStateCache accountStateCache;
+    private final SequenceTracker sequenceTracker;
+    private final LedgerRepository ledgerRepository;
+    private final SnapshotFile file;
+    private final int catchUpBatchSize;
+    private final AtomicLong fileSize = new AtomicLong();
+    private final Timer writeTimer;
+    private final Timer restoreTimer;
+
+    public LedgerSnapshotter(AccountStateCache accountStateCache,
+                             SequenceTracker sequenceTracker,
+                             LedgerRepository ledgerRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${ledger.snapshot.path:data/ledger.snapshot}") Path path,
+                             @Value("${ledger.snapshot.max-file-size:256MB}") DataSize maxFileSize,
+                             @Value("${ledger.snapshot.catch-up-batch-size:5000}") int catchUpBatchSize) {
+        this.accountStateCache = accountStateCache;
+        this.sequenceTracker = sequenceTracker;
+        this.ledgerRepository = ledgerRepository;
+        this.file = new SnapshotFile(path, maxFileSize.toBytes());
+        this.catchUpBatchSize = catchUpBatchSize;
+        this.writeTimer = Timer.builder("ledger.snapshot.write")
+                .description("Time to capture and write a ledger snapshot")
+                .register(meterRegistry);
+        this.restoreTimer = Timer.builder("ledger.snapshot.restore")
+                .description("Time to load the latest snapshot and replay entries committed after it")
+                .register(meterRegistry);
+        Gauge.builder("ledger.snapshot.size", fileSize, AtomicLong::get)
+                .description("Size of the snapshot file")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ledger.snapshot.accounts", accountStateCache, AccountStateCache::size)
+                .description("Accounts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("ledger.accounts.off_heap", accountStateCache, AccountStateCache::offHeapBytes)
+                .description("Off-heap memory used by the account table")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void restore() {
+        long start = System.nanoTime();
+        try {
+            SnapshotFile.Snapshot snapshot = file.readLatest();
+            if (snapshot == null) {
+                logger.info("No ledger snapshot found, accounts will be loaded on first use");
+                return;
+            }
+            accountStateCache.restore(snapshot.cut());
+            long replayed = ReadRouting.onPrimary(() -> replayAfter(snapshot.cut().watermark()));
+            logger.info("Restored {} accounts from snapshot taken at {}, replayed {} later entries in {} ms",
+                    snapshot.cut().accountCount(), snapshot.createdAt(), replayed,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (Exception e) {
+            logger.warn("Could not restore ledger snapshot, accounts will be loaded on first use", e);
+        } finally {
+            restoreTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Skipped while a sequence gap is open: the events held behind it have been
+     * consumed but not applied, so no offset would describe the state.
+     */
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval:60000}",
+            initialDelayString = "${ledger.snapshot.interval:60000}")
+    public void snapshot() {
+        long start = System.nanoTime();
+        Cut cut = accountStateCache.cut(() -> sequenceTracker.openGapCount() == 0, this::maxEntryId);
+        if (cut == null) {
+            logger.debug("Sequence gap open, skipping ledger snapshot");
+            return;
+        }
+        try {
+            fileSize.set(file.append(Instant.now(), cut));
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.debug("Wrote ledger snapshot of {} accounts", cut.accountCount());
+        } catch (Exception e) {
+            logger.error("Failed to write ledger snapshot", e);
+        }
+    }
+
+    private long maxEntryId() {
+        Long max = ReadRouting.onPrimary(ledgerRepository::findMaxId);
+        return max != null ? max : 0;
+    }
+
+    private long replayAfter(long watermark) {
+        long last = watermark;
+        long replayed = 0;
+        List<LedgerEntry> batch;
+        do {
+            batch = ledgerRepository.findByIdGreaterThanOrderByIdAsc(last, PageRequest.of(0, catchUpBatchSize));
+            // Read after the batch, so every entry in it committed before this position
+            long position = ReadRouting.replicaInUse() ? ledgerRepository.currentWalPosition() : 0;
+            for (LedgerEntry entry : batch) {
+                accountStateCache.apply(entry, position);
+                last = entry.getId();
+            }
+            replayed += batch.size();
+        } while (batch.size() == catchUpBatchSize);
+        return replayed;
+    }
+}
@@ -0,0 +1,281 @@
+package com.banking.shadowledger.snapshot;
+
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateCache.AccountState;
+import com.banking.shadowledger.service.AccountStateCache.Cut;
+import com.banking.shadowledger.service.AccountStateCache.Partition;
+import com.banking.shadowledger.service.OffHeapAccountTable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of ledger snapshots, written and read through memory mappings.
+ *
+ * <pre>
+ * record header
+ *   magic        4 bytes  "LSNP"
+ *   version      1 byte   currently 3
+ *   crc          4 bytes  CRC32C of the payload
+ *   length       4 bytes  payload length, written last
+ * payload
+ *   createdAt    8 bytes  epoch millis
+ *   watermark    8 bytes  highest ledger entry id included
+ *   partitions   4 bytes  count, then per partition:
+ *     topic        2-byte length + UTF-8
+ *     partition    4 bytes
+ *     offset       8 bytes  next offset to consume
+ *   table        4 bytes  count, then per account, 60 bytes each:
+ *     key          16 bytes packed account id (see OffHeapAccountTable)
+ *     balance      8 bytes  cents
+ *     lastEntryId  8 bytes
+ *     position     8 bytes  WAL position, 0 if none (see AccountState)
+ *     lastTime     8 bytes  epoch micros, Long.MIN_VALUE if none
+ *     lastEvent    8 bytes  ledger entry id of the latest event
+ *     flags        4 bytes
+ *   overflow     4 bytes  count, then per account whose id has no packed key:
+ *     accountId    2-byte length + UTF-8
+ *     balance      8 bytes  cents
+ *     lastEntryId  8 bytes
+ *     lastTime     8 bytes  epoch micros, Long.MIN_VALUE if none
+ *     lastEvent    8 bytes
+ *     position     8 bytes
+  * </pre>
+ *
+ * The payload is flushed before the length is set, so a crash mid-write leaves a
+ * record that fails its checksum; readers stop at the first invalid record and the
+ * next append overwrites it. Once the file would grow past {@code maxSize} it is
+ * replaced by a new file holding only the latest record.
+ */
+public final class SnapshotFile {
+
+    static final int MAGIC = 0x4C534E50;
+    static final byte VERSION = 3;
+    static final int HEADER_SIZE = 13;
+    private static final int TABLE_RECORD_SIZE = 60;
+    private static final int OVERFLOW_RECORD_SIZE = 40;
+
+    public record Snapshot(Instant createdAt, Cut cut) {
+    }
+
+    private final Path path;
+    private final long maxSize;
+    private long end = -1;
+
+    public SnapshotFile(Path path, long maxSize) {
+        this.path = path;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Appends a snapshot and returns the size of the file afterwards.
+     */
+    public synchronized long append(Instant createdAt, Cut cut) throws IOException {
+        long length = payloadSize(cut);
+        if (HEADER_SIZE + length > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + cut.accountCount() + " accounts exceeds 2 GB");
+        }
+        if (end < 0) {
+            end = Files.exists(path) ? scan().end() : 0;
+        }
+        if (end > 0 && end + HEADER_SIZE + length > maxSize) {
+            Path next = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.deleteIfExists(next);
+            write(next, 0, (int) length, createdAt, cut);
+            Files.move(next, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            end = HEADER_SIZE + length;
+        } else {
+            write(path, end, (int) length, createdAt, cut);
+            end += HEADER_SIZE + length;
+        }
+        return end;
+    }
+
+    /**
+     * The most recent complete snapshot, or null if there is none.
+     */
+    public synchronized Snapshot readLatest() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Scan scan = scan();
+        end = scan.end();
+        return scan.latest() != null ? decode(scan.latest()) : null;
+    }
+
+    /**
+     * Encodes the payload straight into the mapped region, then sets the checksum and
+     * finally the length.
+     */
+    private static void write(Path file, long position, int length, Instant createdAt, Cut cut) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Drop whatever follows the last good record, such as a torn write
+            channel.truncate(position);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, position, HEADER_SIZE + length);
+            ByteBuffer payload = buf.slice(HEADER_SIZE, length);
+            encode(payload, createdAt, cut);
+            if (payload.hasRemaining()) {
+                throw new IllegalStateException("Snapshot payload is " + payload.remaining() + " bytes short");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(payload.flip());
+            buf.putInt(0, MAGIC).put(4, VERSION).putInt(5, (int) crc.getValue());
+            buf.force();
+            buf.putInt(9, length);
+            buf.force();
+        }
+    }
+
+    private record Scan(ByteBuffer latest, long end) {
+    }
+
+    private Scan scan() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Scan(null, 0);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer latest = null;
+            int pos = 0;
+            while (pos + HEADER_SIZE <= size) {
+                if (buf.getInt(pos) != MAGIC || buf.get(pos + 4) != VERSION) {
+                    break;
+                }
+                int crc = buf.getInt(pos + 5);
+                int length = buf.getInt(pos + 9);
+                if (length <= 0 || pos + HEADER_SIZE + (long) length > size) {
+                    break;
+                }
+                ByteBuffer payload = buf.slice(pos + HEADER_SIZE, length);
+                CRC32C check = new CRC32C();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+                latest = payload;
+                pos += HEADER_SIZE + length;
+            }
+            return new Scan(latest, pos);
+        }
+    }
+
+    static long payloadSize(Cut cut) {
+        long size = 8 + 8 + 4 + 4 + 4;
+        for (Partition partition : cut.offsets().keySet()) {
+            size += 2 + utf8Length(partition.topic()) + 4 + 8;
+        }
+        size += (long) cut.table().size() * TABLE_RECORD_SIZE;
+        for (String accountId : cut.overflow().keySet()) {
+            size += 2 + utf8Length(accountId) + OVERFLOW_RECORD_SIZE;
+        }
+        return size;
+    }
+
+    static void encode(ByteBuffer buf, Instant createdAt, Cut cut) {
+        buf.putLong(createdAt.toEpochMilli());
+        buf.putLong(cut.watermark());
+        buf.putInt(cut.offsets().size());
+        cut.offsets().forEach((partition, offset) -> {
+            putString(buf, partition.topic());
+            buf.putInt(partition.partition());
+            buf.putLong(offset);
+        });
+        buf.putInt(cut.table().size());
+        cut.table().forEach((key0, key1, record) -> buf
+                .putLong(key0)
+                .putLong(key1)
+                .putLong(record.balanceCents)
+                .putLong(record.version)
+                .putLong(record.sequence)
+                .putLong(record.timestamp)
+                .putLong(record.lastRef)
+                .putInt(record.flags));
+        buf.putInt(cut.overflow().size());
+        cut.overflow().forEach((accountId, state) -> {
+            putString(buf, accountId);
+            buf.putLong(state.balance().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+            buf.putLong(state.lastEntryId());
+            buf.putLong(state.lastTimestamp() != null
+                    ? ChronoUnit.MICROS.between(Instant.EPOCH, state.lastTimestamp())
+                    : Long.MIN_VALUE);
+            buf.putLong(state.lastEventEntryId());
+            buf.putLong(state.position());
+        });
+    }
+
+    static Snapshot decode(ByteBuffer buf) {
+        Instant createdAt = Instant.ofEpochMilli(buf.getLong());
+        long watermark = buf.getLong();
+        int partitionCount = buf.getInt();
+        Map<Partition, Long> offsets = new HashMap<>(partitionCount * 2);
+        for (int i = 0; i < partitionCount; i++) {
+            offsets.put(new Partition(getString(buf), buf.getInt()), buf.getLong());
+        }
+        int tableCount = buf.getInt();
+        // Sized so the segments do not have to grow while loading
+        OffHeapAccountTable table = new OffHeapAccountTable(AccountStateCache.SEGMENT_BITS,
+                (int) Math.min(1 << 24, (tableCount * 4L / 3 >> AccountStateCache.SEGMENT_BITS) + 1));
+        OffHeapAccountTable.AccountRecord record = new OffHeapAccountTable.AccountRecord();
+        for (int i = 0; i < tableCount; i++) {
+            long key0 = buf.getLong();
+            long key1 = buf.getLong();
+            record.balanceCents = buf.getLong();
+            record.version = buf.getLong();
+            record.sequence = buf.getLong();
+            record.timestamp = buf.getLong();
+            record.lastRef = buf.getLong();
+            record.flags = buf.getInt();
+            table.putIfAbsent(key0, key1, record);
+        }
+        int overflowCount = buf.getInt();
+        Map<String, AccountState> overflow = new HashMap<>(overflowCount * 2);
+        for (int i = 0; i < overflowCount; i++) {
+            String accountId = getString(buf);
+            BigDecimal balance = BigDecimal.valueOf(buf.getLong(), 2);
+            long lastEntryId = buf.getLong();
+            long micros = buf.getLong();
+            Instant lastTimestamp = micros != Long.MIN_VALUE ? Instant.EPOCH.plus(micros, ChronoUnit.MICROS) : null;
+            long lastEventEntryId = buf.getLong();
+            overflow.put(accountId, new AccountState(balance, lastEventEntryId, lastTimestamp, lastEntryId, buf.getLong()));
+        }
+        return new Snapshot(createdAt, new Cut(watermark, offsets, table, overflow));
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for snapshot: " + bytes.length + " bytes");
+        }
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = Short.toUnsignedInt(buf.getShort());
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,205 @@
+package com.banking.shadowledger.statement;
+
+import com.banking.shadowledger.dto.StatementEntry;
+import com.banking.shadowledger.dto.StatementPage;
+import com.banking.shadowledger.exception.InvalidStatementRequestException;
+import com.banking.shadowledger.shard.ShardRouting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Account statements in (timestamp, event_id) order, each row carrying the balance
+ * after it.
+ *
+ * Pages use keyset pagination: the next page starts strictly after the last row of
+ * the previous one, which idx_account_timestamp (account_id, timestamp, event_id)
+ * serves as a range scan however deep the page is. The balance the page opens with
+ * is summed again for every page, from the same index without visiting the heap, so
+ * an entry that commits late with an earlier timestamp is counted in the pages after
+ * it. Both queries read one snapshot.
+ *
+ * That sum is not bounded by the page size: it reads every entry of the account
+ * before the cursor, so a page's cost grows with its depth and paging through n
+ * entries reads O(n^2 / page size) index entries. Carrying the balance in the cursor
+ * would miss those late entries. Clients that want a whole statement, or pages deep
+ * into a long one, should use the export, which reads each entry once.
+ *
+ * Exports stream the whole statement in one query. Inside a read-only transaction
+ * the Postgres driver fetches {@code ledger.statement.fetch-size} rows at a time
+ * through a server-side cursor, and each row is written out before the next is read,
+ * so memory does not grow with the statement. An export holds a pooled connection
+ * for as long as the client takes to read it.
+ */
+@Service
+public class AccountStatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStatementService.class);
+
+    private static final String SELECT = "SELECT event_id, type, amount, timestamp, sequence FROM ledger_entries WHERE account_id = ?";
+    private static final String ORDER = " ORDER BY timestamp, event_id";
+    static final String FIRST_PAGE_SQL = SELECT + ORDER + " LIMIT ?";
+    static final String NEXT_PAGE_SQL = SELECT + " AND (timestamp, event_id) > (?, ?)" + ORDER + " LIMIT ?";
+    static final String EXPORT_SQL = SELECT + ORDER;
+    static final String OPENING_BALANCE_SQL = "SELECT COALESCE(SUM(CASE type WHEN 'CREDIT' THEN amount WHEN 'DEBIT' THEN -amount END), 0)"
+            + " FROM ledger_entries WHERE account_id = ? AND (timestamp, event_id) <= (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final StatementCursor cursors;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public AccountStatementService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper,
+                                   @Value("${ledger.statement.cursor-key:}") String cursorKey,
+                                   @Value("${ledger.statement.page-size:100}") int defaultPageSize,
+                                   @Value("${ledger.statement.max-page-size:1000}") int maxPageSize,
+                                   @Value("${ledger.statement.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        // Read-only, so statements are served by the replica when there is one. Exports
+        // also need the transaction: in autocommit the driver ignores the fetch size
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+        this.cursors = new StatementCursor(cursorKey(cursorKey));
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public StatementPage getPage(String accountId, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidStatementRequestException("limit must be between 1 and " + maxPageSize);
+        }
+
+        StatementCursor.Position after = cursor != null ? cursors.decode(accountId, cursor) : null;
+        List<StatementEntry> entries = new ArrayList<>(pageSize + 1);
+        ShardRouting.forAccount(accountId, () -> {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                if (after == null) {
+                    // One extra row tells whether there is a next page
+                    jdbcTemplate.query(FIRST_PAGE_SQL, new RunningBalance(0, entries::add), accountId, pageSize + 1);
+                } else {
+                    BigDecimal opening = jdbcTemplate.queryForObject(OPENING_BALANCE_SQL, BigDecimal.class,
+                            accountId, utc(after.timestamp()), after.eventId());
+                    jdbcTemplate.query(NEXT_PAGE_SQL, new RunningBalance(opening.movePointRight(2).longValueExact(), entries::add),
+                            accountId, utc(after.timestamp()), after.eventId(), pageSize + 1);
+                }
+            });
+            return null;
+        });
+
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            entries.remove(pageSize);
+            StatementEntry last = entries.get(pageSize - 1);
+            nextCursor = cursors.encode(accountId, new StatementCursor.Position(last.getTimestamp(), last.getEventId()));
+        }
+        return new StatementPage(accountId, entries, nextCursor);
+    }
+
+    public void export(String accountId, StatementExportWriter.Format format, OutputStream out) {
+        long started = System.nanoTime();
+        Long rowCount = ShardRouting.forAccount(accountId, () -> readOnlyTransaction.execute(status -> {
+            try (StatementExportWriter writer = StatementExportWriter.create(format,
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16), objectMapper)) {
+                RunningBalance rows = new RunningBalance(0, entry -> {
+                    try {
+                        writer.write(entry);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                exportJdbcTemplate.query(EXPORT_SQL, rows, accountId);
+                return rows.count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        logger.info("Exported {} statement rows for account {} as {} in {} ms",
+                rowCount, accountId, format, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static OffsetDateTime utc(Instant timestamp) {
+        return OffsetDateTime.ofInstant(timestamp, ZoneOffset.UTC);
+    }
+
+    private static byte[] cursorKey(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        logger.warn("ledger.statement.cursor-key is not set; statement cursors will not survive a restart "
+                + "or work across instances");
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    /**
+     * Maps rows to statement entries and adds each amount to the running balance,
+     * credits up and debits down, the same way calculateShadowBalance sums them.
+     */
+    private static final class RunningBalance implements RowCallbackHandler {
+        private final Consumer<StatementEntry> sink;
+        private long balanceCents;
+        private long count;
+
+        RunningBalance(long openingCents, Consumer<StatementEntry> sink) {
+            this.balanceCents = openingCents;
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String type = rs.getString("type");
+            BigDecimal amount = rs.getBigDecimal("amount");
+            long cents = amount.movePointRight(2).longValueExact();
+            if ("CREDIT".equals(type)) {
+                balanceCents += cents;
+            } else if ("DEBIT".equals(type)) {
+                balanceCents -= cents;
+            }
+            long sequence = rs.getLong("sequence");
+            boolean unsequenced = rs.wasNull();
+            sink.accept(new StatementEntry(
+                    rs.getString("event_id"),
+                    type,
+                    amount,
+                    rs.getObject("timestamp", OffsetDateTime.class).toInstant(),
+                    unsequenced ? null : sequence,
+                    BigDecimal.valueOf(balanceCents, 2)));
+            count++;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.banking.shadowledger.statement;
+
+import com.banking.shadowledger.exception.InvalidStatementRequestException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor for account statements: the (timestamp, event_id) of the last
+ * row returned, so the next page starts right after it without rescanning earlier
+ * rows.
+ *
+ * <pre>
+ * version      1 byte   currently 2
+ * timestamp    8 bytes  epoch micros
+ * eventId      2 byte length + UTF-8 bytes
+ * mac          16 bytes truncated HMAC-SHA256 over the account id and the fields above
+ * </pre>
+ *
+ * The MAC keeps the cursor opaque, and binding it to the account id stops a cursor
+ * from one account being used on another's pages. Version 1 cursors also carried
+ * the running balance; they are rejected.
+ */
+public final class StatementCursor {
+
+    static final byte VERSION = 2;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 16;
+
+    public record Position(Instant timestamp, String eventId) {
+    }
+
+    private final SecretKeySpec key;
+
+    public StatementCursor(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    public String encode(String accountId, Position position) {
+        byte[] eventId = position.eventId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(1 + 8 + 2 + eventId.length + MAC_LENGTH);
+        buf.put(VERSION)
+                .putLong(ChronoUnit.MICROS.between(Instant.EPOCH, position.timestamp()))
+                .putShort((short) eventId.length)
+                .put(eventId);
+        buf.put(mac(accountId, buf.array(), buf.position()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    public Position decode(String accountId, String cursor) {
+        byte[] data;
+        try {
+            data = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        if (data.length < 1 + 8 + 2 + MAC_LENGTH || data[0] != VERSION) {
+            throw invalid();
+        }
+        int signed = data.length - MAC_LENGTH;
+        if (!MessageDigest.isEqual(mac(accountId, data, signed), Arrays.copyOfRange(data, signed, data.length))) {
+            throw invalid();
+        }
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(data, 1, signed - 1);
+            Instant timestamp = Instant.EPOCH.plus(buf.getLong(), ChronoUnit.MICROS);
+            byte[] eventId = new byte[buf.getShort() & 0xFFFF];
+            buf.get(eventId);
+            if (buf.hasRemaining()) {
+                throw invalid();
+            }
+            return new Position(timestamp, new String(eventId, StandardCharsets.UTF_8));
+        } catch (BufferUnderflowException e) {
+            throw invalid();
+        }
+    }
+
+    private byte[] mac(String accountId, byte[] data, int length) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(accountId.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(data, 0, length);
+            return Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        }
+    }
+
+    private static InvalidStatementRequestException invalid() {
+        return new InvalidStatementRequestException("Invalid or expired statement cursor");
+    }
+}
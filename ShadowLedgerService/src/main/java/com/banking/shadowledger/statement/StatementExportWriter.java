@@ -0,0 +1,119 @@
+package com.banking.shadowledger.statement;
+
+import com.banking.shadowledger.dto.StatementEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes statement rows one at a time to an export stream. Callers pass a buffered
+ * writer; nothing is flushed per row.
+ */
+public abstract class StatementExportWriter implements AutoCloseable {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    public static StatementExportWriter create(Format format, Writer out, ObjectMapper objectMapper) throws IOException {
+        return format == Format.CSV ? new Csv(out) : new NdJson(out, objectMapper);
+    }
+
+    public abstract void write(StatementEntry entry) throws IOException;
+
+    @Override
+    public abstract void close() throws IOException;
+
+    private static final class NdJson extends StatementExportWriter {
+        private final Writer out;
+        private final SequenceWriter rows;
+        private boolean written;
+
+        NdJson(Writer out, ObjectMapper objectMapper) throws IOException {
+            this.out = out;
+            this.rows = objectMapper.writerFor(StatementEntry.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(SerializationFeature.CLOSE_CLOSEABLE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+        }
+
+        @Override
+        public void write(StatementEntry entry) throws IOException {
+            rows.write(entry);
+            written = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The separator only goes between rows; end the last line too
+            rows.flush();
+            if (written) {
+                out.write('\n');
+            }
+            out.flush();
+        }
+    }
+
+    private static final class Csv extends StatementExportWriter {
+        private final Writer out;
+
+        Csv(Writer out) throws IOException {
+            this.out = out;
+            out.write("event_id,type,amount,timestamp,sequence,balance\n");
+        }
+
+        @Override
+        public void write(StatementEntry entry) throws IOException {
+            writeText(entry.getEventId());
+            out.write(',');
+            out.write(entry.getType());
+            out.write(',');
+            out.write(entry.getAmount().toPlainString());
+            out.write(',');
+            out.write(entry.getTimestamp().toString());
+            out.write(',');
+            if (entry.getSequence() != null) {
+                out.write(Long.toString(entry.getSequence()));
+            }
+            out.write(',');
+            out.write(entry.getBalance().toPlainString());
+            out.write('\n');
+        }
+
+        private void writeText(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
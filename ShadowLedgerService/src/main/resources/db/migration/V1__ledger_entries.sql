@@ -0,0 +1,42 @@
+-- The ledger_entries schema as Hibernate created it under ddl-auto: update.
+-- On a fresh database this creates it; on an existing one it only settles the
+-- names of the event id constraint, which differ between Hibernate-created and
+-- rebuilt tables (see StagingTable).
+
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id    VARCHAR(100)   NOT NULL,
+    account_id  VARCHAR(50)    NOT NULL,
+    type        VARCHAR(10)    NOT NULL CHECK (type IN ('DEBIT', 'CREDIT')),
+    amount      NUMERIC(19, 2) NOT NULL,
+    timestamp   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    sequence    BIGINT,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Hibernate enforced event id uniqueness with a generated uk_... constraint, a rebuild
+-- with idx_event_id, and a restart after a rebuild with both. Keep one, named
+-- idx_event_id, without building a new index on a large table.
+DO $$
+DECLARE
+    generated_name TEXT;
+BEGIN
+    SELECT c.conname INTO generated_name
+    FROM pg_constraint c
+    WHERE c.conrelid = 'ledger_entries'::regclass
+      AND c.contype = 'u'
+      AND c.conname <> 'idx_event_id'
+      AND c.conkey = ARRAY[(SELECT attnum FROM pg_attribute
+                            WHERE attrelid = 'ledger_entries'::regclass AND attname = 'event_id')];
+    IF generated_name IS NULL THEN
+        RETURN;
+    ELSIF to_regclass('idx_event_id') IS NULL THEN
+        EXECUTE format('ALTER INDEX %I RENAME TO idx_event_id', generated_name);
+    ELSE
+        EXECUTE format('ALTER TABLE ledger_entries DROP CONSTRAINT %I', generated_name);
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_event_id ON ledger_entries (event_id);
+CREATE INDEX IF NOT EXISTS idx_account_timestamp ON ledger_entries (account_id, timestamp, event_id);
+CREATE INDEX IF NOT EXISTS idx_account_sequence ON ledger_entries (account_id, sequence);
@@ -0,0 +1,26 @@
+-- Indexes and storage for an append-only ledger. Index builds run CONCURRENTLY so the
+-- consumer keeps writing while a populated table is migrated (spring.flyway.mixed lets
+-- them run outside a transaction). If a build fails, drop the INVALID index it leaves
+-- behind and run flyway repair before retrying.
+
+-- Covering version of idx_account_timestamp. The balance sums, the statement pages and
+-- the drift service's balance lookups read only these columns, so each becomes an
+-- index-only scan over the account's range instead of a heap fetch per entry.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_account_timestamp_covering
+    ON ledger_entries (account_id, timestamp, event_id) INCLUDE (type, amount, sequence);
+DROP INDEX CONCURRENTLY IF EXISTS idx_account_timestamp;
+ALTER INDEX IF EXISTS idx_account_timestamp_covering RENAME TO idx_account_timestamp;
+
+-- Rows are only inserted, so pages need no room for updates: fillfactor 100 (the heap
+-- default, pinned here so nobody lowers it). Vacuum after inserts, not just after
+-- updates, so the visibility map stays current and index-only scans do not fall back
+-- to the heap. Analyze often enough to keep up with new accounts.
+ALTER TABLE ledger_entries SET (
+    fillfactor = 100,
+    autovacuum_vacuum_insert_scale_factor = 0.01,
+    autovacuum_vacuum_insert_threshold = 10000,
+    autovacuum_analyze_scale_factor = 0.01
+);
+
+-- Ids only grow, so primary key pages are never split in the middle
+ALTER INDEX ledger_entries_pkey SET (fillfactor = 100);
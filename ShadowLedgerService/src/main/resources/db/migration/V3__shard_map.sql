@@ -0,0 +1,21 @@
+-- Tables for spreading ledger_entries over several databases (see ShardMap). Both are
+-- created on every shard, but only shard 0's ledger_shard_map is read. They stay empty
+-- while sharding is off.
+
+-- The database (an index into the configured shards) holding each logical shard.
+-- moving_to names the target while a move copies the logical shard; moved_from names
+-- the previous database until the copied rows have been deleted there.
+CREATE TABLE IF NOT EXISTS ledger_shard_map (
+    logical_shard INTEGER PRIMARY KEY,
+    shard INTEGER NOT NULL,
+    moving_to INTEGER,
+    moved_from INTEGER,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- The logical shards this database accepts writes for. Every write locks its logical
+-- shard's row FOR SHARE; a move deletes the row, which waits for the writes in
+-- progress and makes later ones fail, so nothing is written behind the copy.
+CREATE TABLE IF NOT EXISTS ledger_shard_ownership (
+    logical_shard INTEGER PRIMARY KEY
+);
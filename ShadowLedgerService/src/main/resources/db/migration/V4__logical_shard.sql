@@ -0,0 +1,8 @@
+-- The logical shard of each entry's account (see ShardMap), so that moving a logical
+-- shard reads only its own entries instead of the whole table. The service fills it
+-- in while sharding is on. Entries from before stay null until ShardMover fills them
+-- in before their first move; the index finds those too, since btree indexes hold
+-- nulls. A nullable column without a default is added without rewriting the table.
+ALTER TABLE ledger_entries ADD COLUMN IF NOT EXISTS logical_shard INTEGER;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_logical_shard ON ledger_entries (logical_shard, id);
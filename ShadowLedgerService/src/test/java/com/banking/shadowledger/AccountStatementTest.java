@@ -0,0 +1,111 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.StatementEntry;
+import com.banking.shadowledger.exception.InvalidStatementRequestException;
+import com.banking.shadowledger.statement.StatementCursor;
+import com.banking.shadowledger.statement.StatementExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AccountStatementTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-03-01T10:15:30.123456Z");
+
+    private final StatementCursor cursors = new StatementCursor("test-key".getBytes(StandardCharsets.UTF_8));
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void testCursorRoundTripsPosition() {
+        StatementCursor.Position position = new StatementCursor.Position(TIMESTAMP, "evt-42");
+
+        String cursor = cursors.encode("acc-1", position);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(cursors.decode("acc-1", cursor)).isEqualTo(position);
+    }
+
+    @Test
+    void testCursorIsRejectedForAnotherAccountOrAnotherKey() {
+        String cursor = cursors.encode("acc-1", new StatementCursor.Position(TIMESTAMP, "evt-1"));
+
+        assertThatThrownBy(() -> cursors.decode("acc-2", cursor))
+                .isInstanceOf(InvalidStatementRequestException.class);
+        assertThatThrownBy(() -> new StatementCursor("other-key".getBytes(StandardCharsets.UTF_8)).decode("acc-1", cursor))
+                .isInstanceOf(InvalidStatementRequestException.class);
+    }
+
+    @Test
+    void testTamperedOrMalformedCursorIsRejected() {
+        byte[] data = Base64.getUrlDecoder().decode(
+                cursors.encode("acc-1", new StatementCursor.Position(TIMESTAMP, "evt-1")));
+        // Move the timestamp
+        data[8]++;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+
+        assertThatThrownBy(() -> cursors.decode("acc-1", tampered))
+                .isInstanceOf(InvalidStatementRequestException.class);
+        assertThatThrownBy(() -> cursors.decode("acc-1", "not a cursor!"))
+                .isInstanceOf(InvalidStatementRequestException.class);
+        assertThatThrownBy(() -> cursors.decode("acc-1", "AQ"))
+                .isInstanceOf(InvalidStatementRequestException.class);
+    }
+
+    @Test
+    void testCsvExportQuotesTextAndLeavesMissingSequenceEmpty() throws Exception {
+        StringWriter out = new StringWriter();
+
+        try (StatementExportWriter writer = StatementExportWriter.create(StatementExportWriter.Format.CSV, out, objectMapper)) {
+            writer.write(entry("evt-1", "CREDIT", "100.00", 1L, "100.00"));
+            writer.write(entry("CORR,\"2\"", "DEBIT", "0.50", null, "99.50"));
+        }
+
+        assertThat(out.toString()).isEqualTo(
+                "event_id,type,amount,timestamp,sequence,balance\n"
+                        + "evt-1,CREDIT,100.00,2024-03-01T10:15:30.123456Z,1,100.00\n"
+                        + "\"CORR,\"\"2\"\"\",DEBIT,0.50,2024-03-01T10:15:30.123456Z,,99.50\n");
+    }
+
+    @Test
+    void testNdjsonExportWritesOneObjectPerLine() throws Exception {
+        StringWriter out = new StringWriter();
+
+        try (StatementExportWriter writer = StatementExportWriter.create(StatementExportWriter.Format.NDJSON, out, objectMapper)) {
+            writer.write(entry("evt-1", "CREDIT", "100.00", 1L, "100.00"));
+            writer.write(entry("evt-2", "DEBIT", "30.00", 2L, "70.00"));
+        }
+
+        String[] lines = out.toString().split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[2]).isEmpty();
+        StatementEntry second = objectMapper.readValue(lines[1], StatementEntry.class);
+        assertThat(second.getEventId()).isEqualTo("evt-2");
+        assertThat(second.getTimestamp()).isEqualTo(TIMESTAMP);
+        assertThat(second.getBalance()).isEqualByComparingTo("70.00");
+    }
+
+    @Test
+    void testEmptyNdjsonExportIsEmpty() throws Exception {
+        StringWriter out = new StringWriter();
+
+        StatementExportWriter.create(StatementExportWriter.Format.NDJSON, out, objectMapper).close();
+
+        assertThat(out.toString()).isEmpty();
+    }
+
+    private static StatementEntry entry(String eventId, String type, String amount, Long sequence, String balance) {
+        return new StatementEntry(eventId, type, new BigDecimal(amount), TIMESTAMP, sequence, new BigDecimal(balance));
+    }
+}
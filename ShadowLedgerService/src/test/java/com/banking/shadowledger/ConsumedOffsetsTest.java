@@ -0,0 +1,81 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.kafka.ConsumedOffsets;
+import com.banking.shadowledger.service.SequenceTracker;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ConsumedOffsetsTest {
+
+    private static final TopicPartition RAW_0 = new TopicPartition("transactions.raw", 0);
+
+    private final List<Map<TopicPartition, OffsetAndMetadata>> commits = new ArrayList<>();
+
+    @Test
+    void testCommitStopsAtBufferedRecord() {
+        ConsumedOffsets offsets = new ConsumedOffsets(Duration.ZERO);
+        Consumer<?, ?> consumer = consumer();
+
+        offsets.processed(RAW_0, 10);
+        SequenceTracker.HoldListener hold = offsets.hold(RAW_0, 11);
+        hold.held();
+        offsets.processed(RAW_0, 11);
+        offsets.processed(RAW_0, 12);
+        offsets.commitIfDue(consumer);
+        Assertions.assertEquals(11, commits.get(0).get(RAW_0).offset());
+
+        hold.applied();
+        offsets.commitIfDue(consumer);
+        Assertions.assertEquals(13, commits.get(1).get(RAW_0).offset());
+    }
+
+    @Test
+    void testCommitsAtMostOncePerInterval() {
+        ConsumedOffsets offsets = new ConsumedOffsets(Duration.ofHours(1));
+        Consumer<?, ?> consumer = consumer();
+
+        offsets.processed(RAW_0, 1);
+        offsets.commitIfDue(consumer);
+        offsets.processed(RAW_0, 2);
+        offsets.commitIfDue(consumer);
+
+        Assertions.assertEquals(1, commits.size());
+        Assertions.assertEquals(2, commits.get(0).get(RAW_0).offset());
+    }
+
+    @Test
+    void testRevokedPartitionIsNotCommitted() {
+        ConsumedOffsets offsets = new ConsumedOffsets(Duration.ZERO);
+        Consumer<?, ?> consumer = consumer();
+
+        offsets.processed(RAW_0, 4);
+        offsets.revoke(List.of(RAW_0));
+        offsets.commitIfDue(consumer);
+
+        Assertions.assertEquals(List.of(), commits);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<?, ?> consumer() {
+        Consumer<String, byte[]> consumer = Mockito.mock(Consumer.class);
+        Mockito.when(consumer.assignment()).thenReturn(Set.of(RAW_0));
+        Mockito.doAnswer(invocation -> {
+            Map<TopicPartition, OffsetAndMetadata> committed = invocation.getArgument(0);
+            commits.add(committed);
+            invocation.<OffsetCommitCallback>getArgument(1).onComplete(committed, null);
+            return null;
+        }).when(consumer).commitAsync(Mockito.anyMap(), Mockito.any());
+        return consumer;
+    }
+}
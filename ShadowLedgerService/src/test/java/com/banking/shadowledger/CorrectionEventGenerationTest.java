@@ -2,7 +2,10 @@ package com.banking.shadowledger;
 
 import com.banking.shadowledger.dto.TransactionEventDto;
 import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.JpaLedgerWriter;
 import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
 import com.banking.shadowledger.service.LedgerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -14,7 +17,7 @@ public class CorrectionEventGenerationTest {
     @Test
     void testCorrectionEventGenerated() {
         LedgerRepository repo = Mockito.mock(LedgerRepository.class);
-        LedgerService service = new LedgerService(repo);
+        LedgerService service = new LedgerService(repo, new JpaLedgerWriter(repo), new AccountStateCache(new AccountStateLoader(repo)));
         Mockito.when(repo.existsByEventId("E999")).thenReturn(false);
         TransactionEventDto event = new TransactionEventDto();
         event.setEventId("E999");
@@ -1,6 +1,9 @@
 package com.banking.shadowledger;
 
+import com.banking.shadowledger.repository.JpaLedgerWriter;
 import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
 import com.banking.shadowledger.service.LedgerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -12,11 +15,11 @@ public class DriftDetectionTest {
     @Test
     void testDriftDetection() {
         LedgerRepository repo = Mockito.mock(LedgerRepository.class);
-        LedgerService service = new LedgerService(repo);
+        LedgerService service = new LedgerService(repo, new JpaLedgerWriter(repo), new AccountStateCache(new AccountStateLoader(repo)));
         Mockito.when(repo.calculateShadowBalance("A3")).thenReturn(new BigDecimal("300"));
         BigDecimal cbsBalance = new BigDecimal("250");
         BigDecimal drift = service.getShadowBalance("A3").getBalance().subtract(cbsBalance);
-        Assertions.assertEquals(new BigDecimal("50"), drift);
+        Assertions.assertEquals(new BigDecimal("50.00"), drift);
     }
 }
 
@@ -0,0 +1,64 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.rebuild.LedgerCopyWriter;
+import com.banking.shadowledger.rebuild.RebuildBalances;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LedgerRebuildTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2024-03-01T10:15:30.123Z");
+    private static final Instant LOADED_AT = Instant.parse("2024-03-01T10:15:31Z");
+
+    @Test
+    void testCopyRowsAreCsvWithNullSequence() {
+        LedgerCopyWriter writer = new LedgerCopyWriter();
+
+        writer.add(event("evt-1", "acc-1", TransactionEventDto.TransactionType.CREDIT, "100.50", 7L), LOADED_AT);
+        writer.add(event("CORR-2", "acc-1", TransactionEventDto.TransactionType.DEBIT, "0.05", null), LOADED_AT);
+
+        assertThat(writer.size()).isEqualTo(2);
+        assertThat(writer.pendingRows()).isEqualTo(
+                "evt-1,acc-1,CREDIT,100.50,2024-03-01T10:15:30.123Z,7,2024-03-01T10:15:31Z\n"
+                        + "CORR-2,acc-1,DEBIT,0.05,2024-03-01T10:15:30.123Z,,2024-03-01T10:15:31Z\n");
+    }
+
+    @Test
+    void testCopyRowsQuoteSeparatorsAndQuotes() {
+        LedgerCopyWriter writer = new LedgerCopyWriter();
+
+        writer.add(event("evt,\"1\"", "", TransactionEventDto.TransactionType.CREDIT, "1.00", 1L), LOADED_AT);
+
+        assertThat(writer.pendingRows()).startsWith("\"evt,\"\"1\"\"\",\"\",CREDIT,");
+    }
+
+    @Test
+    void testBalancesRejectOverdrawingDebits() {
+        RebuildBalances balances = new RebuildBalances();
+
+        assertThat(balances.apply(event("evt-1", "acc-1", TransactionEventDto.TransactionType.CREDIT, "100.00", 1L))).isTrue();
+        assertThat(balances.apply(event("evt-2", "acc-1", TransactionEventDto.TransactionType.DEBIT, "150.00", 2L))).isFalse();
+        assertThat(balances.apply(event("evt-3", "acc-1", TransactionEventDto.TransactionType.DEBIT, "100.00", 3L))).isTrue();
+        assertThat(balances.apply(event("evt-4", "acc-2", TransactionEventDto.TransactionType.DEBIT, "0.01", 1L))).isFalse();
+
+        assertThat(balances.balance("acc-1")).isEqualByComparingTo("0.00");
+        assertThat(balances.balance("acc-2")).isEqualByComparingTo("0.00");
+    }
+
+    private static TransactionEventDto event(String eventId, String accountId, TransactionEventDto.TransactionType type,
+                                             String amount, Long sequence) {
+        TransactionEventDto event = new TransactionEventDto();
+        event.setEventId(eventId);
+        event.setAccountId(accountId);
+        event.setType(type);
+        event.setAmount(new BigDecimal(amount));
+        event.setTimestamp(TIMESTAMP);
+        event.setSequence(sequence);
+        return event;
+    }
+}
@@ -3,7 +3,10 @@ package com.banking.shadowledger;
 import com.banking.shadowledger.dto.TransactionEventDto;
 import com.banking.shadowledger.entity.LedgerEntry;
 import com.banking.shadowledger.exception.InsufficientBalanceException;
+import com.banking.shadowledger.repository.JpaLedgerWriter;
 import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
 import com.banking.shadowledger.service.LedgerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -15,7 +18,7 @@ public class LedgerServiceValidationTest {
     @Test
     void testInvalidEventRejected() {
         LedgerRepository repo = Mockito.mock(LedgerRepository.class);
-        LedgerService service = new LedgerService(repo);
+        LedgerService service = new LedgerService(repo, new JpaLedgerWriter(repo), new AccountStateCache(new AccountStateLoader(repo)));
         TransactionEventDto event = new TransactionEventDto();
         event.setEventId("E1");
         event.setAccountId("A1");
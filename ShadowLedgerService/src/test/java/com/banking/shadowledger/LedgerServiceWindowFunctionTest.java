@@ -2,7 +2,10 @@ package com.banking.shadowledger;
 
 import com.banking.shadowledger.dto.TransactionEventDto;
 import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.JpaLedgerWriter;
 import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
 import com.banking.shadowledger.service.LedgerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -14,9 +17,9 @@ public class LedgerServiceWindowFunctionTest {
     @Test
     void testBalanceComputedCorrectly() {
         LedgerRepository repo = Mockito.mock(LedgerRepository.class);
-        LedgerService service = new LedgerService(repo);
+        LedgerService service = new LedgerService(repo, new JpaLedgerWriter(repo), new AccountStateCache(new AccountStateLoader(repo)));
         Mockito.when(repo.calculateShadowBalance("A2")).thenReturn(new BigDecimal("200"));
-        Assertions.assertEquals(new BigDecimal("200"), service.getShadowBalance("A2").getBalance());
+        Assertions.assertEquals(new BigDecimal("200.00"), service.getShadowBalance("A2").getBalance());
     }
 }
 
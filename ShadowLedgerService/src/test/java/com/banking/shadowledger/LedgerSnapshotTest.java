@@ -0,0 +1,282 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateCache.AccountState;
+import com.banking.shadowledger.service.AccountStateCache.Cut;
+import com.banking.shadowledger.service.AccountStateCache.Partition;
+import com.banking.shadowledger.service.AccountStateLoader;
+import com.banking.shadowledger.shard.ShardMap;
+import com.banking.shadowledger.snapshot.SnapshotFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LedgerSnapshotTest {
+
+    private static final Instant T1 = Instant.parse("2024-03-01T10:15:30.123456Z");
+    private static final Instant T2 = Instant.parse("2024-03-01T10:16:00Z");
+    private static final String LONG_ID = "account-id-longer-than-eighteen";
+    private static final String RAW = "transactions.raw";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCacheAppliesCommittedEntries() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load("acc-1")).thenReturn(new AccountState(new BigDecimal("100.00"), 5, T1, 5));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        cache.get("acc-1");
+
+        cache.apply(entry(6L, "evt-6", "acc-1", LedgerEntry.TransactionType.DEBIT, "30.005", T2));
+        cache.apply(entry(7L, "evt-0", "acc-1", LedgerEntry.TransactionType.CREDIT, "1.00", T1.minusSeconds(60)));
+        cache.apply(entry(8L, "evt-9", "acc-2", LedgerEntry.TransactionType.CREDIT, "1.00", T2));
+
+        AccountState state = cache.get("acc-1");
+        assertThat(state.balance()).isEqualTo(new BigDecimal("70.99"));
+        assertThat(state.lastEventEntryId()).isEqualTo(6);
+        assertThat(state.lastTimestamp()).isEqualTo(T2);
+        assertThat(state.lastEntryId()).isEqualTo(7);
+        assertThat(cache.size()).isEqualTo(1);
+        Mockito.verify(loader, Mockito.times(1)).load("acc-1");
+    }
+
+    @Test
+    void testAppliedEntriesRaiseWalPosition() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load("acc-1")).thenReturn(new AccountState(new BigDecimal("100.00"), 5, T1, 5, 500));
+        Mockito.when(loader.load(LONG_ID)).thenReturn(new AccountState(new BigDecimal("100.00"), 5, T1, 5, 500));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+
+        for (String accountId : List.of("acc-1", LONG_ID)) {
+            cache.get(accountId);
+            // Positions are read after each commit, by different threads, so they can arrive out of order
+            cache.apply(entry(6L, "evt-6-" + accountId, accountId, LedgerEntry.TransactionType.CREDIT, "1.00", T2), 900);
+            cache.apply(entry(7L, "evt-7-" + accountId, accountId, LedgerEntry.TransactionType.CREDIT, "1.00",
+                    T2.plusSeconds(1)), 800);
+
+            assertThat(cache.get(accountId).position()).isEqualTo(900);
+        }
+    }
+
+    @Test
+    void testEntryAtOrBelowLoadedIdReloadsAccount() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load("acc-1"))
+                .thenReturn(new AccountState(new BigDecimal("100.00"), 5, T1, 5))
+                .thenReturn(new AccountState(new BigDecimal("90.00"), 5, T1, 6));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        cache.get("acc-1");
+
+        cache.apply(entry(4L, "evt-4", "acc-1", LedgerEntry.TransactionType.DEBIT, "10.00", T1));
+
+        assertThat(cache.get("acc-1").balance()).isEqualTo(new BigDecimal("90.00"));
+        assertThat(cache.get("acc-1").lastEntryId()).isEqualTo(6);
+        Mockito.verify(loader, Mockito.times(2)).load("acc-1");
+    }
+
+    @Test
+    void testEntryTyingLastTimestampReloadsAccount() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        for (String accountId : List.of("acc-1", LONG_ID)) {
+            // evt-m at T1 stays the last event: with equal timestamps the higher event id is later
+            Mockito.when(loader.load(accountId))
+                    .thenReturn(new AccountState(new BigDecimal("100.00"), 5, T1, 5))
+                    .thenReturn(new AccountState(new BigDecimal("101.00"), 5, T1, 6));
+        }
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+
+        for (String accountId : List.of("acc-1", LONG_ID)) {
+            cache.get(accountId);
+            cache.apply(entry(6L, "evt-a", accountId, LedgerEntry.TransactionType.CREDIT, "1.00", T1));
+
+            assertThat(cache.get(accountId)).isEqualTo(new AccountState(new BigDecimal("101.00"), 5, T1, 6));
+            Mockito.verify(loader, Mockito.times(2)).load(accountId);
+        }
+    }
+
+    @Test
+    void testLongAccountIdsAreCachedOnHeap() {
+        String accountId = "account-with-a-long-identifier";
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load(accountId)).thenReturn(new AccountState(new BigDecimal("5.00"), 0, null, 0));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        cache.get(accountId);
+
+        cache.apply(entry(1L, "evt-1", accountId, LedgerEntry.TransactionType.CREDIT, "2.50", T1));
+
+        assertThat(cache.get(accountId)).isEqualTo(new AccountState(new BigDecimal("7.50"), 1, T1, 1));
+        assertThat(cache.cut(() -> true, () -> 1).overflow()).containsKey(accountId);
+    }
+
+    @Test
+    void testEntryAppliedDuringLoadReloadsAccount() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        Mockito.when(loader.load("acc-1"))
+                .thenAnswer(invocation -> {
+                    // Committed after the load read the account, and applied before it is stored
+                    cache.apply(entry(6L, "evt-6", "acc-1", LedgerEntry.TransactionType.DEBIT, "30.00", T2));
+                    return new AccountState(new BigDecimal("100.00"), 5, T1, 5);
+                })
+                .thenReturn(new AccountState(new BigDecimal("70.00"), 6, T2, 6));
+
+        assertThat(cache.get("acc-1").balance()).isEqualTo(new BigDecimal("100.00"));
+        assertThat(cache.get("acc-1").balance()).isEqualTo(new BigDecimal("70.00"));
+        assertThat(cache.get("acc-1").balance()).isEqualTo(new BigDecimal("70.00"));
+        Mockito.verify(loader, Mockito.times(2)).load("acc-1");
+    }
+
+    @Test
+    void testAccountsOfOtherPartitionsAreNotCached() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load(Mockito.anyString())).thenReturn(new AccountState(BigDecimal.TEN, 0, null, 0));
+        AccountStateCache cache = new AccountStateCache(loader);
+        int partition = ShardMap.logicalShardOf("acc-1", 2);
+        String other = "acc-2";
+        for (int i = 3; ShardMap.logicalShardOf(other, 2) == partition; i++) {
+            other = "acc-" + i;
+        }
+        cache.assigned(List.of(new Partition(RAW, partition)), Map.of(RAW, 2));
+
+        cache.get("acc-1");
+        cache.get("acc-1");
+        cache.get(other);
+        cache.get(other);
+
+        assertThat(cache.owns("acc-1")).isTrue();
+        assertThat(cache.owns(other)).isFalse();
+        assertThat(cache.size()).isEqualTo(1);
+        Mockito.verify(loader, Mockito.times(1)).load("acc-1");
+        Mockito.verify(loader, Mockito.times(2)).load(other);
+    }
+
+    @Test
+    void testRevokedPartitionsAreEvicted() {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load(Mockito.anyString())).thenReturn(new AccountState(BigDecimal.TEN, 0, null, 0));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        cache.get("acc-1");
+        cache.get(LONG_ID);
+        cache.consumed(RAW, 0, 7, () -> { });
+
+        cache.revoked(List.of(new Partition(RAW, 0)));
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.cut(() -> true, () -> 1).offsets()).isEmpty();
+        cache.get("acc-1");
+        assertThat(cache.size()).isZero();
+        Mockito.verify(loader, Mockito.times(2)).load("acc-1");
+    }
+
+    @Test
+    void testCutCarriesConsumedOffsets() {
+        AccountStateCache cache = new AccountStateCache(Mockito.mock(AccountStateLoader.class));
+        cache.consumed("transactions.raw", 0, 41, () -> { });
+        cache.consumed("transactions.raw", 0, 42, () -> { });
+
+        Cut cut = cache.cut(() -> true, () -> 99);
+        assertThat(cut.watermark()).isEqualTo(99);
+        assertThat(cut.offsets()).containsEntry(new Partition("transactions.raw", 0), 43L);
+        assertThat(cache.cut(() -> false, () -> 99)).isNull();
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        SnapshotFile file = new SnapshotFile(dir.resolve("ledger.snapshot"), 1 << 20);
+        file.append(T1, cut(1, "10.00"));
+        file.append(T2, cut(2, "12.50"));
+
+        SnapshotFile.Snapshot latest = new SnapshotFile(dir.resolve("ledger.snapshot"), 1 << 20).readLatest();
+
+        assertThat(latest.createdAt()).isEqualTo(T2);
+        assertThat(latest.cut().watermark()).isEqualTo(2);
+        assertThat(latest.cut().offsets()).containsEntry(new Partition("transactions.raw", 3), 1002L);
+        assertThat(latest.cut().accountCount()).isEqualTo(3);
+        assertThat(latest.cut().overflow().get(LONG_ID))
+                .isEqualTo(new AccountState(new BigDecimal("1.00"), 0, null, 0, 7));
+
+        AccountStateCache restored = new AccountStateCache(Mockito.mock(AccountStateLoader.class));
+        restored.restore(latest.cut());
+        ownAll(restored);
+        assertThat(restored.get("acc-1")).isEqualTo(new AccountState(new BigDecimal("12.50"), 2, T1, 2, 200));
+        assertThat(restored.get("acc-empty")).isEqualTo(new AccountState(new BigDecimal("0.00"), 0, null, 0));
+        assertThat(restored.takeResumeOffset("transactions.raw", 3)).isEqualTo(1002L);
+        assertThat(restored.takeResumeOffset("transactions.raw", 3)).isNull();
+    }
+
+    @Test
+    void testTornRecordIsIgnoredAndOverwritten() throws Exception {
+        Path path = dir.resolve("ledger.snapshot");
+        SnapshotFile file = new SnapshotFile(path, 1 << 20);
+        long first = file.append(T1, cut(1, "10.00"));
+        long second = file.append(T2, cut(2, "12.50"));
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+            raf.seek(second - 1);
+            raf.write(0x7F);
+        }
+
+        SnapshotFile reopened = new SnapshotFile(path, 1 << 20);
+        assertThat(reopened.readLatest().cut().watermark()).isEqualTo(1);
+        assertThat(reopened.append(T2, cut(3, "15.00"))).isEqualTo(second);
+        assertThat(reopened.readLatest().cut().watermark()).isEqualTo(3);
+        assertThat(first).isLessThan(second);
+    }
+
+    @Test
+    void testFileIsReplacedOnceFull() throws Exception {
+        Path path = dir.resolve("ledger.snapshot");
+        SnapshotFile file = new SnapshotFile(path, 1 << 20);
+        long size = file.append(T1, cut(1, "10.00"));
+
+        SnapshotFile small = new SnapshotFile(path, size + 1);
+        assertThat(small.append(T2, cut(2, "12.50"))).isEqualTo(size);
+        assertThat(Files.size(path)).isEqualTo(size);
+        assertThat(small.readLatest().cut().watermark()).isEqualTo(2);
+    }
+
+    private static Cut cut(long watermark, String balance) {
+        AccountStateLoader loader = Mockito.mock(AccountStateLoader.class);
+        Mockito.when(loader.load("acc-1"))
+                .thenReturn(new AccountState(new BigDecimal(balance), watermark, T1, watermark, 100 * watermark));
+        Mockito.when(loader.load("acc-empty")).thenReturn(new AccountState(BigDecimal.ZERO, 0, null, 0));
+        Mockito.when(loader.load(LONG_ID)).thenReturn(new AccountState(BigDecimal.ONE, 0, null, 0, 7));
+        AccountStateCache cache = new AccountStateCache(loader);
+        ownAll(cache);
+        cache.get("acc-1");
+        cache.get("acc-empty");
+        cache.get(LONG_ID);
+        cache.consumed("transactions.raw", 3, 999 + watermark, () -> { });
+        return cache.cut(() -> true, () -> watermark);
+    }
+
+    // One partition, so every account is this instance's
+    private static void ownAll(AccountStateCache cache) {
+        cache.assigned(List.of(new Partition(RAW, 0)), Map.of(RAW, 1));
+    }
+
+    private static LedgerEntry entry(Long id, String eventId, String accountId, LedgerEntry.TransactionType type,
+                                     String amount, Instant timestamp) {
+        LedgerEntry entry = new LedgerEntry(eventId, accountId, type, new BigDecimal(amount), timestamp);
+        entry.setId(id);
+        return entry;
+    }
+}
@@ -0,0 +1,161 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.entity.LedgerEntry;
+import com.banking.shadowledger.repository.JdbcLedgerWriter;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.repository.LedgerWriter;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
+import com.banking.shadowledger.service.LedgerService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+public class LedgerWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final List<String> statements = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @Test
+    void testJdbcInsertAssignsIdsAndSkipsExistingEvents() throws SQLException {
+        respondWithIdsExcept(Set.of("E2"));
+        JdbcLedgerWriter writer = new JdbcLedgerWriter(jdbcTemplate);
+
+        List<LedgerEntry> inserted = writer.insertAll(List.of(entry("E1"), entry("E2"), entry("E3")));
+
+        Assertions.assertEquals(List.of("E1", "E3"), inserted.stream().map(LedgerEntry::getEventId).toList());
+        Assertions.assertEquals(List.of(1L, 2L), inserted.stream().map(LedgerEntry::getId).toList());
+        Assertions.assertEquals(1, statements.size());
+        Assertions.assertTrue(statements.get(0).endsWith("ON CONFLICT (event_id) DO NOTHING RETURNING id, event_id"));
+        Assertions.assertEquals(3, statements.get(0).split("\\(\\?").length - 1);
+    }
+
+    @Test
+    void testJdbcInsertDropsEventRepeatedInBatch() throws SQLException {
+        respondWithIdsExcept(Set.of());
+        JdbcLedgerWriter writer = new JdbcLedgerWriter(jdbcTemplate);
+
+        List<LedgerEntry> inserted = writer.insertAll(List.of(entry("E1"), entry("E1")));
+
+        Assertions.assertEquals(1, inserted.size());
+    }
+
+    @Test
+    void testJdbcLargeBatchSplitAcrossStatements() throws SQLException {
+        respondWithIdsExcept(Set.of());
+        JdbcLedgerWriter writer = new JdbcLedgerWriter(jdbcTemplate);
+
+        List<LedgerEntry> entries = IntStream.range(0, 2500).mapToObj(i -> entry("E" + i)).toList();
+        List<LedgerEntry> inserted = writer.insertAll(entries);
+
+        Assertions.assertEquals(2500, inserted.size());
+        Assertions.assertEquals(3, statements.size());
+    }
+
+    @Test
+    void testJdbcSingleInsertReportsDuplicate() throws SQLException {
+        respondWithIdsExcept(Set.of("E1"));
+        JdbcLedgerWriter writer = new JdbcLedgerWriter(jdbcTemplate);
+
+        Assertions.assertEquals(Optional.empty(), writer.insert(entry("E1")));
+    }
+
+    @Test
+    void testDuplicateFromWriterIsNotAppliedToBalance() {
+        LedgerRepository repo = Mockito.mock(LedgerRepository.class);
+        LedgerWriter writer = Mockito.mock(LedgerWriter.class);
+        Mockito.when(writer.insert(Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(repo.calculateShadowBalance("A1")).thenReturn(new BigDecimal("100"));
+        AccountStateCache cache = new AccountStateCache(new AccountStateLoader(repo));
+        LedgerService service = new LedgerService(repo, writer, cache);
+
+        service.processEvent(event("E1", TransactionEventDto.TransactionType.CREDIT, "50"));
+
+        Assertions.assertEquals(new BigDecimal("100.00"), cache.get("A1").balance());
+        Mockito.verify(repo, Mockito.never()).existsByEventId(Mockito.anyString());
+    }
+
+    @Test
+    void testRedeliveredDebitFailingBalanceCheckIsIgnored() {
+        LedgerRepository repo = Mockito.mock(LedgerRepository.class);
+        LedgerWriter writer = Mockito.mock(LedgerWriter.class);
+        Mockito.when(repo.calculateShadowBalance("A1")).thenReturn(new BigDecimal("20"));
+        Mockito.when(repo.existsByEventId("E1")).thenReturn(true);
+        LedgerService service = new LedgerService(repo, writer, new AccountStateCache(new AccountStateLoader(repo)));
+
+        Assertions.assertDoesNotThrow(() -> service.processEvent(event("E1", TransactionEventDto.TransactionType.DEBIT, "50")));
+        Mockito.verifyNoInteractions(writer);
+    }
+
+    /**
+     * Answers each statement as Postgres would, returning a fresh id for every
+     * row whose event id is not in {@code existing}.
+     */
+    @SuppressWarnings("unchecked")
+    private void respondWithIdsExcept(Set<String> existing) throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            return Mockito.mock(PreparedStatement.class);
+        });
+        Mockito.when(jdbcTemplate.query(Mockito.any(PreparedStatementCreator.class), Mockito.any(ResultSetExtractor.class)))
+                .thenAnswer(invocation -> {
+                    PreparedStatementCreator creator = invocation.getArgument(0);
+                    PreparedStatement statement = creator.createPreparedStatement(connection);
+                    ArgumentCaptor<String> eventIds = ArgumentCaptor.forClass(String.class);
+                    Mockito.verify(statement, Mockito.atLeast(0)).setString(Mockito.anyInt(), eventIds.capture());
+
+                    // setString is called for event_id, account_id and type, in that order
+                    List<String> rows = new ArrayList<>();
+                    for (int i = 0; i < eventIds.getAllValues().size(); i += 3) {
+                        String eventId = eventIds.getAllValues().get(i);
+                        if (!existing.contains(eventId) && !rows.contains(eventId)) {
+                            rows.add(eventId);
+                        }
+                    }
+                    ResultSet rs = Mockito.mock(ResultSet.class);
+                    int[] row = {-1};
+                    Mockito.when(rs.next()).thenAnswer(next -> ++row[0] < rows.size());
+                    Mockito.when(rs.getString("event_id")).thenAnswer(get -> rows.get(row[0]));
+                    Mockito.when(rs.getLong("id")).thenAnswer(get -> nextId.getAndIncrement());
+                    ResultSetExtractor<?> extractor = invocation.getArgument(1);
+                    return extractor.extractData(rs);
+                });
+    }
+
+    private LedgerEntry entry(String eventId) {
+        LedgerEntry entry = new LedgerEntry(eventId, "A1", LedgerEntry.TransactionType.CREDIT,
+                new BigDecimal("10.00"), Instant.parse("2024-01-01T00:00:00Z"));
+        entry.setSequence(1L);
+        return entry;
+    }
+
+    private TransactionEventDto event(String eventId, TransactionEventDto.TransactionType type, String amount) {
+        TransactionEventDto event = new TransactionEventDto();
+        event.setEventId(eventId);
+        event.setAccountId("A1");
+        event.setType(type);
+        event.setAmount(new BigDecimal(amount));
+        event.setTimestamp(Instant.parse("2024-01-01T00:00:00Z"));
+        return event;
+    }
+}
@@ -0,0 +1,154 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.service.OffHeapAccountTable;
+import com.banking.shadowledger.service.OffHeapAccountTable.AccountRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapAccountTableTest {
+
+    @Test
+    void testKeysPackUpToEighteenAsciiCharacters() {
+        assertThat(OffHeapAccountTable.fits("ACC-0000000012345")).isTrue();
+        assertThat(OffHeapAccountTable.fits("123456789012345678")).isTrue();
+        assertThat(OffHeapAccountTable.fits("1234567890123456789")).isFalse();
+        assertThat(OffHeapAccountTable.fits("")).isFalse();
+        assertThat(OffHeapAccountTable.fits("konto-ä")).isFalse();
+
+        for (String id : new String[]{"a", "acc-1", "123456789", "1234567890", "123456789012345678"}) {
+            assertThat(OffHeapAccountTable.decode(OffHeapAccountTable.key0(id), OffHeapAccountTable.key1(id))).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void testRecordsSurviveGrowth() {
+        OffHeapAccountTable table = new OffHeapAccountTable(2, 2);
+        AccountRecord record = new AccountRecord();
+        for (int i = 0; i < 10_000; i++) {
+            record.clear().balanceCents = i;
+            record.sequence = i * 2L;
+            table.put("acc-" + i, record);
+        }
+
+        assertThat(table.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(table.get("acc-" + i, record)).isTrue();
+            assertThat(record.balanceCents).isEqualTo(i);
+            assertThat(record.sequence).isEqualTo(i * 2L);
+        }
+        assertThat(table.get("acc-10000", record)).isFalse();
+        assertThat(table.memoryBytes()).isGreaterThanOrEqualTo(10_000L * OffHeapAccountTable.SLOT_SIZE);
+    }
+
+    @Test
+    void testApplyFlagsVersionsAlreadyIncluded() {
+        OffHeapAccountTable table = new OffHeapAccountTable(4, 16);
+        assertThat(table.applyIfPresent("acc-1", 100, 1, 0, 10, 1, 0, 0)).isFalse();
+        assertThat(table.size()).isZero();
+
+        AccountRecord record = new AccountRecord();
+        record.balanceCents = 1000;
+        record.version = 5;
+        table.put("acc-1", record);
+        assertThat(table.applyIfPresent("acc-1", 50, 6, 3, 25, 6, 0, 0)).isTrue();
+        assertThat(table.applyIfPresent("acc-1", -250, 7, 2, 20, 7, 1, 0)).isTrue();
+        assertThat(table.applyIfPresent("acc-1", 100, 5, 0, 30, 5, 0, 8)).isFalse();
+
+        table.get("acc-1", record);
+        assertThat(record.balanceCents).isEqualTo(800);
+        assertThat(record.version).isEqualTo(7);
+        assertThat(record.sequence).isEqualTo(3);
+        assertThat(record.timestamp).isEqualTo(25);
+        assertThat(record.lastRef).isEqualTo(6);
+        assertThat(record.flags).isEqualTo(1 | 8);
+    }
+
+    @Test
+    void testApplyFlagsTimestampTies() {
+        OffHeapAccountTable table = new OffHeapAccountTable(4, 16);
+        AccountRecord record = new AccountRecord();
+        record.version = 5;
+        record.timestamp = 25;
+        record.lastRef = 5;
+        table.put("acc-1", record);
+
+        assertThat(table.applyIfPresent("acc-1", 10, 6, 0, 25, 6, 0, 8)).isTrue();
+
+        table.get("acc-1", record);
+        assertThat(record.balanceCents).isEqualTo(10);
+        assertThat(record.lastRef).isEqualTo(5);
+        assertThat(record.flags).isEqualTo(8);
+    }
+
+    @Test
+    void testPrefixScanFindsEveryMatchingRecord() {
+        OffHeapAccountTable table = new OffHeapAccountTable(3, 4);
+        AccountRecord record = new AccountRecord();
+        for (int i = 0; i < 5000; i++) {
+            record.clear().balanceCents = i;
+            table.put("acc-" + i, record);
+        }
+
+        for (int prefixBits : new int[]{2, 3, 5, 12}) {
+            Map<String, Long> expected = new HashMap<>();
+            long prefix = OffHeapAccountTable.hash("acc-42") >>> (64 - prefixBits);
+            for (int i = 0; i < 5000; i++) {
+                if (OffHeapAccountTable.hash("acc-" + i) >>> (64 - prefixBits) == prefix) {
+                    expected.put("acc-" + i, (long) i);
+                }
+            }
+            Map<String, Long> visited = new HashMap<>();
+            table.forEach(prefixBits, prefix, (id, visitedRecord) -> visited.put(id, visitedRecord.balanceCents));
+            assertThat(visited).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        OffHeapAccountTable table = new OffHeapAccountTable(2, 4);
+        AccountRecord record = new AccountRecord();
+        record.balanceCents = 100;
+        table.put("acc-1", record);
+
+        OffHeapAccountTable copy = table.copy();
+        table.applyIfPresent("acc-1", 100, 0, 0, 0, 0, 0, 0);
+        table.put("acc-2", record);
+
+        assertThat(copy.get("acc-1", record)).isTrue();
+        assertThat(record.balanceCents).isEqualTo(100);
+        assertThat(copy.size()).isEqualTo(1);
+        table.get("acc-1", record);
+        assertThat(record.balanceCents).isEqualTo(200);
+    }
+
+    @Test
+    void testConcurrentUpdatesAreNotLost() throws Exception {
+        OffHeapAccountTable table = new OffHeapAccountTable(1, 2);
+        AccountRecord record = new AccountRecord();
+        for (int i = 0; i < 500; i++) {
+            table.put("acc-" + i, record);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    table.applyIfPresent("acc-" + (i % 500), 1, 0, 0, 0, 0, 0, 0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 500; i++) {
+            table.get("acc-" + i, record);
+            assertThat(record.balanceCents).isEqualTo(320);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.datasource.ReadRouting;
+import com.banking.shadowledger.datasource.ReplicaLagMonitor;
+import com.banking.shadowledger.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(monitor.check(anyLong())).thenReturn(ReplicaLagMonitor.Status.AVAILABLE);
+        routing = new ReplicaRoutingDataSource(primary, replica, monitor, meterRegistry);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void testReadWriteAndNonTransactionalWorkUsesPrimary() throws SQLException {
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(monitor, never()).check(anyLong());
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(routes("replica", "read_only")).isEqualTo(1);
+    }
+
+    @Test
+    void testReadOnlyTransactionFallsBackWhileReplicaLagsOrIsDown() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        when(monitor.check(anyLong())).thenReturn(ReplicaLagMonitor.Status.LAGGING);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        when(monitor.check(anyLong())).thenReturn(ReplicaLagMonitor.Status.UNAVAILABLE);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        assertThat(routes("primary", "replica_lagging")).isEqualTo(1);
+        assertThat(routes("primary", "replica_unavailable")).isEqualTo(1);
+    }
+
+    @Test
+    void testReadYourWritesChecksRequestedPosition() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(monitor.check(42)).thenReturn(ReplicaLagMonitor.Status.BEHIND_POSITION);
+
+        Connection behind = ReadRouting.atLeast(42, this::connection);
+        Connection caughtUp = ReadRouting.atLeast(41, this::connection);
+
+        assertThat(behind).isSameAs(primaryConnection);
+        assertThat(caughtUp).isSameAs(replicaConnection);
+        verify(monitor).check(42);
+        verify(monitor).check(41);
+    }
+
+    @Test
+    void testPinnedReadsNeverUseReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection pinned = ReadRouting.atLeast(7, () -> ReadRouting.onPrimary(this::connection));
+        Connection afterScope = connection();
+
+        assertThat(pinned).isSameAs(primaryConnection);
+        assertThat(afterScope).isSameAs(replicaConnection);
+        assertThat(routes("primary", "pinned")).isEqualTo(1);
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double routes(String target, String reason) {
+        return meterRegistry.get("ledger.datasource.routes").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,201 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.LedgerService;
+import com.banking.shadowledger.service.SequenceTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SequenceTrackerTest {
+
+    private final LedgerService ledgerService = Mockito.mock(LedgerService.class);
+    private final LedgerRepository repo = Mockito.mock(LedgerRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testContiguousEventsAppliedImmediately() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+
+        tracker.accept(event("E1", 1L));
+        tracker.accept(event("E2", 2L));
+
+        Assertions.assertEquals(List.of("E1", "E2"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+    }
+
+    @Test
+    void testGapBufferedUntilFilled() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+
+        tracker.accept(event("E1", 1L));
+        tracker.accept(event("E3", 3L));
+        tracker.accept(event("E4", 4L));
+        Assertions.assertEquals(List.of("E1"), applied());
+        Assertions.assertEquals(1, tracker.openGapCount());
+        Assertions.assertEquals(2, registry.get("ledger.sequence.buffered").gauge().value());
+
+        tracker.accept(event("E2", 2L));
+
+        Assertions.assertEquals(List.of("E1", "E2", "E3", "E4"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+        Assertions.assertEquals(0, registry.get("ledger.sequence.buffered").gauge().value());
+    }
+
+    @Test
+    void testResumesFromPersistedSequence() {
+        Mockito.when(repo.findMaxSequence("A1")).thenReturn(7L);
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+
+        tracker.accept(event("E8", 8L));
+
+        Assertions.assertEquals(List.of("E8"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+    }
+
+    @Test
+    void testExpiredGapReleased() {
+        SequenceTracker tracker = tracker(Duration.ZERO, 1000);
+
+        tracker.accept(event("E1", 1L));
+        tracker.accept(event("E3", 3L));
+        tracker.releaseExpiredGaps();
+
+        Assertions.assertEquals(List.of("E1", "E3"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+        Assertions.assertEquals(1, registry.get("ledger.sequence.gaps").tag("outcome", "released").counter().count());
+
+        // The missing event still gets applied when it turns up
+        tracker.accept(event("E2", 2L));
+        Assertions.assertEquals(List.of("E1", "E3", "E2"), applied());
+    }
+
+    @Test
+    void testGapTimerNotRestartedByEventsBufferedBehindIt() throws InterruptedException {
+        SequenceTracker tracker = tracker(Duration.ofMillis(100), 1000);
+
+        tracker.accept(event("E1", 1L));
+        tracker.accept(event("E3", 3L));
+        Thread.sleep(60);
+        tracker.accept(event("E4", 4L));
+        Thread.sleep(60);
+        tracker.accept(event("E5", 5L));
+        tracker.releaseExpiredGaps();
+
+        // Open for 120ms in all, though less than 100ms since the last event was buffered
+        Assertions.assertEquals(List.of("E1", "E3", "E4", "E5"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+    }
+
+    @Test
+    void testBufferLimitReleasesGap() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 2);
+
+        tracker.accept(event("E2", 2L));
+        tracker.accept(event("E3", 3L));
+        Assertions.assertEquals(List.of(), applied());
+
+        tracker.accept(event("E5", 5L));
+
+        Assertions.assertEquals(List.of("E2", "E3"), applied());
+        Assertions.assertEquals(1, tracker.openGapCount());
+    }
+
+    @Test
+    void testUnsequencedEventsApplied() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+
+        tracker.accept(event("C1", null));
+
+        Assertions.assertEquals(List.of("C1"), applied());
+        Mockito.verifyNoInteractions(repo);
+    }
+
+    @Test
+    void testFailedBufferedEventStaysBuffered() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+        Mockito.doThrow(new IllegalStateException("database down"))
+                .doNothing()
+                .when(ledgerService).processEvent(Mockito.argThat(event -> event.getEventId().equals("E3")));
+        tracker.accept(event("E1", 1L));
+        tracker.accept(event("E3", 3L));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tracker.accept(event("E2", 2L)));
+        Assertions.assertEquals(1, tracker.openGapCount());
+
+        // The record of E2 is redelivered by the error handler
+        tracker.accept(event("E2", 2L));
+        Assertions.assertEquals(List.of("E1", "E2", "E3", "E2", "E3"), applied());
+        Assertions.assertEquals(0, tracker.openGapCount());
+    }
+
+    @Test
+    void testHoldListenerToldWhenBufferedEventApplied() {
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+        List<String> calls = new ArrayList<>();
+        SequenceTracker.HoldListener listener = new SequenceTracker.HoldListener() {
+            @Override
+            public void held() {
+                calls.add("held");
+            }
+
+            @Override
+            public void applied() {
+                calls.add("applied");
+            }
+        };
+
+        tracker.accept(event("E2", 2L), 0, listener);
+        Assertions.assertEquals(List.of("held"), calls);
+
+        tracker.accept(event("E1", 1L), 0, SequenceTracker.HoldListener.NONE);
+        Assertions.assertEquals(List.of("held", "applied"), calls);
+    }
+
+    @Test
+    void testRevokeForgetsPartitionState() {
+        Mockito.when(repo.findMaxSequence("A1")).thenReturn(null, 5L);
+        SequenceTracker tracker = tracker(Duration.ofSeconds(30), 1000);
+        tracker.accept(event("E3", 3L), 4, SequenceTracker.HoldListener.NONE);
+        Assertions.assertEquals(1, tracker.openGapCount());
+
+        tracker.revoke(List.of(7));
+        Assertions.assertEquals(1, tracker.openGapCount());
+
+        tracker.revoke(List.of(4));
+        Assertions.assertEquals(0, tracker.openGapCount());
+        Assertions.assertEquals(0, registry.get("ledger.sequence.buffered").gauge().value());
+
+        // The next sequence is read again rather than taken from before the revoke
+        tracker.accept(event("E6", 6L), 4, SequenceTracker.HoldListener.NONE);
+        Assertions.assertEquals(List.of("E6"), applied());
+    }
+
+    private SequenceTracker tracker(Duration gapTimeout, int maxBuffered) {
+        return new SequenceTracker(ledgerService, repo, registry, gapTimeout, maxBuffered);
+    }
+
+    private List<String> applied() {
+        ArgumentCaptor<TransactionEventDto> captor = ArgumentCaptor.forClass(TransactionEventDto.class);
+        Mockito.verify(ledgerService, Mockito.atLeast(0)).processEvent(captor.capture());
+        return captor.getAllValues().stream().map(TransactionEventDto::getEventId).toList();
+    }
+
+    private TransactionEventDto event(String eventId, Long sequence) {
+        TransactionEventDto event = new TransactionEventDto();
+        event.setEventId(eventId);
+        event.setAccountId("A1");
+        event.setType(TransactionEventDto.TransactionType.CREDIT);
+        event.setAmount(new BigDecimal("10"));
+        event.setSequence(sequence);
+        return event;
+    }
+}
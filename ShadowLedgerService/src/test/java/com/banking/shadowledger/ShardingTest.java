@@ -0,0 +1,138 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
+import com.banking.shadowledger.shard.ShardAwareAssignor;
+import com.banking.shadowledger.shard.ShardMap;
+import com.banking.shadowledger.shard.ShardRouting;
+import com.banking.shadowledger.shard.ShardRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.internals.BuiltInPartitioner;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ShardingTest {
+
+    private static final List<String> TOPICS = List.of("transactions.corrections", "transactions.raw");
+
+    @Test
+    void testLogicalShardIsKafkaPartitionOfAccount() {
+        for (String accountId : List.of("ACC001", "ACC002", "acc-42", "ß-unicode", "")) {
+            assertThat(ShardMap.logicalShardOf(accountId, 12))
+                    .as(accountId)
+                    .isEqualTo(BuiltInPartitioner.partitionForKey(accountId.getBytes(StandardCharsets.UTF_8), 12));
+        }
+    }
+
+    @Test
+    void testDefaultAssignmentIsContiguousAndEven() {
+        assertThat(ShardMap.defaultAssignment(12, 3)).containsExactly(0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2);
+        assertThat(ShardMap.defaultAssignment(5, 2)).containsExactly(0, 0, 0, 1, 1);
+        assertThat(ShardMap.defaultAssignment(4, 1)).containsOnly(0);
+    }
+
+    @Test
+    void testRoutingFollowsShardScope() throws SQLException {
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        DataSource shard0 = mock(DataSource.class);
+        DataSource shard1 = mock(DataSource.class);
+        when(shard0.getConnection()).thenReturn(first);
+        when(shard1.getConnection()).thenReturn(second);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(List.of(shard0, shard1), meterRegistry);
+        routing.afterPropertiesSet();
+
+        assertThat(routing.getConnection()).isSameAs(first);
+        assertThat(ShardRouting.onShard(1, () -> connection(routing))).isSameAs(second);
+        assertThat(ShardRouting.onShard(1, () -> ShardRouting.onShard(0, () -> connection(routing)))).isSameAs(first);
+        assertThat(routing.getConnection()).isSameAs(first);
+
+        assertThat(meterRegistry.get("ledger.datasource.shard.routes").tags("shard", "0", "reason", "default")
+                .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("ledger.datasource.shard.routes").tags("shard", "1", "reason", "scoped")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAssignorKeepsEachConsumerOnOneShard() {
+        int[] owners = ShardMap.defaultAssignment(6, 2);
+        Map<String, List<TopicPartition>> assigned = ShardAwareAssignor.assign(
+                Map.of("c1", TOPICS, "c2", TOPICS, "c3", TOPICS, "c4", TOPICS),
+                Map.of("transactions.raw", 6, "transactions.corrections", 6), 6, p -> owners[p]);
+
+        assertThat(assigned.values()).allSatisfy(partitions -> {
+            assertThat(partitions).isNotEmpty();
+            assertThat(partitions.stream().map(tp -> owners[tp.partition()]).distinct()).hasSize(1);
+            // Both topics' copies of a partition stay with one consumer
+            assertThat(partitions.stream().filter(tp -> tp.topic().equals("transactions.raw")).map(TopicPartition::partition))
+                    .containsExactlyInAnyOrderElementsOf(partitions.stream()
+                            .filter(tp -> tp.topic().equals("transactions.corrections")).map(TopicPartition::partition).toList());
+        });
+        assertThat(assigned.values().stream().mapToInt(List::size).sum()).isEqualTo(12);
+    }
+
+    @Test
+    void testAssignorHandsWholeShardsToFewerConsumers() {
+        int[] owners = ShardMap.defaultAssignment(6, 3);
+        Map<String, List<TopicPartition>> assigned = ShardAwareAssignor.assign(
+                Map.of("c1", TOPICS, "c2", TOPICS),
+                Map.of("transactions.raw", 6, "transactions.corrections", 6), 6, p -> owners[p]);
+
+        Map<Integer, Set<String>> consumersPerShard = assigned.entrySet().stream()
+                .flatMap(e -> e.getValue().stream().map(tp -> Map.entry(owners[tp.partition()], e.getKey())))
+                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.mapping(Map.Entry::getValue, Collectors.toSet())));
+        assertThat(consumersPerShard).hasSize(3).allSatisfy((shard, consumers) -> assertThat(consumers).hasSize(1));
+        assertThat(assigned.get("c1")).isNotEmpty();
+        assertThat(assigned.get("c2")).isNotEmpty();
+    }
+
+    @Test
+    void testAssignorSpreadsTopicsNotAlignedWithShards() {
+        Map<String, List<TopicPartition>> assigned = ShardAwareAssignor.assign(
+                Map.of("c1", List.of("transactions.raw"), "c2", List.of("transactions.raw")),
+                Map.of("transactions.raw", 4), 12, p -> 0);
+
+        assertThat(assigned.get("c1")).hasSize(2);
+        assertThat(assigned.get("c2")).hasSize(2);
+    }
+
+    @Test
+    void testMovedShardsAreReloaded() {
+        LedgerRepository repo = mock(LedgerRepository.class);
+        when(repo.calculateShadowBalance("ACC001")).thenReturn(new BigDecimal("10.00"), new BigDecimal("25.00"));
+        AccountStateCache cache = new AccountStateCache(new AccountStateLoader(repo));
+        cache.assigned(List.of(new AccountStateCache.Partition("transactions.raw", 0)), Map.of("transactions.raw", 1));
+
+        assertThat(cache.get("ACC001").balance()).isEqualByComparingTo("10.00");
+        assertThat(cache.get("ACC001").balance()).isEqualByComparingTo("10.00");
+        cache.onShardsMoved(new ShardMap.Changed(Set.of(3)));
+        assertThat(cache.get("ACC001").balance()).isEqualByComparingTo("25.00");
+        verify(repo, times(2)).calculateShadowBalance("ACC001");
+    }
+
+    private static Connection connection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.kafka.ConsumedOffsets;
+import com.banking.shadowledger.kafka.TraceIds;
+import com.banking.shadowledger.kafka.TransactionEventReader;
+import com.banking.shadowledger.kafka.TransactionConsumer;
+import com.banking.shadowledger.repository.LedgerRepository;
+import com.banking.shadowledger.service.AccountStateCache;
+import com.banking.shadowledger.service.AccountStateLoader;
+import com.banking.shadowledger.service.LedgerService;
+import com.banking.shadowledger.service.SequenceTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TransactionConsumerTraceTest {
+
+    private static final byte[] MESSAGE =
+            "{\"eventId\":\"E1\",\"accountId\":\"A1\",\"type\":\"CREDIT\",\"amount\":10}".getBytes(StandardCharsets.UTF_8);
+
+    private final LedgerService ledgerService = Mockito.mock(LedgerService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TransactionConsumer consumer = new TransactionConsumer(
+            new SequenceTracker(ledgerService, Mockito.mock(LedgerRepository.class), registry, Duration.ofSeconds(30), 1000),
+            new AccountStateCache(Mockito.mock(AccountStateLoader.class)),
+            new ConsumedOffsets(Duration.ofSeconds(1)),
+            new TransactionEventReader(new ObjectMapper().registerModule(new JavaTimeModule())), registry);
+
+    @Test
+    void testTraceIdRestoredFromHeader() {
+        AtomicReference<String> seen = new AtomicReference<>();
+        Mockito.doAnswer(invocation -> {
+            seen.set(MDC.get(TraceIds.HEADER));
+            return null;
+        }).when(ledgerService).processEvent(Mockito.any(TransactionEventDto.class));
+
+        consumer.consumeTransaction(MESSAGE, null, "trace-123".getBytes(StandardCharsets.UTF_8),
+                "transactions.raw", System.currentTimeMillis() - 50, 0, 7L, null);
+
+        Assertions.assertEquals("trace-123", seen.get());
+        Assertions.assertNull(MDC.get(TraceIds.HEADER));
+    }
+
+    @Test
+    void testTraceIdGeneratedWhenHeaderMissing() {
+        AtomicReference<String> seen = new AtomicReference<>();
+        Mockito.doAnswer(invocation -> {
+            seen.set(MDC.get(TraceIds.HEADER));
+            return null;
+        }).when(ledgerService).processEvent(Mockito.any(TransactionEventDto.class));
+
+        consumer.consumeTransaction(MESSAGE, null, null, "transactions.corrections", null, null, null, null);
+
+        Assertions.assertTrue(seen.get().matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    void testStageLatenciesRecorded() {
+        consumer.consumeTransaction(MESSAGE, null, null, "transactions.raw", System.currentTimeMillis() - 50, 0, 7L, null);
+
+        for (String stage : new String[]{"broker", "process", "end_to_end"}) {
+            Assertions.assertEquals(1, registry.get("ledger.event.latency")
+                    .tag("topic", "transactions.raw").tag("stage", stage).timer().count());
+        }
+        Assertions.assertTrue(registry.get("ledger.event.latency").tag("stage", "broker").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    void testTraceIdsIncrease() {
+        String first = TraceIds.next();
+        String second = TraceIds.next();
+        Assertions.assertEquals(32, first.length());
+        Assertions.assertEquals(first.substring(0, 16), second.substring(0, 16));
+        Assertions.assertTrue(second.compareTo(first) > 0);
+    }
+}
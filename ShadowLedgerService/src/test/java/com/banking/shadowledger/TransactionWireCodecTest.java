@@ -0,0 +1,111 @@
+package com.banking.shadowledger;
+
+import com.banking.shadowledger.dto.TransactionEventDto;
+import com.banking.shadowledger.kafka.TransactionEventReader;
+import com.banking.shadowledger.kafka.TransactionWireCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+public class TransactionWireCodecTest {
+
+    private final TransactionEventReader reader =
+            new TransactionEventReader(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void testRoundTripAllFields() {
+        TransactionWireCodec.WireEvent event = new TransactionWireCodec.WireEvent(
+                "evt-ü-1", "acc-001", TransactionWireCodec.Type.DEBIT, -987_654_321L,
+                1_734_862_245_123L, 300L, 1_734_862_000_000L, 1_734_863_000_000L);
+
+        Assertions.assertEquals(event, TransactionWireCodec.decode(TransactionWireCodec.encode(event)));
+    }
+
+    @Test
+    void testRoundTripWithoutOptionalFields() {
+        TransactionWireCodec.WireEvent event = new TransactionWireCodec.WireEvent(
+                "CORR-1", "acc-002", TransactionWireCodec.Type.CREDIT, 1, null, null, null, null);
+
+        byte[] encoded = TransactionWireCodec.encode(event);
+
+        Assertions.assertEquals(event, TransactionWireCodec.decode(encoded));
+        Assertions.assertEquals(3 + 1 + 7 + 8, encoded.length);
+    }
+
+    @Test
+    void testCents() {
+        Assertions.assertEquals(12345L, TransactionWireCodec.toCents(new BigDecimal("123.45")));
+        Assertions.assertEquals(10000L, TransactionWireCodec.toCents(new BigDecimal("100")));
+        Assertions.assertNull(TransactionWireCodec.toCents(new BigDecimal("0.015")));
+        Assertions.assertEquals(new BigDecimal("123.45"), TransactionWireCodec.fromCents(12345));
+    }
+
+    @Test
+    void testUnknownVersionRejected() {
+        byte[] encoded = TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                "E1", "A1", TransactionWireCodec.Type.CREDIT, 100, null, null, null, null));
+        encoded[0] = 9;
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TransactionWireCodec.decode(encoded));
+    }
+
+    @Test
+    void testReaderDecodesBinaryByContentType() throws Exception {
+        byte[] encoded = TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                "E1", "A1", TransactionWireCodec.Type.DEBIT, 5050, 1_734_862_245_123L, 7L, null, null));
+
+        TransactionEventDto event = reader.read(encoded,
+                TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("E1", event.getEventId());
+        Assertions.assertEquals("A1", event.getAccountId());
+        Assertions.assertEquals(TransactionEventDto.TransactionType.DEBIT, event.getType());
+        Assertions.assertEquals(new BigDecimal("50.50"), event.getAmount());
+        Assertions.assertEquals(Instant.ofEpochMilli(1_734_862_245_123L), event.getTimestamp());
+        Assertions.assertEquals(7L, event.getSequence());
+    }
+
+    @Test
+    void testReaderFallsBackToJsonWithoutContentType() throws Exception {
+        byte[] json = "{\"eventId\":\"E2\",\"accountId\":\"A1\",\"type\":\"credit\",\"amount\":12.5,\"sequence\":3}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        TransactionEventDto event = reader.read(json, null);
+
+        Assertions.assertEquals("E2", event.getEventId());
+        Assertions.assertEquals(TransactionEventDto.TransactionType.CREDIT, event.getType());
+        Assertions.assertEquals(3L, event.getSequence());
+    }
+
+    @Test
+    void testJsonAndBinaryReadTheSameTimestamp() throws Exception {
+        long millis = 1_734_862_245_123L;
+        byte[] encoded = TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                "E3", "A1", TransactionWireCodec.Type.CREDIT, 100, millis, 1L, null, null));
+        byte[] json = ("{\"eventId\":\"E3\",\"accountId\":\"A1\",\"type\":\"credit\",\"amount\":1.00,"
+                + "\"timestamp\":" + millis + ",\"sequence\":1}").getBytes(StandardCharsets.UTF_8);
+
+        Instant binary = reader.read(encoded, TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8)).getTimestamp();
+        Instant fromJson = reader.read(json, TransactionWireCodec.JSON.getBytes(StandardCharsets.UTF_8)).getTimestamp();
+
+        Assertions.assertEquals(Instant.ofEpochMilli(millis), binary);
+        Assertions.assertEquals(binary, fromJson);
+    }
+
+    @Test
+    void testJsonReadsFractionalSecondsAndIsoTimestamps() throws Exception {
+        // Corrections serialized by Jackson with its defaults carry decimal seconds
+        byte[] seconds = "{\"eventId\":\"E4\",\"accountId\":\"A1\",\"type\":\"debit\",\"amount\":1,\"timestamp\":1734862245.123000000}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] iso = "{\"eventId\":\"E5\",\"accountId\":\"A1\",\"type\":\"debit\",\"amount\":1,\"timestamp\":\"2024-12-22T10:10:45.123Z\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        Assertions.assertEquals(Instant.ofEpochMilli(1_734_862_245_123L), reader.read(seconds, null).getTimestamp());
+        Assertions.assertEquals(Instant.ofEpochMilli(1_734_862_245_123L), reader.read(iso, null).getTimestamp());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived response caches for idempotent upstream reads, one per route.
+ *
+ * Entries are futures, so a request that arrives while the first one for the same
+ * key is still in flight waits on it instead of going upstream.
+ */
+@Component
+public class ResponseCache {
+
+    private static final String ACCOUNTS_PREFIX = "/accounts/";
+
+    private final ConcurrentHashMap<String, AsyncCache<Key, CachedResponse>> caches = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public ResponseCache(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public AsyncCache<Key, CachedResponse> forRoute(String routeId, Duration ttl, long maxEntries) {
+        return caches.computeIfAbsent(routeId, id -> {
+            AsyncCache<Key, CachedResponse> cache = Caffeine.newBuilder()
+                    .expireAfterWrite(ttl)
+                    .maximumSize(maxEntries)
+                    .buildAsync();
+            Gauge.builder("gateway.response.cache.size", cache, c -> c.synchronous().estimatedSize())
+                    .description("Cached upstream responses")
+                    .tag("routeId", id)
+                    .register(registry);
+            return cache;
+        });
+    }
+
+    /**
+     * Drops every cached response for the account on all routes.
+     *
+     * @return the number of entries removed
+     */
+    public int invalidateAccount(String accountId) {
+        int removed = 0;
+        for (AsyncCache<Key, CachedResponse> cache : caches.values()) {
+            for (Key key : cache.asMap().keySet()) {
+                if (accountId.equals(key.accountId()) && cache.asMap().remove(key) != null) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public record Key(String accountId, String pathAndQuery) {
+
+        public static Key of(ServerHttpRequest request) {
+            String path = request.getPath().value();
+            String query = request.getURI().getRawQuery();
+            return new Key(accountOf(path), query != null ? path + "?" + query : path);
+        }
+    }
+
+    public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    static String accountOf(String path) {
+        if (!path.startsWith(ACCOUNTS_PREFIX)) {
+            return null;
+        }
+        int end = path.indexOf('/', ACCOUNTS_PREFIX.length());
+        return path.substring(ACCOUNTS_PREFIX.length(), end < 0 ? path.length() : end);
+    }
+}
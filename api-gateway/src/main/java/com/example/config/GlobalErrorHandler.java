@@ -4,12 +4,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
@@ -39,6 +43,17 @@ public class GlobalErrorHandler implements ErrorWebExceptionHandler {
         } else if (ex instanceof AccessDeniedException) {
             status = HttpStatus.FORBIDDEN;
             message = "Access denied: You don't have the required role to access this resource";
+        } else if (ex instanceof ResponseStatusException statusException) {
+            status = HttpStatus.valueOf(statusException.getStatusCode().value());
+            message = statusException.getReason() != null ? statusException.getReason() : status.getReasonPhrase();
+        } else if (ex instanceof HttpStatusCodeException upstreamStatus) {
+            // Raised by the circuit breaker filter for upstream responses it counts as failures
+            status = HttpStatus.valueOf(upstreamStatus.getStatusCode().value());
+            message = "Upstream service returned " + status.value();
+        } else if (AnnotatedElementUtils.hasAnnotation(ex.getClass(), ResponseStatus.class)) {
+            // e.g. the gateway's ServiceUnavailableException when a circuit breaker is open
+            status = AnnotatedElementUtils.findMergedAnnotation(ex.getClass(), ResponseStatus.class).code();
+            message = status.getReasonPhrase();
         } else {
             status = HttpStatus.INTERNAL_SERVER_ERROR;
             message = "Internal server error: " + ex.getMessage();
@@ -0,0 +1,10 @@
+package com.example.config;
+
+import com.example.loadbalancer.LeastOutstandingLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LeastOutstandingLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
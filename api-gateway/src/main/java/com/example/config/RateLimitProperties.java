@@ -0,0 +1,117 @@
+package com.example.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Validated
+public class RateLimitProperties {
+
+    /**
+     * Limits by role name without the ROLE_ prefix (user, auditor, admin).
+     */
+    private Map<String, @Valid Limit> roles = new HashMap<>();
+
+    /**
+     * Limit for principals with none of the configured roles.
+     */
+    @Valid
+    private Limit defaults = new Limit();
+
+    @Valid
+    private Shedding shedding = new Shedding();
+
+    public Map<String, Limit> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Map<String, Limit> roles) {
+        this.roles = roles;
+    }
+
+    public Limit getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Limit defaults) {
+        this.defaults = defaults;
+    }
+
+    public Shedding getShedding() {
+        return shedding;
+    }
+
+    public void setShedding(Shedding shedding) {
+        this.shedding = shedding;
+    }
+
+    /**
+     * Both values must be positive: a zero rate has no emission interval and a zero
+     * burst would admit nothing, so either is rejected at startup.
+     */
+    public static class Limit {
+        @Positive
+        private int replenishRate = 10;
+        @Positive
+        private int burstCapacity = 20;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+    }
+
+    public static class Shedding {
+        private boolean enabled = true;
+        @NotNull
+        private Duration latencyTarget = Duration.ofMillis(500);
+        @Positive
+        @DecimalMax("1.0")
+        private double minFactor = 0.1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLatencyTarget() {
+            return latencyTarget;
+        }
+
+        public void setLatencyTarget(Duration latencyTarget) {
+            this.latencyTarget = latencyTarget;
+        }
+
+        public double getMinFactor() {
+            return minFactor;
+        }
+
+        public void setMinFactor(double minFactor) {
+            this.minFactor = minFactor;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RoutingConfig {
+
+    /**
+     * Spring Cloud Gateway only registers this filter while its own routing filter is
+     * enabled. We disable that one in favour of PooledRoutingFilter, so without this
+     * bean upstream response bodies are never written to the client.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties properties) {
+        return new NettyWriteResponseFilter(properties.getStreamingMediaTypes());
+    }
+}
@@ -34,9 +34,11 @@ public class SecurityConfig {
 
                         // RBAC enforcement
                         .pathMatchers(HttpMethod.POST, "/events").hasAuthority("ROLE_user")
+                        .pathMatchers(HttpMethod.GET, "/events").hasAnyAuthority("ROLE_auditor", "ROLE_admin")
                         .pathMatchers(HttpMethod.GET, "/accounts/**").hasAnyAuthority("ROLE_auditor", "ROLE_admin")
-                        .pathMatchers(HttpMethod.POST, "/drift-check").hasAnyAuthority("ROLE_auditor", "ROLE_admin")
+                        .pathMatchers(HttpMethod.POST, "/drift-check", "/drift-check/**").hasAnyAuthority("ROLE_auditor", "ROLE_admin")
                         .pathMatchers(HttpMethod.POST, "/correct/**").hasAuthority("ROLE_admin")
+                        .pathMatchers(HttpMethod.DELETE, "/cache/**").hasAuthority("ROLE_admin")
 
                         // Deny all other requests
                         .anyExchange().authenticated()
@@ -0,0 +1,26 @@
+package com.example.controller;
+
+import com.example.filter.TraceIds;
+import com.example.service.AccountOverviewService;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/accounts")
+public class AccountOverviewController {
+
+    private final AccountOverviewService accountOverviewService;
+
+    public AccountOverviewController(AccountOverviewService accountOverviewService) {
+        this.accountOverviewService = accountOverviewService;
+    }
+
+    @GetMapping("/{accountId}/overview")
+    public Mono<Map<String, Object>> overview(@PathVariable String accountId,
+                                              @RequestHeader(value = TraceIds.HEADER, required = false) String traceId) {
+        // One id for all legs, so the fan-out can be followed in each service's logs
+        return accountOverviewService.overview(accountId, traceId != null ? traceId : TraceIds.next());
+    }
+}
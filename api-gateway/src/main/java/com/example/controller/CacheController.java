@@ -0,0 +1,24 @@
+package com.example.controller;
+
+import com.example.cache.ResponseCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    private final ResponseCache responseCache;
+
+    public CacheController(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @DeleteMapping("/accounts/{accountId}")
+    public ResponseEntity<Map<String, Object>> invalidateAccount(@PathVariable String accountId) {
+        int removed = responseCache.invalidateAccount(accountId);
+        return ResponseEntity.ok(Map.of("accountId", accountId, "removed", removed));
+    }
+}
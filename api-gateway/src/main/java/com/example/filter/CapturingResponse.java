@@ -0,0 +1,88 @@
+package com.example.filter;
+
+import com.example.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collects status, headers and body written by the routing filters instead of
+ * sending them to the client, so one upstream response can be replayed later.
+ * Filters using it must be ordered before {@code NettyWriteResponseFilter}.
+ */
+class CapturingResponse extends ServerHttpResponseDecorator {
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private HttpStatusCode status = HttpStatus.OK;
+    private byte[] body = new byte[0];
+
+    CapturingResponse(ServerHttpResponse delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+        if (status != null) {
+            this.status = status;
+        }
+        return true;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return status;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(body)
+                .doOnNext(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    this.body = bytes;
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        return Mono.empty();
+    }
+
+    ResponseCache.CachedResponse toCachedResponse() {
+        return new ResponseCache.CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body);
+    }
+
+    /**
+     * Writes a captured response to the client, tagging it with {@code header: value} if a header is given.
+     */
+    static Mono<Void> write(ServerHttpResponse response, ResponseCache.CachedResponse cached,
+                            String header, String value) {
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(cached.body().length);
+        if (header != null) {
+            response.getHeaders().set(header, value);
+        }
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.filter;
+
+import com.example.cache.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Hedges idempotent GETs: if the upstream has not answered within the route's
+ * recent p95 latency, a second attempt is sent and whichever answers first is used.
+ *
+ * Each attempt runs the rest of the filter chain with its own copy of the exchange
+ * attributes, so the load balancer picks an instance for it independently; with
+ * least-outstanding balancing that is normally a different instance from the slow
+ * one. Hedges are limited to {@code maxHedgeRatio} of requests so that a slow
+ * upstream does not receive double the load.
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_SAMPLES = 20;
+    private static final long BUDGET_UNIT = 1000;
+
+    private final MeterRegistry registry;
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public HedgingFilter(MeterRegistry registry) {
+        super(Config.class);
+        this.registry = registry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            RouteStats stats = routes.computeIfAbsent(route != null ? route.getId() : "unknown", RouteStats::new);
+            stats.requests.increment();
+            stats.earnBudget(config.getMaxHedgeRatio());
+
+            return race(exchange, chain, stats, stats.delay(config))
+                    .flatMap(cached -> CapturingResponse.write(exchange.getResponse(), cached, null, null));
+        }, ORDER);
+    }
+
+    /**
+     * Runs the primary attempt and, unless it finishes first, a hedge after {@code delay}.
+     * The first response wins and cancels the other attempt. An error is only reported
+     * once no other attempt is still running.
+     */
+    private Mono<ResponseCache.CachedResponse> race(ServerWebExchange exchange, GatewayFilterChain chain,
+                                                    RouteStats stats, Duration delay) {
+        return Mono.create(sink -> {
+            Disposable.Composite inFlight = Disposables.composite();
+            AtomicInteger running = new AtomicInteger(1);
+            sink.onDispose(inFlight);
+
+            inFlight.add(attempt(exchange, chain, stats).contextWrite(sink.contextView()).subscribe(
+                    sink::success,
+                    error -> {
+                        if (running.decrementAndGet() == 0) {
+                            sink.error(error);
+                        }
+                    }));
+
+            inFlight.add(Mono.delay(delay).subscribe(tick -> {
+                if (!stats.spendBudget()) {
+                    return;
+                }
+                running.incrementAndGet();
+                stats.fired.increment();
+                inFlight.add(attempt(exchange, chain, stats)
+                        .doOnNext(cached -> stats.won.increment())
+                        .contextWrite(sink.contextView())
+                        .subscribe(
+                                sink::success,
+                                error -> {
+                                    if (running.decrementAndGet() == 0) {
+                                        sink.error(error);
+                                    }
+                                }));
+            }));
+        });
+    }
+
+    private Mono<ResponseCache.CachedResponse> attempt(ServerWebExchange exchange, GatewayFilterChain chain,
+                                                       RouteStats stats) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            CapturingResponse capture = new CapturingResponse(exchange.getResponse());
+            return chain.filter(new AttemptExchange(exchange, capture))
+                    .then(Mono.fromSupplier(capture::toCachedResponse))
+                    .doOnNext(cached -> stats.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Exchange for one attempt: its own response and a private copy of the attributes,
+     * so routing state set by one attempt is not seen by the other.
+     */
+    private static class AttemptExchange extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes;
+        private final ServerHttpResponse response;
+
+        AttemptExchange(ServerWebExchange delegate, ServerHttpResponse response) {
+            super(delegate);
+            this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+            this.response = response;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public ServerHttpResponse getResponse() {
+            return response;
+        }
+    }
+
+    private class RouteStats {
+        final Timer latency;
+        final Counter requests;
+        final Counter fired;
+        final Counter won;
+        final AtomicLong delayNanos = new AtomicLong(-1);
+        final AtomicLong refreshedAt = new AtomicLong(System.nanoTime());
+        final AtomicLong budget = new AtomicLong(BUDGET_UNIT);
+
+        RouteStats(String routeId) {
+            latency = Timer.builder("gateway.hedge.attempt.latency")
+                    .description("Latency of completed upstream attempts; its p95 sets the hedge delay")
+                    .tag("routeId", routeId)
+                    .publishPercentiles(0.95)
+                    .register(registry);
+            requests = counter("gateway.hedge.requests", "Requests eligible for hedging", routeId);
+            fired = counter("gateway.hedge.fired", "Hedge attempts sent", routeId);
+            won = counter("gateway.hedge.won", "Hedge attempts that answered before the primary", routeId);
+            Gauge.builder("gateway.hedge.delay", delayNanos, d -> Math.max(d.get(), 0) / 1_000_000.0)
+                    .description("Current hedge delay in milliseconds")
+                    .tag("routeId", routeId)
+                    .register(registry);
+        }
+
+        private Counter counter(String name, String description, String routeId) {
+            return Counter.builder(name).description(description).tag("routeId", routeId).register(registry);
+        }
+
+        Duration delay(Config config) {
+            long now = System.nanoTime();
+            long refreshed = refreshedAt.get();
+            if (delayNanos.get() < 0 || (now - refreshed > DELAY_REFRESH_NANOS && refreshedAt.compareAndSet(refreshed, now))) {
+                delayNanos.set(p95Nanos(config));
+            }
+            return Duration.ofNanos(delayNanos.get());
+        }
+
+        private long p95Nanos(Config config) {
+            long min = config.getMinDelay().toNanos();
+            long max = config.getMaxDelay().toNanos();
+            if (latency.count() < MIN_SAMPLES) {
+                return max;
+            }
+            for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.95) {
+                    return Math.min(max, Math.max(min, (long) percentile.value(TimeUnit.NANOSECONDS)));
+                }
+            }
+            return max;
+        }
+
+        void earnBudget(double ratio) {
+            long cap = 10 * BUDGET_UNIT;
+            budget.getAndUpdate(b -> Math.min(cap, b + (long) (ratio * BUDGET_UNIT)));
+        }
+
+        boolean spendBudget() {
+            return budget.getAndUpdate(b -> b >= BUDGET_UNIT ? b - BUDGET_UNIT : b) >= BUDGET_UNIT;
+        }
+    }
+
+    public static class Config {
+        private Duration minDelay = Duration.ofMillis(10);
+        private Duration maxDelay = Duration.ofMillis(500);
+        private double maxHedgeRatio = 0.1;
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public double getMaxHedgeRatio() {
+            return maxHedgeRatio;
+        }
+
+        public void setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.filter;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+/**
+ * Routing filter that gives a route its own upstream connection pool when the route
+ * sets any of these metadata keys:
+ *
+ * <pre>
+ * pool-max-connections: 200     # connections per upstream host
+ * pool-max-idle-time: 30000     # ms before an idle connection is closed
+ * pool-max-life-time: 300000    # ms before a connection is retired
+ * keep-alive: true
+ * protocol: h2c                 # HTTP/2 cleartext, falling back to HTTP/1.1
+ * </pre>
+ *
+ * Routes without them share the gateway-wide client configured under
+ * {@code spring.cloud.gateway.httpclient}. Replaces the default routing filter,
+ * which is disabled with {@code spring.cloud.gateway.global-filter.netty-routing.enabled=false}.
+ */
+@Component
+public class PooledRoutingFilter extends NettyRoutingFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledRoutingFilter.class);
+    private static final List<String> POOL_KEYS = List.of(
+            "pool-max-connections", "pool-max-idle-time", "pool-max-life-time", "keep-alive", "protocol");
+
+    private final Map<String, HttpClient> routeClients = new ConcurrentHashMap<>();
+
+    public PooledRoutingFilter(HttpClient httpClient,
+                               ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                               HttpClientProperties properties) {
+        super(httpClient, headersFiltersProvider, properties);
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        Map<String, Object> metadata = route.getMetadata();
+        if (POOL_KEYS.stream().noneMatch(metadata::containsKey)) {
+            return super.getHttpClient(route, exchange);
+        }
+        return routeClients.computeIfAbsent(route.getId(), id -> create(id, metadata));
+    }
+
+    private HttpClient create(String routeId, Map<String, Object> metadata) {
+        ConnectionProvider.Builder pool = ConnectionProvider.builder("route-" + routeId);
+        Object maxConnections = metadata.get("pool-max-connections");
+        if (maxConnections != null) {
+            pool.maxConnections(Integer.parseInt(maxConnections.toString()));
+        }
+        Object maxIdleTime = metadata.get("pool-max-idle-time");
+        if (maxIdleTime != null) {
+            pool.maxIdleTime(Duration.ofMillis(Long.parseLong(maxIdleTime.toString())));
+        }
+        Object maxLifeTime = metadata.get("pool-max-life-time");
+        if (maxLifeTime != null) {
+            pool.maxLifeTime(Duration.ofMillis(Long.parseLong(maxLifeTime.toString())));
+        }
+        pool.metrics(true);
+
+        HttpClient client = HttpClient.create(pool.build())
+                .keepAlive(Boolean.parseBoolean(metadata.getOrDefault("keep-alive", "true").toString()));
+        if ("h2c".equalsIgnoreCase(String.valueOf(metadata.get("protocol")))) {
+            client = client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        Object connectTimeout = metadata.get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+        }
+
+        logger.info("Created dedicated HTTP client for route {}: {}", routeId, metadata);
+        return client;
+    }
+}
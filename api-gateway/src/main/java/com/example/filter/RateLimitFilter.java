@@ -0,0 +1,114 @@
+package com.example.filter;
+
+import com.example.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Rejects requests over the caller's rate with 429 before anything is forwarded.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /**
+     * Ahead of ResponseCacheFilter, so cached reads count against the caller as well.
+     */
+    static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 10;
+
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry registry;
+
+    public RateLimitFilter(RateLimiter rateLimiter, MeterRegistry registry) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.registry = registry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "unknown";
+
+            return ReactiveSecurityContextHolder.getContext()
+                    .map(SecurityContext::getAuthentication)
+                    .map(authentication -> decide(routeId, authentication, config))
+                    .switchIfEmpty(Mono.fromSupplier(() -> decide(routeId, null, config)))
+                    .flatMap(decision -> {
+                        if (!decision.allowed()) {
+                            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999));
+                            logger.debug("Rate limited {} on route {} (role={}, retryAfter={}s)",
+                                    exchange.getRequest().getPath(), routeId, decision.role(), retryAfter);
+                            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+                            return exchange.getResponse().setComplete();
+                        }
+
+                        long start = System.nanoTime();
+                        return chain.filter(exchange).doFinally(signal -> {
+                            if (signal != SignalType.CANCEL) {
+                                rateLimiter.recordLatency(routeId, System.nanoTime() - start);
+                            }
+                        });
+                    });
+        }, ORDER);
+    }
+
+    private RateLimiter.Decision decide(String routeId, Authentication authentication, Config config) {
+        String subject = authentication != null ? authentication.getName() : "anonymous";
+        List<String> roles = authentication != null
+                ? authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()
+                : List.of();
+
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(routeId, subject, roles, config.getLatencyTarget());
+        String outcome = decision.allowed() ? "allowed" : decision.shedding() ? "shed" : "rejected";
+        Counter.builder("gateway.ratelimit.decisions")
+                .description("Rate limiter decisions; shed means rejected while the rate was reduced for upstream latency")
+                .tag("routeId", routeId)
+                .tag("role", decision.role())
+                .tag("decision", outcome)
+                .register(registry)
+                .increment();
+        return decision;
+    }
+
+    public static class Config {
+        /**
+         * Upstream latency above which this route starts shedding; defaults to
+         * rate-limit.shedding.latency-target.
+         */
+        private Duration latencyTarget;
+
+        public Duration getLatencyTarget() {
+            return latencyTarget;
+        }
+
+        public void setLatencyTarget(Duration latencyTarget) {
+            this.latencyTarget = latencyTarget;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.filter;
+
+import com.example.cache.ResponseCache;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Serves repeated GETs from a short-TTL cache and collapses concurrent identical
+ * GETs into a single upstream call.
+ *
+ * The first request for a key forwards upstream with its response captured into
+ * memory; every request for that key until the entry expires, including ones that
+ * arrive while the first is still in flight, is answered from the captured copy.
+ * Only 200 responses are kept once the call completes.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+    private static final String CACHE_HEADER = "X-Gateway-Cache";
+
+    static final int ORDER = HedgingFilter.ORDER - 1;
+
+    private final ResponseCache responseCache;
+    private final MeterRegistry registry;
+
+    public ResponseCacheFilter(ResponseCache responseCache, MeterRegistry registry) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.registry = registry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Must run before NettyWriteResponseFilter so that it writes into the capturing response,
+        // and before HedgingFilter so a hedged call is cached as one.
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "unknown";
+            AsyncCache<ResponseCache.Key, ResponseCache.CachedResponse> cache =
+                    responseCache.forRoute(routeId, config.getTtl(), config.getMaxEntries());
+            ResponseCache.Key key = ResponseCache.Key.of(exchange.getRequest());
+
+            CompletableFuture<ResponseCache.CachedResponse> mine = new CompletableFuture<>();
+            CompletableFuture<ResponseCache.CachedResponse> existing = cache.asMap().putIfAbsent(key, mine);
+
+            if (existing == null) {
+                count(routeId, "miss");
+                return fetch(exchange, chain)
+                        .doOnNext(cached -> {
+                            mine.complete(cached);
+                            if (!cached.status().isSameCodeAs(HttpStatus.OK)) {
+                                cache.asMap().remove(key, mine);
+                            }
+                        })
+                        .doOnError(mine::completeExceptionally)
+                        .doOnCancel(() -> mine.completeExceptionally(new CancellationException("Leading request cancelled")))
+                        .flatMap(cached -> CapturingResponse.write(exchange.getResponse(), cached, CACHE_HEADER, "MISS"));
+            }
+
+            String result = existing.isDone() ? "HIT" : "COALESCED";
+            count(routeId, result.toLowerCase());
+            return Mono.fromFuture(existing, true)
+                    .timeout(config.getWaitTimeout())
+                    .flatMap(cached -> CapturingResponse.write(exchange.getResponse(), cached, CACHE_HEADER, result))
+                    .onErrorResume(e -> {
+                        logger.debug("Shared upstream call for {} failed ({}), forwarding directly", key.pathAndQuery(), e.toString());
+                        return chain.filter(exchange);
+                    });
+        }, ORDER);
+    }
+
+    private Mono<ResponseCache.CachedResponse> fetch(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return Mono.defer(() -> {
+            CapturingResponse capture = new CapturingResponse(exchange.getResponse());
+            return chain.filter(exchange.mutate().response(capture).build())
+                    .then(Mono.fromSupplier(capture::toCachedResponse));
+        });
+    }
+
+    private void count(String routeId, String result) {
+        Counter.builder("gateway.response.cache.requests")
+                .description("Cacheable requests by how they were served; only misses reach the upstream")
+                .tag("routeId", routeId)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(1);
+        private long maxEntries = 10_000;
+        private Duration waitTimeout = Duration.ofSeconds(5);
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+}
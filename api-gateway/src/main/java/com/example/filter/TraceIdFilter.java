@@ -2,46 +2,51 @@ package com.example.filter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cloud.gateway.filter.GatewayFilter;
-import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
-
-import java.util.UUID;
-
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives every routed request an X-Trace-Id, keeping one the client sent, and echoes
+ * it on the response. Runs first so that rate-limited, cached and hedged requests all
+ * carry the same id as the rest of the exchange.
+ */
 @Component
-public class TraceIdFilter extends AbstractGatewayFilterFactory<TraceIdFilter.Config> {
+public class TraceIdFilter implements GlobalFilter, Ordered {
 
     private static final Logger logger = LoggerFactory.getLogger(TraceIdFilter.class);
-    private static final String TRACE_ID_HEADER = "X-Trace-Id";
-
-    public TraceIdFilter() {
-        super(Config.class);
-    }
+    private static final String TRACE_ID_HEADER = TraceIds.HEADER;
 
     @Override
-    public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
-            String traceId = exchange.getRequest().getHeaders().getFirst(TRACE_ID_HEADER);
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String traceId = exchange.getRequest().getHeaders().getFirst(TRACE_ID_HEADER);
 
-            if (traceId == null || traceId.isEmpty()) {
-                traceId = UUID.randomUUID().toString();
-            }
+        if (traceId == null || traceId.isEmpty()) {
+            traceId = TraceIds.next();
+        }
 
-            logger.info("Request to {} with Trace-ID: {}",
-                    exchange.getRequest().getPath(), traceId);
+        logger.info("Request to {} with Trace-ID: {}",
+                exchange.getRequest().getPath(), traceId);
 
-            final String finalTraceId = traceId;
+        final String finalTraceId = traceId;
 
-            return chain.filter(exchange.mutate()
-                    .request(exchange.getRequest().mutate()
-                            .header(TRACE_ID_HEADER, finalTraceId)
-                            .build())
-                    .build());
-        };
+        exchange.getResponse().beforeCommit(() -> {
+            exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, finalTraceId);
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange.mutate()
+                .request(exchange.getRequest().mutate()
+                        .header(TRACE_ID_HEADER, finalTraceId)
+                        .build())
+                .build());
     }
 
-    public static class Config {
-        // Configuration properties if needed
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
     }
 }
-
@@ -0,0 +1,65 @@
+package com.example.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends each request to the healthy instance with the fewest requests in flight.
+ *
+ * Ties are broken by a rotating start index so equally loaded instances share
+ * traffic round-robin. If every instance is ejected, all of them are candidates
+ * again rather than failing the request.
+ */
+public class LeastOutstandingLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final UpstreamInstanceStats stats;
+    private final AtomicInteger position = new AtomicInteger();
+
+    public LeastOutstandingLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                        UpstreamInstanceStats stats) {
+        this.supplierProvider = supplierProvider;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        boolean anyHealthy = instances.stream().anyMatch(instance -> !stats.isEjected(instance));
+        int start = Math.floorMod(position.getAndIncrement(), instances.size());
+
+        ServiceInstance best = null;
+        int bestInFlight = Integer.MAX_VALUE;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance candidate = instances.get((start + i) % instances.size());
+            if (anyHealthy && stats.isEjected(candidate)) {
+                continue;
+            }
+            int inFlight = stats.inFlight(candidate);
+            if (inFlight < bestInFlight) {
+                best = candidate;
+                bestInFlight = inFlight;
+            }
+        }
+        stats.acquire(best);
+        return new DefaultResponse(best);
+    }
+}
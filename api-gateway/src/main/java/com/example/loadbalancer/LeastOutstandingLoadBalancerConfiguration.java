@@ -0,0 +1,25 @@
+package com.example.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration. Deliberately not a {@code @Configuration}:
+ * it is instantiated in each service's child context via
+ * {@code @LoadBalancerClients(defaultConfiguration = ...)}.
+ */
+public class LeastOutstandingLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> leastOutstandingLoadBalancer(Environment environment,
+                                                                             LoadBalancerClientFactory clientFactory,
+                                                                             UpstreamInstanceStats stats) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LeastOutstandingLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), stats);
+    }
+}
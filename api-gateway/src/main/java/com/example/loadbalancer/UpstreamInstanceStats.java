@@ -0,0 +1,108 @@
+package com.example.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight requests, latency and health of every upstream instance.
+ *
+ * An instance that fails {@code ejection.consecutive-failures} requests in a row
+ * (connection errors or 5xx) is ejected from balancing for {@code ejection.duration},
+ * after which it gets traffic again and is ejected again if it is still failing.
+ */
+@Component
+public class UpstreamInstanceStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamInstanceStats.class);
+
+    private final ConcurrentHashMap<String, Instance> instances = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final int consecutiveFailures;
+    private final long ejectionNanos;
+
+    public UpstreamInstanceStats(MeterRegistry registry,
+                                 @Value("${upstream.ejection.consecutive-failures:5}") int consecutiveFailures,
+                                 @Value("${upstream.ejection.duration:30s}") Duration ejectionDuration) {
+        this.registry = registry;
+        this.consecutiveFailures = consecutiveFailures;
+        this.ejectionNanos = ejectionDuration.toNanos();
+    }
+
+    public int inFlight(ServiceInstance instance) {
+        return get(instance).inFlight.get();
+    }
+
+    public boolean isEjected(ServiceInstance instance) {
+        return get(instance).ejectedUntil.get() - System.nanoTime() > 0;
+    }
+
+    public void acquire(ServiceInstance instance) {
+        get(instance).inFlight.incrementAndGet();
+    }
+
+    public void release(ServiceInstance instance, long nanos, boolean failed) {
+        Instance stats = get(instance);
+        stats.inFlight.decrementAndGet();
+        (failed ? stats.failedLatency : stats.successLatency).record(nanos, TimeUnit.NANOSECONDS);
+        if (!failed) {
+            stats.failures.set(0);
+        } else if (stats.failures.incrementAndGet() >= consecutiveFailures) {
+            stats.failures.set(0);
+            stats.ejectedUntil.set(System.nanoTime() + ejectionNanos);
+            logger.warn("Ejecting upstream {} after {} consecutive failures", stats.name, consecutiveFailures);
+        }
+    }
+
+    private Instance get(ServiceInstance instance) {
+        String name = instance.getHost() + ":" + instance.getPort();
+        return instances.computeIfAbsent(instance.getServiceId() + "/" + name,
+                key -> new Instance(instance.getServiceId(), name));
+    }
+
+    private class Instance {
+        final String name;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong ejectedUntil = new AtomicLong(System.nanoTime());
+        final Timer successLatency;
+        final Timer failedLatency;
+
+        Instance(String serviceId, String name) {
+            this.name = serviceId + "/" + name;
+            Gauge.builder("gateway.upstream.inflight", inFlight, AtomicInteger::get)
+                    .description("Requests in flight to the upstream instance")
+                    .tag("serviceId", serviceId)
+                    .tag("instance", name)
+                    .register(registry);
+            Gauge.builder("gateway.upstream.ejected", ejectedUntil, until -> until.get() - System.nanoTime() > 0 ? 1 : 0)
+                    .description("1 while the instance is ejected from load balancing")
+                    .tag("serviceId", serviceId)
+                    .tag("instance", name)
+                    .register(registry);
+            successLatency = latency(serviceId, name, "success");
+            failedLatency = latency(serviceId, name, "failure");
+        }
+
+        private Timer latency(String serviceId, String name, String outcome) {
+            return Timer.builder("gateway.upstream.latency")
+                    .description("Upstream request latency per instance")
+                    .tag("serviceId", serviceId)
+                    .tag("instance", name)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ratelimit;
+
+import com.example.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-principal, per-route admission decisions.
+ *
+ * Each (subject, route) pair gets its own {@link TokenBucket} sized by the most
+ * generous of the principal's roles. When a route's smoothed upstream latency rises
+ * above its target, every bucket on that route refills proportionally slower, down
+ * to {@code minFactor} of the configured rate, and recovers as latency comes back.
+ */
+@Component
+public class RateLimiter {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry registry;
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .maximumSize(100_000)
+            .build();
+    private final ConcurrentHashMap<String, AtomicLong> latencies = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    public Decision tryAcquire(String routeId, String subject, Collection<String> roles, Duration latencyTarget) {
+        String role = "default";
+        RateLimitProperties.Limit limit = properties.getDefaults();
+        for (String authority : roles) {
+            String name = authority.startsWith("ROLE_") ? authority.substring(5) : authority;
+            RateLimitProperties.Limit candidate = properties.getRoles().get(name);
+            if (candidate != null && (role.equals("default") || candidate.getReplenishRate() > limit.getReplenishRate())) {
+                role = name;
+                limit = candidate;
+            }
+        }
+
+        double factor = shedFactor(routeId, latencyTarget);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / (limit.getReplenishRate() * factor));
+        TokenBucket bucket = buckets.get(subject + "|" + routeId, key -> new TokenBucket());
+        long wait = bucket.tryAcquire(System.nanoTime(), interval, limit.getBurstCapacity());
+        return new Decision(wait == 0, factor < 1.0, wait, role);
+    }
+
+    public void recordLatency(String routeId, long nanos) {
+        tracker(routeId).updateAndGet(bits -> {
+            double current = Double.longBitsToDouble(bits);
+            double next = current == 0 ? nanos : current + LATENCY_SMOOTHING * (nanos - current);
+            return Double.doubleToLongBits(next);
+        });
+    }
+
+    /**
+     * Fraction of the configured rate currently admitted on the route.
+     */
+    public double shedFactor(String routeId, Duration latencyTarget) {
+        RateLimitProperties.Shedding shedding = properties.getShedding();
+        if (!shedding.isEnabled()) {
+            return 1.0;
+        }
+        long target = (latencyTarget != null ? latencyTarget : shedding.getLatencyTarget()).toNanos();
+        double latency = Double.longBitsToDouble(tracker(routeId).get());
+        if (latency <= target) {
+            return 1.0;
+        }
+        return Math.max(shedding.getMinFactor(), target / latency);
+    }
+
+    private AtomicLong tracker(String routeId) {
+        return latencies.computeIfAbsent(routeId, id -> {
+            AtomicLong tracker = new AtomicLong(Double.doubleToLongBits(0));
+            Gauge.builder("gateway.upstream.latency.smoothed", tracker,
+                            t -> Double.longBitsToDouble(t.get()) / TimeUnit.MILLISECONDS.toNanos(1))
+                    .description("Exponentially weighted upstream latency in milliseconds")
+                    .tag("routeId", id)
+                    .register(registry);
+            return tracker;
+        });
+    }
+
+    public record Decision(boolean allowed, boolean shedding, long retryAfterNanos, String role) {
+    }
+}
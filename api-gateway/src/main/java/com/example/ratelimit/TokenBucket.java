@@ -0,0 +1,40 @@
+package com.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket using the generic cell rate algorithm.
+ *
+ * Instead of a token count and a refill timestamp, the bucket keeps a single
+ * "theoretical arrival time": the instant at which it would be full again. A request
+ * is admitted if that instant is no further than the burst allowance in the future,
+ * and admitting it pushes the instant forward by one emission interval. That one
+ * value can be updated with a CAS, so concurrent requests never block each other.
+ */
+public class TokenBucket {
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Tries to take one token.
+     *
+     * @param nowNanos        current time, from {@link System#nanoTime()}
+     * @param intervalNanos   time to refill one token
+     * @param burstCapacity   tokens the bucket holds when full
+     * @return 0 if the request is admitted, otherwise nanoseconds until it would be
+     */
+    public long tryAcquire(long nowNanos, long intervalNanos, int burstCapacity) {
+        long tolerance = intervalNanos * (burstCapacity - 1L);
+        while (true) {
+            long current = theoreticalArrival.get();
+            long tat = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long wait = tat - nowNanos - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, tat + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds an account overview from the shadow balance, recent events and drift status.
+ *
+ * The three upstream calls are made concurrently, each with its own timeout, so the
+ * overview takes as long as the slowest leg. A leg that fails or times out is
+ * reported under {@code errors} and the rest of the overview is still returned.
+ */
+@Service
+public class AccountOverviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountOverviewService.class);
+    private static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final WebClient webClient;
+    private final String shadowLedgerUri;
+    private final String eventServiceUri;
+    private final String driftServiceUri;
+    private final Duration legTimeout;
+    private final int recentEvents;
+
+    public AccountOverviewService(WebClient.Builder webClientBuilder,
+                                  @Value("${overview.shadow-ledger-uri}") String shadowLedgerUri,
+                                  @Value("${overview.event-service-uri}") String eventServiceUri,
+                                  @Value("${overview.drift-service-uri}") String driftServiceUri,
+                                  @Value("${overview.leg-timeout:800ms}") Duration legTimeout,
+                                  @Value("${overview.recent-events:20}") int recentEvents) {
+        this.webClient = webClientBuilder.build();
+        this.shadowLedgerUri = shadowLedgerUri;
+        this.eventServiceUri = eventServiceUri;
+        this.driftServiceUri = driftServiceUri;
+        this.legTimeout = legTimeout;
+        this.recentEvents = recentEvents;
+    }
+
+    public Mono<Map<String, Object>> overview(String accountId, String traceId) {
+        Mono<Leg> balance = leg("balance", traceId,
+                shadowLedgerUri + "/accounts/{accountId}/shadow-balance", accountId);
+        Mono<Leg> events = leg("recentEvents", traceId,
+                eventServiceUri + "/events?accountId={accountId}&limit=" + recentEvents, accountId);
+        Mono<Leg> drift = leg("drift", traceId,
+                driftServiceUri + "/drift-check/accounts/{accountId}", accountId);
+
+        return Mono.zip(balance, events, drift).map(legs -> {
+            Map<String, Object> overview = new LinkedHashMap<>();
+            Map<String, String> errors = new LinkedHashMap<>();
+            overview.put("accountId", accountId);
+            for (Leg leg : new Leg[]{legs.getT1(), legs.getT2(), legs.getT3()}) {
+                overview.put(leg.name(), leg.body());
+                if (leg.error() != null) {
+                    errors.put(leg.name(), leg.error());
+                }
+            }
+            overview.put("partial", !errors.isEmpty());
+            overview.put("errors", errors);
+            return overview;
+        });
+    }
+
+    private Mono<Leg> leg(String name, String traceId, String uri, String accountId) {
+        return webClient.get()
+                .uri(uri, accountId)
+                .headers(headers -> {
+                    if (traceId != null) {
+                        headers.set(TRACE_ID_HEADER, traceId);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(legTimeout)
+                .map(body -> new Leg(name, body, null))
+                .onErrorResume(e -> {
+                    logger.warn("Overview leg {} failed for account {}: {}", name, accountId, e.toString());
+                    return Mono.just(new Leg(name, null, e.getClass().getSimpleName() + ": " + e.getMessage()));
+                });
+    }
+
+    private record Leg(String name, JsonNode body, String error) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitPropertiesTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    ConfigurationPropertiesAutoConfiguration.class, ValidationAutoConfiguration.class))
+            .withUserConfiguration(RateLimitProperties.class);
+
+    @Test
+    void testValidLimitsBind() {
+        runner.withPropertyValues(
+                        "rate-limit.roles.user.replenish-rate=50",
+                        "rate-limit.roles.user.burst-capacity=100",
+                        "rate-limit.defaults.replenish-rate=1",
+                        "rate-limit.defaults.burst-capacity=1")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    RateLimitProperties properties = context.getBean(RateLimitProperties.class);
+                    assertThat(properties.getRoles().get("user").getBurstCapacity()).isEqualTo(100);
+                });
+    }
+
+    @Test
+    void testZeroReplenishRateRejected() {
+        runner.withPropertyValues("rate-limit.defaults.replenish-rate=0")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void testZeroBurstCapacityInRoleRejected() {
+        runner.withPropertyValues(
+                        "rate-limit.roles.user.replenish-rate=50",
+                        "rate-limit.roles.user.burst-capacity=0")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    void testMinFactorOutOfRangeRejected() {
+        runner.withPropertyValues("rate-limit.shedding.min-factor=0")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("rate-limit.shedding.min-factor=1.5")
+                .run(context -> assertThat(context).hasFailed());
+    }
+}
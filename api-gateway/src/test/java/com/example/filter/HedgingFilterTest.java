@@ -0,0 +1,91 @@
+package com.example.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private MeterRegistry registry;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        HedgingFilter.Config config = new HedgingFilter.Config();
+        config.setMinDelay(Duration.ofMillis(1));
+        config.setMaxDelay(Duration.ofMillis(1));
+        config.setMaxHedgeRatio(0.1);
+        filter = new HedgingFilter(registry).apply(config);
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("routeId", "unknown").counter().count();
+    }
+
+    private static GatewayFilterChain slowUpstream(AtomicInteger attempts) {
+        return exchange -> {
+            attempts.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(30)).then(exchange.getResponse().setComplete());
+        };
+    }
+
+    @Test
+    void testHedgesLimitedToBudget() {
+        AtomicInteger attempts = new AtomicInteger();
+        GatewayFilterChain chain = slowUpstream(attempts);
+
+        for (int i = 0; i < 20; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/accounts/1"));
+            filter.filter(exchange, chain).block(TIMEOUT);
+        }
+
+        // one hedge of initial budget, then one per 10 requests at a ratio of 0.1
+        assertThat(count("gateway.hedge.requests")).isEqualTo(20);
+        assertThat(count("gateway.hedge.fired")).isEqualTo(3);
+        assertThat(attempts).hasValue(23);
+    }
+
+    @Test
+    void testHedgeAnswersWhenPrimaryHangs() {
+        AtomicInteger attempts = new AtomicInteger();
+        GatewayFilterChain chain = exchange -> {
+            if (attempts.incrementAndGet() == 1) {
+                return Mono.never();
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.ACCEPTED);
+            return exchange.getResponse().setComplete();
+        };
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/accounts/1"));
+
+        filter.filter(exchange, chain).block(TIMEOUT);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(count("gateway.hedge.won")).isEqualTo(1);
+    }
+
+    @Test
+    void testNonGetRequestsNotHedged() {
+        AtomicInteger attempts = new AtomicInteger();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/events"));
+
+        filter.filter(exchange, slowUpstream(attempts)).block(TIMEOUT);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(registry.find("gateway.hedge.requests").counter()).isNull();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeastOutstandingLoadBalancerTest {
+
+    private final ServiceInstance a = instance("a", 8001);
+    private final ServiceInstance b = instance("b", 8002);
+    private final ServiceInstance c = instance("c", 8003);
+
+    private UpstreamInstanceStats stats;
+    private LeastOutstandingLoadBalancer loadBalancer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stats = new UpstreamInstanceStats(new SimpleMeterRegistry(), 2, Duration.ofMinutes(1));
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(ServiceInstanceListSuppliers.from("ledger", a, b, c));
+        loadBalancer = new LeastOutstandingLoadBalancer(provider, stats);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, "ledger", "localhost", port, false);
+    }
+
+    private ServiceInstance choose() {
+        return loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+    }
+
+    @Test
+    void testPicksInstanceWithFewestInFlight() {
+        stats.acquire(a);
+        stats.acquire(a);
+        stats.acquire(b);
+
+        ServiceInstance chosen = choose();
+
+        assertThat(chosen).isEqualTo(c);
+        assertThat(stats.inFlight(c)).isEqualTo(1);
+    }
+
+    @Test
+    void testTiesRotate() {
+        Set<ServiceInstance> chosen = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ServiceInstance instance = choose();
+            chosen.add(instance);
+            stats.release(instance, 1_000, false);
+        }
+
+        assertThat(chosen).containsExactlyInAnyOrder(a, b, c);
+    }
+
+    @Test
+    void testConsecutiveFailuresEject() {
+        stats.acquire(a);
+        stats.release(a, 1_000, true);
+        assertThat(stats.isEjected(a)).isFalse();
+        stats.acquire(a);
+        stats.release(a, 1_000, true);
+        assertThat(stats.isEjected(a)).isTrue();
+
+        for (int i = 0; i < 6; i++) {
+            ServiceInstance instance = choose();
+            assertThat(instance).isNotEqualTo(a);
+            stats.release(instance, 1_000, false);
+        }
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() {
+        stats.acquire(a);
+        stats.release(a, 1_000, true);
+        stats.acquire(a);
+        stats.release(a, 1_000, false);
+        stats.acquire(a);
+        stats.release(a, 1_000, true);
+
+        assertThat(stats.isEjected(a)).isFalse();
+    }
+
+    @Test
+    void testEjectedInstanceIsNotPreferredEvenWhenIdle() {
+        stats.acquire(b);
+        stats.acquire(c);
+        for (int i = 0; i < 2; i++) {
+            stats.acquire(a);
+            stats.release(a, 1_000, true);
+        }
+
+        assertThat(choose()).isIn(b, c);
+    }
+
+    @Test
+    void testAllEjectedFallsBackToAll() {
+        for (ServiceInstance instance : new ServiceInstance[] {a, b, c}) {
+            for (int i = 0; i < 2; i++) {
+                stats.acquire(instance);
+                stats.release(instance, 1_000, true);
+            }
+        }
+
+        assertThat(choose()).isIn(a, b, c);
+    }
+
+    @Test
+    void testEjectionExpires() throws InterruptedException {
+        stats = new UpstreamInstanceStats(new SimpleMeterRegistry(), 1, Duration.ofMillis(20));
+        stats.acquire(a);
+        stats.release(a, 1_000, true);
+        assertThat(stats.isEjected(a)).isTrue();
+
+        Thread.sleep(50);
+
+        assertThat(stats.isEjected(a)).isFalse();
+    }
+}
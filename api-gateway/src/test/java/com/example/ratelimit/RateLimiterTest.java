@@ -0,0 +1,144 @@
+package com.example.ratelimit;
+
+import com.example.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RateLimiterTest {
+
+    private static final Duration TARGET = Duration.ofMillis(100);
+
+    private RateLimitProperties properties;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRoles(Map.of(
+                "user", limit(10, 1),
+                "admin", limit(200, 400)));
+        properties.setDefaults(limit(5, 10));
+        properties.getShedding().setMinFactor(0.1);
+        rateLimiter = new RateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    private static RateLimitProperties.Limit limit(int replenishRate, int burstCapacity) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setReplenishRate(replenishRate);
+        limit.setBurstCapacity(burstCapacity);
+        return limit;
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void testNoSheddingBelowTarget() {
+        rateLimiter.recordLatency("route", millis(80));
+
+        assertThat(rateLimiter.shedFactor("route", TARGET)).isEqualTo(1.0);
+    }
+
+    @Test
+    void testShedFactorIsTargetOverSmoothedLatency() {
+        rateLimiter.recordLatency("route", millis(200));
+
+        assertThat(rateLimiter.shedFactor("route", TARGET)).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void testLatencyIsSmoothed() {
+        rateLimiter.recordLatency("route", millis(200));
+        rateLimiter.recordLatency("route", millis(700));
+
+        // 200 + 0.2 * (700 - 200) = 300
+        assertThat(rateLimiter.shedFactor("route", TARGET)).isCloseTo(1.0 / 3, within(1e-9));
+    }
+
+    @Test
+    void testShedFactorFloorsAtMinFactor() {
+        rateLimiter.recordLatency("route", millis(10_000));
+
+        assertThat(rateLimiter.shedFactor("route", TARGET)).isEqualTo(0.1);
+    }
+
+    @Test
+    void testShedFactorUsesDefaultTargetWhenRouteHasNone() {
+        properties.getShedding().setLatencyTarget(Duration.ofMillis(400));
+        rateLimiter.recordLatency("route", millis(800));
+
+        assertThat(rateLimiter.shedFactor("route", null)).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void testSheddingDisabled() {
+        properties.getShedding().setEnabled(false);
+        rateLimiter.recordLatency("route", millis(10_000));
+
+        assertThat(rateLimiter.shedFactor("route", TARGET)).isEqualTo(1.0);
+    }
+
+    @Test
+    void testSheddingIsPerRoute() {
+        rateLimiter.recordLatency("slow", millis(1_000));
+        rateLimiter.recordLatency("fast", millis(10));
+
+        assertThat(rateLimiter.shedFactor("slow", TARGET)).isLessThan(1.0);
+        assertThat(rateLimiter.shedFactor("fast", TARGET)).isEqualTo(1.0);
+    }
+
+    @Test
+    void testMostGenerousRoleApplies() {
+        RateLimiter.Decision decision = rateLimiter.tryAcquire("route", "alice", List.of("ROLE_user", "ROLE_admin"), TARGET);
+
+        assertThat(decision.allowed()).isTrue();
+        assertThat(decision.role()).isEqualTo("admin");
+    }
+
+    @Test
+    void testUnknownRolesGetDefaults() {
+        RateLimiter.Decision decision = rateLimiter.tryAcquire("route", "bob", List.of("ROLE_guest"), TARGET);
+
+        assertThat(decision.role()).isEqualTo("default");
+    }
+
+    @Test
+    void testSheddingSlowsRefill() {
+        RateLimiter.Decision first = rateLimiter.tryAcquire("route", "carol", List.of("ROLE_user"), TARGET);
+        RateLimiter.Decision unshed = rateLimiter.tryAcquire("route", "carol", List.of("ROLE_user"), TARGET);
+
+        assertThat(first.allowed()).isTrue();
+        assertThat(unshed.allowed()).isFalse();
+        assertThat(unshed.shedding()).isFalse();
+        // user: 10 a second with a burst of 1, so the next token is at most 100ms away
+        assertThat(unshed.retryAfterNanos()).isLessThanOrEqualTo(millis(100));
+
+        rateLimiter.recordLatency("other", millis(200));
+        rateLimiter.tryAcquire("other", "carol", List.of("ROLE_user"), TARGET);
+        RateLimiter.Decision shed = rateLimiter.tryAcquire("other", "carol", List.of("ROLE_user"), TARGET);
+
+        assertThat(shed.allowed()).isFalse();
+        assertThat(shed.shedding()).isTrue();
+        // half the rate: 200ms between tokens
+        assertThat(shed.retryAfterNanos()).isGreaterThan(millis(100)).isLessThanOrEqualTo(millis(200));
+    }
+
+    @Test
+    void testBucketsArePerSubjectAndRoute() {
+        assertThat(rateLimiter.tryAcquire("route", "dave", List.of("ROLE_user"), TARGET).allowed()).isTrue();
+        assertThat(rateLimiter.tryAcquire("route", "dave", List.of("ROLE_user"), TARGET).allowed()).isFalse();
+
+        assertThat(rateLimiter.tryAcquire("route", "erin", List.of("ROLE_user"), TARGET).allowed()).isTrue();
+        assertThat(rateLimiter.tryAcquire("other", "dave", List.of("ROLE_user"), TARGET).allowed()).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long START = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void testAdmitsBurstThenAsksToWaitOneInterval() {
+        TokenBucket bucket = new TokenBucket();
+
+        assertThat(bucket.tryAcquire(START, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(START, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(START, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(START, INTERVAL, 3)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void testRefillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(START, INTERVAL, 3);
+        }
+
+        long later = START + INTERVAL / 4;
+        assertThat(bucket.tryAcquire(later, INTERVAL, 3)).isEqualTo(INTERVAL - INTERVAL / 4);
+        assertThat(bucket.tryAcquire(START + INTERVAL, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(START + INTERVAL, INTERVAL, 3)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void testIdleBucketHoldsNoMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket();
+        bucket.tryAcquire(START, INTERVAL, 3);
+
+        long muchLater = START + TimeUnit.MINUTES.toNanos(10);
+        assertThat(bucket.tryAcquire(muchLater, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(muchLater, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(muchLater, INTERVAL, 3)).isZero();
+        assertThat(bucket.tryAcquire(muchLater, INTERVAL, 3)).isPositive();
+    }
+
+    @Test
+    void testBurstOfOneSpacesRequestsByInterval() {
+        TokenBucket bucket = new TokenBucket();
+
+        assertThat(bucket.tryAcquire(START, INTERVAL, 1)).isZero();
+        assertThat(bucket.tryAcquire(START + INTERVAL - 1, INTERVAL, 1)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(START + INTERVAL, INTERVAL, 1)).isZero();
+    }
+
+    @Test
+    void testWorksAcrossNegativeNanoTime() {
+        TokenBucket bucket = new TokenBucket();
+        long now = -TimeUnit.SECONDS.toNanos(1);
+
+        assertThat(bucket.tryAcquire(now, INTERVAL, 1)).isZero();
+        assertThat(bucket.tryAcquire(now, INTERVAL, 1)).isEqualTo(INTERVAL);
+    }
+}
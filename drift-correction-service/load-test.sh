@@ -0,0 +1,63 @@
+#!/bin/bash
+
+# Drives concurrent bulk drift-check requests against a running drift-correction-service
+# and reports throughput, latency and JVM memory. Run it once against the default
+# (blocking) runtime and once against SPRING_PROFILES_ACTIVE=reactive to compare.
+#
+# Usage: ./load-test.sh [base-url] [requests] [concurrency] [balances-per-request]
+
+BASE_URL=${1:-http://localhost:8083}
+REQUESTS=${2:-500}
+CONCURRENCY=${3:-100}
+BATCH=${4:-200}
+
+echo "========================================="
+echo "Drift Correction Service - Load Test"
+echo "========================================="
+echo "Target:      $BASE_URL"
+echo "Requests:    $REQUESTS x $BATCH balances"
+echo "Concurrency: $CONCURRENCY"
+echo ""
+
+PAYLOAD=$(mktemp)
+trap 'rm -f "$PAYLOAD" "$PAYLOAD.times"' EXIT
+
+{
+    echo -n "["
+    for i in $(seq 1 "$BATCH"); do
+        [ "$i" -gt 1 ] && echo -n ","
+        echo -n "{\"accountId\":\"load-acc-$i\",\"reportedBalance\":$((RANDOM % 10000)).00}"
+    done
+    echo "]"
+} > "$PAYLOAD"
+
+memory() {
+    curl -s "$BASE_URL/actuator/metrics/jvm.memory.used" | sed -E 's/.*"value":([0-9.E]+).*/\1/'
+}
+
+echo "JVM memory used before: $(memory) bytes"
+
+START=$(date +%s.%N)
+seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+    -H "Content-Type: application/json" --data-binary "@$PAYLOAD" \
+    "$BASE_URL/drift-check" > "$PAYLOAD.times"
+END=$(date +%s.%N)
+
+echo "JVM memory used after:  $(memory) bytes"
+echo ""
+
+ELAPSED=$(echo "$END - $START" | bc)
+OK=$(grep -c '^200 ' "$PAYLOAD.times")
+echo "Elapsed:        ${ELAPSED}s"
+echo "Successful:     $OK / $REQUESTS"
+echo "Requests/sec:   $(echo "scale=1; $REQUESTS / $ELAPSED" | bc)"
+echo "Balances/sec:   $(echo "scale=1; $REQUESTS * $BATCH / $ELAPSED" | bc)"
+
+sort -k2 -n "$PAYLOAD.times" | awk -v n="$REQUESTS" '
+    { t[NR] = $2 }
+    END {
+        printf "Latency p50:    %.3fs\n", t[int(n * 0.50)]
+        printf "Latency p95:    %.3fs\n", t[int(n * 0.95)]
+        printf "Latency p99:    %.3fs\n", t[int(n * 0.99)]
+    }'
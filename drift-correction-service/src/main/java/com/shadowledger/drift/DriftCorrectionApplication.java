@@ -2,8 +2,12 @@ package com.shadowledger.drift;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ConfigurationPropertiesScan
 public class DriftCorrectionApplication {
     public static void main(String[] args) {
         SpringApplication.run(DriftCorrectionApplication.class, args);
@@ -0,0 +1,72 @@
+package com.shadowledger.drift.config;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serializes correction events for transactions.corrections as JSON or, with
+ * {@code ledger.wire-format=binary}, as {@link TransactionWireCodec} records. Anything
+ * the binary format cannot carry falls back to JSON; the content-type header tells
+ * the consumer which one it got.
+ */
+public class CorrectionEventSerializer implements Serializer<Object> {
+
+    public static final String WIRE_FORMAT_CONFIG = "ledger.wire-format";
+
+    private static final byte[] JSON_CONTENT_TYPE = TransactionWireCodec.JSON.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_CONTENT_TYPE = TransactionWireCodec.BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(WIRE_FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (binary && data instanceof CorrectionEvent event) {
+            Long cents = TransactionWireCodec.toCents(event.getAmount());
+            if (cents != null) {
+                headers.add(TransactionWireCodec.CONTENT_TYPE_HEADER, BINARY_CONTENT_TYPE);
+                return TransactionWireCodec.encode(new TransactionWireCodec.WireEvent(
+                        event.getEventId(),
+                        event.getAccountId(),
+                        TransactionWireCodec.Type.valueOf(event.getType().toUpperCase(Locale.ROOT)),
+                        cents,
+                        millis(event.getTimestamp()),
+                        null,
+                        millis(event.getWindowStart()),
+                        millis(event.getWindowEnd())));
+            }
+        }
+        headers.add(TransactionWireCodec.CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+
+    private static Long millis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.shadowledger.drift.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "drift.tolerance")
+public class DriftToleranceProperties {
+
+    /** Drifts at or below this absolute amount are not corrected. */
+    private BigDecimal defaultThreshold = new BigDecimal("0.005");
+
+    /** Per account-class overrides of the default threshold. */
+    private Map<String, BigDecimal> classes = new HashMap<>();
+
+    /** Ledger activity this close to the CBS as-of time may still be in flight on either side. */
+    private Duration gracePeriod = Duration.ofSeconds(30);
+}
@@ -2,27 +2,53 @@ package com.shadowledger.drift.config;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaProducerConfig {
 
+    private final KafkaProperties kafkaProperties;
+    private final String wireFormat;
+
+    public KafkaProducerConfig(KafkaProperties kafkaProperties,
+                               @Value("${ledger.wire-format:json}") String wireFormat) {
+        this.kafkaProperties = kafkaProperties;
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * Broker and tuning settings from spring.kafka.producer (see the kafka-latency and
+     * kafka-throughput profiles); serializers and the trace interceptor are fixed here.
+     */
+    public Map<String, Object> producerProperties() {
+        Map<String, Object> properties = new HashMap<>(kafkaProperties.buildProducerProperties(null));
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CorrectionEventSerializer.class);
+        properties.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, TraceIdProducerInterceptor.class.getName());
+        properties.put(CorrectionEventSerializer.WIRE_FORMAT_CONFIG, wireFormat);
+        return properties;
+    }
+
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(Map.of(
-                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
-                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class
-        ));
+    public ProducerFactory<String, Object> producerFactory(
+            ObjectProvider<DefaultKafkaProducerFactoryCustomizer> customizers) {
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(producerProperties());
+        // Includes Boot's customizer that publishes producer metrics to Micrometer
+        customizers.orderedStream().forEach(customizer -> customizer.customize(factory));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -0,0 +1,26 @@
+package com.shadowledger.drift.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.MicrometerProducerListener;
+import reactor.kafka.sender.SenderOptions;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveKafkaConfig {
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, Object> kafkaSender(
+            KafkaProducerConfig producerConfig,
+            MeterRegistry meterRegistry,
+            @Value("${drift.reactive.max-in-flight:256}") int maxInFlight) {
+        SenderOptions<String, Object> options = SenderOptions.<String, Object>create(producerConfig.producerProperties())
+                .maxInFlight(maxInFlight)
+                .producerListener(new MicrometerProducerListener(meterRegistry));
+        return KafkaSender.create(options);
+    }
+}
@@ -0,0 +1,69 @@
+package com.shadowledger.drift.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread constraints on where read-only transactions may read from.
+ *
+ * A read-only transaction goes to the replica unless it runs inside one of these
+ * scopes. {@link #atLeast} asks for read-your-writes: the replica is only used once it
+ * has replayed the primary's WAL up to the given position, otherwise the primary
+ * answers. Positions are WAL LSNs in bytes from 0/0, read on the primary after the
+ * write committed. {@link #onPrimary} never uses the replica; it is for reads that
+ * seed in-memory state, which must not go back in time. Scopes nest, keeping the
+ * strictest requirement. Without a replica configured these are no-ops.
+ *
+ * The route is chosen when the transaction first touches the database, so a scope
+ * has to be open by then, typically around the call that starts the transaction.
+ *
+ * Copied from the shadow ledger service's datasource package; change both together.
+ */
+public final class ReadRouting {
+
+    static final long PRIMARY_ONLY = Long.MAX_VALUE;
+
+    private static final ThreadLocal<Long> REQUIRED_POSITION = new ThreadLocal<>();
+
+    private static volatile boolean replicaInUse;
+
+    private ReadRouting() {
+    }
+
+    static void replicaInUse(boolean inUse) {
+        replicaInUse = inUse;
+    }
+
+    /**
+     * Whether reads can go to a replica, and so whether there is any point in reading
+     * a WAL position for {@link #atLeast}.
+     */
+    public static boolean replicaInUse() {
+        return replicaInUse;
+    }
+
+    public static <T> T onPrimary(Supplier<T> read) {
+        return atLeast(PRIMARY_ONLY, read);
+    }
+
+    public static <T> T atLeast(long position, Supplier<T> read) {
+        Long previous = REQUIRED_POSITION.get();
+        REQUIRED_POSITION.set(previous != null ? Math.max(previous, position) : position);
+        try {
+            return read.get();
+        } finally {
+            if (previous != null) {
+                REQUIRED_POSITION.set(previous);
+            } else {
+                REQUIRED_POSITION.remove();
+            }
+        }
+    }
+
+    /**
+     * The WAL position the current read needs, or 0 for none.
+     */
+    static long requiredPosition() {
+        Long position = REQUIRED_POSITION.get();
+        return position != null ? position : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.shadowledger.drift.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a
+ * connection before the transaction is marked read-only, and the proxy defers the
+ * real lookup, and so this decision, to the first statement.
+ *
+ * Each decision is counted in {@code ledger.datasource.routes}, tagged with the target
+ * and why it was chosen.
+ *
+ * Copied from the shadow ledger service's datasource package; change both together.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    enum Reason {
+        READ_WRITE(Target.PRIMARY),
+        PINNED(Target.PRIMARY),
+        REPLICA_UNAVAILABLE(Target.PRIMARY),
+        REPLICA_LAGGING(Target.PRIMARY),
+        BEHIND_POSITION(Target.PRIMARY),
+        READ_ONLY(Target.REPLICA);
+
+        final Target target;
+
+        Reason(Target target) {
+            this.target = target;
+        }
+    }
+
+    private final ReplicaLagMonitor monitor;
+    private final Map<Reason, Counter> routes = new EnumMap<>(Reason.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor, MeterRegistry meterRegistry) {
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        for (Reason reason : Reason.values()) {
+            routes.put(reason, Counter.builder("ledger.datasource.routes")
+                    .description("Connections handed out, by target pool and reason")
+                    .tag("target", reason.target.name().toLowerCase())
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Reason reason = route();
+        routes.get(reason).increment();
+        return reason.target;
+    }
+
+    Reason route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Reason.READ_WRITE;
+        }
+        long required = ReadRouting.requiredPosition();
+        if (required == ReadRouting.PRIMARY_ONLY) {
+            return Reason.PINNED;
+        }
+        return switch (monitor.check(required)) {
+            case AVAILABLE -> Reason.READ_ONLY;
+            case UNAVAILABLE -> Reason.REPLICA_UNAVAILABLE;
+            case LAGGING -> Reason.REPLICA_LAGGING;
+            case BEHIND_POSITION -> Reason.BEHIND_POSITION;
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.shadowledger.drift.config;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Stamps every correction record with an X-Trace-Id header, taken from the MDC when
+ * one is set and freshly generated otherwise, so the ledger consumer logs the
+ * correction under a single id.
+ */
+public class TraceIdProducerInterceptor implements ProducerInterceptor<Object, Object> {
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        if (record.headers().lastHeader(TraceIds.HEADER) == null) {
+            String traceId = MDC.get(TraceIds.HEADER);
+            record.headers().add(TraceIds.HEADER,
+                    (traceId != null ? traceId : TraceIds.next()).getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
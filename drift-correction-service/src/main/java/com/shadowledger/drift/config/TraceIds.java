@@ -0,0 +1,25 @@
+package com.shadowledger.drift.config;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * X-Trace-Id values in the same format as the gateway and event service: a random
+ * per-process prefix followed by a clock-seeded counter, 32 hex characters in all.
+ */
+public final class TraceIds {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String PROCESS_PREFIX = HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.currentTimeMillis() << 20);
+
+    private TraceIds() {
+    }
+
+    public static String next() {
+        return PROCESS_PREFIX + HEX.toHexDigits(SEQUENCE.incrementAndGet());
+    }
+}
@@ -2,12 +2,14 @@ package com.shadowledger.drift.controller;
 
 import com.shadowledger.drift.model.CbsBalance;
 import com.shadowledger.drift.service.DriftDetectionService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/drift-check")
+@Profile("!reactive")
 public class DriftCheckController {
 
     private final DriftDetectionService service;
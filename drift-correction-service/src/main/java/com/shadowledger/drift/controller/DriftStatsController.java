@@ -0,0 +1,28 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.service.CorrectionQueue;
+import com.shadowledger.drift.service.DriftMetrics;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/drift-check/stats")
+public class DriftStatsController {
+
+    private final DriftMetrics metrics;
+    private final CorrectionQueue queue;
+
+    public DriftStatsController(DriftMetrics metrics, CorrectionQueue queue) {
+        this.metrics = metrics;
+        this.queue = queue;
+    }
+
+    @GetMapping
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>(metrics.snapshot());
+        stats.put("pending", (long) queue.size());
+        return stats;
+    }
+}
@@ -0,0 +1,31 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.service.CorrectionQueue;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/drift-check/accounts")
+public class DriftStatusController {
+
+    private final CorrectionQueue queue;
+
+    public DriftStatusController(CorrectionQueue queue) {
+        this.queue = queue;
+    }
+
+    @GetMapping("/{accountId}")
+    public Map<String, Object> status(@PathVariable String accountId) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("accountId", accountId);
+        queue.pendingFor(accountId).ifPresentOrElse(
+                correction -> {
+                    status.put("status", "CORRECTION_PENDING");
+                    status.put("pendingCorrection", correction);
+                },
+                () -> status.put("status", "NO_PENDING_CORRECTION"));
+        return status;
+    }
+}
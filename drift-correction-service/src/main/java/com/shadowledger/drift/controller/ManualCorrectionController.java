@@ -2,6 +2,7 @@ package com.shadowledger.drift.controller;
 
 import com.shadowledger.drift.model.CorrectionEvent;
 import com.shadowledger.drift.service.CorrectionPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
 
 import org.slf4j.Logger;
@@ -12,6 +13,7 @@ import java.util.UUID;
 
 @RestController
 @RequestMapping("/correct")
+@Profile("!reactive")
 public class ManualCorrectionController {
 
     private static final Logger logger = LoggerFactory.getLogger(ManualCorrectionController.class);
@@ -34,7 +36,7 @@ public class ManualCorrectionController {
                 .amount(amount)
                 .build();
 
-        publisher.publish(event);
+        publisher.publish(event).join();
 
         logger.info("CorrectionEvent published: {}", event);
     }
@@ -0,0 +1,25 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.service.ReactiveDriftDetectionService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/drift-check")
+@Profile("reactive")
+public class ReactiveDriftCheckController {
+
+    private final ReactiveDriftDetectionService service;
+
+    public ReactiveDriftCheckController(ReactiveDriftDetectionService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public Mono<Void> check(@RequestBody Flux<CbsBalance> balances) {
+        return service.checkAll(balances).then();
+    }
+}
@@ -0,0 +1,41 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.service.ReactiveCorrectionPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/correct")
+@Profile("reactive")
+public class ReactiveManualCorrectionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveManualCorrectionController.class);
+
+    private final ReactiveCorrectionPublisher publisher;
+
+    public ReactiveManualCorrectionController(ReactiveCorrectionPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostMapping("/{accountId}")
+    public Mono<Void> correct(@PathVariable String accountId,
+                              @RequestParam BigDecimal amount) {
+        logger.info("Manual correction requested for accountId={}, amount={}", accountId, amount);
+
+        CorrectionEvent event = CorrectionEvent.builder()
+                .eventId("MANUAL-" + UUID.randomUUID())
+                .accountId(accountId)
+                .type("credit")
+                .amount(amount)
+                .build();
+
+        return publisher.publish(event).then();
+    }
+}
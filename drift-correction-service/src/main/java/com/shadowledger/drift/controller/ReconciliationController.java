@@ -0,0 +1,26 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.ReconciliationReport;
+import com.shadowledger.drift.service.ReconciliationService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/drift-check/reconcile")
+@Profile("!reactive")
+public class ReconciliationController {
+
+    private final ReconciliationService service;
+
+    public ReconciliationController(ReconciliationService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public ReconciliationReport reconcile(@RequestBody List<CbsBalance> snapshot) {
+        return service.reconcile(snapshot);
+    }
+}
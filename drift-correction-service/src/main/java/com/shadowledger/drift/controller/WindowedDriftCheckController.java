@@ -0,0 +1,30 @@
+package com.shadowledger.drift.controller;
+
+import com.shadowledger.drift.model.CbsWindowedBalances;
+import com.shadowledger.drift.model.WindowDriftReport;
+import com.shadowledger.drift.service.WindowedDriftDetectionService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/drift-check/windowed")
+@Profile("!reactive")
+public class WindowedDriftCheckController {
+
+    private final WindowedDriftDetectionService service;
+
+    public WindowedDriftCheckController(WindowedDriftDetectionService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public List<WindowDriftReport> check(@RequestBody List<CbsWindowedBalances> feeds) {
+        return feeds.stream()
+                .map(service::locateAndCorrect)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
@@ -0,0 +1,226 @@
+package com.shadowledger.drift.merkle;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hash tree over (accountId, balance in cents) pairs.
+ *
+ * Accounts are bucketed by the top bits of a 64-bit hash of their id, so every
+ * leaf owns a contiguous token range. A leaf hash is the wrapping sum of the
+ * per-account hashes, which lets a single account be added, changed or removed
+ * in O(depth) without rehashing the rest of its bucket. Two trees built with the
+ * same depth can be diffed by descending only into subtrees whose hashes differ.
+ *
+ * Balances are held off-heap in an {@link OffHeapAccountTable}, whose hash also
+ * picks the leaf so that one leaf's accounts can be listed without a full scan. The
+ * rare account ids the table cannot encode are kept in per-leaf maps.
+ */
+public class AccountMerkleTree {
+
+    private final int depth;
+    private final int leafCount;
+    private final long[] nodes;
+    private final OffHeapAccountTable table;
+    private final Map<String, Long>[] overflow;
+    // Only used under the write lock
+    private final OffHeapAccountTable.AccountRecord scratch = new OffHeapAccountTable.AccountRecord();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @SuppressWarnings("unchecked")
+    public AccountMerkleTree(int depth) {
+        if (depth < 1 || depth > 20) {
+            throw new IllegalArgumentException("Tree depth must be between 1 and 20, got " + depth);
+        }
+        this.depth = depth;
+        this.leafCount = 1 << depth;
+        this.nodes = new long[leafCount * 2];
+        this.table = new OffHeapAccountTable(Math.min(depth, 8), 64);
+        this.overflow = new Map[leafCount];
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public int leafOf(String accountId) {
+        long hash = OffHeapAccountTable.fits(accountId) ? OffHeapAccountTable.hash(accountId) : accountHash(accountId);
+        return (int) (hash >>> (64 - depth));
+    }
+
+    /**
+     * Sets the balance of an account, replacing any previous value.
+     */
+    public void put(String accountId, long balanceCents) {
+        lock.writeLock().lock();
+        try {
+            int leaf = leafOf(accountId);
+            long delta = entryHash(accountId, balanceCents);
+            if (OffHeapAccountTable.fits(accountId)) {
+                if (table.get(accountId, scratch)) {
+                    delta -= entryHash(accountId, scratch.balanceCents);
+                }
+                scratch.clear().balanceCents = balanceCents;
+                table.put(accountId, scratch);
+            } else {
+                Map<String, Long> bucket = overflow[leaf];
+                if (bucket == null) {
+                    bucket = new HashMap<>();
+                    overflow[leaf] = bucket;
+                }
+                Long previous = bucket.put(accountId, balanceCents);
+                if (previous != null) {
+                    delta -= entryHash(accountId, previous);
+                }
+            }
+            updateLeaf(leaf, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a signed change to an account balance, treating unknown accounts as zero.
+     */
+    public void add(String accountId, long deltaCents) {
+        lock.writeLock().lock();
+        try {
+            Long current = balance(accountId);
+            put(accountId, (current != null ? current : 0L) + deltaCents);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Long balance(String accountId) {
+        lock.readLock().lock();
+        try {
+            if (OffHeapAccountTable.fits(accountId)) {
+                long balance = table.getBalance(accountId, Long.MIN_VALUE);
+                return balance != Long.MIN_VALUE ? balance : null;
+            }
+            Map<String, Long> bucket = overflow[leafOf(accountId)];
+            return bucket != null ? bucket.get(accountId) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long rootHash() {
+        lock.readLock().lock();
+        try {
+            return nodes[1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int size = table.size();
+            for (Map<String, Long> bucket : overflow) {
+                if (bucket != null) {
+                    size += bucket.size();
+                }
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the accounts held in the given leaf.
+     */
+    public Map<String, Long> accounts(int leaf) {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> bucket = overflow[leaf];
+            Map<String, Long> accounts = bucket != null ? new HashMap<>(bucket) : new HashMap<>();
+            table.forEach(depth, leaf, (accountId, record) -> accounts.put(accountId, record.balanceCents));
+            return accounts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the leaves whose hashes differ between this tree and {@code other},
+     * visiting only subtrees that disagree.
+     */
+    public List<Integer> diff(AccountMerkleTree other) {
+        if (other.depth != depth) {
+            throw new IllegalArgumentException("Cannot diff trees of depth " + depth + " and " + other.depth);
+        }
+        lock.readLock().lock();
+        other.lock.readLock().lock();
+        try {
+            List<Integer> mismatched = new ArrayList<>();
+            collectMismatches(other, 1, mismatched);
+            return mismatched;
+        } finally {
+            other.lock.readLock().unlock();
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectMismatches(AccountMerkleTree other, int node, List<Integer> mismatched) {
+        if (nodes[node] == other.nodes[node]) {
+            return;
+        }
+        if (node >= leafCount) {
+            mismatched.add(node - leafCount);
+            return;
+        }
+        collectMismatches(other, node * 2, mismatched);
+        collectMismatches(other, node * 2 + 1, mismatched);
+    }
+
+    private void updateLeaf(int leaf, long delta) {
+        int node = leaf + leafCount;
+        nodes[node] += delta;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            nodes[node] = combine(nodes[node * 2], nodes[node * 2 + 1]);
+        }
+    }
+
+    private static long combine(long left, long right) {
+        if (left == 0 && right == 0) {
+            return 0;
+        }
+        return mix(left * 0x9E3779B97F4A7C15L + right);
+    }
+
+    private static long entryHash(String accountId, long balanceCents) {
+        return mix(accountHash(accountId) ^ mix(balanceCents + 0x632BE59BD9B4E019L));
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    static long accountHash(String accountId) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < accountId.length(); i++) {
+            h ^= accountId.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,437 @@
+package com.shadowledger.drift.merkle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash table of fixed-width account records held outside the heap.
+ *
+ * Account ids of up to 18 ASCII characters are packed seven bits per character into
+ * two longs, which form the key; {@link #fits} tells whether an id can be stored.
+ * Every record takes one 64-byte slot:
+ *
+ * <pre>
+ *  0  key        16 bytes  packed account id, zero for an empty slot
+ * 16  balance     8 bytes  cents
+ * 24  version     8 bytes  highest change applied, e.g. a ledger entry id
+ * 32  sequence    8 bytes  last sequence number
+ * 40  timestamp   8 bytes  epoch micros of the latest event
+ * 48  lastRef     8 bytes  reference to the latest event
+ * 56  flags       4 bytes
+ * </pre>
+ *
+ * The table is split into segments by the top bits of the key hash. Each segment is
+ * a direct buffer guarded by a StampedLock: reads are optimistic and retry under the
+ * read lock, writes take the write lock, and a segment doubles once it is three
+ * quarters full. Slots within a segment are ordered by hash, so records sharing a
+ * hash prefix sit together and can be visited without a full scan. Records are never
+ * removed. Lookups and updates do not allocate.
+ *
+ * Cut down from the shadow ledger service's copy, where it holds the balance cache,
+ * to what {@link AccountMerkleTree} uses; the slot layout is the same.
+ */
+public final class OffHeapAccountTable {
+
+    private static final int SLOT_SIZE = 64;
+    private static final int MAX_ID_LENGTH = 18;
+
+    private static final int BALANCE = 16;
+    private static final int VERSION = 24;
+    private static final int SEQUENCE = 32;
+    private static final int TIMESTAMP = 40;
+    private static final int LAST_REF = 48;
+    private static final int FLAGS = 56;
+    private static final int MAX_SLOT_BITS = 24;
+    private static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /**
+     * Mutable view of one record, filled by reads and copied in by writes.
+     */
+    public static final class AccountRecord {
+        public long balanceCents;
+        public long version;
+        public long sequence;
+        public long timestamp;
+        public long lastRef;
+        public int flags;
+
+        public AccountRecord clear() {
+            balanceCents = 0;
+            version = 0;
+            sequence = 0;
+            timestamp = 0;
+            lastRef = 0;
+            flags = 0;
+            return this;
+        }
+    }
+
+    /**
+     * Receives records during a scan. The record instance is reused between calls,
+     * and the segment's read lock is held, so the visitor must not write to the table.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(String accountId, AccountRecord record);
+    }
+
+    @FunctionalInterface
+    private interface KeyVisitor {
+        void visit(long key0, long key1, AccountRecord record);
+    }
+
+    private final int segmentBits;
+    private final Segment[] segments;
+
+    /**
+     * @param segmentBits           the table has 2^segmentBits segments (1 to 16)
+     * @param initialSlotsPerSegment rounded up to a power of two
+     */
+    public OffHeapAccountTable(int segmentBits, int initialSlotsPerSegment) {
+        if (segmentBits < 1 || segmentBits > 16) {
+            throw new IllegalArgumentException("Segment bits must be between 1 and 16, got " + segmentBits);
+        }
+        int slotBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, initialSlotsPerSegment) - 1));
+        if (slotBits > MAX_SLOT_BITS) {
+            throw new IllegalArgumentException("At most " + (1 << MAX_SLOT_BITS) + " slots per segment");
+        }
+        this.segmentBits = segmentBits;
+        this.segments = new Segment[1 << segmentBits];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(allocate(slotBits));
+        }
+    }
+
+    public static boolean fits(String accountId) {
+        int length = accountId.length();
+        if (length == 0 || length > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = accountId.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long key0(String accountId) {
+        return pack(accountId, 0);
+    }
+
+    private static long key1(String accountId) {
+        return pack(accountId, 9);
+    }
+
+    private static String decode(long key0, long key1) {
+        char[] chars = new char[MAX_ID_LENGTH];
+        int length = unpack(key0, chars, 0);
+        if (length == 9) {
+            length = unpack(key1, chars, 9);
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Hash of an id that {@link #fits}; its top bits choose the segment and slot.
+     */
+    public static long hash(String accountId) {
+        return hash(key0(accountId), key1(accountId));
+    }
+
+    private static long hash(long key0, long key1) {
+        return mix(key0 * 0x9E3779B97F4A7C15L + mix(key1));
+    }
+
+    public boolean get(String accountId, AccountRecord into) {
+        long key0 = key0(accountId);
+        long key1 = key1(accountId);
+        long hash = hash(key0, key1);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = read(segment.slots, hash, key0, key1, into);
+            if (segment.lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return read(segment.slots, hash, key0, key1, into);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The balance in cents, or {@code absent} if the account is not in the table.
+     */
+    public long getBalance(String accountId, long absent) {
+        long key0 = key0(accountId);
+        long key1 = key1(accountId);
+        long hash = hash(key0, key1);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            ByteBuffer slots = segment.slots;
+            int offset = find(slots, hash, key0, key1);
+            long balance = offset >= 0 ? slots.getLong(offset + BALANCE) : absent;
+            if (segment.lock.validate(stamp)) {
+                return balance;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            int offset = find(segment.slots, hash, key0, key1);
+            return offset >= 0 ? segment.slots.getLong(offset + BALANCE) : absent;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(String accountId, AccountRecord record) {
+        long key0 = key0(accountId);
+        long key1 = key1(accountId);
+        long hash = hash(key0, key1);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int offset = find(segment.slots, hash, key0, key1);
+            if (offset < 0) {
+                insert(segment, hash, key0, key1, record);
+            } else {
+                write(segment.slots, offset, key0, key1, record);
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Visits every record whose hash starts with the given {@code prefixBits}-bit
+     * prefix. Only the slot range those records can occupy is scanned.
+     */
+    public void forEach(int prefixBits, long prefix, Visitor visitor) {
+        if (prefixBits < 1 || prefixBits > 63) {
+            throw new IllegalArgumentException("Prefix must be 1 to 63 bits, got " + prefixBits);
+        }
+        AccountRecord record = new AccountRecord();
+        if (prefixBits <= segmentBits) {
+            int first = (int) (prefix << (segmentBits - prefixBits));
+            for (int i = first; i < first + (1 << (segmentBits - prefixBits)); i++) {
+                scan(segments[i], 0, -1, 0, 0, (key0, key1, r) -> visitor.visit(decode(key0, key1), r), record);
+            }
+            return;
+        }
+        Segment segment = segments[(int) (prefix >>> (prefixBits - segmentBits))];
+        scanPrefix(segment, prefixBits, prefix, record, visitor);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private void scanPrefix(Segment segment, int prefixBits, long prefix, AccountRecord record, Visitor visitor) {
+        long stamp = segment.lock.readLock();
+        try {
+            int slotBits = Integer.numberOfTrailingZeros(segment.slots.capacity() / SLOT_SIZE);
+            int subBits = prefixBits - segmentBits;
+            long sub = prefix & ((1L << subBits) - 1);
+            int from;
+            int to;
+            if (subBits >= slotBits) {
+                from = (int) (sub >>> (subBits - slotBits));
+                to = from + 1;
+            } else {
+                from = (int) (sub << (slotBits - subBits));
+                to = (int) ((sub + 1) << (slotBits - subBits));
+            }
+            scan(segment, from, to, prefixBits, prefix,
+                    (key0, key1, r) -> visitor.visit(decode(key0, key1), r), record);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Visits slots [from, to) and then, because linear probing may have pushed records
+     * past {@code to}, the rest of the run of occupied slots after it. With
+     * {@code to == -1} the whole segment is visited. Records are filtered by hash
+     * prefix when {@code prefixBits > 0}.
+     */
+    private void scan(Segment segment, int from, int to, int prefixBits, long prefix,
+                      KeyVisitor visitor, AccountRecord record) {
+        long stamp = to < 0 ? segment.lock.readLock() : 0;
+        try {
+            ByteBuffer slots = segment.slots;
+            int capacity = slots.capacity() / SLOT_SIZE;
+            int end = to < 0 ? capacity : to;
+            for (int slot = from; slot < end; slot++) {
+                visitSlot(slots, slot * SLOT_SIZE, prefixBits, prefix, visitor, record);
+            }
+            if (to < 0) {
+                return;
+            }
+            for (int slot = end & (capacity - 1); slot != from; slot = (slot + 1) & (capacity - 1)) {
+                if (slots.getLong(slot * SLOT_SIZE) == 0) {
+                    break;
+                }
+                visitSlot(slots, slot * SLOT_SIZE, prefixBits, prefix, visitor, record);
+            }
+        } finally {
+            if (stamp != 0) {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static void visitSlot(ByteBuffer slots, int offset, int prefixBits, long prefix,
+                                  KeyVisitor visitor, AccountRecord record) {
+        long key0 = slots.getLong(offset);
+        if (key0 == 0) {
+            return;
+        }
+        long key1 = slots.getLong(offset + 8);
+        if (prefixBits > 0 && hash(key0, key1) >>> (64 - prefixBits) != prefix) {
+            return;
+        }
+        readRecord(slots, offset, record);
+        visitor.visit(key0, key1, record);
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (64 - segmentBits))];
+    }
+
+    private int home(long hash, int slotBits) {
+        return (int) ((hash << segmentBits) >>> (64 - slotBits));
+    }
+
+    /**
+     * Offset of the key's slot, or {@code -(offset of the free slot) - 1} if absent.
+     * Probing is bounded so an optimistic read of a segment being written cannot loop.
+     */
+    private int find(ByteBuffer slots, long hash, long key0, long key1) {
+        int capacity = slots.capacity() / SLOT_SIZE;
+        int mask = capacity - 1;
+        int slot = home(hash, Integer.numberOfTrailingZeros(capacity));
+        for (int probes = 0; probes < capacity; probes++) {
+            int offset = slot * SLOT_SIZE;
+            long stored = slots.getLong(offset);
+            if (stored == 0) {
+                return -offset - 1;
+            }
+            if (stored == key0 && slots.getLong(offset + 8) == key1) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private boolean read(ByteBuffer slots, long hash, long key0, long key1, AccountRecord into) {
+        int offset = find(slots, hash, key0, key1);
+        if (offset < 0) {
+            return false;
+        }
+        readRecord(slots, offset, into);
+        return true;
+    }
+
+    private void insert(Segment segment, long hash, long key0, long key1, AccountRecord record) {
+        if ((segment.size + 1) * 4L > (segment.slots.capacity() / SLOT_SIZE) * 3L) {
+            grow(segment);
+        }
+        int offset = -find(segment.slots, hash, key0, key1) - 1;
+        write(segment.slots, offset, key0, key1, record);
+        segment.size++;
+    }
+
+    private void grow(Segment segment) {
+        ByteBuffer old = segment.slots;
+        int slotBits = Integer.numberOfTrailingZeros(old.capacity() / SLOT_SIZE) + 1;
+        if (slotBits > MAX_SLOT_BITS) {
+            throw new IllegalStateException("Account table segment is full at " + (old.capacity() / SLOT_SIZE) + " slots");
+        }
+        ByteBuffer grown = allocate(slotBits);
+        for (int offset = 0; offset < old.capacity(); offset += SLOT_SIZE) {
+            long key0 = old.getLong(offset);
+            if (key0 != 0) {
+                int target = -find(grown, hash(key0, old.getLong(offset + 8)), key0, old.getLong(offset + 8)) - 1;
+                grown.put(target, old, offset, SLOT_SIZE);
+            }
+        }
+        segment.slots = grown;
+    }
+
+    private static void readRecord(ByteBuffer slots, int offset, AccountRecord into) {
+        into.balanceCents = slots.getLong(offset + BALANCE);
+        into.version = slots.getLong(offset + VERSION);
+        into.sequence = slots.getLong(offset + SEQUENCE);
+        into.timestamp = slots.getLong(offset + TIMESTAMP);
+        into.lastRef = slots.getLong(offset + LAST_REF);
+        into.flags = slots.getInt(offset + FLAGS);
+    }
+
+    private static void write(ByteBuffer slots, int offset, long key0, long key1, AccountRecord record) {
+        slots.putLong(offset + 8, key1);
+        slots.putLong(offset + BALANCE, record.balanceCents);
+        slots.putLong(offset + VERSION, record.version);
+        slots.putLong(offset + SEQUENCE, record.sequence);
+        slots.putLong(offset + TIMESTAMP, record.timestamp);
+        slots.putLong(offset + LAST_REF, record.lastRef);
+        slots.putInt(offset + FLAGS, record.flags);
+        slots.putLong(offset, key0);
+    }
+
+    private static ByteBuffer allocate(int slotBits) {
+        return ByteBuffer.allocateDirect(SLOT_SIZE << slotBits).order(ByteOrder.nativeOrder());
+    }
+
+    private static long pack(String accountId, int from) {
+        int to = Math.min(accountId.length(), from + 9);
+        long key = 0;
+        for (int i = from; i < to; i++) {
+            key = (key << 7) | accountId.charAt(i);
+        }
+        return to > from ? key << (7 * (from + 9 - to)) : 0;
+    }
+
+    private static int unpack(long key, char[] chars, int from) {
+        for (int i = 0; i < 9; i++) {
+            char c = (char) ((key >>> (56 - 7 * i)) & 0x7F);
+            if (c == 0) {
+                return from + i;
+            }
+            chars[from + i] = c;
+        }
+        return from + 9;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        ByteBuffer slots;
+        int size;
+
+        Segment(ByteBuffer slots) {
+            this.slots = slots;
+        }
+    }
+}
@@ -4,10 +4,13 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Getter
 @Setter
 public class CbsBalance {
     private String accountId;
     private BigDecimal reportedBalance;
+    private String accountClass; // optional, selects the drift tolerance
+    private Instant asOf;        // optional, time the CBS balance was taken
 }
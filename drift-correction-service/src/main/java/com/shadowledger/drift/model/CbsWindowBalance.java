@@ -0,0 +1,15 @@
+package com.shadowledger.drift.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+public class CbsWindowBalance {
+    private Instant windowStart;
+    private Instant windowEnd;          // exclusive
+    private BigDecimal closingBalance;  // cumulative balance at windowEnd
+}
@@ -0,0 +1,13 @@
+package com.shadowledger.drift.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CbsWindowedBalances {
+    private String accountId;
+    private List<CbsWindowBalance> windows;
+}
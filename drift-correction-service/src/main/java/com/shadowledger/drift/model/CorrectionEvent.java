@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Getter
 @Builder
@@ -12,4 +13,7 @@ public class CorrectionEvent {
     private String accountId;
     private String type; // credit / debit
     private BigDecimal amount;
+    private Instant timestamp;   // set inside the corrected window so the correction orders after its events
+    private Instant windowStart; // window the correction applies to, if known
+    private Instant windowEnd;
 }
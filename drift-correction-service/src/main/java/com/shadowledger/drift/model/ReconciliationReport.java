@@ -0,0 +1,17 @@
+package com.shadowledger.drift.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class ReconciliationReport {
+    private int accountsReported;
+    private int bucketsTotal;
+    private int bucketsMismatched;
+    private int accountsCompared;
+    private List<String> driftedAccounts;
+    private List<String> unreportedAccounts; // present in shadow ledger, missing from CBS snapshot
+}
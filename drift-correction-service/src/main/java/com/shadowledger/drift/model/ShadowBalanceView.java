@@ -4,11 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Getter
 @AllArgsConstructor
 public class ShadowBalanceView {
     private String accountId;
     private BigDecimal balance;
-}
+    private Instant lastEventAt;
 
+    public ShadowBalanceView(String accountId, BigDecimal balance) {
+        this(accountId, balance, null);
+    }
+}
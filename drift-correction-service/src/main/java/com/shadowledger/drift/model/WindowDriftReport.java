@@ -0,0 +1,21 @@
+package com.shadowledger.drift.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Builder
+public class WindowDriftReport {
+    private String accountId;
+    private Instant windowStart;
+    private Instant windowEnd;
+    private BigDecimal drift;
+    private BigDecimal totalDrift;
+    private BigDecimal remainingDrift;
+    private String correctionEventId;
+    private int windowsScanned;
+    private int shadowQueries;
+}
@@ -0,0 +1,44 @@
+package com.shadowledger.drift.repository;
+
+import com.shadowledger.drift.model.ShadowBalanceView;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Repository
+@Profile("reactive")
+public class ReactiveShadowLedgerRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveShadowLedgerRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<ShadowBalanceView> findBalance(String accountId) {
+        return databaseClient.sql(
+                        """
+                        SELECT account_id,
+                               SUM(
+                                 CASE
+                                   WHEN type = 'CREDIT' THEN amount
+                                   ELSE -amount
+                                 END
+                               ) AS balance,
+                               MAX(timestamp) AS last_event_at
+                        FROM ledger_entries
+                        WHERE account_id = $1
+                        GROUP BY account_id
+                        """)
+                .bind(0, accountId)
+                .map((row, metadata) -> new ShadowBalanceView(
+                        row.get("account_id", String.class),
+                        row.get("balance", BigDecimal.class),
+                        row.get("last_event_at", Instant.class)))
+                .one();
+    }
+}
@@ -1,23 +1,39 @@
 package com.shadowledger.drift.repository;
 
+import com.shadowledger.drift.config.ReadRouting;
 import com.shadowledger.drift.model.ShadowBalanceView;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Read-only queries against the shadow ledger. Each runs in a read-only transaction, so
+ * it is served by the replica when one is configured and keeping up. Reads that carry
+ * on from an entry id already seen ask for read-your-writes, so the Merkle tree never
+ * reads from a replica that is behind it.
+ */
 @Repository
 public class ShadowLedgerRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
 
-    public ShadowLedgerRepository(JdbcTemplate jdbcTemplate) {
+    public ShadowLedgerRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
     }
 
     public Optional<ShadowBalanceView> findBalance(String accountId) {
-        return jdbcTemplate.query(
+        return readOnly.execute(status -> jdbcTemplate.query(
                 """
                 SELECT account_id,
                        SUM(
@@ -25,7 +41,8 @@ public class ShadowLedgerRepository {
                            WHEN type = 'CREDIT' THEN amount
                            ELSE -amount
                          END
-                       ) AS balance
+                       ) AS balance,
+                       MAX(timestamp) AS last_event_at
                 FROM ledger_entries
                 WHERE account_id = ?
                 GROUP BY account_id
@@ -33,9 +50,122 @@ public class ShadowLedgerRepository {
                 rs -> rs.next()
                         ? Optional.of(new ShadowBalanceView(
                         rs.getString("account_id"),
-                        rs.getBigDecimal("balance")))
+                        rs.getBigDecimal("balance"),
+                        toInstant(rs.getTimestamp("last_event_at"))))
                         : Optional.empty(),
                 accountId
-        );
+        ));
+    }
+
+    /**
+     * Returns the account balance made up of entries strictly before {@code before}.
+     * Served by a range scan over idx_account_timestamp.
+     */
+    public BigDecimal findBalanceBefore(String accountId, Instant before) {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject(
+                """
+                SELECT COALESCE(SUM(
+                         CASE
+                           WHEN type = 'CREDIT' THEN amount
+                           ELSE -amount
+                         END
+                       ), 0) AS balance
+                FROM ledger_entries
+                WHERE account_id = ?
+                  AND timestamp < ?
+                """,
+                BigDecimal.class,
+                accountId, Timestamp.from(before)
+        ));
+    }
+
+    /**
+     * The primary's WAL insert position, in bytes from 0/0. A replica that has replayed
+     * up to it holds every entry committed before this call.
+     */
+    public long currentWalPosition() {
+        Long position = ReadRouting.onPrimary(() -> readOnly.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT CAST(pg_wal_lsn_diff(pg_current_wal_insert_lsn(), '0/0') AS bigint)", Long.class)));
+        return position != null ? position : 0L;
+    }
+
+    /**
+     * Whether the shadow ledger is sharded (see its ShardMap), so this database holds
+     * only some of the entries: a logical shard lives on, or is moving to, another
+     * database. Entries before sharding was enabled stay here until they are moved.
+     */
+    public boolean isSharded() {
+        return readOnly.execute(status -> {
+            Boolean mapExists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('ledger_shard_map') IS NOT NULL", Boolean.class);
+            return Boolean.TRUE.equals(mapExists) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM ledger_shard_map WHERE shard <> 0 OR moving_to IS NOT NULL)",
+                    Boolean.class));
+        });
+    }
+
+    public long findMaxEntryId() {
+        Long maxId = readOnly.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM ledger_entries", Long.class));
+        return maxId != null ? maxId : 0L;
+    }
+
+    /**
+     * Streams the balance of every account built from entries up to and including {@code maxId}.
+     */
+    public void forEachBalance(long maxId, BalanceCallback callback) {
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                """
+                SELECT account_id,
+                       SUM(
+                         CASE
+                           WHEN type = 'CREDIT' THEN amount
+                           ELSE -amount
+                         END
+                       ) AS balance
+                FROM ledger_entries
+                WHERE id <= ?
+                GROUP BY account_id
+                """,
+                (RowCallbackHandler) rs -> callback.accept(rs.getString("account_id"), rs.getBigDecimal("balance")),
+                maxId
+        ));
+    }
+
+    /**
+     * Returns the signed amounts of entries committed after {@code afterId}, in id order.
+     */
+    public List<EntryDelta> findEntriesAfter(long afterId, int limit) {
+        return readOnly.execute(status -> jdbcTemplate.query(
+                """
+                SELECT id,
+                       account_id,
+                       CASE
+                         WHEN type = 'CREDIT' THEN amount
+                         ELSE -amount
+                       END AS signed_amount
+                FROM ledger_entries
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """,
+                (rs, rowNum) -> new EntryDelta(
+                        rs.getLong("id"),
+                        rs.getString("account_id"),
+                        rs.getBigDecimal("signed_amount")),
+                afterId, limit
+        ));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    @FunctionalInterface
+    public interface BalanceCallback {
+        void accept(String accountId, BigDecimal balance);
+    }
+
+    public record EntryDelta(long id, String accountId, BigDecimal signedAmount) {
     }
 }
@@ -2,10 +2,13 @@ package com.shadowledger.drift.service;
 
 import com.shadowledger.drift.model.CorrectionEvent;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class CorrectionPublisher {
 
@@ -16,9 +19,18 @@ public class CorrectionPublisher {
         this.kafkaTemplate = kafkaTemplate;
     }
 
-    public void publish(CorrectionEvent event) {
+    /**
+     * Completes once the broker has acknowledged the correction, or exceptionally if
+     * the send failed.
+     */
+    public CompletableFuture<SendResult<String, Object>> publish(CorrectionEvent event) {
         logger.info("Publishing CorrectionEvent to Kafka: {}", event);
-        kafkaTemplate.send("transactions.corrections", event.getAccountId(), event);
-        logger.info("CorrectionEvent sent to topic 'transactions.corrections' for accountId={}", event.getAccountId());
+        return kafkaTemplate.send("transactions.corrections", event.getAccountId(), event)
+                .whenComplete((result, e) -> {
+                    if (e == null) {
+                        logger.info("CorrectionEvent acknowledged on 'transactions.corrections' for accountId={}",
+                                event.getAccountId());
+                    }
+                });
     }
 }
@@ -0,0 +1,129 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Holds pending corrections and publishes the largest drifts first, at a bounded rate.
+ *
+ * At most one correction is pending per account: a newer drift check for the same
+ * account supersedes the queued one, since neither has been applied to the ledger
+ * yet and the newer diff reflects the current state. Superseded entries stay in the
+ * heap and are skipped when they reach the head; once they outnumber the pending ones
+ * (plus some slack) the heap is swept, so it stays within about twice the pending
+ * corrections at an amortised O(1) per submit.
+ *
+ * A correction counts as published once Kafka acknowledges it. If the broker does
+ * not, it is counted as failed and queued again from the next drain on, unless a
+ * newer check for the account has queued one since; retries share the same bounded
+ * rate. A send that throws straight away (the record could not even be built) is
+ * only counted, as retrying would not help.
+ */
+@Service
+public class CorrectionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrectionQueue.class);
+    private static final int STALE_SLACK = 1024;
+
+    private final PriorityBlockingQueue<CorrectionEvent> queue = new PriorityBlockingQueue<>(
+            64, Comparator.comparing(CorrectionEvent::getAmount).reversed());
+    private final ConcurrentHashMap<String, CorrectionEvent> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CorrectionEvent> retries = new ConcurrentLinkedQueue<>();
+
+    private final CorrectionPublisher publisher;
+    private final DriftMetrics metrics;
+    private final int capacity;
+    private final int permitsPerDrain;
+
+    public CorrectionQueue(CorrectionPublisher publisher,
+                           DriftMetrics metrics,
+                           MeterRegistry registry,
+                           @Value("${drift.queue.capacity:100000}") int capacity,
+                           @Value("${drift.queue.max-per-second:200}") int maxPerSecond,
+                           @Value("${drift.queue.drain-interval-ms:100}") long drainIntervalMs) {
+        this.publisher = publisher;
+        this.metrics = metrics;
+        this.capacity = capacity;
+        this.permitsPerDrain = (int) Math.max(1, maxPerSecond * drainIntervalMs / 1000);
+        Gauge.builder("drift.corrections.pending", pending, ConcurrentHashMap::size)
+                .description("Corrections waiting to be published")
+                .register(registry);
+    }
+
+    public boolean submit(CorrectionEvent event) {
+        if (pending.size() >= capacity && !pending.containsKey(event.getAccountId())) {
+            logger.warn("Correction queue full ({}), rejecting correction for accountId={}", capacity, event.getAccountId());
+            metrics.record(DriftMetrics.REJECTED_QUEUE_FULL);
+            return false;
+        }
+        CorrectionEvent previous = pending.put(event.getAccountId(), event);
+        if (previous != null) {
+            metrics.record(DriftMetrics.SUPERSEDED);
+        }
+        queue.offer(event);
+        metrics.record(DriftMetrics.QUEUED);
+        if (previous != null && queue.size() - pending.size() > pending.size() + STALE_SLACK) {
+            queue.removeIf(queued -> pending.get(queued.getAccountId()) != queued);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${drift.queue.drain-interval-ms:100}")
+    public void drain() {
+        int permits = permitsPerDrain;
+        CorrectionEvent event;
+        while ((event = retries.poll()) != null) {
+            queue.offer(event);
+        }
+        while (permits > 0 && (event = queue.poll()) != null) {
+            if (!pending.remove(event.getAccountId(), event)) {
+                continue; // superseded by a newer check
+            }
+            CorrectionEvent sending = event;
+            try {
+                publisher.publish(sending).whenComplete((result, e) -> {
+                    if (e == null) {
+                        metrics.record(DriftMetrics.PUBLISHED);
+                    } else {
+                        failed(sending, e);
+                        if (pending.putIfAbsent(sending.getAccountId(), sending) == null) {
+                            retries.add(sending);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed(sending, e);
+            }
+            permits--;
+        }
+    }
+
+    private void failed(CorrectionEvent event, Throwable e) {
+        logger.error("Failed to publish correction {} for accountId={}", event.getEventId(), event.getAccountId(), e);
+        metrics.record(DriftMetrics.FAILED);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public Optional<CorrectionEvent> pendingFor(String accountId) {
+        return Optional.ofNullable(pending.get(accountId));
+    }
+
+    int heapSize() {
+        return queue.size() + retries.size();
+    }
+}
@@ -2,41 +2,66 @@ package com.shadowledger.drift.service;
 
 import com.shadowledger.drift.model.CbsBalance;
 import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.model.ShadowBalanceView;
 import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class DriftDetectionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DriftDetectionService.class);
+
     private final ShadowLedgerRepository repository;
-    private final CorrectionPublisher publisher;
+    private final DriftPolicy policy;
+    private final CorrectionQueue queue;
+    private final DriftMetrics metrics;
 
     public DriftDetectionService(ShadowLedgerRepository repository,
-                                 CorrectionPublisher publisher) {
+                                 DriftPolicy policy,
+                                 CorrectionQueue queue,
+                                 DriftMetrics metrics) {
         this.repository = repository;
-        this.publisher = publisher;
+        this.policy = policy;
+        this.queue = queue;
+        this.metrics = metrics;
     }
 
     public void checkAndCorrect(CbsBalance cbs) {
         var shadow = repository.findBalance(cbs.getAccountId());
         if (shadow.isEmpty()) return;
 
+        DriftPolicy.Outcome outcome = policy.evaluate(cbs, shadow.get());
+        switch (outcome) {
+            case CORRECT -> correctionFor(cbs, shadow.get()).ifPresent(queue::submit);
+            case WITHIN_TOLERANCE, IN_FLIGHT -> {
+                logger.debug("Drift for accountId={} suppressed: {}", cbs.getAccountId(), outcome);
+                metrics.suppressed(outcome);
+            }
+            case NO_DRIFT -> { }
+        }
+    }
+
+    /**
+     * Builds the correction that brings the shadow balance in line with CBS, if they differ.
+     * Shared by the blocking and reactive drift paths.
+     */
+    public static Optional<CorrectionEvent> correctionFor(CbsBalance cbs, ShadowBalanceView shadow) {
         BigDecimal diff =
-                cbs.getReportedBalance().subtract(shadow.get().getBalance());
+                cbs.getReportedBalance().subtract(shadow.getBalance());
 
-        if (diff.compareTo(BigDecimal.ZERO) == 0) return;
+        if (diff.compareTo(BigDecimal.ZERO) == 0) return Optional.empty();
 
-        CorrectionEvent event = CorrectionEvent.builder()
+        return Optional.of(CorrectionEvent.builder()
                 .eventId("CORR-" + UUID.randomUUID())
                 .accountId(cbs.getAccountId())
                 .type(diff.signum() > 0 ? "credit" : "debit")
                 .amount(diff.abs())
-                .build();
-
-        publisher.publish(event);
+                .build());
     }
 }
-
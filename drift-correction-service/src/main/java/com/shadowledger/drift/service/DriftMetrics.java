@@ -0,0 +1,49 @@
+package com.shadowledger.drift.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts what happened to each detected drift: {@code drift.corrections{outcome=...}}.
+ */
+@Component
+public class DriftMetrics {
+
+    public static final String QUEUED = "queued";
+    public static final String PUBLISHED = "published";
+    public static final String SUPERSEDED = "superseded";
+    public static final String FAILED = "failed";
+    public static final String SUPPRESSED_TOLERANCE = "suppressed_tolerance";
+    public static final String SUPPRESSED_IN_FLIGHT = "suppressed_in_flight";
+    public static final String REJECTED_QUEUE_FULL = "rejected_queue_full";
+
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+
+    public DriftMetrics(MeterRegistry registry) {
+        for (String outcome : new String[]{QUEUED, PUBLISHED, SUPERSEDED, FAILED,
+                SUPPRESSED_TOLERANCE, SUPPRESSED_IN_FLIGHT, REJECTED_QUEUE_FULL}) {
+            counters.put(outcome, Counter.builder("drift.corrections")
+                    .description("Detected drifts by outcome")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    public void record(String outcome) {
+        counters.get(outcome).increment();
+    }
+
+    public void suppressed(DriftPolicy.Outcome outcome) {
+        record(outcome == DriftPolicy.Outcome.IN_FLIGHT ? SUPPRESSED_IN_FLIGHT : SUPPRESSED_TOLERANCE);
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        counters.forEach((outcome, counter) -> snapshot.put(outcome, (long) counter.count()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,55 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.config.DriftToleranceProperties;
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.ShadowBalanceView;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Decides whether a CBS/shadow difference is worth a correction.
+ */
+@Component
+public class DriftPolicy {
+
+    public enum Outcome {
+        NO_DRIFT,
+        WITHIN_TOLERANCE,
+        IN_FLIGHT,
+        CORRECT
+    }
+
+    private final DriftToleranceProperties properties;
+
+    public DriftPolicy(DriftToleranceProperties properties) {
+        this.properties = properties;
+    }
+
+    public Outcome evaluate(CbsBalance cbs, ShadowBalanceView shadow) {
+        BigDecimal diff = cbs.getReportedBalance().subtract(shadow.getBalance());
+        if (diff.signum() == 0) return Outcome.NO_DRIFT;
+        if (withinTolerance(cbs.getAccountClass(), diff)) return Outcome.WITHIN_TOLERANCE;
+        if (inFlight(cbs.getAsOf(), shadow.getLastEventAt())) return Outcome.IN_FLIGHT;
+        return Outcome.CORRECT;
+    }
+
+    public boolean withinTolerance(String accountClass, BigDecimal diff) {
+        return diff.abs().compareTo(threshold(accountClass)) <= 0;
+    }
+
+    public BigDecimal threshold(String accountClass) {
+        if (accountClass == null) return properties.getDefaultThreshold();
+        return properties.getClasses().getOrDefault(accountClass, properties.getDefaultThreshold());
+    }
+
+    /**
+     * The comparison is only trusted once the ledger has been quiet for the grace period
+     * around the CBS as-of time; otherwise an event may be counted on one side only.
+     */
+    private boolean inFlight(Instant asOf, Instant lastEventAt) {
+        if (asOf == null || lastEventAt == null) return false;
+        return lastEventAt.isAfter(asOf.minus(properties.getGracePeriod()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+@Service
+@Profile("reactive")
+public class ReactiveCorrectionPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCorrectionPublisher.class);
+    private final KafkaSender<String, Object> sender;
+
+    public ReactiveCorrectionPublisher(KafkaSender<String, Object> sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Completes once the broker has acknowledged the correction.
+     */
+    public Mono<CorrectionEvent> publish(CorrectionEvent event) {
+        ProducerRecord<String, Object> record =
+                new ProducerRecord<>("transactions.corrections", event.getAccountId(), event);
+        return sender.send(Mono.just(SenderRecord.create(record, event)))
+                .next()
+                .flatMap(result -> result.exception() != null
+                        ? Mono.error(result.exception())
+                        : Mono.just(result.correlationMetadata()))
+                .doOnNext(sent -> logger.info("CorrectionEvent acknowledged on 'transactions.corrections' for accountId={}",
+                        sent.getAccountId()));
+    }
+}
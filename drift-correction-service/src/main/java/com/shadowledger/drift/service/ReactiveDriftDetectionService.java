@@ -0,0 +1,62 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.model.ShadowBalanceView;
+import com.shadowledger.drift.repository.ReactiveShadowLedgerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link DriftDetectionService}.
+ *
+ * Balances are checked with at most {@code drift.reactive.concurrency} lookups in
+ * flight, so demand on the request body and the R2DBC pool is bounded by
+ * backpressure instead of by a servlet thread pool. Corrections go through the same
+ * {@link CorrectionQueue} as the blocking path, which dedups them per account and
+ * publishes at its own rate; submitting never blocks.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveDriftDetectionService {
+
+    private final ReactiveShadowLedgerRepository repository;
+    private final CorrectionQueue queue;
+    private final DriftPolicy policy;
+    private final DriftMetrics metrics;
+    private final int concurrency;
+
+    public ReactiveDriftDetectionService(ReactiveShadowLedgerRepository repository,
+                                         CorrectionQueue queue,
+                                         DriftPolicy policy,
+                                         DriftMetrics metrics,
+                                         @Value("${drift.reactive.concurrency:64}") int concurrency) {
+        this.repository = repository;
+        this.queue = queue;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.concurrency = concurrency;
+    }
+
+    public Mono<CorrectionEvent> checkAndCorrect(CbsBalance cbs) {
+        return repository.findBalance(cbs.getAccountId())
+                .filter(shadow -> shouldCorrect(cbs, shadow))
+                .flatMap(shadow -> Mono.justOrEmpty(DriftDetectionService.correctionFor(cbs, shadow)))
+                .filter(queue::submit);
+    }
+
+    private boolean shouldCorrect(CbsBalance cbs, ShadowBalanceView shadow) {
+        DriftPolicy.Outcome outcome = policy.evaluate(cbs, shadow);
+        if (outcome == DriftPolicy.Outcome.WITHIN_TOLERANCE || outcome == DriftPolicy.Outcome.IN_FLIGHT) {
+            metrics.suppressed(outcome);
+        }
+        return outcome == DriftPolicy.Outcome.CORRECT;
+    }
+
+    public Flux<CorrectionEvent> checkAll(Flux<CbsBalance> balances) {
+        return balances.flatMap(this::checkAndCorrect, concurrency);
+    }
+}
@@ -0,0 +1,79 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.merkle.AccountMerkleTree;
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.ReconciliationReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reconciles a full CBS snapshot against the shadow ledger by diffing Merkle trees.
+ *
+ * Only buckets whose hashes disagree are opened, and only accounts whose balances
+ * differ inside those buckets go through {@link DriftDetectionService}, so the number
+ * of ledger queries scales with the number of drifted accounts rather than the
+ * size of the snapshot.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final ShadowMerkleTreeService shadowTrees;
+    private final DriftDetectionService driftDetectionService;
+
+    public ReconciliationService(ShadowMerkleTreeService shadowTrees,
+                                 DriftDetectionService driftDetectionService) {
+        this.shadowTrees = shadowTrees;
+        this.driftDetectionService = driftDetectionService;
+    }
+
+    public ReconciliationReport reconcile(List<CbsBalance> snapshot) {
+        AccountMerkleTree shadow = shadowTrees.currentTree();
+        AccountMerkleTree cbs = new AccountMerkleTree(shadow.getDepth());
+        Map<String, CbsBalance> byAccount = new HashMap<>(snapshot.size() * 2);
+        for (CbsBalance balance : snapshot) {
+            cbs.put(balance.getAccountId(), AccountMerkleTree.toCents(balance.getReportedBalance()));
+            byAccount.put(balance.getAccountId(), balance);
+        }
+
+        List<Integer> mismatchedLeaves = cbs.diff(shadow);
+        List<String> drifted = new ArrayList<>();
+        List<String> unreported = new ArrayList<>();
+        int compared = 0;
+
+        for (int leaf : mismatchedLeaves) {
+            Map<String, Long> cbsAccounts = cbs.accounts(leaf);
+            Map<String, Long> shadowAccounts = shadow.accounts(leaf);
+            compared += cbsAccounts.size();
+
+            cbsAccounts.forEach((accountId, cents) -> {
+                if (!cents.equals(shadowAccounts.get(accountId))) {
+                    drifted.add(accountId);
+                    driftDetectionService.checkAndCorrect(byAccount.get(accountId));
+                }
+            });
+            shadowAccounts.keySet().stream()
+                    .filter(accountId -> !cbsAccounts.containsKey(accountId))
+                    .forEach(unreported::add);
+        }
+
+        logger.info("Reconciled {} CBS balances: {}/{} buckets mismatched, {} drifted, {} unreported",
+                snapshot.size(), mismatchedLeaves.size(), cbs.getLeafCount(), drifted.size(), unreported.size());
+
+        return ReconciliationReport.builder()
+                .accountsReported(snapshot.size())
+                .bucketsTotal(cbs.getLeafCount())
+                .bucketsMismatched(mismatchedLeaves.size())
+                .accountsCompared(compared)
+                .driftedAccounts(drifted)
+                .unreportedAccounts(unreported)
+                .build();
+    }
+}
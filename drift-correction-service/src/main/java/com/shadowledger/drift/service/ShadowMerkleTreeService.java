@@ -0,0 +1,125 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.config.ReadRouting;
+import com.shadowledger.drift.merkle.AccountMerkleTree;
+import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a Merkle tree of the shadow ledger projection up to date.
+ *
+ * The tree is built once from a full aggregate and then tailed by entry id, so each
+ * refresh only reads entries committed since the previous one. Identity values can
+ * commit out of order under concurrent writers, so the tree is also rebuilt from
+ * scratch on a slower schedule to pick up any entry the tail skipped.
+ *
+ * With a read replica, each rebuild and refresh first reads the primary's WAL position
+ * and only reads from the replica once it has replayed that far, so the tree never
+ * misses entries the primary had already committed.
+ *
+ * Refreshes hold a ReentrantLock rather than the object monitor: they run JDBC
+ * queries, and a virtual thread blocking inside {@code synchronized} pins its carrier.
+ */
+@Service
+public class ShadowMerkleTreeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowMerkleTreeService.class);
+
+    private final ShadowLedgerRepository repository;
+    private final int depth;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile AccountMerkleTree tree;
+    private long watermark;
+
+    public ShadowMerkleTreeService(ShadowLedgerRepository repository,
+                                   @Value("${drift.merkle.depth:12}") int depth,
+                                   @Value("${drift.merkle.batch-size:5000}") int batchSize) {
+        this.repository = repository;
+        this.depth = depth;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the shadow tree, caught up with every entry committed so far.
+     */
+    public AccountMerkleTree currentTree() {
+        lock.lock();
+        try {
+            if (tree == null) {
+                rebuild();
+            } else {
+                catchUp();
+            }
+            return tree;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${drift.merkle.refresh-interval-ms:1000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            if (tree != null) {
+                catchUp();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${drift.merkle.rebuild-interval-ms:3600000}",
+            initialDelayString = "${drift.merkle.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        lock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            long position = primaryPosition();
+            long maxId = ReadRouting.atLeast(position, repository::findMaxEntryId);
+            AccountMerkleTree rebuilt = new AccountMerkleTree(depth);
+            ReadRouting.atLeast(position, () -> {
+                repository.forEachBalance(maxId, (accountId, balance) ->
+                        rebuilt.put(accountId, AccountMerkleTree.toCents(balance)));
+                return null;
+            });
+
+            tree = rebuilt;
+            watermark = maxId;
+            logger.info("Shadow Merkle tree rebuilt: accounts={}, watermark={}, took={}ms",
+                    rebuilt.size(), maxId, System.currentTimeMillis() - start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void catchUp() {
+        int applied = 0;
+        long position = primaryPosition();
+        List<ShadowLedgerRepository.EntryDelta> batch;
+        do {
+            batch = ReadRouting.atLeast(position, () -> repository.findEntriesAfter(watermark, batchSize));
+            for (ShadowLedgerRepository.EntryDelta entry : batch) {
+                tree.add(entry.accountId(), AccountMerkleTree.toCents(entry.signedAmount()));
+                watermark = entry.id();
+            }
+            applied += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (applied > 0) {
+            logger.debug("Applied {} ledger entries to shadow Merkle tree, watermark={}", applied, watermark);
+        }
+    }
+
+    private long primaryPosition() {
+        return ReadRouting.replicaInUse() ? repository.currentWalPosition() : 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops the service from starting against a sharded shadow ledger. Every drift check
+ * reads ledger_entries from the one configured database, so with sharding the
+ * accounts held elsewhere would all look drifted by their whole balance, and
+ * correcting them would double it.
+ */
+@Component
+public class UnshardedLedgerCheck {
+
+    private final ShadowLedgerRepository repository;
+
+    public UnshardedLedgerCheck(ShadowLedgerRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void verify() {
+        if (repository.isSharded()) {
+            throw new IllegalStateException("The shadow ledger is sharded (see ledger_shard_map), "
+                    + "which the drift correction service does not support");
+        }
+    }
+}
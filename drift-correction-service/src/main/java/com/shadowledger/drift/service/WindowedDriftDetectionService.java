@@ -0,0 +1,127 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.model.CbsWindowBalance;
+import com.shadowledger.drift.model.CbsWindowedBalances;
+import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.model.WindowDriftReport;
+import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Locates the first window in which the shadow ledger diverged from the CBS feed.
+ *
+ * CBS reports a closing balance per window, which is cumulative, so once a window
+ * drifts every later closing balance carries the same error until it is corrected.
+ * That makes "has diverged by the end of window i" monotone in i and lets the first
+ * drifted window be found by binary search with O(log windows) ledger queries.
+ *
+ * Each check corrects only the drift that first appears in that window. If more drift
+ * was added in later windows, the report's {@code remainingDrift} is the part left
+ * over, and it is located and corrected by the next check of the account once this
+ * correction has reached the ledger: the correction queue holds one correction per
+ * account, so a second one submitted now would replace the first. Drift added in k
+ * different windows therefore takes k checks to clear.
+ *
+ * Balances are read from one database. Once the shadow ledger is sharded most
+ * accounts are missing there and would look like a drift of their whole balance, so
+ * drifted accounts are then reported in the log and not corrected.
+ */
+@Service
+public class WindowedDriftDetectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WindowedDriftDetectionService.class);
+
+    private final ShadowLedgerRepository repository;
+    private final DriftPolicy policy;
+    private final CorrectionQueue queue;
+
+    public WindowedDriftDetectionService(ShadowLedgerRepository repository,
+                                         DriftPolicy policy,
+                                         CorrectionQueue queue) {
+        this.repository = repository;
+        this.policy = policy;
+        this.queue = queue;
+    }
+
+    public Optional<WindowDriftReport> locateAndCorrect(CbsWindowedBalances cbs) {
+        List<CbsWindowBalance> windows = cbs.getWindows().stream()
+                .sorted(Comparator.comparing(CbsWindowBalance::getWindowStart))
+                .toList();
+        if (windows.isEmpty()) return Optional.empty();
+
+        String accountId = cbs.getAccountId();
+        int queries = 1;
+        BigDecimal lastDiff = diffAt(accountId, windows.get(windows.size() - 1));
+        if (!drifted(lastDiff)) return Optional.empty();
+        if (repository.isSharded()) {
+            logger.warn("Not correcting drift of {} for accountId={}: the shadow ledger is sharded, "
+                    + "and its balances cannot be read from one database", lastDiff, accountId);
+            return Optional.empty();
+        }
+
+        int lo = 0;
+        int hi = windows.size() - 1;
+        BigDecimal firstDiff = lastDiff;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            BigDecimal diff = diffAt(accountId, windows.get(mid));
+            queries++;
+            if (drifted(diff)) {
+                hi = mid;
+                firstDiff = diff;
+            } else {
+                lo = mid + 1;
+            }
+        }
+
+        CbsWindowBalance window = windows.get(lo);
+        BigDecimal remainingDrift = lastDiff.subtract(firstDiff);
+        CorrectionEvent event = CorrectionEvent.builder()
+                .eventId("CORR-" + UUID.randomUUID())
+                .accountId(accountId)
+                .type(firstDiff.signum() > 0 ? "credit" : "debit")
+                .amount(firstDiff.abs())
+                .timestamp(window.getWindowEnd().minusMillis(1))
+                .windowStart(window.getWindowStart())
+                .windowEnd(window.getWindowEnd())
+                .build();
+
+        queue.submit(event);
+        logger.info("Drift of {} for accountId={} first appears in window [{}, {}), located with {} queries over {} windows",
+                firstDiff, accountId, window.getWindowStart(), window.getWindowEnd(), queries, windows.size());
+        if (drifted(remainingDrift)) {
+            logger.info("Further drift of {} for accountId={} appears after window [{}, {}); "
+                            + "the next check corrects it once this correction is applied",
+                    remainingDrift, accountId, window.getWindowStart(), window.getWindowEnd());
+        }
+
+        return Optional.of(WindowDriftReport.builder()
+                .accountId(accountId)
+                .windowStart(window.getWindowStart())
+                .windowEnd(window.getWindowEnd())
+                .drift(firstDiff)
+                .totalDrift(lastDiff)
+                .remainingDrift(remainingDrift)
+                .correctionEventId(event.getEventId())
+                .windowsScanned(windows.size())
+                .shadowQueries(queries)
+                .build());
+    }
+
+    private boolean drifted(BigDecimal diff) {
+        return !policy.withinTolerance(null, diff);
+    }
+
+    private BigDecimal diffAt(String accountId, CbsWindowBalance window) {
+        BigDecimal shadow = repository.findBalanceBefore(accountId, window.getWindowEnd());
+        return window.getClosingBalance().subtract(shadow != null ? shadow : BigDecimal.ZERO);
+    }
+}
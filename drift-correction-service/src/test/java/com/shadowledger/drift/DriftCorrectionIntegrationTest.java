@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shadowledger.drift.model.CbsBalance;
 import com.shadowledger.drift.model.ShadowBalanceView;
 import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -17,6 +18,7 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -44,6 +46,11 @@ public class DriftCorrectionIntegrationTest {
     @MockitoBean
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void testEndToEndDriftDetectionAndCorrection() throws Exception {
         CbsBalance cbsBalance = new CbsBalance();
@@ -60,7 +67,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
     }
 
     @Test
@@ -114,7 +121,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(2)).send(eq("transactions.corrections"), anyString(), any());
+        verify(kafkaTemplate, timeout(2000).times(2)).send(eq("transactions.corrections"), anyString(), any());
     }
 
     @Test
@@ -147,9 +154,9 @@ public class DriftCorrectionIntegrationTest {
                 .andExpect(status().isOk());
 
         // Only acc-001 and acc-003 should trigger corrections
-        verify(kafkaTemplate, times(2)).send(eq("transactions.corrections"), anyString(), any());
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-003"), any());
+        verify(kafkaTemplate, timeout(2000).times(2)).send(eq("transactions.corrections"), anyString(), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-003"), any());
         verify(kafkaTemplate, never()).send(eq("transactions.corrections"), eq("acc-002"), any());
     }
 
@@ -187,7 +194,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
     }
 
     @Test
@@ -206,7 +213,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
     }
 
     @Test
@@ -225,7 +232,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
+        verify(kafkaTemplate, timeout(2000).times(1)).send(eq("transactions.corrections"), eq("acc-001"), any());
     }
 
     @Test
@@ -247,7 +254,7 @@ public class DriftCorrectionIntegrationTest {
                 .content(objectMapper.writeValueAsString(balances)))
                 .andExpect(status().isOk());
 
-        verify(kafkaTemplate, times(50)).send(eq("transactions.corrections"), anyString(), any());
+        verify(kafkaTemplate, timeout(2000).times(50)).send(eq("transactions.corrections"), anyString(), any());
     }
 
     @Test
@@ -0,0 +1,65 @@
+package com.shadowledger.drift.config;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrectionEventSerializerTest {
+
+    private final CorrectionEvent event = CorrectionEvent.builder()
+            .eventId("CORR-123")
+            .accountId("acc-001")
+            .type("credit")
+            .amount(new BigDecimal("100.00"))
+            .timestamp(Instant.ofEpochMilli(1_700_000_059_999L))
+            .windowStart(Instant.ofEpochMilli(1_700_000_000_000L))
+            .windowEnd(Instant.ofEpochMilli(1_700_000_060_000L))
+            .build();
+
+    @Test
+    void binaryFormatCarriesWindow() {
+        CorrectionEventSerializer serializer = serializer("binary");
+        Headers headers = new RecordHeaders();
+
+        TransactionWireCodec.WireEvent decoded =
+                TransactionWireCodec.decode(serializer.serialize("transactions.corrections", headers, event));
+
+        assertThat(contentType(headers)).isEqualTo(TransactionWireCodec.BINARY);
+        assertThat(decoded.eventId()).isEqualTo("CORR-123");
+        assertThat(decoded.type()).isEqualTo(TransactionWireCodec.Type.CREDIT);
+        assertThat(decoded.amountCents()).isEqualTo(10000L);
+        assertThat(decoded.timestamp()).isEqualTo(1_700_000_059_999L);
+        assertThat(decoded.sequence()).isNull();
+        assertThat(decoded.windowStart()).isEqualTo(1_700_000_000_000L);
+        assertThat(decoded.windowEnd()).isEqualTo(1_700_000_060_000L);
+    }
+
+    @Test
+    void jsonFormatByDefault() {
+        CorrectionEventSerializer serializer = serializer("json");
+        Headers headers = new RecordHeaders();
+
+        byte[] value = serializer.serialize("transactions.corrections", headers, event);
+
+        assertThat(contentType(headers)).isEqualTo(TransactionWireCodec.JSON);
+        assertThat(new String(value, StandardCharsets.UTF_8)).contains("\"eventId\":\"CORR-123\"");
+    }
+
+    private CorrectionEventSerializer serializer(String wireFormat) {
+        CorrectionEventSerializer serializer = new CorrectionEventSerializer();
+        serializer.configure(Map.of(CorrectionEventSerializer.WIRE_FORMAT_CONFIG, wireFormat), false);
+        return serializer;
+    }
+
+    private String contentType(Headers headers) {
+        return new String(headers.lastHeader(TransactionWireCodec.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.shadowledger.drift.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaProducerConfigTest {
+
+    @Test
+    void producerProperties_takeBrokerAndTuningFromSpringKafka() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of("kafka:29092"));
+        kafkaProperties.getProducer().setAcks("all");
+        kafkaProperties.getProducer().setBatchSize(DataSize.ofKilobytes(256));
+        kafkaProperties.getProducer().setCompressionType("lz4");
+        kafkaProperties.getProducer().getProperties().put("linger.ms", "20");
+
+        Map<String, Object> properties = new KafkaProducerConfig(kafkaProperties, "binary").producerProperties();
+
+        assertThat(properties.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)).isEqualTo(List.of("kafka:29092"));
+        assertThat(properties)
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "all")
+                .containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 262144)
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4")
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, "20");
+    }
+
+    @Test
+    void producerProperties_fixSerializersInterceptorAndWireFormat() {
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.getProducer().setValueSerializer(Object.class);
+
+        Map<String, Object> properties = new KafkaProducerConfig(kafkaProperties, "binary").producerProperties();
+
+        assertThat(properties)
+                .containsEntry(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class)
+                .containsEntry(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CorrectionEventSerializer.class)
+                .containsEntry(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, TraceIdProducerInterceptor.class.getName())
+                .containsEntry(CorrectionEventSerializer.WIRE_FORMAT_CONFIG, "binary");
+    }
+}
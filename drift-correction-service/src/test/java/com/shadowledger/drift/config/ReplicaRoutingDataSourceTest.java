@@ -0,0 +1,64 @@
+package com.shadowledger.drift.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReplicaRoutingDataSource(primary, replica, monitor, new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyQueries_useReplicaOnlyOnceItReachesTheWatermark() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(monitor.check(anyLong())).thenReturn(ReplicaLagMonitor.Status.AVAILABLE);
+        when(monitor.check(500L)).thenReturn(ReplicaLagMonitor.Status.BEHIND_POSITION);
+
+        assertThat(ReadRouting.atLeast(400, this::connection)).isSameAs(replicaConnection);
+        assertThat(ReadRouting.atLeast(500, this::connection)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void queriesOutsideReadOnlyTransactions_usePrimary() throws SQLException {
+        when(monitor.check(anyLong())).thenReturn(ReplicaLagMonitor.Status.AVAILABLE);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
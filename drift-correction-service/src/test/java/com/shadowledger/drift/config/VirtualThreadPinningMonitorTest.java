@@ -0,0 +1,50 @@
+package com.shadowledger.drift.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(5));
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void countsVirtualThreadsBlockingInsideSynchronized() throws Exception {
+        Object monitorLock = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitorLock) {
+                sleep(50);
+            }
+        }).join();
+
+        // JFR streams events in roughly one-second chunks
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (pinnedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertThat(pinnedCount()).isEqualTo(1.0);
+    }
+
+    private double pinnedCount() {
+        return meterRegistry.get("jvm.threads.virtual.pinned").counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -13,8 +13,11 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +30,7 @@ class ManualCorrectionControllerTest {
     void testCorrectEndpointPublishesEvent() throws Exception {
         String accountId = "test-account";
         BigDecimal amount = new BigDecimal("123.45");
+        when(publisher.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
         ManualCorrectionController controller = new ManualCorrectionController(publisher);
         MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
         mockMvc.perform(MockMvcRequestBuilders.post("/correct/" + accountId)
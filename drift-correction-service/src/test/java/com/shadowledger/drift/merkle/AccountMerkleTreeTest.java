@@ -0,0 +1,121 @@
+package com.shadowledger.drift.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AccountMerkleTreeTest {
+
+    @Test
+    void testIdenticalTreesHaveNoDiff() {
+        AccountMerkleTree left = new AccountMerkleTree(8);
+        AccountMerkleTree right = new AccountMerkleTree(8);
+        for (int i = 0; i < 1000; i++) {
+            left.put("acc-" + i, i * 100L);
+            right.put("acc-" + i, i * 100L);
+        }
+
+        assertThat(left.rootHash()).isEqualTo(right.rootHash());
+        assertThat(left.diff(right)).isEmpty();
+    }
+
+    @Test
+    void testInsertionOrderDoesNotAffectHash() {
+        AccountMerkleTree forward = new AccountMerkleTree(6);
+        AccountMerkleTree backward = new AccountMerkleTree(6);
+        for (int i = 0; i < 200; i++) {
+            forward.put("acc-" + i, i);
+            backward.put("acc-" + (199 - i), 199 - i);
+        }
+
+        assertThat(forward.rootHash()).isEqualTo(backward.rootHash());
+    }
+
+    @Test
+    void testDiffReturnsOnlyDriftedBucket() {
+        AccountMerkleTree left = new AccountMerkleTree(10);
+        AccountMerkleTree right = new AccountMerkleTree(10);
+        for (int i = 0; i < 5000; i++) {
+            left.put("acc-" + i, 1000L);
+            right.put("acc-" + i, 1000L);
+        }
+        right.put("acc-4242", 1001L);
+
+        List<Integer> diff = left.diff(right);
+
+        assertThat(diff).containsExactly(left.leafOf("acc-4242"));
+        assertThat(right.accounts(diff.get(0))).containsEntry("acc-4242", 1001L);
+    }
+
+    @Test
+    void testIncrementalAddMatchesDirectPut() {
+        AccountMerkleTree incremental = new AccountMerkleTree(8);
+        incremental.add("acc-001", 10000L);
+        incremental.add("acc-001", -2550L);
+        incremental.add("acc-002", 500L);
+
+        AccountMerkleTree direct = new AccountMerkleTree(8);
+        direct.put("acc-002", 500L);
+        direct.put("acc-001", 7450L);
+
+        assertThat(incremental.balance("acc-001")).isEqualTo(7450L);
+        assertThat(incremental.rootHash()).isEqualTo(direct.rootHash());
+        assertThat(incremental.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testMissingAccountIsDetected() {
+        AccountMerkleTree left = new AccountMerkleTree(8);
+        AccountMerkleTree right = new AccountMerkleTree(8);
+        left.put("acc-001", 100L);
+        left.put("acc-002", 200L);
+        right.put("acc-001", 100L);
+
+        assertThat(left.diff(right)).containsExactly(left.leafOf("acc-002"));
+    }
+
+    @Test
+    void testLeafListsOffHeapAndLongIdAccounts() {
+        AccountMerkleTree tree = new AccountMerkleTree(12);
+        String longId = "account-id-too-long-to-pack-" + 7;
+        for (int i = 0; i < 20000; i++) {
+            tree.put("acc-" + i, i);
+        }
+        tree.put(longId, 5L);
+        tree.add(longId, 5L);
+
+        assertThat(tree.size()).isEqualTo(20001);
+        assertThat(tree.balance(longId)).isEqualTo(10L);
+        assertThat(tree.balance("acc-19999")).isEqualTo(19999L);
+        assertThat(tree.balance("acc-20000")).isNull();
+        assertThat(tree.accounts(tree.leafOf(longId))).containsEntry(longId, 10L);
+
+        int total = 0;
+        for (int leaf = 0; leaf < tree.getLeafCount(); leaf++) {
+            Map<String, Long> accounts = tree.accounts(leaf);
+            for (String accountId : accounts.keySet()) {
+                assertThat(tree.leafOf(accountId)).isEqualTo(leaf);
+            }
+            total += accounts.size();
+        }
+        assertThat(total).isEqualTo(20001);
+    }
+
+    @Test
+    void testToCentsRoundsToTwoDecimals() {
+        assertThat(AccountMerkleTree.toCents(new BigDecimal("1000.00"))).isEqualTo(100000L);
+        assertThat(AccountMerkleTree.toCents(new BigDecimal("1000"))).isEqualTo(100000L);
+        assertThat(AccountMerkleTree.toCents(new BigDecimal("-0.015"))).isEqualTo(-2L);
+    }
+
+    @Test
+    void testDiffRejectsDifferentDepths() {
+        assertThatThrownBy(() -> new AccountMerkleTree(8).diff(new AccountMerkleTree(9)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,6 +1,7 @@
 package com.shadowledger.drift.service;
 
 import com.shadowledger.drift.model.CorrectionEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -8,8 +9,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -23,6 +26,11 @@ public class CorrectionPublisherTest {
     @InjectMocks
     private CorrectionPublisher publisher;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void testPublishCorrectionEvent() {
         CorrectionEvent event = CorrectionEvent.builder()
@@ -179,5 +187,22 @@ public class CorrectionPublisherTest {
         assertThat(capturedEvent.getType()).isEqualTo("credit");
         assertThat(capturedEvent.getAmount()).isEqualByComparingTo("123.45");
     }
-}
 
+    @Test
+    void testPublishCompletesWithTheSend() {
+        CompletableFuture<SendResult<String, Object>> send = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(send);
+        CorrectionEvent event = CorrectionEvent.builder()
+                .eventId("CORR-ACK")
+                .accountId("acc-001")
+                .type("credit")
+                .amount(new BigDecimal("1.00"))
+                .build();
+
+        CompletableFuture<?> published = publisher.publish(event);
+        assertThat(published).isNotDone();
+
+        send.completeExceptionally(new RuntimeException("broker unavailable"));
+        assertThat(published).isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,184 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.model.CorrectionEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CorrectionQueueTest {
+
+    @Mock
+    private CorrectionPublisher publisher;
+
+    private DriftMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new DriftMetrics(new SimpleMeterRegistry());
+        lenient().when(publisher.publish(any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private CorrectionQueue queue(int capacity, int maxPerSecond) {
+        return new CorrectionQueue(publisher, metrics, new SimpleMeterRegistry(), capacity, maxPerSecond, 1000);
+    }
+
+    private static CorrectionEvent correction(String accountId, String amount) {
+        return CorrectionEvent.builder()
+                .eventId("CORR-" + accountId + "-" + amount)
+                .accountId(accountId)
+                .type("credit")
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    @Test
+    void testLargestDriftPublishedFirst() {
+        CorrectionQueue queue = queue(100, 100);
+        queue.submit(correction("acc-001", "5.00"));
+        queue.submit(correction("acc-002", "500.00"));
+        queue.submit(correction("acc-003", "50.00"));
+
+        queue.drain();
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(publisher, times(3)).publish(captor.capture());
+        assertThat(captor.getAllValues())
+                .extracting(CorrectionEvent::getAccountId)
+                .containsExactly("acc-002", "acc-003", "acc-001");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void testNewerCorrectionSupersedesPending() {
+        CorrectionQueue queue = queue(100, 100);
+        queue.submit(correction("acc-001", "900.00"));
+        queue.submit(correction("acc-001", "10.00"));
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.pendingFor("acc-001")).get()
+                .extracting(CorrectionEvent::getAmount)
+                .isEqualTo(new BigDecimal("10.00"));
+
+        queue.drain();
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(publisher, times(1)).publish(captor.capture());
+        assertThat(captor.getValue().getAmount()).isEqualByComparingTo("10.00");
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.SUPERSEDED, 1L);
+    }
+
+    @Test
+    void testDrainRespectsRateLimit() {
+        CorrectionQueue queue = queue(100, 2);
+        queue.submit(correction("acc-001", "1.00"));
+        queue.submit(correction("acc-002", "2.00"));
+        queue.submit(correction("acc-003", "3.00"));
+
+        queue.drain();
+        verify(publisher, times(2)).publish(any(CorrectionEvent.class));
+        assertThat(queue.pendingFor("acc-001")).isPresent();
+
+        queue.drain();
+        verify(publisher, times(3)).publish(any(CorrectionEvent.class));
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void testRejectsNewAccountsWhenFull() {
+        CorrectionQueue queue = queue(1, 100);
+
+        assertThat(queue.submit(correction("acc-001", "1.00"))).isTrue();
+        assertThat(queue.submit(correction("acc-002", "2.00"))).isFalse();
+        assertThat(queue.submit(correction("acc-001", "3.00"))).isTrue();
+
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.REJECTED_QUEUE_FULL, 1L);
+    }
+
+    @Test
+    void testPublishFailureIsCountedAndDrainContinues() {
+        CorrectionQueue queue = queue(100, 100);
+        CorrectionEvent failing = correction("acc-001", "100.00");
+        queue.submit(failing);
+        queue.submit(correction("acc-002", "1.00"));
+        doThrow(new RuntimeException("Kafka down")).when(publisher).publish(failing);
+
+        queue.drain();
+
+        verify(publisher, times(2)).publish(any(CorrectionEvent.class));
+        assertThat(metrics.snapshot())
+                .containsEntry(DriftMetrics.FAILED, 1L)
+                .containsEntry(DriftMetrics.PUBLISHED, 1L);
+    }
+
+    @Test
+    void testFailedSendIsCountedAndRequeued() {
+        CorrectionQueue queue = queue(100, 100);
+        CorrectionEvent event = correction("acc-001", "100.00");
+        CompletableFuture<SendResult<String, Object>> send = new CompletableFuture<>();
+        when(publisher.publish(event)).thenReturn(send);
+        queue.submit(event);
+
+        queue.drain();
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.PUBLISHED, 0L);
+        assertThat(queue.size()).isZero();
+
+        send.completeExceptionally(new RuntimeException("broker unavailable"));
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.FAILED, 1L);
+        assertThat(queue.pendingFor("acc-001")).containsSame(event);
+
+        when(publisher.publish(event)).thenReturn(CompletableFuture.completedFuture(null));
+        queue.drain();
+        verify(publisher, times(2)).publish(event);
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.PUBLISHED, 1L);
+    }
+
+    @Test
+    void testFailedSendDoesNotReplaceNewerCorrection() {
+        CorrectionQueue queue = queue(100, 100);
+        CorrectionEvent older = correction("acc-001", "100.00");
+        CompletableFuture<SendResult<String, Object>> send = new CompletableFuture<>();
+        when(publisher.publish(older)).thenReturn(send);
+        queue.submit(older);
+        queue.drain();
+
+        CorrectionEvent newer = correction("acc-001", "40.00");
+        queue.submit(newer);
+        send.completeExceptionally(new RuntimeException("broker unavailable"));
+
+        assertThat(queue.pendingFor("acc-001")).containsSame(newer);
+        assertThat(queue.heapSize()).isEqualTo(1);
+    }
+
+    @Test
+    void testSupersededEntriesDoNotAccumulate() {
+        CorrectionQueue queue = queue(100_000, 100);
+        for (int i = 1; i <= 10_000; i++) {
+            queue.submit(correction("acc-001", i + ".00"));
+            queue.submit(correction("acc-002", i + ".00"));
+        }
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.heapSize()).isLessThanOrEqualTo(2 * 2 + 1024 + 1);
+
+        queue.drain();
+        verify(publisher, times(2)).publish(any(CorrectionEvent.class));
+        assertThat(queue.heapSize()).isZero();
+    }
+}
@@ -1,17 +1,20 @@
 package com.shadowledger.drift.service;
 
+import com.shadowledger.drift.config.DriftToleranceProperties;
 import com.shadowledger.drift.model.CbsBalance;
 import com.shadowledger.drift.model.CorrectionEvent;
 import com.shadowledger.drift.model.ShadowBalanceView;
 import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,11 +27,19 @@ public class DriftDetectionServiceTest {
     private ShadowLedgerRepository repository;
 
     @Mock
-    private CorrectionPublisher publisher;
+    private CorrectionQueue queue;
 
-    @InjectMocks
+    private DriftToleranceProperties tolerance;
+    private DriftMetrics metrics;
     private DriftDetectionService service;
 
+    @BeforeEach
+    void setUp() {
+        tolerance = new DriftToleranceProperties();
+        metrics = new DriftMetrics(new SimpleMeterRegistry());
+        service = new DriftDetectionService(repository, new DriftPolicy(tolerance), queue, metrics);
+    }
+
     @Test
     void testNoDriftWhenBalancesMatch() {
         CbsBalance cbsBalance = new CbsBalance();
@@ -40,7 +51,7 @@ public class DriftDetectionServiceTest {
 
         service.checkAndCorrect(cbsBalance);
 
-        verify(publisher, never()).publish(any(CorrectionEvent.class));
+        verify(queue, never()).submit(any(CorrectionEvent.class));
     }
 
     @Test
@@ -55,7 +66,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAccountId()).isEqualTo("acc-001");
@@ -76,7 +87,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAccountId()).isEqualTo("acc-001");
@@ -95,7 +106,7 @@ public class DriftDetectionServiceTest {
 
         service.checkAndCorrect(cbsBalance);
 
-        verify(publisher, never()).publish(any(CorrectionEvent.class));
+        verify(queue, never()).submit(any(CorrectionEvent.class));
     }
 
     @Test
@@ -110,7 +121,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("0.01");
@@ -129,7 +140,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("9000.00");
@@ -148,7 +159,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("200.00");
@@ -167,7 +178,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("1000.00");
@@ -186,7 +197,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("1000.00");
@@ -205,7 +216,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getAmount()).isEqualByComparingTo("0.333");
@@ -233,7 +244,7 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbs1);
         service.checkAndCorrect(cbs2);
 
-        verify(publisher, times(2)).publish(any(CorrectionEvent.class));
+        verify(queue, times(2)).submit(any(CorrectionEvent.class));
     }
 
     @Test
@@ -248,11 +259,77 @@ public class DriftDetectionServiceTest {
         service.checkAndCorrect(cbsBalance);
 
         ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
-        verify(publisher, times(1)).publish(captor.capture());
+        verify(queue, times(1)).submit(captor.capture());
 
         CorrectionEvent event = captor.getValue();
         assertThat(event.getEventId()).contains("CORR-");
         assertThat(event.getEventId()).hasSize(41); // "CORR-" + UUID
     }
-}
 
+    @Test
+    void testSubCentDriftSuppressed() {
+        CbsBalance cbsBalance = new CbsBalance();
+        cbsBalance.setAccountId("acc-001");
+        cbsBalance.setReportedBalance(new BigDecimal("1000.004"));
+
+        ShadowBalanceView shadowBalance = new ShadowBalanceView("acc-001", new BigDecimal("1000.00"));
+        when(repository.findBalance("acc-001")).thenReturn(Optional.of(shadowBalance));
+
+        service.checkAndCorrect(cbsBalance);
+
+        verify(queue, never()).submit(any(CorrectionEvent.class));
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.SUPPRESSED_TOLERANCE, 1L);
+    }
+
+    @Test
+    void testAccountClassThresholdApplies() {
+        tolerance.getClasses().put("corporate", new BigDecimal("1.00"));
+
+        CbsBalance cbsBalance = new CbsBalance();
+        cbsBalance.setAccountId("acc-001");
+        cbsBalance.setAccountClass("corporate");
+        cbsBalance.setReportedBalance(new BigDecimal("1000.75"));
+
+        ShadowBalanceView shadowBalance = new ShadowBalanceView("acc-001", new BigDecimal("1000.00"));
+        when(repository.findBalance("acc-001")).thenReturn(Optional.of(shadowBalance));
+
+        service.checkAndCorrect(cbsBalance);
+
+        verify(queue, never()).submit(any(CorrectionEvent.class));
+    }
+
+    @Test
+    void testRecentLedgerActivitySuppressedAsInFlight() {
+        Instant asOf = Instant.parse("2025-01-01T12:00:00Z");
+
+        CbsBalance cbsBalance = new CbsBalance();
+        cbsBalance.setAccountId("acc-001");
+        cbsBalance.setReportedBalance(new BigDecimal("1500.00"));
+        cbsBalance.setAsOf(asOf);
+
+        ShadowBalanceView shadowBalance = new ShadowBalanceView("acc-001", new BigDecimal("1000.00"), asOf.minusSeconds(5));
+        when(repository.findBalance("acc-001")).thenReturn(Optional.of(shadowBalance));
+
+        service.checkAndCorrect(cbsBalance);
+
+        verify(queue, never()).submit(any(CorrectionEvent.class));
+        assertThat(metrics.snapshot()).containsEntry(DriftMetrics.SUPPRESSED_IN_FLIGHT, 1L);
+    }
+
+    @Test
+    void testQuietLedgerOutsideGracePeriodIsCorrected() {
+        Instant asOf = Instant.parse("2025-01-01T12:00:00Z");
+
+        CbsBalance cbsBalance = new CbsBalance();
+        cbsBalance.setAccountId("acc-001");
+        cbsBalance.setReportedBalance(new BigDecimal("1500.00"));
+        cbsBalance.setAsOf(asOf);
+
+        ShadowBalanceView shadowBalance = new ShadowBalanceView("acc-001", new BigDecimal("1000.00"), asOf.minusSeconds(300));
+        when(repository.findBalance("acc-001")).thenReturn(Optional.of(shadowBalance));
+
+        service.checkAndCorrect(cbsBalance);
+
+        verify(queue, times(1)).submit(any(CorrectionEvent.class));
+    }
+}
@@ -0,0 +1,116 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.config.DriftToleranceProperties;
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.model.ShadowBalanceView;
+import com.shadowledger.drift.repository.ReactiveShadowLedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveDriftDetectionServiceTest {
+
+    @Mock
+    private ReactiveShadowLedgerRepository repository;
+
+    @Mock
+    private CorrectionQueue queue;
+
+    private ReactiveDriftDetectionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReactiveDriftDetectionService(repository, queue,
+                new DriftPolicy(new DriftToleranceProperties()), new DriftMetrics(new SimpleMeterRegistry()), 4);
+    }
+
+    @Test
+    void testCreditCorrectionWhenCbsHigher() {
+        when(repository.findBalance("acc-001"))
+                .thenReturn(Mono.just(new ShadowBalanceView("acc-001", new BigDecimal("1000.00"))));
+        when(queue.submit(any(CorrectionEvent.class))).thenReturn(true);
+
+        StepVerifier.create(service.checkAndCorrect(balance("acc-001", "1500.00")))
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo("credit");
+                    assertThat(event.getAmount()).isEqualByComparingTo("500.00");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testRejectedCorrectionIsNotEmitted() {
+        when(repository.findBalance("acc-001"))
+                .thenReturn(Mono.just(new ShadowBalanceView("acc-001", new BigDecimal("1000.00"))));
+        when(queue.submit(any(CorrectionEvent.class))).thenReturn(false);
+
+        StepVerifier.create(service.checkAndCorrect(balance("acc-001", "1500.00")))
+                .verifyComplete();
+    }
+
+    @Test
+    void testNoCorrectionWhenBalancesMatch() {
+        when(repository.findBalance("acc-001"))
+                .thenReturn(Mono.just(new ShadowBalanceView("acc-001", new BigDecimal("1000.00"))));
+
+        StepVerifier.create(service.checkAndCorrect(balance("acc-001", "1000.00")))
+                .verifyComplete();
+
+        verifyNoInteractions(queue);
+    }
+
+    @Test
+    void testNoCorrectionWhenShadowBalanceNotFound() {
+        when(repository.findBalance("acc-999")).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.checkAndCorrect(balance("acc-999", "1000.00")))
+                .verifyComplete();
+
+        verifyNoInteractions(queue);
+    }
+
+    @Test
+    void testConcurrencyIsBounded() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(repository.findBalance(anyString())).thenAnswer(invocation -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.just(new ShadowBalanceView(invocation.getArgument(0), BigDecimal.ZERO));
+                })
+                .delayElement(Duration.ofMillis(5))
+                .doOnTerminate(inFlight::decrementAndGet));
+        when(queue.submit(any(CorrectionEvent.class))).thenReturn(true);
+
+        Flux<CbsBalance> balances = Flux.range(0, 50).map(i -> balance("acc-" + i, "10.00"));
+
+        StepVerifier.create(service.checkAll(balances))
+                .expectNextCount(50)
+                .verifyComplete();
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+    }
+
+    private static CbsBalance balance(String accountId, String amount) {
+        CbsBalance balance = new CbsBalance();
+        balance.setAccountId(accountId);
+        balance.setReportedBalance(new BigDecimal(amount));
+        return balance;
+    }
+}
@@ -0,0 +1,106 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.merkle.AccountMerkleTree;
+import com.shadowledger.drift.model.CbsBalance;
+import com.shadowledger.drift.model.ReconciliationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReconciliationServiceTest {
+
+    @Mock
+    private ShadowMerkleTreeService shadowTrees;
+
+    @Mock
+    private DriftDetectionService driftDetectionService;
+
+    @InjectMocks
+    private ReconciliationService service;
+
+    @Test
+    void testMatchingSnapshotTriggersNoChecks() {
+        when(shadowTrees.currentTree()).thenReturn(shadowTree(100));
+
+        ReconciliationReport report = service.reconcile(snapshot(100));
+
+        assertThat(report.getBucketsMismatched()).isZero();
+        assertThat(report.getAccountsCompared()).isZero();
+        assertThat(report.getDriftedAccounts()).isEmpty();
+        verifyNoInteractions(driftDetectionService);
+    }
+
+    @Test
+    void testOnlyDriftedAccountIsChecked() {
+        when(shadowTrees.currentTree()).thenReturn(shadowTree(100));
+        List<CbsBalance> snapshot = snapshot(100);
+        snapshot.get(42).setReportedBalance(new BigDecimal("1042.50"));
+
+        ReconciliationReport report = service.reconcile(snapshot);
+
+        ArgumentCaptor<CbsBalance> captor = ArgumentCaptor.forClass(CbsBalance.class);
+        verify(driftDetectionService, times(1)).checkAndCorrect(captor.capture());
+        assertThat(captor.getValue().getAccountId()).isEqualTo("acc-42");
+        assertThat(report.getBucketsMismatched()).isEqualTo(1);
+        assertThat(report.getDriftedAccounts()).containsExactly("acc-42");
+    }
+
+    @Test
+    void testAccountMissingFromSnapshotIsReportedNotCorrected() {
+        when(shadowTrees.currentTree()).thenReturn(shadowTree(100));
+        List<CbsBalance> snapshot = snapshot(100);
+        snapshot.remove(7);
+
+        ReconciliationReport report = service.reconcile(snapshot);
+
+        assertThat(report.getUnreportedAccounts()).containsExactly("acc-7");
+        assertThat(report.getDriftedAccounts()).isEmpty();
+        verifyNoInteractions(driftDetectionService);
+    }
+
+    @Test
+    void testAccountMissingFromShadowIsChecked() {
+        when(shadowTrees.currentTree()).thenReturn(shadowTree(10));
+        List<CbsBalance> snapshot = snapshot(10);
+        snapshot.add(balance("acc-new", "50.00"));
+
+        ReconciliationReport report = service.reconcile(snapshot);
+
+        assertThat(report.getDriftedAccounts()).containsExactly("acc-new");
+        verify(driftDetectionService, times(1)).checkAndCorrect(any(CbsBalance.class));
+    }
+
+    private static AccountMerkleTree shadowTree(int accounts) {
+        AccountMerkleTree tree = new AccountMerkleTree(8);
+        for (int i = 0; i < accounts; i++) {
+            tree.put("acc-" + i, 100000L + i);
+        }
+        return tree;
+    }
+
+    private static List<CbsBalance> snapshot(int accounts) {
+        List<CbsBalance> balances = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            balances.add(balance("acc-" + i, new BigDecimal("1000.00").add(new BigDecimal(i).movePointLeft(2)).toPlainString()));
+        }
+        return balances;
+    }
+
+    private static CbsBalance balance(String accountId, String amount) {
+        CbsBalance balance = new CbsBalance();
+        balance.setAccountId(accountId);
+        balance.setReportedBalance(new BigDecimal(amount));
+        return balance;
+    }
+}
@@ -0,0 +1,196 @@
+package com.shadowledger.drift.service;
+
+import com.shadowledger.drift.config.DriftToleranceProperties;
+import com.shadowledger.drift.model.CbsWindowBalance;
+import com.shadowledger.drift.model.CbsWindowedBalances;
+import com.shadowledger.drift.model.CorrectionEvent;
+import com.shadowledger.drift.model.WindowDriftReport;
+import com.shadowledger.drift.repository.ShadowLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WindowedDriftDetectionServiceTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    @Mock
+    private ShadowLedgerRepository repository;
+
+    @Mock
+    private CorrectionQueue queue;
+
+    private WindowedDriftDetectionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WindowedDriftDetectionService(repository, new DriftPolicy(new DriftToleranceProperties()), queue);
+    }
+
+    @Test
+    void testNoDriftUsesSingleQuery() {
+        CbsWindowedBalances feed = feed(64, -1, BigDecimal.ZERO);
+        stubShadowBalances();
+
+        Optional<WindowDriftReport> report = service.locateAndCorrect(feed);
+
+        assertThat(report).isEmpty();
+        verify(repository, times(1)).findBalanceBefore(eq("acc-001"), any(Instant.class));
+        verify(queue, never()).submit(any(CorrectionEvent.class));
+    }
+
+    @Test
+    void testLocatesFirstDriftedWindowInLogarithmicQueries() {
+        BigDecimal drift = new BigDecimal("25.00");
+        CbsWindowedBalances feed = feed(1024, 700, drift);
+        stubShadowBalances();
+
+        WindowDriftReport report = service.locateAndCorrect(feed).orElseThrow();
+
+        assertThat(report.getWindowStart()).isEqualTo(START.plus(WINDOW.multipliedBy(700)));
+        assertThat(report.getDrift()).isEqualByComparingTo("25.00");
+        assertThat(report.getShadowQueries()).isLessThanOrEqualTo(11);
+        verify(repository, atMost(11)).findBalanceBefore(eq("acc-001"), any(Instant.class));
+    }
+
+    @Test
+    void testCorrectionCarriesWindowReference() {
+        CbsWindowedBalances feed = feed(8, 3, new BigDecimal("-10.00"));
+        stubShadowBalances();
+
+        service.locateAndCorrect(feed);
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(queue, times(1)).submit(captor.capture());
+        CorrectionEvent event = captor.getValue();
+        Instant windowStart = START.plus(WINDOW.multipliedBy(3));
+        assertThat(event.getType()).isEqualTo("debit");
+        assertThat(event.getAmount()).isEqualByComparingTo("10.00");
+        assertThat(event.getWindowStart()).isEqualTo(windowStart);
+        assertThat(event.getWindowEnd()).isEqualTo(windowStart.plus(WINDOW));
+        assertThat(event.getTimestamp()).isBefore(event.getWindowEnd());
+        assertThat(event.getTimestamp()).isAfterOrEqualTo(event.getWindowStart());
+    }
+
+    @Test
+    void testShardedLedgerIsNotCorrected() {
+        CbsWindowedBalances feed = feed(8, 3, new BigDecimal("25.00"));
+        stubShadowBalances();
+        when(repository.isSharded()).thenReturn(true);
+
+        Optional<WindowDriftReport> report = service.locateAndCorrect(feed);
+
+        assertThat(report).isEmpty();
+        verify(queue, never()).submit(any(CorrectionEvent.class));
+    }
+
+    @Test
+    void testDriftInFirstWindow() {
+        CbsWindowedBalances feed = feed(16, 0, new BigDecimal("1.00"));
+        stubShadowBalances();
+
+        WindowDriftReport report = service.locateAndCorrect(feed).orElseThrow();
+
+        assertThat(report.getWindowStart()).isEqualTo(START);
+    }
+
+    @Test
+    void testReportsDriftAddedInLaterWindows() {
+        CbsWindowedBalances feed = feed(16, 3, new BigDecimal("25.00"));
+        addDrift(feed, 9, new BigDecimal("10.00"));
+        stubShadowBalances();
+
+        WindowDriftReport report = service.locateAndCorrect(feed).orElseThrow();
+
+        assertThat(report.getWindowStart()).isEqualTo(START.plus(WINDOW.multipliedBy(3)));
+        assertThat(report.getDrift()).isEqualByComparingTo("25.00");
+        assertThat(report.getTotalDrift()).isEqualByComparingTo("35.00");
+        assertThat(report.getRemainingDrift()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void testLaterDriftCorrectedByNextCheck() {
+        CbsWindowedBalances feed = feed(16, 3, new BigDecimal("25.00"));
+        addDrift(feed, 9, new BigDecimal("10.00"));
+        stubShadowBalances();
+        WindowDriftReport first = service.locateAndCorrect(feed).orElseThrow();
+
+        // the ledger has applied the first correction
+        stubShadowBalances(3, first.getDrift());
+        WindowDriftReport second = service.locateAndCorrect(feed).orElseThrow();
+
+        assertThat(second.getWindowStart()).isEqualTo(START.plus(WINDOW.multipliedBy(9)));
+        assertThat(second.getDrift()).isEqualByComparingTo("10.00");
+        assertThat(second.getRemainingDrift()).isEqualByComparingTo("0.00");
+
+        stubShadowBalances(9, first.getDrift().add(second.getDrift()));
+        assertThat(service.locateAndCorrect(feed)).isEmpty();
+
+        ArgumentCaptor<CorrectionEvent> captor = ArgumentCaptor.forClass(CorrectionEvent.class);
+        verify(queue, times(2)).submit(captor.capture());
+        assertThat(captor.getAllValues())
+                .extracting(CorrectionEvent::getAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("25.00"), new BigDecimal("10.00"));
+    }
+
+    /**
+     * Builds a feed whose closing balance grows by 100 per window and carries
+     * {@code drift} from window {@code driftFrom} onwards.
+     */
+    private static CbsWindowedBalances feed(int windows, int driftFrom, BigDecimal drift) {
+        List<CbsWindowBalance> balances = new ArrayList<>();
+        for (int i = 0; i < windows; i++) {
+            CbsWindowBalance window = new CbsWindowBalance();
+            window.setWindowStart(START.plus(WINDOW.multipliedBy(i)));
+            window.setWindowEnd(START.plus(WINDOW.multipliedBy(i + 1)));
+            BigDecimal closing = BigDecimal.valueOf(100L * (i + 1));
+            window.setClosingBalance(driftFrom >= 0 && i >= driftFrom ? closing.add(drift) : closing);
+            balances.add(window);
+        }
+        CbsWindowedBalances feed = new CbsWindowedBalances();
+        feed.setAccountId("acc-001");
+        feed.setWindows(balances);
+        return feed;
+    }
+
+    private static void addDrift(CbsWindowedBalances feed, int from, BigDecimal drift) {
+        List<CbsWindowBalance> windows = feed.getWindows();
+        for (int i = from; i < windows.size(); i++) {
+            windows.get(i).setClosingBalance(windows.get(i).getClosingBalance().add(drift));
+        }
+    }
+
+    private void stubShadowBalances() {
+        stubShadowBalances(0, BigDecimal.ZERO);
+    }
+
+    /**
+     * Shadow balances of 100 per window, plus {@code corrected} from window {@code from} onwards.
+     */
+    private void stubShadowBalances(int from, BigDecimal corrected) {
+        lenient().when(repository.findBalanceBefore(eq("acc-001"), any(Instant.class))).thenAnswer(invocation -> {
+            Instant end = invocation.getArgument(1);
+            long index = Duration.between(START, end).dividedBy(WINDOW) - 1;
+            BigDecimal balance = BigDecimal.valueOf(100L * (index + 1));
+            return index >= from ? balance.add(corrected) : balance;
+        });
+    }
+}
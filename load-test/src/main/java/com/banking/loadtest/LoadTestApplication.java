@@ -0,0 +1,14 @@
+package com.banking.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+@SpringBootApplication
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LoadTestApplication.class, args);
+    }
+}
@@ -0,0 +1,102 @@
+package com.banking.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of a load test run, under {@code loadtest}. Defaults are in application.yml.
+ *
+ * @param target     send events and drift checks through the gateway or straight to the services
+ * @param rate       events per second, offered on schedule whether or not earlier ones have been answered
+ * @param warmup     first part of the duration left out of the latencies, while the services warm up
+ * @param runId      prefix of the run's account and event ids; a new one is made up when blank
+ * @param reportFile where to write the summary as JSON as well as logging it; optional
+ */
+@ConfigurationProperties("loadtest")
+public record LoadTestProperties(
+        Target target,
+        Endpoints endpoints,
+        Gateway gateway,
+        double rate,
+        Duration duration,
+        Duration warmup,
+        int maxInFlight,
+        Duration requestTimeout,
+        long seed,
+        String runId,
+        Workload workload,
+        Probe probe,
+        Verify verify,
+        Drift drift,
+        Path reportFile) {
+
+    public enum Target {
+        GATEWAY,
+        DIRECT
+    }
+
+    /**
+     * Base URLs. Balances are always read from the ledger service directly: the gateway
+     * caches them for a second, which would hide the latency being measured.
+     */
+    public record Endpoints(URI gateway, URI events, URI ledger, URI drift) {
+    }
+
+    /**
+     * Tokens are requested for {@code principals} users named after {@code username}.
+     * The gateway rate-limits each user, so several are needed to offer more than one
+     * user's limit.
+     */
+    public record Gateway(String username, List<String> roles, int principals) {
+    }
+
+    /**
+     * @param zipfExponent   skew of activity over accounts; 0 is uniform, around 1 a few accounts get most events
+     * @param debitRatio     share of events that try to be debits; a debit the account could not
+     *                       cover is sent as a credit instead, so the ledger never rejects one
+     * @param duplicateRate  share of events that resend an event already accepted
+     * @param outOfOrderRate share of events stamped up to {@code maxLateness} in the past
+     */
+    public record Workload(int accounts,
+                           double zipfExponent,
+                           double debitRatio,
+                           BigDecimal minAmount,
+                           BigDecimal maxAmount,
+                           double duplicateRate,
+                           double outOfOrderRate,
+                           Duration maxLateness) {
+    }
+
+    /**
+     * Probe events go to accounts of their own, one outstanding per account, and are
+     * polled for on the ledger until they show up as the account's last event.
+     */
+    public record Probe(double rate, int accounts, Duration pollInterval, Duration timeout) {
+    }
+
+    /**
+     * After the run, waits up to {@code timeout} for every account's ledger balance to
+     * match the events that were accepted.
+     */
+    public record Verify(boolean enabled, Duration timeout) {
+    }
+
+    /**
+     * Reports CBS balances for {@code accounts} of the run's accounts once the ledger has
+     * settled; {@code driftedRatio} of them are off by {@code amount} and should be
+     * corrected, the rest match and should be left alone. {@code gracePeriod} must be at
+     * least the drift service's drift.tolerance.grace-period.
+     */
+    public record Drift(boolean enabled,
+                        int accounts,
+                        double driftedRatio,
+                        BigDecimal amount,
+                        Duration gracePeriod,
+                        Duration timeout) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.banking.loadtest.client;
+
+import com.banking.loadtest.LoadTestProperties;
+import com.banking.loadtest.workload.GeneratedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP calls to the system under test: events and drift checks through the gateway or
+ * directly, depending on {@code loadtest.target}, and balances from the ledger service.
+ */
+public class LedgerSystemClient {
+
+    // The ledger service's ledger.balances.max-accounts
+    private static final int BALANCE_BATCH = 500;
+
+    public record Balance(String accountId, BigDecimal balance, String lastEvent) {
+    }
+
+    public record CbsBalance(String accountId, BigDecimal reportedBalance, Instant asOf) {
+    }
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final URI events;
+    private final URI drift;
+    private final URI ledger;
+    private final List<String> tokens = new ArrayList<>();
+    private final AtomicInteger nextToken = new AtomicInteger();
+
+    public LedgerSystemClient(LoadTestProperties properties, ObjectMapper objectMapper) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.requestTimeout())
+                .build();
+        this.objectMapper = objectMapper;
+        this.timeout = properties.requestTimeout();
+        LoadTestProperties.Endpoints endpoints = properties.endpoints();
+        boolean viaGateway = properties.target() == LoadTestProperties.Target.GATEWAY;
+        this.events = viaGateway ? endpoints.gateway() : endpoints.events();
+        this.drift = viaGateway ? endpoints.gateway() : endpoints.drift();
+        this.ledger = endpoints.ledger();
+        if (viaGateway) {
+            LoadTestProperties.Gateway gateway = properties.gateway();
+            for (int i = 0; i < Math.max(1, gateway.principals()); i++) {
+                String username = gateway.principals() > 1 ? gateway.username() + "-" + i : gateway.username();
+                tokens.add(token(endpoints.gateway(), username, gateway.roles()));
+            }
+        }
+    }
+
+    /**
+     * Posts the event and completes with the status code, or exceptionally if no answer
+     * came.
+     */
+    public CompletableFuture<Integer> postEvent(GeneratedEvent event) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("eventId", event.eventId());
+        body.put("accountId", event.accountId());
+        body.put("type", event.type());
+        body.put("amount", event.amount());
+        body.put("timestamp", event.timestamp());
+        return http.sendAsync(post(events.resolve("/events"), body), HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    public int postDriftCheck(List<CbsBalance> balances) throws IOException, InterruptedException {
+        return http.send(post(drift.resolve("/drift-check"), balances), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    public Balance balance(String accountId) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(get(ledger.resolve(
+                "/accounts/" + encode(accountId) + "/shadow-balance")), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Balance of " + accountId + " answered " + response.statusCode());
+        }
+        return objectMapper.readValue(response.body(), Balance.class);
+    }
+
+    /**
+     * Balances of the given accounts, read in batches.
+     */
+    public Map<String, Balance> balances(List<String> accountIds) throws IOException, InterruptedException {
+        Map<String, Balance> balances = new HashMap<>();
+        for (int from = 0; from < accountIds.size(); from += BALANCE_BATCH) {
+            String query = accountIds.subList(from, Math.min(accountIds.size(), from + BALANCE_BATCH)).stream()
+                    .map(LedgerSystemClient::encode)
+                    .collect(Collectors.joining(","));
+            HttpResponse<byte[]> response = http.send(get(ledger.resolve("/accounts/shadow-balances?accountIds=" + query)),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Balances answered " + response.statusCode());
+            }
+            for (Balance balance : objectMapper.readValue(response.body(), Balance[].class)) {
+                balances.put(balance.accountId(), balance);
+            }
+        }
+        return balances;
+    }
+
+    private String token(URI gateway, String username, List<String> roles) {
+        try {
+            HttpResponse<byte[]> response = http.send(
+                    HttpRequest.newBuilder(gateway.resolve("/auth/token"))
+                            .timeout(timeout)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(
+                                    Map.of("username", username, "roles", roles))))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Gateway token request answered " + response.statusCode());
+            }
+            JsonNode token = objectMapper.readTree(response.body()).get("token");
+            if (token == null) {
+                throw new IllegalStateException("Gateway token response has no token");
+            }
+            return token.asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not get a gateway token from " + gateway, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest post(URI uri, Object body) {
+        try {
+            return authorized(HttpRequest.newBuilder(uri))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private HttpRequest get(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder builder) {
+        builder.timeout(timeout);
+        if (!tokens.isEmpty()) {
+            // Round robin over the principals, each with its own rate limit
+            String token = tokens.get(Math.floorMod(nextToken.getAndIncrement(), tokens.size()));
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package com.banking.loadtest.run;
+
+import com.banking.loadtest.client.LedgerSystemClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the ledger to reflect every accepted event: each account's balance must
+ * come to equal the sum of its accepted credits less its accepted debits.
+ */
+public class BalanceVerifier {
+
+    private static final int EXAMPLES = 10;
+
+    /**
+     * @param settledSeconds time from the start of verification until the last account matched
+     * @param mismatches     a few of the accounts that still differ, with both balances
+     */
+    public record Result(int accounts, int matched, long uncertain, double settledSeconds, List<String> mismatches) {
+    }
+
+    private final LedgerSystemClient client;
+
+    public BalanceVerifier(LedgerSystemClient client) {
+        this.client = client;
+    }
+
+    public Result verify(Map<String, Long> expected, long uncertain, Duration timeout)
+            throws IOException, InterruptedException {
+        long began = System.nanoTime();
+        long deadline = began + timeout.toNanos();
+        TreeSet<String> pending = new TreeSet<>(expected.keySet());
+        Map<String, LedgerSystemClient.Balance> last = Map.of();
+        long settled = began;
+        while (!pending.isEmpty()) {
+            Map<String, LedgerSystemClient.Balance> read = client.balances(List.copyOf(pending));
+            last = read;
+            if (pending.removeIf(accountId -> matches(read.get(accountId), expected.get(accountId)))) {
+                settled = System.nanoTime();
+            }
+            if (pending.isEmpty() || System.nanoTime() > deadline) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (String accountId : pending) {
+            if (mismatches.size() == EXAMPLES) {
+                break;
+            }
+            LedgerSystemClient.Balance balance = last.get(accountId);
+            mismatches.add(accountId + ": expected " + BigDecimal.valueOf(expected.get(accountId), 2)
+                    + ", ledger has " + (balance != null ? balance.balance() : "nothing"));
+        }
+        return new Result(expected.size(), expected.size() - pending.size(), uncertain,
+                (settled - began) / 1e9, mismatches);
+    }
+
+    static boolean matches(LedgerSystemClient.Balance balance, long expectedCents) {
+        return balance != null && balance.balance() != null
+                && balance.balance().compareTo(BigDecimal.valueOf(expectedCents, 2)) == 0;
+    }
+}
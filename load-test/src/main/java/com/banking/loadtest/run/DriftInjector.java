@@ -0,0 +1,118 @@
+package com.banking.loadtest.run;
+
+import com.banking.loadtest.LoadTestProperties;
+import com.banking.loadtest.client.LedgerSystemClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the core banking system: reports balances for some of the run's accounts to
+ * the drift service, a share of them off by a fixed amount, and waits for the ledger
+ * to be corrected to the reported balance. Accounts reported correctly must keep their
+ * balance.
+ *
+ * Reports are only sent once the ledger has settled and the last event is older than
+ * the grace period, so the drift service does not hold them back as in flight.
+ */
+public class DriftInjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriftInjector.class);
+
+    private static final int REPORT_BATCH = 500;
+
+    /**
+     * @param latency time from the report being accepted until the ledger showed the corrected balance
+     */
+    public record Result(int reported, int drifted, int corrected, int falseCorrections,
+                         LatencySamples.Summary latency) {
+    }
+
+    private final LedgerSystemClient client;
+    private final LoadTestProperties.Drift settings;
+    private final long seed;
+
+    public DriftInjector(LedgerSystemClient client, LoadTestProperties.Drift settings, long seed) {
+        this.client = client;
+        this.settings = settings;
+        this.seed = seed;
+    }
+
+    /**
+     * @param settled            ledger balances in cents that are known to be up to date
+     * @param lastEventTimestamp newest timestamp of any event sent
+     */
+    public Result inject(Map<String, Long> settled, long lastEventTimestamp) throws IOException, InterruptedException {
+        List<String> accounts = new ArrayList<>(settled.keySet());
+        Collections.sort(accounts);
+        Random random = new Random(seed);
+        Collections.shuffle(accounts, random);
+        accounts = accounts.subList(0, Math.min(settings.accounts(), accounts.size()));
+        int drifted = (int) Math.round(accounts.size() * settings.driftedRatio());
+        long driftCents = settings.amount().movePointRight(2).longValueExact();
+
+        Map<String, Long> reported = new HashMap<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            String accountId = accounts.get(i);
+            long balance = settled.get(accountId);
+            long off = i < drifted ? (balance >= driftCents && random.nextBoolean() ? -driftCents : driftCents) : 0;
+            reported.put(accountId, balance + off);
+        }
+
+        long quietFor = System.currentTimeMillis() - lastEventTimestamp;
+        long wait = settings.gracePeriod().toMillis() - quietFor;
+        if (wait > 0) {
+            logger.info("Waiting {} s for the last event to leave the drift grace period", (wait + 999) / 1000);
+            TimeUnit.MILLISECONDS.sleep(wait + 1);
+        }
+
+        Instant asOf = Instant.now();
+        for (int from = 0; from < accounts.size(); from += REPORT_BATCH) {
+            List<LedgerSystemClient.CbsBalance> batch = accounts.subList(from, Math.min(accounts.size(), from + REPORT_BATCH))
+                    .stream()
+                    .map(accountId -> new LedgerSystemClient.CbsBalance(accountId,
+                            BigDecimal.valueOf(reported.get(accountId), 2), asOf))
+                    .toList();
+            int status = client.postDriftCheck(batch);
+            if (status / 100 != 2) {
+                throw new IOException("Drift check answered " + status);
+            }
+        }
+        long posted = System.nanoTime();
+        logger.info("Reported {} CBS balances, {} of them drifted by {}", accounts.size(), drifted, settings.amount());
+
+        LatencySamples latencies = new LatencySamples();
+        List<String> uncorrected = new ArrayList<>(accounts.subList(0, drifted));
+        long deadline = posted + settings.timeout().toNanos();
+        while (!uncorrected.isEmpty() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(200);
+            long polled = System.nanoTime();
+            Map<String, LedgerSystemClient.Balance> balances = client.balances(uncorrected);
+            uncorrected.removeIf(accountId -> {
+                if (BalanceVerifier.matches(balances.get(accountId), reported.get(accountId))) {
+                    latencies.record(polled - posted);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        // Accounts reported as they were should not have been touched
+        List<String> controls = accounts.subList(drifted, accounts.size());
+        Map<String, LedgerSystemClient.Balance> balances = client.balances(controls);
+        int falseCorrections = (int) controls.stream()
+                .filter(accountId -> !BalanceVerifier.matches(balances.get(accountId), settled.get(accountId)))
+                .count();
+        return new Result(accounts.size(), drifted, drifted - uncorrected.size(), falseCorrections, latencies.summary());
+    }
+}
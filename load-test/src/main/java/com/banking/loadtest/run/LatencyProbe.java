@@ -0,0 +1,128 @@
+package com.banking.loadtest.run;
+
+import com.banking.loadtest.LoadTestProperties;
+import com.banking.loadtest.client.LedgerSystemClient;
+import com.banking.loadtest.workload.AccountModel;
+import com.banking.loadtest.workload.GeneratedEvent;
+import com.banking.loadtest.workload.WorkloadGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long an event takes from being posted to showing up in the ledger.
+ *
+ * Each probe posts a credit to an account that only gets probes and then reads the
+ * account's balance from the ledger service until the probe is its last event. The
+ * latency runs from sending the POST to sending the read that found it, so it is
+ * accurate to within {@code loadtest.probe.poll-interval}. With one probe outstanding
+ * per account, a probe is skipped when all probe accounts are busy.
+ */
+public class LatencyProbe {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyProbe.class);
+
+    public record Result(long sent, long failed, long timedOut, long skipped, LatencySamples.Summary latency) {
+    }
+
+    private final LedgerSystemClient client;
+    private final WorkloadGenerator generator;
+    private final LoadTestProperties.Probe settings;
+    private final BlockingQueue<Integer> idle;
+    private final LatencySamples latencies = new LatencySamples();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public LatencyProbe(LedgerSystemClient client, WorkloadGenerator generator, LoadTestProperties.Probe settings) {
+        this.client = client;
+        this.generator = generator;
+        this.settings = settings;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, settings.accounts()));
+        for (int account = 0; account < settings.accounts(); account++) {
+            idle.add(account);
+        }
+    }
+
+    public void start(Duration delay) {
+        if (settings.rate() <= 0 || settings.accounts() < 1) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("probe").daemon().factory());
+        scheduler.scheduleAtFixedRate(this::launch, delay.toNanos(), (long) (1_000_000_000 / settings.rate()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops sending probes and waits for the outstanding ones.
+     */
+    public Result stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            long deadline = System.nanoTime() + settings.timeout().toNanos() + TimeUnit.SECONDS.toNanos(5);
+            while (idle.size() < settings.accounts() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+        return new Result(sent.sum(), failed.sum(), timedOut.sum(), skipped.sum(), latencies.summary());
+    }
+
+    private void launch() {
+        Integer account = idle.poll();
+        if (account == null) {
+            skipped.increment();
+            return;
+        }
+        Thread.ofVirtual().name("probe-" + account).start(() -> {
+            try {
+                probe(account);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                failed.increment();
+                logger.debug("Probe on account {} failed", account, e);
+            } finally {
+                idle.add(account);
+            }
+        });
+    }
+
+    private void probe(int account) throws Exception {
+        GeneratedEvent event = generator.probe(account, System.currentTimeMillis());
+        sent.increment();
+        long began = System.nanoTime();
+        int status;
+        try {
+            status = client.postEvent(event).get();
+        } catch (ExecutionException e) {
+            generator.settled(event, AccountModel.Outcome.UNKNOWN);
+            throw e;
+        }
+        generator.settled(event, AccountModel.of(status, null));
+        if (status != 201) {
+            failed.increment();
+            return;
+        }
+
+        long deadline = began + settings.timeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            long polled = System.nanoTime();
+            if (event.eventId().equals(client.balance(event.accountId()).lastEvent())) {
+                latencies.record(polled - began);
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(settings.pollInterval().toNanos());
+        }
+        timedOut.increment();
+    }
+}
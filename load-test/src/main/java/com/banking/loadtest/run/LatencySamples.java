@@ -0,0 +1,54 @@
+package com.banking.loadtest.run;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every latency recorded, so percentiles are exact rather than bucketed. A run of ten
+ * minutes at a thousand events a second keeps about 5 MB.
+ */
+public class LatencySamples {
+
+    public record Summary(long count, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        @Override
+        public String toString() {
+            return count == 0 ? "no samples" : String.format(
+                    "n=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    count, p50Ms, p90Ms, p99Ms, p999Ms, maxMs);
+        }
+    }
+
+    private long[] nanos = new long[1024];
+    private int count;
+
+    public synchronized void record(long latencyNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+    }
+
+    public synchronized Summary summary() {
+        if (count == 0) {
+            return new Summary(0, 0, 0, 0, 0, 0);
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new Summary(count, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), millis(sorted[count - 1]));
+    }
+
+    /**
+     * Nearest-rank percentile: the smallest sample with at least the fraction of samples
+     * at or below it.
+     */
+    static double percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return millis(sorted[Math.max(0, rank - 1)]);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
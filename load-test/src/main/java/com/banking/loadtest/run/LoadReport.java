@@ -0,0 +1,43 @@
+package com.banking.loadtest.run;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Summary of a run, logged at the end and optionally written as JSON. Sections that
+ * were turned off are null.
+ *
+ * @param answers count of each status code answered to {@code POST /events}, plus "error"
+ *                for requests that got no answer
+ */
+public record LoadReport(String runId,
+                         String target,
+                         double rate,
+                         double seconds,
+                         long offered,
+                         long shed,
+                         long accepted,
+                         double acceptedPerSecond,
+                         long debitsAccepted,
+                         long late,
+                         long duplicates,
+                         long duplicatesAccepted,
+                         Map<String, Long> answers,
+                         LatencySamples.Summary ackLatency,
+                         LatencyProbe.Result ingestToLedger,
+                         BalanceVerifier.Result verification,
+                         DriftInjector.Result drift) {
+
+    /**
+     * Whether the system kept its guarantees: no duplicate was accepted, every account
+     * settled to its expected balance, and drift was corrected on exactly the drifted
+     * accounts. Throughput and latency are reported, not judged.
+     */
+    @JsonProperty
+    public boolean passed() {
+        return duplicatesAccepted == 0
+                && (verification == null || verification.matched() == verification.accounts())
+                && (drift == null || (drift.corrected() == drift.drifted() && drift.falseCorrections() == 0));
+    }
+}
@@ -0,0 +1,191 @@
+package com.banking.loadtest.run;
+
+import com.banking.loadtest.LoadTestProperties;
+import com.banking.loadtest.client.LedgerSystemClient;
+import com.banking.loadtest.workload.AccountModel;
+import com.banking.loadtest.workload.GeneratedEvent;
+import com.banking.loadtest.workload.WorkloadGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offers the workload at {@code loadtest.rate} events per second for
+ * {@code loadtest.duration}, then checks the ledger and, if enabled, injects drift.
+ *
+ * The load is open: events are sent on a fixed schedule whatever the response times,
+ * as real clients would, so a slow system shows up as latency rather than as a lower
+ * offered rate. At most {@code loadtest.max-in-flight} requests are outstanding; an
+ * event due while that many are waiting is not sent and is counted as shed.
+ *
+ * Latencies leave out events sent during {@code loadtest.warmup}, while the services'
+ * JIT compilers and connection pools are still warming up.
+ *
+ * The process exits with 1 if {@link LoadReport#passed} is false.
+ */
+@Component
+@Profile("!stand-in")
+public class LoadRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final LoadTestProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    public LoadRunner(LoadTestProperties properties, ObjectMapper objectMapper, ConfigurableApplicationContext context) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (properties.rate() <= 0) {
+            throw new IllegalStateException("loadtest.rate must be positive");
+        }
+        String runId = properties.runId() == null || properties.runId().isBlank()
+                ? HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt())
+                : properties.runId();
+        LedgerSystemClient client = new LedgerSystemClient(properties, objectMapper);
+        AccountModel model = new AccountModel();
+        WorkloadGenerator generator = new WorkloadGenerator(properties.workload(), runId, properties.seed(), model);
+        LatencyProbe probe = new LatencyProbe(client, generator, properties.probe());
+        LoadStats stats = new LoadStats();
+        AtomicLong lastTimestamp = new AtomicLong();
+
+        logger.info("Run {}: {} events/s for {} against {} ({} accounts, zipf {}, debit ratio {}, duplicates {}, late {})",
+                runId, properties.rate(), properties.duration(), properties.target(),
+                properties.workload().accounts(), properties.workload().zipfExponent(),
+                properties.workload().debitRatio(), properties.workload().duplicateRate(),
+                properties.workload().outOfOrderRate());
+
+        probe.start(properties.warmup());
+        long began = System.nanoTime();
+        offer(client, generator, stats, lastTimestamp, began);
+        double seconds = (System.nanoTime() - began) / 1e9;
+        LatencyProbe.Result probes = probe.stop();
+
+        BalanceVerifier.Result verification = null;
+        Map<String, Long> expected = model.expectedBalances();
+        if (properties.verify().enabled()) {
+            logger.info("Waiting for the ledger to settle on {} accounts", expected.size());
+            verification = new BalanceVerifier(client).verify(expected, model.uncertainAccounts(),
+                    properties.verify().timeout());
+        }
+        DriftInjector.Result drift = null;
+        if (properties.drift().enabled()) {
+            if (verification != null && verification.matched() == verification.accounts()) {
+                drift = new DriftInjector(client, properties.drift(), properties.seed()).inject(expected, lastTimestamp.get());
+            } else {
+                logger.warn("Skipping drift injection: it needs balance verification to pass first");
+            }
+        }
+
+        LoadReport report = new LoadReport(runId, properties.target().name(), properties.rate(), seconds,
+                stats.offered.sum(), stats.shed.sum(), stats.accepted.sum(), stats.accepted.sum() / seconds,
+                stats.debitsAccepted.sum(), stats.late.sum(), stats.duplicates.sum(), stats.duplicatesAccepted.sum(),
+                stats.answers(), stats.ackLatency.summary(), probes, verification, drift);
+        log(report);
+        if (properties.reportFile() != null) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(properties.reportFile().toFile(), report);
+        }
+        System.exit(SpringApplication.exit(context, () -> report.passed() ? 0 : 1));
+    }
+
+    private void offer(LedgerSystemClient client, WorkloadGenerator generator, LoadStats stats,
+                       AtomicLong lastTimestamp, long began) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(properties.maxInFlight());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.rate());
+        long end = began + properties.duration().toNanos();
+        long measureFrom = began + properties.warmup().toNanos();
+        long nextProgress = began + PROGRESS_INTERVAL;
+
+        for (long i = 0; ; i++) {
+            long due = began + i * interval;
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (due >= nextProgress) {
+                logger.info("{} s: offered {}, accepted {}, shed {}, in flight {}", (due - began) / 1_000_000_000,
+                        stats.offered.sum(), stats.accepted.sum(), stats.shed.sum(),
+                        properties.maxInFlight() - inFlight.availablePermits());
+                nextProgress += PROGRESS_INTERVAL;
+            }
+
+            GeneratedEvent event = generator.next(System.currentTimeMillis());
+            stats.offered.increment();
+            if (!inFlight.tryAcquire()) {
+                stats.shed.increment();
+                generator.settled(event, AccountModel.Outcome.REJECTED);
+                continue;
+            }
+            switch (event.kind()) {
+                case LATE -> stats.late.increment();
+                case DUPLICATE -> stats.duplicates.increment();
+                default -> {
+                }
+            }
+            lastTimestamp.accumulateAndGet(event.timestamp(), Math::max);
+            long sent = System.nanoTime();
+            boolean measured = due >= measureFrom;
+            client.postEvent(event).whenComplete((status, error) -> {
+                stats.answered(event, status, error, System.nanoTime() - sent, measured);
+                generator.settled(event, AccountModel.of(status, error));
+                inFlight.release();
+            });
+        }
+
+        // Let every request be answered or time out before reading the ledger
+        if (!inFlight.tryAcquire(properties.maxInFlight(),
+                properties.requestTimeout().toMillis() + 5000, TimeUnit.MILLISECONDS)) {
+            logger.warn("Some requests were still unanswered after the request timeout");
+        }
+    }
+
+    private static void log(LoadReport report) {
+        logger.info("Run {} against {}: offered {} events in {} s at {}/s", report.runId(), report.target(),
+                report.offered(), String.format("%.1f", report.seconds()), report.rate());
+        logger.info("  accepted {} ({}/s, {} debits), shed {}, answers {}", report.accepted(),
+                String.format("%.1f", report.acceptedPerSecond()), report.debitsAccepted(), report.shed(), report.answers());
+        logger.info("  late {}, duplicates {} of which accepted {}", report.late(), report.duplicates(),
+                report.duplicatesAccepted());
+        logger.info("  ack latency: {}", report.ackLatency());
+        LatencyProbe.Result probe = report.ingestToLedger();
+        logger.info("  ingest-to-ledger latency: {} (probes {}, failed {}, timed out {}, skipped {})",
+                probe.latency(), probe.sent(), probe.failed(), probe.timedOut(), probe.skipped());
+        BalanceVerifier.Result verification = report.verification();
+        if (verification != null) {
+            logger.info("  balances: {} of {} accounts matched after {} s ({} left out with unknown outcomes)",
+                    verification.matched(), verification.accounts(),
+                    String.format("%.1f", verification.settledSeconds()), verification.uncertain());
+            verification.mismatches().forEach(mismatch -> logger.warn("    {}", mismatch));
+        }
+        DriftInjector.Result drift = report.drift();
+        if (drift != null) {
+            logger.info("  drift: {} of {} drifted accounts corrected, {} false corrections among {} reported; {}",
+                    drift.corrected(), drift.drifted(), drift.falseCorrections(), drift.reported(), drift.latency());
+        }
+        logger.info("Run {} {}", report.runId(), report.passed() ? "passed" : "FAILED");
+    }
+}
@@ -0,0 +1,49 @@
+package com.banking.loadtest.run;
+
+import com.banking.loadtest.workload.GeneratedEvent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of what was offered and how it was answered.
+ */
+public class LoadStats {
+
+    final LongAdder offered = new LongAdder();
+    final LongAdder shed = new LongAdder();
+    final LongAdder accepted = new LongAdder();
+    final LongAdder debitsAccepted = new LongAdder();
+    final LongAdder late = new LongAdder();
+    final LongAdder duplicates = new LongAdder();
+    final LongAdder duplicatesAccepted = new LongAdder();
+    final LatencySamples ackLatency = new LatencySamples();
+    private final Map<String, LongAdder> answers = new ConcurrentHashMap<>();
+
+    void answered(GeneratedEvent event, Integer status, Throwable error, long latencyNanos, boolean measured) {
+        String answer = error != null ? "error" : String.valueOf(status);
+        answers.computeIfAbsent(answer, a -> new LongAdder()).increment();
+        if (error != null || status != 201) {
+            return;
+        }
+        if (measured) {
+            ackLatency.record(latencyNanos);
+        }
+        if (event.kind() == GeneratedEvent.Kind.DUPLICATE) {
+            duplicatesAccepted.increment();
+        } else {
+            accepted.increment();
+            if (event.isDebit()) {
+                debitsAccepted.increment();
+            }
+        }
+    }
+
+    Map<String, Long> answers() {
+        Map<String, Long> counts = new TreeMap<>();
+        answers.forEach((answer, count) -> counts.put(answer, count.sum()));
+        return counts;
+    }
+}
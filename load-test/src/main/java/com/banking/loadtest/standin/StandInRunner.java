@@ -0,0 +1,86 @@
+package com.banking.loadtest.standin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.test.EmbeddedKafkaZKBroker;
+import org.springframework.stereotype.Component;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the Kafka and Postgres the services need on the ports they expect by default,
+ * so the whole system can be load tested on one machine without a cluster.
+ *
+ * Runs instead of the load test under the {@code stand-in} profile and keeps running
+ * until stopped. Kafka is an in-process broker with both transaction topics
+ * created with {@code loadtest.stand-in.partitions} partitions, which should match
+ * the ledger's ledger.sharding.logical-shards. Postgres is a container started with
+ * Testcontainers, so it needs Docker; set {@code loadtest.stand-in.postgres=false} to
+ * use a Postgres that is already running. Data lives only as long as the process.
+ */
+@Component
+@Profile("stand-in")
+public class StandInRunner implements ApplicationRunner, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StandInRunner.class);
+
+    private final int kafkaPort;
+    private final int partitions;
+    private final boolean postgres;
+    private final int postgresPort;
+    private final String postgresImage;
+    private EmbeddedKafkaZKBroker broker;
+    private PostgreSQLContainer<?> database;
+
+    public StandInRunner(@Value("${loadtest.stand-in.kafka-port:9092}") int kafkaPort,
+                         @Value("${loadtest.stand-in.partitions:12}") int partitions,
+                         @Value("${loadtest.stand-in.postgres:true}") boolean postgres,
+                         @Value("${loadtest.stand-in.postgres-port:5433}") int postgresPort,
+                         @Value("${loadtest.stand-in.postgres-image:postgres:15}") String postgresImage) {
+        this.kafkaPort = kafkaPort;
+        this.partitions = partitions;
+        this.postgres = postgres;
+        this.postgresPort = postgresPort;
+        this.postgresImage = postgresImage;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        // The KRaft test broker always listens on a random port, so the ZooKeeper one is used
+        broker = new EmbeddedKafkaZKBroker(1, false, partitions, "transactions.raw", "transactions.corrections")
+                .kafkaPorts(kafkaPort);
+        broker.afterPropertiesSet();
+        logger.info("Kafka stand-in listening on {} with {} partitions per topic", broker.getBrokersAsString(), partitions);
+
+        if (postgres) {
+            database = new PostgreSQLContainer<>(DockerImageName.parse(postgresImage).asCompatibleSubstituteFor("postgres"))
+                    .withDatabaseName("ledgerdb")
+                    .withUsername("postgres")
+                    .withPassword("0000");
+            database.setPortBindings(List.of(postgresPort + ":5432"));
+            database.start();
+            logger.info("Postgres stand-in listening on localhost:{} (ledgerdb, postgres/0000)", postgresPort);
+        }
+
+        logger.info("Stand-ins are up; start the services, then the load test. Stop with Ctrl-C");
+        new CountDownLatch(1).await();
+    }
+
+    @Override
+    public void destroy() {
+        if (database != null) {
+            database.stop();
+        }
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.banking.loadtest.workload;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What each account's ledger balance should be, from the answers to the events posted.
+ *
+ * Debits are reserved against the accepted balance before they are sent, so debits
+ * never outrun the credits in front of them on the account's partition. An event whose
+ * outcome is unknown (a timeout or a 5xx) may or may not have been published, so its
+ * account is left out of verification.
+ */
+public class AccountModel {
+
+    public enum Outcome {
+        ACCEPTED,
+        REJECTED,
+        UNKNOWN
+    }
+
+    /**
+     * The outcome an answer to {@code POST /events} implies: anything but a 201 or a 5xx
+     * means the event was turned away.
+     */
+    public static Outcome of(Integer status, Throwable error) {
+        if (error != null || status >= 500) {
+            return Outcome.UNKNOWN;
+        }
+        return status == 201 ? Outcome.ACCEPTED : Outcome.REJECTED;
+    }
+
+    private static final class Account {
+        long balance;
+        long reserved;
+        long accepted;
+        boolean uncertain;
+    }
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves the amount of a debit if the account can cover it with accepted credits
+     * that are not already reserved.
+     */
+    public boolean reserveDebit(String accountId, long cents) {
+        Account account = accounts.computeIfAbsent(accountId, id -> new Account());
+        synchronized (account) {
+            if (account.balance - account.reserved < cents) {
+                return false;
+            }
+            account.reserved += cents;
+            return true;
+        }
+    }
+
+    public void settle(GeneratedEvent event, Outcome outcome) {
+        if (event.kind() == GeneratedEvent.Kind.DUPLICATE) {
+            return;
+        }
+        Account account = accounts.computeIfAbsent(event.accountId(), id -> new Account());
+        synchronized (account) {
+            if (event.isDebit()) {
+                account.reserved -= event.cents();
+            }
+            switch (outcome) {
+                case ACCEPTED -> {
+                    account.balance += event.isDebit() ? -event.cents() : event.cents();
+                    account.accepted++;
+                }
+                case UNKNOWN -> account.uncertain = true;
+                case REJECTED -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Expected balance in cents of each account with accepted events and no unknown outcomes.
+     */
+    public Map<String, Long> expectedBalances() {
+        Map<String, Long> expected = new HashMap<>();
+        accounts.forEach((accountId, account) -> {
+            synchronized (account) {
+                if (account.accepted > 0 && !account.uncertain) {
+                    expected.put(accountId, account.balance);
+                }
+            }
+        });
+        return expected;
+    }
+
+    public long uncertainAccounts() {
+        return accounts.values().stream().filter(account -> {
+            synchronized (account) {
+                return account.uncertain;
+            }
+        }).count();
+    }
+}
@@ -0,0 +1,32 @@
+package com.banking.loadtest.workload;
+
+import java.math.BigDecimal;
+
+/**
+ * An event to post, with the amount in cents.
+ */
+public record GeneratedEvent(String eventId, String accountId, String type, long cents, long timestamp, Kind kind) {
+
+    public enum Kind {
+        /** A new event stamped now. */
+        NEW,
+        /** A new event stamped in the past, as if it had been held up on the way. */
+        LATE,
+        /** A resend of an accepted event, which should be answered 409. */
+        DUPLICATE,
+        /** A new event whose arrival in the ledger is being timed. */
+        PROBE
+    }
+
+    public boolean isDebit() {
+        return "debit".equals(type);
+    }
+
+    public BigDecimal amount() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public GeneratedEvent resend() {
+        return new GeneratedEvent(eventId, accountId, type, cents, timestamp, Kind.DUPLICATE);
+    }
+}
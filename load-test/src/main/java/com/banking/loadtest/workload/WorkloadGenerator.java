@@ -0,0 +1,101 @@
+package com.banking.loadtest.workload;
+
+import com.banking.loadtest.LoadTestProperties;
+
+import java.util.SplittableRandom;
+
+/**
+ * Produces the run's events from a seed, so the same settings offer the same sequence
+ * of accounts, types and amounts (which of them end up accepted still depends on the
+ * system). Accounts are drawn from a Zipfian distribution; the hottest account is
+ * {@code lt-<runId>-0}.
+ *
+ * {@link #next} is called from one thread; answers may be reported from any.
+ */
+public class WorkloadGenerator {
+
+    private static final int RECENT = 4096;
+
+    private final LoadTestProperties.Workload workload;
+    private final String runId;
+    private final SplittableRandom random;
+    private final ZipfianSampler accounts;
+    private final AccountModel model;
+    private final long minCents;
+    private final long maxCents;
+    private final long maxLatenessMillis;
+
+    // Accepted events that duplicates are drawn from
+    private final GeneratedEvent[] recent = new GeneratedEvent[RECENT];
+    private long recentCount;
+    private long nextEvent;
+
+    public WorkloadGenerator(LoadTestProperties.Workload workload, String runId, long seed, AccountModel model) {
+        if (workload.minAmount().signum() <= 0 || workload.maxAmount().compareTo(workload.minAmount()) < 0) {
+            throw new IllegalArgumentException("Amounts must satisfy 0 < min-amount <= max-amount");
+        }
+        this.workload = workload;
+        this.runId = runId;
+        this.random = new SplittableRandom(seed);
+        this.accounts = new ZipfianSampler(workload.accounts(), workload.zipfExponent());
+        this.model = model;
+        this.minCents = workload.minAmount().movePointRight(2).longValueExact();
+        this.maxCents = workload.maxAmount().movePointRight(2).longValueExact();
+        this.maxLatenessMillis = Math.max(1, workload.maxLateness().toMillis());
+    }
+
+    public GeneratedEvent next(long nowMillis) {
+        if (random.nextDouble() < workload.duplicateRate()) {
+            GeneratedEvent original = recentlyAccepted();
+            if (original != null) {
+                return original.resend();
+            }
+        }
+        String accountId = accountId(accounts.sample(random));
+        long cents = minCents + random.nextLong(maxCents - minCents + 1);
+        String type = random.nextDouble() < workload.debitRatio() && model.reserveDebit(accountId, cents)
+                ? "debit" : "credit";
+        GeneratedEvent.Kind kind = GeneratedEvent.Kind.NEW;
+        long timestamp = nowMillis;
+        if (random.nextDouble() < workload.outOfOrderRate()) {
+            kind = GeneratedEvent.Kind.LATE;
+            timestamp -= 1 + random.nextLong(maxLatenessMillis);
+        }
+        return new GeneratedEvent(nextEventId(), accountId, type, cents, timestamp, kind);
+    }
+
+    /**
+     * A credit to a probe account, which gets no other events.
+     */
+    public GeneratedEvent probe(int probeAccount, long nowMillis) {
+        return new GeneratedEvent(nextEventId(), "lt-" + runId + "-probe-" + probeAccount, "credit",
+                minCents, nowMillis, GeneratedEvent.Kind.PROBE);
+    }
+
+    public void settled(GeneratedEvent event, AccountModel.Outcome outcome) {
+        model.settle(event, outcome);
+        if (outcome == AccountModel.Outcome.ACCEPTED && event.kind() != GeneratedEvent.Kind.DUPLICATE
+                && event.kind() != GeneratedEvent.Kind.PROBE) {
+            synchronized (recent) {
+                recent[(int) (recentCount++ % RECENT)] = event;
+            }
+        }
+    }
+
+    public String accountId(int rank) {
+        return "lt-" + runId + "-" + rank;
+    }
+
+    private GeneratedEvent recentlyAccepted() {
+        synchronized (recent) {
+            if (recentCount == 0) {
+                return null;
+            }
+            return recent[random.nextInt((int) Math.min(recentCount, RECENT))];
+        }
+    }
+
+    private synchronized String nextEventId() {
+        return "lt-" + runId + "-e" + nextEvent++;
+    }
+}
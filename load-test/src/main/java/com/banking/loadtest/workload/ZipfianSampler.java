@@ -0,0 +1,43 @@
+package com.banking.loadtest.workload;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent, by
+ * binary search over the cumulative weights.
+ */
+public class ZipfianSampler {
+
+    private final double[] cumulative;
+
+    public ZipfianSampler(int items, double exponent) {
+        if (items < 1) {
+            throw new IllegalArgumentException("items must be at least 1");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("exponent must not be negative");
+        }
+        cumulative = new double[items];
+        double sum = 0;
+        for (int rank = 0; rank < items; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+    }
+
+    public int sample(RandomGenerator random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        int found = Arrays.binarySearch(cumulative, point);
+        int rank = found >= 0 ? found : -found - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    /**
+     * Probability of drawing the given rank.
+     */
+    public double probability(int rank) {
+        double weight = cumulative[rank] - (rank > 0 ? cumulative[rank - 1] : 0);
+        return weight / cumulative[cumulative.length - 1];
+    }
+}
@@ -0,0 +1,120 @@
+package com.banking.loadtest;
+
+import com.banking.loadtest.run.LatencySamples;
+import com.banking.loadtest.workload.AccountModel;
+import com.banking.loadtest.workload.GeneratedEvent;
+import com.banking.loadtest.workload.WorkloadGenerator;
+import com.banking.loadtest.workload.ZipfianSampler;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class WorkloadGeneratorTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void testZipfianSamplerFollowsItsDistribution() {
+        ZipfianSampler sampler = new ZipfianSampler(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[1000];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        assertThat(sampler.probability(0)).isCloseTo(0.1336, within(0.001));
+        assertThat(counts[0] / (double) samples).isCloseTo(sampler.probability(0), within(0.005));
+        assertThat(counts[9] / (double) samples).isCloseTo(sampler.probability(9), within(0.002));
+        assertThat(new ZipfianSampler(4, 0).probability(3)).isEqualTo(0.25);
+    }
+
+    @Test
+    void testWorkloadMixMatchesSettings() {
+        AccountModel model = new AccountModel();
+        WorkloadGenerator generator = new WorkloadGenerator(workload(0.4, 0.02, 0.1), "t", 7, model);
+        int events = 50_000;
+        int duplicates = 0;
+        int late = 0;
+        int debits = 0;
+        for (int i = 0; i < events; i++) {
+            GeneratedEvent event = generator.next(NOW);
+            generator.settled(event, event.kind() == GeneratedEvent.Kind.DUPLICATE
+                    ? AccountModel.Outcome.REJECTED : AccountModel.Outcome.ACCEPTED);
+            switch (event.kind()) {
+                case DUPLICATE -> duplicates++;
+                case LATE -> {
+                    late++;
+                    assertThat(event.timestamp()).isBetween(NOW - 30_000, NOW - 1);
+                }
+                default -> assertThat(event.timestamp()).isEqualTo(NOW);
+            }
+            if (event.kind() != GeneratedEvent.Kind.DUPLICATE && event.isDebit()) {
+                debits++;
+            }
+            assertThat(event.cents()).isBetween(100L, 50_000L);
+        }
+
+        assertThat(duplicates / (double) events).isCloseTo(0.02, within(0.005));
+        assertThat(late / (double) (events - duplicates)).isCloseTo(0.1, within(0.01));
+        // A debit the account cannot cover goes out as a credit, so the mix falls a little short
+        assertThat(debits / (double) (events - duplicates)).isBetween(0.3, 0.4);
+        assertThat(model.expectedBalances().values()).allSatisfy(balance -> assertThat(balance).isNotNegative());
+    }
+
+    @Test
+    void testDebitsNeverOutrunAcceptedCredits() {
+        AccountModel model = new AccountModel();
+        WorkloadGenerator generator = new WorkloadGenerator(workload(0.9, 0, 0), "t", 3, model);
+        List<GeneratedEvent> unanswered = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            unanswered.add(generator.next(NOW));
+            // Answers arrive late and some events are turned away
+            if (unanswered.size() == 50) {
+                for (GeneratedEvent event : unanswered) {
+                    generator.settled(event, event.cents() % 3 == 0
+                            ? AccountModel.Outcome.REJECTED : AccountModel.Outcome.ACCEPTED);
+                }
+                unanswered.clear();
+                assertThat(model.expectedBalances().values()).allSatisfy(balance -> assertThat(balance).isNotNegative());
+            }
+        }
+    }
+
+    @Test
+    void testSameSeedGivesSameWorkload() {
+        WorkloadGenerator first = new WorkloadGenerator(workload(0.4, 0, 0.1), "t", 11, new AccountModel());
+        WorkloadGenerator second = new WorkloadGenerator(workload(0.4, 0, 0.1), "t", 11, new AccountModel());
+        for (int i = 0; i < 1000; i++) {
+            assertThat(first.next(NOW)).isEqualTo(second.next(NOW));
+        }
+    }
+
+    @Test
+    void testLatencyPercentilesUseNearestRank() {
+        LatencySamples samples = new LatencySamples();
+        for (int millis = 100; millis >= 1; millis--) {
+            samples.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        LatencySamples.Summary summary = samples.summary();
+        assertThat(summary.count()).isEqualTo(100);
+        assertThat(summary.p50Ms()).isEqualTo(50.0);
+        assertThat(summary.p99Ms()).isEqualTo(99.0);
+        assertThat(summary.p999Ms()).isEqualTo(100.0);
+        assertThat(summary.maxMs()).isEqualTo(100.0);
+    }
+
+    private static LoadTestProperties.Workload workload(double debitRatio, double duplicateRate, double outOfOrderRate) {
+        return new LoadTestProperties.Workload(500, 0.99, debitRatio, new BigDecimal("1.00"), new BigDecimal("500.00"),
+                duplicateRate, outOfOrderRate, Duration.ofSeconds(30));
+    }
+}